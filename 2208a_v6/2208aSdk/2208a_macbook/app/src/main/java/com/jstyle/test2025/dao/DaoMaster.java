@@ -14,10 +14,10 @@ import org.greenrobot.greendao.identityscope.IdentityScopeType;
 
 // THIS CODE IS GENERATED BY greenDAO, DO NOT EDIT.
 /**
- * Master of DAO (schema version 4): knows all DAOs.
+ * Master of DAO (schema version 5): knows all DAOs.
  */
 public class DaoMaster extends AbstractDaoMaster {
-    public static final int SCHEMA_VERSION = 4;
+    public static final int SCHEMA_VERSION = 5;
 
     /** Creates underlying database table using DAOs. */
     public static void createAllTables(Database db, boolean ifNotExists) {
@@ -26,6 +26,7 @@ public class DaoMaster extends AbstractDaoMaster {
         SleepDataDao.createTable(db, ifNotExists);
         StepDataDao.createTable(db, ifNotExists);
         StepDetailDataDao.createTable(db, ifNotExists);
+        SyncWatermarkDao.createTable(db, ifNotExists);
     }
 
     /** Drops underlying database table using DAOs. */
@@ -35,6 +36,7 @@ public class DaoMaster extends AbstractDaoMaster {
         SleepDataDao.dropTable(db, ifExists);
         StepDataDao.dropTable(db, ifExists);
         StepDetailDataDao.dropTable(db, ifExists);
+        SyncWatermarkDao.dropTable(db, ifExists);
     }
 
     /**
@@ -58,6 +60,7 @@ public class DaoMaster extends AbstractDaoMaster {
         registerDaoClass(SleepDataDao.class);
         registerDaoClass(StepDataDao.class);
         registerDaoClass(StepDetailDataDao.class);
+        registerDaoClass(SyncWatermarkDao.class);
     }
 
     public DaoSession newSession() {
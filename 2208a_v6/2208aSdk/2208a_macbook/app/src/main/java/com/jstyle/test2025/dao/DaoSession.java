@@ -13,12 +13,14 @@ import com.jstyle.test2208.model.HeartData;
 import com.jstyle.test2208.model.SleepData;
 import com.jstyle.test2208.model.StepData;
 import com.jstyle.test2208.model.StepDetailData;
+import com.jstyle.test2208.model.SyncWatermark;
 
 import com.jstyle.test2025.dao.EcgHistoryDataDao;
 import com.jstyle.test2025.dao.HeartDataDao;
 import com.jstyle.test2025.dao.SleepDataDao;
 import com.jstyle.test2025.dao.StepDataDao;
 import com.jstyle.test2025.dao.StepDetailDataDao;
+import com.jstyle.test2025.dao.SyncWatermarkDao;
 
 // THIS CODE IS GENERATED BY greenDAO, DO NOT EDIT.
 
@@ -34,12 +36,14 @@ public class DaoSession extends AbstractDaoSession {
     private final DaoConfig sleepDataDaoConfig;
     private final DaoConfig stepDataDaoConfig;
     private final DaoConfig stepDetailDataDaoConfig;
+    private final DaoConfig syncWatermarkDaoConfig;
 
     private final EcgHistoryDataDao ecgHistoryDataDao;
     private final HeartDataDao heartDataDao;
     private final SleepDataDao sleepDataDao;
     private final StepDataDao stepDataDao;
     private final StepDetailDataDao stepDetailDataDao;
+    private final SyncWatermarkDao syncWatermarkDao;
 
     public DaoSession(Database db, IdentityScopeType type, Map<Class<? extends AbstractDao<?, ?>>, DaoConfig>
             daoConfigMap) {
@@ -60,17 +64,22 @@ public class DaoSession extends AbstractDaoSession {
         stepDetailDataDaoConfig = daoConfigMap.get(StepDetailDataDao.class).clone();
         stepDetailDataDaoConfig.initIdentityScope(type);
 
+        syncWatermarkDaoConfig = daoConfigMap.get(SyncWatermarkDao.class).clone();
+        syncWatermarkDaoConfig.initIdentityScope(type);
+
         ecgHistoryDataDao = new EcgHistoryDataDao(ecgHistoryDataDaoConfig, this);
         heartDataDao = new HeartDataDao(heartDataDaoConfig, this);
         sleepDataDao = new SleepDataDao(sleepDataDaoConfig, this);
         stepDataDao = new StepDataDao(stepDataDaoConfig, this);
         stepDetailDataDao = new StepDetailDataDao(stepDetailDataDaoConfig, this);
+        syncWatermarkDao = new SyncWatermarkDao(syncWatermarkDaoConfig, this);
 
         registerDao(EcgHistoryData.class, ecgHistoryDataDao);
         registerDao(HeartData.class, heartDataDao);
         registerDao(SleepData.class, sleepDataDao);
         registerDao(StepData.class, stepDataDao);
         registerDao(StepDetailData.class, stepDetailDataDao);
+        registerDao(SyncWatermark.class, syncWatermarkDao);
     }
     
     public void clear() {
@@ -79,6 +88,7 @@ public class DaoSession extends AbstractDaoSession {
         sleepDataDaoConfig.clearIdentityScope();
         stepDataDaoConfig.clearIdentityScope();
         stepDetailDataDaoConfig.clearIdentityScope();
+        syncWatermarkDaoConfig.clearIdentityScope();
     }
 
     public EcgHistoryDataDao getEcgHistoryDataDao() {
@@ -101,4 +111,8 @@ public class DaoSession extends AbstractDaoSession {
         return stepDetailDataDao;
     }
 
+    public SyncWatermarkDao getSyncWatermarkDao() {
+        return syncWatermarkDao;
+    }
+
 }
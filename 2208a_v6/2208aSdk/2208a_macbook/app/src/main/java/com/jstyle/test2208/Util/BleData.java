@@ -8,6 +8,8 @@ public class BleData{
     byte[]value;
     String action;
     String data;
+    String address;
+    long time;
 
     public String getData() {
         return data;
@@ -17,6 +19,28 @@ public class BleData{
         this.data = data;
     }
 
+    /**
+     * 数据来自哪个手环
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    /**
+     * 发出时的System.nanoTime()，用于统计交给解析线程的耗时
+     */
+    public long getTime() {
+        return time;
+    }
+
+    public void setTime(long time) {
+        this.time = time;
+    }
+
     public String getAction() {
         return action;
     }
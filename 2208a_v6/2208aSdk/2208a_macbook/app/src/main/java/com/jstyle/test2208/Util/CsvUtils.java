@@ -170,9 +170,8 @@ public class CsvUtils {
         try {
             long startTime=format.parse(startDate).getTime();
             for (int i = 0; i < size; i++) {
-                String date = getCountTime(i, startTime);
                 CsvModel csvModel = new CsvModel();
-                csvModel.setDate(date);
+                csvModel.setTime(startTime + i * oneMinMillis);
                 hashMap.put(i, csvModel);
 
             }
@@ -225,6 +224,11 @@ public class CsvUtils {
     }
 
     public static int get1MIndex(String time, String defaultTime) {
+        long fastDate = DateUtil.parseDate(time, false);
+        long fastBase = DateUtil.parseDate(defaultTime, true);
+        if (fastDate != DateUtil.INVALID_DATE && fastBase != DateUtil.INVALID_DATE) {
+            return (int) ((fastBase - fastDate) / oneMinMillis);
+        }
         SimpleDateFormat format = new SimpleDateFormat("yy.MM.dd HH:mm:ss");
         int count = 0;
         try {
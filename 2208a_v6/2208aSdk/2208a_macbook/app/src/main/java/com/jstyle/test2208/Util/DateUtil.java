@@ -2,6 +2,7 @@ package com.jstyle.test2208.Util;
 
 import android.content.Context;
 
+import com.jstyle.blesdk2208a.Util.TimestampCodec;
 
 
 import java.text.NumberFormat;
@@ -29,6 +30,8 @@ public class DateUtil {
     public static final int next_month = 1;
     public static final int nextWeek = 326;
     public static final int lastWeek = 396;
+    static final long INVALID_DATE = Long.MIN_VALUE;
+    private static final TimestampCodec timestampCodec = new TimestampCodec(format.getTimeZone());
 
 
     /**
@@ -94,7 +97,8 @@ public class DateUtil {
      * @return
      */
     public static synchronized long getDateLong(String date) {
-
+        long fast = parseDate(date, false);
+        if (fast != INVALID_DATE) return fast;
         long time = 0;
         try {
             Date dates = defaultFormat.parse(date);
@@ -105,7 +109,8 @@ public class DateUtil {
         return time;
     }
     public static synchronized long getGpsDateLong(String date) {
-
+        long fast = parseDate(date, true);
+        if (fast != INVALID_DATE) return fast;
         long time = 0;
         try {
             Date dates = format.parse(date);
@@ -116,6 +121,51 @@ public class DateUtil {
         return time;
     }
 
+    /**
+     * 直接解析 yy.MM.dd 和 yy.MM.dd HH:mm:ss (年份可以是4位，与SDK返回的日期一致)，
+     * 同一天的零点只计算一次
+     * @return INVALID_DATE 格式不符，调用方再用SimpleDateFormat解析
+     */
+    static synchronized long parseDate(String date, boolean withTime) {
+        if (date == null) return INVALID_DATE;
+        int length = date.length();
+        int index;
+        int year;
+        if (length == (withTime ? 17 : 8)) {
+            year = getTwoDigits(date, 0);
+            if (year < 0 || year >= 40) return INVALID_DATE;//两位年份超出范围时交给SimpleDateFormat
+            year += 2000;
+            index = 2;
+        } else if (length == (withTime ? 19 : 10)) {
+            int century = getTwoDigits(date, 0);
+            year = getTwoDigits(date, 2);
+            if (century < 0 || year < 0) return INVALID_DATE;
+            year += century * 100;
+            index = 4;
+        } else {
+            return INVALID_DATE;
+        }
+        if (date.charAt(index) != '.' || date.charAt(index + 3) != '.') return INVALID_DATE;
+        int month = getTwoDigits(date, index + 1);
+        int day = getTwoDigits(date, index + 4);
+        if (month < 1 || month > 12 || day < 1 || day > 31) return INVALID_DATE;
+        if (!withTime) return timestampCodec.getMidnight(year, month, day);
+        index += 6;
+        if (date.charAt(index) != ' ' || date.charAt(index + 3) != ':' || date.charAt(index + 6) != ':') return INVALID_DATE;
+        int hour = getTwoDigits(date, index + 1);
+        int minute = getTwoDigits(date, index + 4);
+        int second = getTwoDigits(date, index + 7);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) return INVALID_DATE;
+        return timestampCodec.toEpoch(year, month, day, hour, minute, second);
+    }
+
+    private static int getTwoDigits(String date, int index) {
+        int high = date.charAt(index) - '0';
+        int low = date.charAt(index + 1) - '0';
+        if (high < 0 || high > 9 || low < 0 || low > 9) return -1;
+        return high * 10 + low;
+    }
+
     /**字符串转date
      * @param dateString
      * @return
@@ -173,6 +223,11 @@ public class DateUtil {
      * @return
      */
     public static int get1MIndex(String time, String defaultTime) {
+        long fastDate = parseDate(time, true);
+        long fastBase = parseDate(defaultTime, true);
+        if (fastDate != INVALID_DATE && fastBase != INVALID_DATE) {
+            return (int) ((fastDate - fastBase) / oneMinMillis);
+        }
         SimpleDateFormat format = new SimpleDateFormat("yy.MM.dd HH:mm:ss");
         int count = 0;
         try {
@@ -186,6 +241,11 @@ public class DateUtil {
         return count;
     }
     public static int get1SIndex(String time, String defaultTime) {
+        long fastDate = parseDate(time, true);
+        long fastBase = parseDate(defaultTime, true);
+        if (fastDate != INVALID_DATE && fastBase != INVALID_DATE) {
+            return (int) ((fastDate - fastBase) / 1000l);
+        }
         SimpleDateFormat format = new SimpleDateFormat("yy.MM.dd HH:mm:ss");
         int count = 0;
         try {
@@ -199,6 +259,11 @@ public class DateUtil {
         return count;
     }
     public static int get5MIndex(String time, String defaultTime) {
+        long fastDate = parseDate(time, true);
+        long fastBase = parseDate(defaultTime, true);
+        if (fastDate != INVALID_DATE && fastBase != INVALID_DATE) {
+            return (int) ((fastDate - fastBase) / (oneMinMillis*5));
+        }
         SimpleDateFormat format = new SimpleDateFormat("yy.MM.dd HH:mm:ss");
         int count = 0;
         try {
@@ -212,6 +277,11 @@ public class DateUtil {
         return count;
     }
     public static int getMIndex(String time, String defaultTime, int countMIN) {
+        long fastDate = parseDate(time, true);
+        long fastBase = parseDate(defaultTime, true);
+        if (fastDate != INVALID_DATE && fastBase != INVALID_DATE) {
+            return (int) ((fastDate - fastBase) / (oneMinMillis*countMIN));
+        }
         SimpleDateFormat format = new SimpleDateFormat("yy.MM.dd HH:mm:ss");
         int count = 0;
         try {
@@ -231,6 +301,8 @@ public class DateUtil {
 
     private static final String TAG = "DateUtil";
     public  synchronized static long getDefaultLongMi(String defaultTime){
+        long fast = parseDate(defaultTime, true);
+        if (fast != INVALID_DATE) return fast;
         Date date=new Date();
       //  SimpleDateFormat format = new SimpleDateFormat("yy.MM.dd HH:mm:ss");
      //   Log.i(TAG, "getDefaultLongMi: "+defaultTime);
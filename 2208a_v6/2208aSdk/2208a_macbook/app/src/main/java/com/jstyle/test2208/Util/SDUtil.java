@@ -10,10 +10,7 @@ import android.support.v4.content.FileProvider;
 import com.jstyle.test2208.BuildConfig;
 import com.jstyle.test2208.Myapp;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
@@ -69,43 +66,6 @@ public class SDUtil {
 			}
 		}
 	}
-	/**
-	 * 保存蓝牙命令log（测试用�?
-	 * 
-	 * @param fileName
-	 * @param content
-	 */
-	public static void saveBTLog(String fileName, String content) {
-		if (content == null || fileName == null)
-			return;
-		// 不存在则创建目录
-		File dir = new File(log);
-		if (!dir.exists()) {
-			dir.mkdirs();
-		}
-		String rFileName = log+fileName+".txt";
-		File file = new File(rFileName);
-		if (!file.exists()){
-			try {
-				file.createNewFile();
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
-		}
-		OutputStreamWriter os = null;
-		try {
-			os = new OutputStreamWriter(new FileOutputStream(file,true)) ;
-			os.write("\r\n"+content);
-			os.flush();
-			os.close();
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
-		} catch (IOException e) {
-			e.printStackTrace();
-		} 
-	}
-
-
 	/**
 	 * 文件分享
 	 *
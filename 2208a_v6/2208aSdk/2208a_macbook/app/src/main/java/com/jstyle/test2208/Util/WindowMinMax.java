@@ -0,0 +1,78 @@
+package com.jstyle.test2208.Util;
+
+/**
+ * 滑动窗口的最大最小值
+ * Minimum and maximum of the last {@code size} values added, kept in two monotonic
+ * deques of values and sample indexes. Every value enters and leaves each deque at
+ * most once, so add() is O(1) amortised and the window is never rescanned.
+ * Not thread safe.
+ */
+
+public class WindowMinMax {
+    private final int size;
+    private final float[] minValues;
+    private final long[] minIndexes;
+    private final float[] maxValues;
+    private final long[] maxIndexes;
+    private int minHead;
+    private int minCount;
+    private int maxHead;
+    private int maxCount;
+    private long index;
+
+    public WindowMinMax(int size) {
+        this.size = Math.max(1, size);
+        minValues = new float[this.size];
+        minIndexes = new long[this.size];
+        maxValues = new float[this.size];
+        maxIndexes = new long[this.size];
+    }
+
+    public void add(float value) {
+        long oldest = index - size + 1;
+        //移出窗口的值在队头
+        while (minCount > 0 && minIndexes[minHead] < oldest) {
+            minHead = (minHead + 1) % size;
+            minCount--;
+        }
+        while (maxCount > 0 && maxIndexes[maxHead] < oldest) {
+            maxHead = (maxHead + 1) % size;
+            maxCount--;
+        }
+        //新值之前不会再成为最值的去掉
+        while (minCount > 0 && minValues[(minHead + minCount - 1) % size] >= value) minCount--;
+        while (maxCount > 0 && maxValues[(maxHead + maxCount - 1) % size] <= value) maxCount--;
+        int minTail = (minHead + minCount) % size;
+        minValues[minTail] = value;
+        minIndexes[minTail] = index;
+        minCount++;
+        int maxTail = (maxHead + maxCount) % size;
+        maxValues[maxTail] = value;
+        maxIndexes[maxTail] = index;
+        maxCount++;
+        index++;
+    }
+
+    public boolean isEmpty() {
+        return minCount == 0;
+    }
+
+    /**
+     * 窗口为空时返回0
+     */
+    public float getMin() {
+        return minCount == 0 ? 0 : minValues[minHead];
+    }
+
+    public float getMax() {
+        return maxCount == 0 ? 0 : maxValues[maxHead];
+    }
+
+    public void clear() {
+        minHead = 0;
+        minCount = 0;
+        maxHead = 0;
+        maxCount = 0;
+        index = 0;
+    }
+}
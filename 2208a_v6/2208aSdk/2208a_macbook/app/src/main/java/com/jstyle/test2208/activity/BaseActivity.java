@@ -7,22 +7,31 @@ import android.support.v7.app.AlertDialog;
 import android.support.v7.app.AppCompatActivity;
 import android.widget.Toast;
 
-import com.jstyle.blesdk2208a.Util.BleSDK;
 import com.jstyle.blesdk2208a.callback.DataListener2025;
+import com.jstyle.blesdk2208a.callback.GpsListener2025;
+import com.jstyle.blesdk2208a.callback.RawSensorListener2025;
+import com.jstyle.blesdk2208a.callback.WaveformListener2025;
+import com.jstyle.blesdk2208a.constant.DeviceConst;
 import com.jstyle.blesdk2208a.constant.DeviceKey;
+import com.jstyle.blesdk2208a.model.RawSensorBatch;
 import com.jstyle.test2208.R;
-import com.jstyle.test2208.Util.BleData;
-import com.jstyle.test2208.Util.RxBus;
+import com.jstyle.test2208.ble.BleEvents;
 import com.jstyle.test2208.ble.BleManager;
-import com.jstyle.test2208.ble.BleService;
+import com.jstyle.test2208.ble.RequestManager;
+import com.jstyle.test2208.ble.SampleWindow;
+import com.jstyle.test2208.ble.SyncEngine;
 
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import io.reactivex.Flowable;
 import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.functions.Consumer;
-import io.reactivex.schedulers.Schedulers;
+import io.reactivex.functions.Predicate;
 
 /**
  * Created by Administrator on 2018/4/26.
@@ -30,7 +39,7 @@ import io.reactivex.schedulers.Schedulers;
 
 public  class BaseActivity extends AppCompatActivity implements DataListener2025 {
 
-    private Disposable subscription;
+    private final CompositeDisposable subscriptions=new CompositeDisposable();
     private ProgressDialog progressDialog;
 
     @Override
@@ -39,24 +48,95 @@ public  class BaseActivity extends AppCompatActivity implements DataListener2025
         subscribe();
     }
 
+    /**
+     * 只订阅本页面用到的事件，数据已在BleEvents中解析
+     * Maps go to dataCallback, the typed channels only to the activities that implement
+     * their listener, raw 0x3B frames only to RawSensorListener2025 and in windows
+     * like the realtime samples (see SampleWindow). Every channel switches to the main
+     * thread on its own, so callbacks of different channels are not ordered
+     */
     protected void subscribe(){
-        subscription = RxBus.getInstance().toObservable(BleData.class).subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread()).subscribe(new Consumer<BleData>() {
+        BleEvents events=BleEvents.getInstance();
+        Consumer<Map<String, Object>> records=new Consumer<Map<String, Object>>() {
             @Override
-            public void accept(BleData bleData) throws Exception {
-                String action = bleData.getAction();
-                if (action.equals(BleService.ACTION_DATA_AVAILABLE)) {
-                    byte[]value=bleData.getValue();
-                    if((byte)0x3b==value[0]){
-                        on3bBind(value);
-                    }else{
-                        BleSDK.DataParsingWithData(value,BaseActivity.this);
+            public void accept(Map<String, Object> maps) throws Exception {
+                dataCallback(maps);
+            }
+        };
+        subscriptions.add(events.acks().observeOn(AndroidSchedulers.mainThread()).subscribe(records));
+        subscriptions.add(events.historyPages().observeOn(AndroidSchedulers.mainThread()).subscribe(records));
+        //只保留最新的实时计步，主线程每次只取一个
+        subscriptions.add(events.realtimeSteps().observeOn(AndroidSchedulers.mainThread(),false,1).subscribe(records));
+        subscriptions.add(events.rawFrames().filter(new Predicate<byte[]>() {
+            @Override
+            public boolean test(byte[] value) throws Exception {
+                return value[0]!=DeviceConst.PPGSensor;
+            }
+        }).observeOn(AndroidSchedulers.mainThread()).subscribe(new Consumer<byte[]>() {
+            @Override
+            public void accept(byte[] value) throws Exception {
+                dataCallback(value);
+            }
+        }));
+        final boolean rawSensor=this instanceof RawSensorListener2025;
+        if(rawSensor){
+            final RawSensorListener2025 listener=(RawSensorListener2025)this;
+            subscriptions.add(events.rawSensorBatches(wantsReplay()).observeOn(AndroidSchedulers.mainThread()).subscribe(new Consumer<RawSensorBatch>() {
+                @Override
+                public void accept(RawSensorBatch batch) throws Exception {
+                    listener.onRawSensorBatch(batch);
+                }
+            }));
+            //0x3B原始包按窗口 (40毫秒或64包) 合并后再切到主线程
+            subscriptions.add(events.rawFrames().filter(new Predicate<byte[]>() {
+                @Override
+                public boolean test(byte[] value) throws Exception {
+                    return value[0]==DeviceConst.PPGSensor;
+                }
+            }).buffer(SampleWindow.DEFAULT_WINDOW_MILLIS,TimeUnit.MILLISECONDS,SampleWindow.DEFAULT_MAX_SAMPLES).filter(new Predicate<List<byte[]>>() {
+                @Override
+                public boolean test(List<byte[]> frames) throws Exception {
+                    return !frames.isEmpty();
+                }
+            }).observeOn(AndroidSchedulers.mainThread()).subscribe(new Consumer<List<byte[]>>() {
+                @Override
+                public void accept(List<byte[]> frames) throws Exception {
+                    for(int i=0;i<frames.size();i++){
+                        on3bBind(frames.get(i));
                     }
                 }
-
-            }
-        });
+            }));
+        }
+        if(this instanceof WaveformListener2025){
+            final WaveformListener2025 listener=(WaveformListener2025)this;
+            subscriptions.add(events.waveforms(wantsReplay()).observeOn(AndroidSchedulers.mainThread()).subscribe(new Consumer<BleEvents.Waveform>() {
+                @Override
+                public void accept(BleEvents.Waveform waveform) throws Exception {
+                    waveform.dispatch(listener);
+                }
+            }));
+        }
+        if(this instanceof GpsListener2025){
+            final GpsListener2025 listener=(GpsListener2025)this;
+            subscriptions.add(events.gpsPages().observeOn(AndroidSchedulers.mainThread()).subscribe(new Consumer<BleEvents.GpsPage>() {
+                @Override
+                public void accept(BleEvents.GpsPage page) throws Exception {
+                    listener.onGpsTrack(page.getTrack(), page.isEnd());
+                }
+            }));
+        }
     }
     protected void on3bBind( byte[]value) { }
+
+    /**
+     * 订阅波形和原始数据时是否先收到最近30秒的数据，默认不要
+     * Screens that turn it on must keep the replayed data out of algorithms and
+     * recordings: replayed waveforms have sequenceId BleEvents.REPLAY_SEQUENCE_ID,
+     * a replayed raw batch is recognised by BleEvents.isReplay
+     */
+    protected boolean wantsReplay(){
+        return false;
+    }
     protected void unSubscribe(Disposable disposable) {
         if (disposable != null && !disposable.isDisposed()) {
             disposable.dispose();
@@ -66,7 +146,7 @@ public  class BaseActivity extends AppCompatActivity implements DataListener2025
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        unSubscribe(subscription);
+        subscriptions.dispose();
     }
 
     @Override
@@ -93,6 +173,28 @@ public  class BaseActivity extends AppCompatActivity implements DataListener2025
         if(value==null)return;
        BleManager.getInstance().writeValue(value);
     }
+    /**
+     * 读取全部历史数据，自动发送ModeContinue，在主线程回调
+     * Read all pages of a history record type, the callbacks run on the main thread
+     */
+    protected Flowable<Map<String, Object>> readHistory(RequestManager.HistoryCommand command){
+        if(!BleManager.getInstance().isConnected()){
+            showToast(getString(R.string.pair_device));
+            return Flowable.empty();
+        }
+        return BleManager.getInstance().readHistory(command).observeOn(AndroidSchedulers.mainThread());
+    }
+    /**
+     * 按计划同步历史数据，进度在主线程回调
+     * Sync the history types of a plan, see SyncEngine
+     */
+    protected Flowable<SyncEngine.Progress> sync(SyncEngine.Plan plan){
+        if(!BleManager.getInstance().isConnected()){
+            showToast(getString(R.string.pair_device));
+            return Flowable.empty();
+        }
+        return SyncEngine.getInstance().sync(plan).observeOn(AndroidSchedulers.mainThread());
+    }
     protected void showToast(String text){
         Toast.makeText(this,text,Toast.LENGTH_SHORT).show();
     }
@@ -8,15 +8,19 @@ import android.view.View;
 
 import com.jstyle.blesdk2208a.Util.BleSDK;
 import com.jstyle.blesdk2208a.constant.BleConst;
-import com.jstyle.blesdk2208a.constant.DeviceKey;
 import com.jstyle.test2208.R;
 import com.jstyle.test2208.adapter.DetailDataAdapter;
+import com.jstyle.test2208.ble.HistorySteps;
+import com.jstyle.test2208.ble.SyncEngine;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import butterknife.BindView;
 import butterknife.ButterKnife;
 import butterknife.OnClick;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
 
 /**
  * 睡眠历史数据 （sleep history data）
@@ -45,16 +49,13 @@ public class DetailSleepActivity extends BaseActivity {
 
     }
 
-    byte ModeStart=0x00;       //开始获取数据 start getting data
-    byte ModeContinue=0x02;    //继续读取数据 continue reading data
     byte ModeDelete=(byte) 0x99;//删除数据  delete data
     @OnClick({R.id.bt_readData, R.id.bt_DeleteData})
     public void onViewClicked(View view) {
         switch (view.getId()) {
             case R.id.bt_readData://获取睡眠历史数据 Get sleep history data
                 list.clear();
-                dataCount=0;
-                getDetailData(ModeStart);
+                readSleepData();
                 break;
             case R.id.bt_DeleteData://删除睡眠历史数据 Delete sleep history data
                 list.clear();
@@ -64,32 +65,13 @@ public class DetailSleepActivity extends BaseActivity {
         }
     }
     List<Map<String,String>>list=new ArrayList<>();
-    int dataCount=0;
+    private Disposable historyDisposable;
     private static final String TAG = "DetailDataActivity";
     @Override
     public void dataCallback(Map<String, Object> maps) {
         super.dataCallback(maps);
         String dataType= getDataType(maps);
-        boolean finish=getEnd(maps);
         switch (dataType){
-            case BleConst.GetDetailSleepData://睡眠数据返回字段 Sleep data return field
-                list.addAll((List<Map<String,String>>)maps.get(DeviceKey.Data));
-                dataCount++;
-                if(finish){
-                    disMissProgressDialog();
-                    detailDataAdapter.setData(list,DetailDataAdapter.GET_SLEEP_DETAIL);
-                }
-                if(dataCount==50){
-                    dataCount=0;
-                    if(finish){
-                        disMissProgressDialog();
-                        detailDataAdapter.setData(list,DetailDataAdapter.GET_SLEEP_DETAIL);
-                    }else{
-                        getDetailData(ModeContinue);
-                    }
-                }
-                break;
-
             case BleConst.Delete_GetDetailSleepData://删除睡眠数据后返回字段 Return field after deleting sleep data
                 showDialogInfo(maps.toString());
                 disMissProgressDialog();
@@ -97,6 +79,52 @@ public class DetailSleepActivity extends BaseActivity {
         }
 
     }
+
+    /**
+     * 由SyncEngine读取，每50包的继续读取由RequestManager发送
+     * ModeContinue is sent by RequestManager after every 50 packets
+     */
+    private void readSleepData(){
+        unSubscribe(historyDisposable);
+        showProgressDialog("Synchronous Data");//同步数据
+        final List<Map<String,String>> records=new ArrayList<>();
+        SyncEngine.Plan plan=new SyncEngine.Plan().add(HistorySteps.history(BleConst.GetDetailSleepData, new HistorySteps.HistoryQuery() {
+            @Override
+            public byte[] build(byte mode, String since) {
+                return BleSDK.GetDetailSleepDataWithMode(mode,since);//发送命令给设备 send command to device
+            }
+        }, new SyncEngine.Sink<Map<String, Object>>() {
+            @Override
+            public void save(Map<String, Object> page) throws Exception {
+                records.addAll(HistorySteps.getRecords(page));//睡眠数据返回字段 Sleep data return field
+            }
+        }));
+        historyDisposable=sync(plan).subscribe(new Consumer<SyncEngine.Progress>() {
+            @Override
+            public void accept(SyncEngine.Progress progress) throws Exception {
+            }
+        }, new Consumer<Throwable>() {
+            @Override
+            public void accept(Throwable throwable) throws Exception {
+                disMissProgressDialog();
+                showToast(throwable.getMessage());
+            }
+        }, new Action() {
+            @Override
+            public void run() throws Exception {
+                disMissProgressDialog();
+                list.addAll(records);
+                detailDataAdapter.setData(list,DetailDataAdapter.GET_SLEEP_DETAIL);
+            }
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        unSubscribe(historyDisposable);
+    }
+
     private void getDetailData(byte mode){
         showProgressDialog("Synchronous Data");//同步数据
         /**
@@ -28,7 +28,6 @@ import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.support.v7.app.AppCompatActivity;
-import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuItem;
@@ -41,10 +40,11 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 
+import com.jstyle.blesdk2208a.model.Device;
 import com.jstyle.blesdk2208a.model.ExtendedBluetoothDevice;
 import com.jstyle.test2208.R;
 import com.jstyle.test2208.Util.PermissionsUtil;
-import com.jstyle.test2208.Util.ResolveData;
+import com.jstyle.test2208.ble.BleManager;
 
 
 import java.io.File;
@@ -58,6 +58,8 @@ import java.util.Set;
 
 import butterknife.BindView;
 import butterknife.ButterKnife;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
 
 /**
  * Activity for scanning and displaying available Bluetooth LE devices.
@@ -198,7 +200,6 @@ public class DeviceScanActivity extends AppCompatActivity implements Permissions
         listView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
             @Override
             public void onItemClick(AdapterView<?> adapterView, View view, int position, long l) {
-                mBluetoothAdapter.stopLeScan(mLeScanCallback);
                 final BluetoothDevice device = mLeDeviceListAdapter.getDevice(position);
                 if (device == null)
                     return;
@@ -330,26 +331,54 @@ public class DeviceScanActivity extends AppCompatActivity implements Permissions
 
     private boolean ss(boolean enable) {
         if (enable) {
+            if (mScanning) return false;
             mHandler.postDelayed(new Runnable() {
                 @Override
                 public void run() {
-                    mBluetoothAdapter.stopLeScan(mLeScanCallback);
+                    stopScanDisposable();
                     mScanning = false;
                     invalidateOptionsMenu();
                 }
             }, 12000);
-            mBluetoothAdapter.startLeScan(mLeScanCallback);
-            //	mBluetoothAdapter.startLeScan(serviceUuids, mLeScanCallback);
+            //控制器批量上报，按MAC去重，列表定时刷新
+            scanDisposable = BleManager.getInstance().scanDevices().subscribe(new Consumer<List<Device>>() {
+                @Override
+                public void accept(List<Device> devices) throws Exception {
+                    for (int i = 0; i < devices.size(); i++) {
+                        Device device = devices.get(i);
+                        addDevice(device.getBluetoothDevice(), device.getName(), device.getRiss());
+                        if (device.getRiss() > filterRssi) {
+                            mLeDeviceListAdapter.addDevice(device.getBluetoothDevice(), device.getName(), device.getRiss());
+                        }
+                    }
+                    mLeDeviceListAdapter.notifyDataSetChanged();
+                }
+            }, new Consumer<Throwable>() {
+                @Override
+                public void accept(Throwable throwable) throws Exception {
+                    mHandler.removeCallbacksAndMessages(null);
+                    mScanning = false;
+                    invalidateOptionsMenu();
+                }
+            });
             mScanning = true;
         } else {
             if (!mScanning) return true;
-            mBluetoothAdapter.stopLeScan(mLeScanCallback);
+            stopScanDisposable();
             mHandler.removeCallbacksAndMessages(null);
             mScanning = false;
         }
         return false;
     }
 
+    private Disposable scanDisposable;
+
+    private void stopScanDisposable() {
+        if (scanDisposable != null && !scanDisposable.isDisposed()) {
+            scanDisposable.dispose();
+        }
+    }
+
     int filterRssi = -100;
     private List<ExtendedBluetoothDevice> extendedBluetoothDevices = new ArrayList<>();
 
@@ -501,37 +530,6 @@ public class DeviceScanActivity extends AppCompatActivity implements Permissions
     }
 
 
-    // Device scan callback.
-
-    private BluetoothAdapter.LeScanCallback mLeScanCallback = new BluetoothAdapter.LeScanCallback() {
-
-        @Override
-        public void onLeScan(final BluetoothDevice device, final int rssi,
-                             final byte[] scanRecord) {
-            runOnUiThread(new Runnable() {
-                @Override
-                public void run() {
-                    String deviceName = device.getName();
-                    if (TextUtils.isEmpty(deviceName)) {
-                        deviceName = ResolveData.decodeDeviceName(scanRecord);
-                    }
-                    /*if(!TextUtils.isEmpty(deviceName)&&deviceName.toLowerCase().contains("2208")){*/
-                        addDevice(device, deviceName, rssi);
-                        //if (TextUtils.isEmpty(filterName) || deviceName.toLowerCase().contains(filterName)) {
-                        if (rssi > filterRssi) {
-                            mLeDeviceListAdapter.addDevice(device, deviceName, rssi);
-                            mLeDeviceListAdapter.notifyDataSetChanged();
-                        }
-                    /*}*/
-
-                    // }
-
-
-                }
-            });
-        }
-    };
-
     static class ViewHolder {
         TextView deviceName;
         TextView deviceAddress;
@@ -12,12 +12,14 @@ import android.widget.RadioGroup;
 import android.widget.TextView;
 import com.jstyle.blesdk2208a.Util.BleSDK;
 import com.jstyle.blesdk2208a.Util.ResolveUtil;
+import com.jstyle.blesdk2208a.callback.WaveformListener2025;
 import com.jstyle.blesdk2208a.constant.BleConst;
 import com.jstyle.blesdk2208a.constant.DeviceConst;
 import com.jstyle.blesdk2208a.constant.DeviceKey;
 import com.jstyle.test2208.R;
 import com.jstyle.test2208.Util.ChartDataUtil;
 import com.jstyle.test2208.Util.PermissionsUtil;
+import com.jstyle.test2208.ble.BleEvents;
 import com.neurosky.AlgoSdk.NskAlgoDataType;
 import com.neurosky.AlgoSdk.NskAlgoECGValueType;
 import com.neurosky.AlgoSdk.NskAlgoProfile;
@@ -31,6 +33,7 @@ import java.io.InputStreamReader;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -44,7 +47,7 @@ import lecho.lib.hellocharts.view.LineChartView;
 /**
  * ECG PPG 测量 （ECG PPG measurement）
  */
-public class EcgActivity extends BaseActivity {
+public class EcgActivity extends BaseActivity implements WaveformListener2025 {
     private static final String TAG = "EcgActivity";
     @BindView(R.id.heartValue)
     TextView heartValue;
@@ -64,6 +67,11 @@ public class EcgActivity extends BaseActivity {
     int raw_data_index = 0;
     private int handStatus;
     Disposable ppgDisposable;
+    private final short[] ecgSample = new short[1];
+    /**
+     * 回放的最近30秒ECG，init后画出来
+     */
+    private short[] replayedEcg;
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -102,6 +110,12 @@ public class EcgActivity extends BaseActivity {
 
 
     }
+
+    @Override
+    protected boolean wantsReplay() {
+        return true;
+    }
+
     private NskAlgoSdk nskAlgoSdk;
     private void init() {
         queueEcg.clear();
@@ -138,10 +152,22 @@ public class EcgActivity extends BaseActivity {
         setAlgos();
         nskAlgoSdk.NskAlgoStart(false);
          ChartDataUtil.initDataChartView(lineChartView_ecg, 0, 8000, 1536, -8000);
+        drawReplayedEcg();
         lineChartView_ecg.setLineChartData(ChartDataUtil.getEcgLineChartData(EcgActivity.this, queueEcg, Color.RED, 4, index));
 
     }
 
+    /**
+     * 回放的数据只画最后一屏，不经过算法
+     */
+    private void drawReplayedEcg() {
+        if (replayedEcg == null) return;
+        for (int i = Math.max(0, replayedEcg.length - 1536); i < replayedEcg.length; i++) {
+            queueEcg.add((double) -replayedEcg[i]);
+        }
+        replayedEcg = null;
+    }
+
     private int MeasureTimes = 90;
 
     @OnClick({R.id.open,R.id.close})
@@ -160,42 +186,66 @@ public class EcgActivity extends BaseActivity {
 
     @Override
     public void dataCallback(byte[] value) {
-        switch (value[0]) {
-            case DeviceConst.CMD_ECGDATA://ecg 实时数据返回 ECG real-time data return
-                if (raw_data_index == 0 || raw_data_index % 200 == 0) {
-                    // send the good signal for every half second
-                    short pqValue[] = {(short) 200};
-                    nskAlgoSdk.NskAlgoDataStream(NskAlgoDataType.NSK_ALGO_DATA_TYPE_ECG_PQ, pqValue, 1);
-                }
-                Log.e("jdjdjdj", value.length+"");
-                for (int i = 0; i < value.length / 2 - 1; i++) {
-                    int ecgValueAction = ResolveUtil.getValue(value[i * 2 + 1], 1) + ResolveUtil.getValue(value[i * 2 + 2], 0);
-                    if (ecgValueAction >= 32768) ecgValueAction = ecgValueAction - 65536;
-                    raw_data_index++;
-                    short[] ecgData = new short[]{(short) -ecgValueAction};
-                    nskAlgoSdk.NskAlgoDataStream(NskAlgoDataType.NSK_ALGO_DATA_TYPE_ECG, ecgData, 1);//this
-                }
-                break;
-            case  DeviceConst.CMD_PPGGDATA://PPG 实时数据返回 PPG real-time data return
-                double maxPPG = 0;
-                double minPPg = 33000;
-                for (int i = 0; i < value.length / 2 - 1; i++) {
-                    float ppgValue = ResolveUtil.getValue(value[i * 2 + 1], 1) + ResolveUtil.getValue(value[i * 2 + 2], 0);
-                    if (ppgValue >= 32768) ppgValue = ppgValue - 65536;
-                    if (queuePpg.size() > 600) queuePpg.remove(0);
-                    ppgValue=ppgValue*(handStatus*2-1);
-                    queuePpg.add(ppgValue);
-                    maxPPG = Math.max(maxPPG, ppgValue);
-                    minPPg = Math.min(minPPg, ppgValue);
-                }
-                break;
-            case DeviceConst.CMD_Get_DeviceInfo:
-                 handStatus = ResolveUtil.getValue(value[4], 0);//1左手，0右手
-                 init();
-                break;
+        if (value[0] == DeviceConst.CMD_Get_DeviceInfo) {
+            handStatus = ResolveUtil.getValue(value[4], 0);//1左手，0右手
+            init();
+        }
+    }
 
+    /**
+     * ecg 实时数据返回 ECG real-time data return
+     */
+    @Override
+    public void onEcgSamples(String dataType, int sequenceId, int sampleRate, short[] samples, int count) {
+        if (!BleConst.RealtimeEcgWaveform.equals(dataType)) return;
+        //回放的旧数据只画图，不送入算法
+        if (sequenceId == BleEvents.REPLAY_SEQUENCE_ID) {
+            replayedEcg = Arrays.copyOf(samples, count);
+            if (nskAlgoSdk != null) {
+                drawReplayedEcg();
+                lineChartView_ecg.setLineChartData(ChartDataUtil.getEcgLineChartData(EcgActivity.this, queueEcg, Color.RED, 4, index));
+            }
+            return;
+        }
+        //算法在收到设备信息后才初始化
+        if (nskAlgoSdk == null) return;
+        if (raw_data_index == 0 || raw_data_index % 200 == 0) {
+            // send the good signal for every half second
+            short pqValue[] = {(short) 200};
+            nskAlgoSdk.NskAlgoDataStream(NskAlgoDataType.NSK_ALGO_DATA_TYPE_ECG_PQ, pqValue, 1);
+        }
+        for (int i = 0; i < count; i++) {
+            raw_data_index++;
+            ecgSample[0] = (short) -samples[i];
+            nskAlgoSdk.NskAlgoDataStream(NskAlgoDataType.NSK_ALGO_DATA_TYPE_ECG, ecgSample, 1);//this
+        }
+    }
+
+    /**
+     * PPG 实时数据返回 PPG real-time data return
+     */
+    @Override
+    public void onPpgSamples(String dataType, int sequenceId, int sampleRate, int[] samples, int count) {
+        double maxPPG = 0;
+        double minPPg = 33000;
+        for (int i = 0; i < count; i++) {
+            float ppgValue = samples[i];
+            if (queuePpg.size() > 600) queuePpg.remove(0);
+            ppgValue=ppgValue*(handStatus*2-1);
+            queuePpg.add(ppgValue);
+            maxPPG = Math.max(maxPPG, ppgValue);
+            minPPg = Math.min(minPPg, ppgValue);
         }
     }
+
+    @Override
+    public void onEcgHistoryStart(String date, long timeMillis, int hrv, int heartRate, int moodValue) {
+    }
+
+    @Override
+    public void onEcgHistoryEnd() {
+    }
+
     @Override
     public void dataCallback(Map<String, Object> maps) {
         super.dataCallback(maps);
@@ -8,10 +8,13 @@ import android.text.TextUtils;
 import android.util.Log;
 import android.view.View;
 import com.jstyle.blesdk2208a.Util.BleSDK;
+import com.jstyle.blesdk2208a.Util.WaveformBuffer;
+import com.jstyle.blesdk2208a.Util.WaveformDecoder;
+import com.jstyle.blesdk2208a.callback.WaveformListener2025;
 import com.jstyle.blesdk2208a.constant.BleConst;
-import com.jstyle.blesdk2208a.constant.DeviceKey;
 import com.jstyle.test2208.R;
 import com.jstyle.test2208.adapter.ECGDataAdapter;
+import com.jstyle.test2208.ble.BleManager;
 import com.jstyle.test2208.daomananger.EcgDataDaoManager;
 import com.jstyle.test2208.model.EcgHistoryData;
 import java.util.ArrayList;
@@ -24,17 +27,19 @@ import butterknife.OnClick;
 /**
  * ECG 历史数据 （ECG historical data）
  */
-public class EcgDataActivity extends BaseActivity {
+public class EcgDataActivity extends BaseActivity implements WaveformListener2025 {
     @BindView(R.id.RecyclerView_exerciseHistory)
     RecyclerView ECGDATA;
     private ECGDataAdapter ecgDataAdapter;
     int index=0;
     private  String ecgDate;
     private String lastEcgDate;
-    StringBuffer   stringBuffer;
+    //一条ECG记录的采样点，读取结束后再转成字符串保存
+    final WaveformBuffer ecgBuffer = new WaveformBuffer(WaveformDecoder.ECG_SAMPLE_RATE, WaveformDecoder.ECG_SAMPLE_RATE * 600);//最长10分钟
     EcgHistoryData healthEcgData;
     String address="";
     List<EcgHistoryData> ecgDataList = new ArrayList<>();
+    private boolean linkAcquired;//读取期间使用高速连接参数
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -68,6 +73,10 @@ public class EcgDataActivity extends BaseActivity {
                     lastEcgDate = lastHealthData.getTime();
                     Log.e("jsjsjsj",lastEcgDate);
                 }
+                if(!linkAcquired&&BleManager.getInstance().isConnected()){
+                    linkAcquired=true;
+                    BleManager.getInstance().acquireLink();
+                }
                 sendValue(BleSDK.getEcgHistoryData(0,lastEcgDate));
                 break;
             case R.id.delete_ECG://删除ecg历史数据 Delete ECG history data
@@ -77,65 +86,82 @@ public class EcgDataActivity extends BaseActivity {
         }
     }
 
+    @Override
+    public void onEcgHistoryStart(String date, long timeMillis, int hrv, int heartRate, int moodValue) {
+        ecgDate = date;//每一条ecg返回的日期
+        ecgBuffer.clear();
+        healthEcgData = new EcgHistoryData();
+        healthEcgData.setTime(ecgDate);
+        healthEcgData.setHrv(hrv);
+        healthEcgData.setHeartRate(heartRate);
+        healthEcgData.setBreathValue(moodValue);
+        healthEcgData.setAddress(address);
+    }
+
+    @Override
+    public void onEcgSamples(String dataType, int sequenceId, int sampleRate, short[] samples, int count) {
+        if (BleConst.ECGdata.equals(dataType)) ecgBuffer.append(samples, 0, count, sequenceId);//ecg数据拼接
+    }
+
+    @Override
+    public void onPpgSamples(String dataType, int sequenceId, int sampleRate, int[] samples, int count) {
+
+    }
+
+    @Override
+    public void onEcgHistoryEnd() {//收到结束标志
+        if (!TextUtils.isEmpty(ecgDate)) {//有数据返回
+            Log.e("jsjsjsj","isEmpty(ecgDate)"+ecgDate+"***"+lastEcgDate);
+            healthEcgData.setArrayECGData(ecgBuffer.appendTo(new StringBuilder(ecgBuffer.size() * 6), ',').toString());
+            ecgBuffer.clear();
+            ecgDataList.add(healthEcgData);
+            //每条日期与数据库最后的日期比较下，ecg最大条数为9的情况看是否还需要读取数据
+            if ( !ecgDate.equals(lastEcgDate) &&index < 9) {
+                index++;
+                ecgDate = "";
+                //继续读取ecg数据
+                sendValue(BleSDK.getEcgHistoryData(index,lastEcgDate));
+            } else {
+                Log.e("jsjsjsj","end__ecgDate");
+                ecgDate = "";
+                index = 0;
+                ecgDataAdapter.setData(ecgDataList);
+                EcgDataDaoManager.insertData(ecgDataList);
+                releaseLink();
+            }
+        } else {
+            //没有任何ecg数据
+            Log.e("jsjsjsj","end__ecgDate");
+            ecgDate = "";
+            index = 0;
+            ecgDataAdapter.setData(ecgDataList);
+            EcgDataDaoManager.insertData(ecgDataList);
+            releaseLink();
+        }
+    }
+
     @Override
     public void dataCallback(Map<String, Object> maps) {
         super.dataCallback(maps);
         if(null!=maps){
             String dataType= getDataType(maps);
             switch (dataType){
-                case BleConst.ECGdata://读取ecg历史数据 Read ECG history data
-                    boolean finish=getEnd(maps);
-                   Map<String,String>ecgmaps= getData(maps);
-                    if (null!=ecgmaps.get(DeviceKey.Date)) {
-                        String KDate = ecgmaps.get(DeviceKey.Date);
-                        ecgDate = KDate;//每一条ecg返回的日期
-                        stringBuffer = new StringBuffer();
-                        healthEcgData = new EcgHistoryData();
-                        int hrv = Integer.parseInt(ecgmaps.get(DeviceKey.HRV));
-                        int hr = Integer.parseInt(ecgmaps.get(DeviceKey.HeartRate));
-                        int moodValue = Integer.parseInt(ecgmaps.get(DeviceKey.ECGMoodValue));
-                        healthEcgData.setTime(ecgDate);
-                        healthEcgData.setHrv(hrv);
-                        healthEcgData.setHeartRate(hr);
-                        healthEcgData.setBreathValue(moodValue);
-                        healthEcgData.setAddress(address);
-                    }
-                    if (null!=ecgmaps.get(DeviceKey.ECGValue)) {//ecg数据拼接
-                        String ecgData = ecgmaps.get(DeviceKey.ECGValue);
-                        stringBuffer.append(ecgData);
-                    }
-                    if (finish) {//收到结束标志
-                        if (!TextUtils.isEmpty(ecgDate)) {//有数据返回
-                            Log.e("jsjsjsj","isEmpty(ecgDate)"+ecgDate+"***"+lastEcgDate);
-                            healthEcgData.setArrayECGData(stringBuffer.toString());
-                            ecgDataList.add(healthEcgData);
-                            //每条日期与数据库最后的日期比较下，ecg最大条数为9的情况看是否还需要读取数据
-                            if ( !ecgDate.equals(lastEcgDate) &&index < 9) {
-                                index++;
-                                ecgDate = "";
-                                //继续读取ecg数据
-                                sendValue(BleSDK.getEcgHistoryData(index,lastEcgDate));
-                            } else {
-                                Log.e("jsjsjsj","end__ecgDate");
-                                ecgDate = "";
-                                index = 0;
-                                ecgDataAdapter.setData(ecgDataList);
-                                EcgDataDaoManager.insertData(ecgDataList);
-                            }
-                        } else {
-                            //没有任何ecg数据
-                            Log.e("jsjsjsj","end__ecgDate");
-                            ecgDate = "";
-                            index = 0;
-                            ecgDataAdapter.setData(ecgDataList);
-                            EcgDataDaoManager.insertData(ecgDataList);
-                        }
-                    }
-                    break;
                 case BleConst.DeleteECGdata://删除ecg历史数据 Delete ECG history data
                     showDialogInfo(maps.toString());
                     break;
             }
         }
       }
+
+    private void releaseLink() {
+        if (!linkAcquired) return;
+        linkAcquired = false;
+        BleManager.getInstance().releaseLink();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        releaseLink();
+    }
 }
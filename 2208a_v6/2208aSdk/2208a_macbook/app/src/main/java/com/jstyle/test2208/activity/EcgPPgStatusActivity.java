@@ -12,20 +12,24 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import com.jstyle.blesdk2208a.Util.BleSDK;
+import com.jstyle.blesdk2208a.Util.FilterBank;
 import com.jstyle.blesdk2208a.Util.ResolveUtil;
+import com.jstyle.blesdk2208a.callback.RawSensorListener2025;
 import com.jstyle.blesdk2208a.constant.BleConst;
 import com.jstyle.blesdk2208a.constant.DeviceKey;
+import com.jstyle.blesdk2208a.model.RawSensorBatch;
 import com.jstyle.test2208.R;
 import com.jstyle.test2208.Util.ChartDataUtil;
 import com.jstyle.test2208.Util.CsvUtils;
 import com.jstyle.test2208.Util.PermissionsUtil;
 import com.jstyle.test2208.Util.ResolveData;
 import com.jstyle.test2208.Util.SchedulersTransformer;
+import com.jstyle.test2208.Util.WindowMinMax;
+import com.jstyle.test2208.ble.BleEvents;
 import com.jstyle.test2208.ble.BleManager;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -41,7 +45,7 @@ import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.Disposable;
 import lecho.lib.hellocharts.view.LineChartView;
 
-public class EcgPPgStatusActivity extends BaseActivity {
+public class EcgPPgStatusActivity extends BaseActivity implements RawSensorListener2025 {
 
 
     @BindView(R.id.myswitch)
@@ -80,11 +84,17 @@ public class EcgPPgStatusActivity extends BaseActivity {
     SwitchCompat fliter;
     LinkedList<Float> q1, q2, q3,q4, q5,q6,q7;
     private Disposable subscription;
-    List<List<String>> datassss;
-    List<String> dataer;
+    RawSensorBatch recording;//导出CSV用，导出时才生成字符串
+    List<byte[]> dataer;
     private static  final int MeasureTimes = 200;
     protected static boolean GetPpgPPGSensor=false;
     boolean myfliter=false;
+    private final FilterBank ppgFilter = FilterBank.newPpgFilter(4);//P1 P2 P4 P6
+    private float[][] ppgFiltered = new float[4][0];
+    //图表中P1 P2 P4 P6的最大最小值，窗口与图表队列一样长
+    private final WindowMinMax[] ppgWindows = {new WindowMinMax(MeasureTimes + 1), new WindowMinMax(MeasureTimes + 1),
+            new WindowMinMax(MeasureTimes + 1), new WindowMinMax(MeasureTimes + 1)};
+    private boolean linkAcquired;//实时数据期间使用高速连接参数
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -93,6 +103,7 @@ public class EcgPPgStatusActivity extends BaseActivity {
         fliter.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
             @Override
             public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+                if (isChecked && !myfliter) ppgFilter.reset();
                 myfliter=isChecked;
             }
         });
@@ -104,25 +115,22 @@ public class EcgPPgStatusActivity extends BaseActivity {
                     public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
                         GetPpgPPGSensor=isChecked;
                         if(isChecked ){
-                            q1=new LinkedList<>();
-                            q2=new LinkedList<>();
-                            q3=new LinkedList<>();
-                            q4=new LinkedList<>();
-                            q5=new LinkedList<>();
-                            q6=new LinkedList<>();
-                            q7=new LinkedList<>();
-                            datassss=new ArrayList<>();
+                            resetCharts();
+                            recording=new RawSensorBatch(1024);
                             dataer=new ArrayList<>();
-                            String[] head = {"P1", "P2", "P4", "P6", "X", "Y","Z"};
-                            List<String> headList = Arrays.asList(head);
-                            datassss.add(headList);
 
                             startPPGTimer();
                         }else{
+                            BleEvents.getInstance().flushRawSensor();
                            if (ppgDisposable != null && !ppgDisposable.isDisposed()) {
                                 ppgDisposable.dispose();
                             }
                         }
+                        if(isChecked!=linkAcquired){
+                            linkAcquired=isChecked;
+                            if(isChecked)BleManager.getInstance().acquireLink();
+                            else BleManager.getInstance().releaseLink();
+                        }
                         BleManager.getInstance().offerValue(BleSDK.GetPpgPPGSensor(isChecked));
                       /*  BleManager.getInstance().offerValue(BleSDK.StartDeviceMeasurementWithType(3,isChecked));*/
                         BleManager.getInstance().offerValue(BleSDK.RealTimeStep(isChecked,isChecked));
@@ -132,11 +140,13 @@ public class EcgPPgStatusActivity extends BaseActivity {
                 csv.setOnClickListener(new View.OnClickListener() {
                     @Override
                     public void onClick(View v) {
-                        if(datassss.size()>0 ){
+                        if(null!=recording&&recording.size()>0 ){
+                            final RawSensorBatch rows=new RawSensorBatch(recording.size());
+                            rows.append(recording);
                             Observable.create(new ObservableOnSubscribe<String>() {
                                 @Override
                                 public void subscribe(ObservableEmitter<String> e) throws Exception {
-                                    CsvUtils.createCsvFile(datassss);
+                                    CsvUtils.createCsvFile(getCsvRows(rows));
                                     e.onComplete();
                                 }
                             }).compose(SchedulersTransformer.<String>applySchedulers()).subscribe(new Observer<String>() {
@@ -162,11 +172,16 @@ public class EcgPPgStatusActivity extends BaseActivity {
                 DATA.setOnClickListener(new View.OnClickListener() {
                     @Override
                     public void onClick(View v) {
-                        if(dataer.size()>0 ){
+                        if(null!=dataer&&dataer.size()>0 ){
+                            final List<byte[]> frames=new ArrayList<>(dataer);
                             Observable.create(new ObservableOnSubscribe<String>() {
                                 @Override
                                 public void subscribe(ObservableEmitter<String> e) throws Exception {
-                                    CsvUtils.createCsvFileer(dataer);
+                                    List<String> hexList=new ArrayList<>(frames.size());
+                                    for (byte[] frame : frames) {
+                                        hexList.add(ResolveData.byte2Hex(frame));
+                                    }
+                                    CsvUtils.createCsvFileer(hexList);
                                     e.onComplete();
                                 }
                             }).compose(SchedulersTransformer.<String>applySchedulers()).subscribe(new Observer<String>() {
@@ -231,97 +246,113 @@ public class EcgPPgStatusActivity extends BaseActivity {
     }
 
 
-     @Override
+    @Override
     protected void on3bBind( byte[]value) {
         super.on3bBind(value);
-         if(null!=q1&&GetPpgPPGSensor&&value.length>20){
-             byte[] tempValue = new byte[value.length - 3];
-             System.arraycopy(value, 3, tempValue, 0, tempValue.length);
-
-             Log.e("BleService", "vvv" + ResolveData.byte2Hex(tempValue));
-             int p1 = ResolveUtil.getValue(tempValue[0], 2) + ResolveUtil.getValue(tempValue[ 1], 1)+ResolveUtil.getValue(tempValue[ 2], 0);
-             int p2 = ResolveUtil.getValue(tempValue[3], 2) + ResolveUtil.getValue(tempValue[ 4], 1)+ResolveUtil.getValue(tempValue[ 5], 0);
-             int p3 = ResolveUtil.getValue(tempValue[6], 2) + ResolveUtil.getValue(tempValue[ 7], 1)+ResolveUtil.getValue(tempValue[ 8], 0);
-             int p4 = ResolveUtil.getValue(tempValue[9], 2) + ResolveUtil.getValue(tempValue[ 10], 1)+ResolveUtil.getValue(tempValue[11], 0);
-
-             int p6 = ResolveUtil.getValue(tempValue[15], 2) + ResolveUtil.getValue(tempValue[ 16], 1)+ResolveUtil.getValue(tempValue[17], 0);
-             int px = ResolveUtil.getValue(tempValue[18], 1) + ResolveUtil.getValue(tempValue[ 19], 0);
-             int py = ResolveUtil.getValue(tempValue[20], 1) + ResolveUtil.getValue(tempValue[ 21], 0);
-             int pz = ResolveUtil.getValue(tempValue[22], 1) + ResolveUtil.getValue(tempValue[ 23], 0);
-             if (q1.size() > MeasureTimes){
-                 q1.removeFirst();
-             }
-             if (q2.size() > MeasureTimes){
-                 q2.removeFirst();
-             }
-             if (q3.size() > MeasureTimes){
-                 q3.remove(0);
-             }
-             if (q4.size() > MeasureTimes){
-                 q4.remove(0);
-             }
-             if (q5.size() > MeasureTimes){
-                 q5.remove(0);
-             }
-             if (q6.size() > MeasureTimes){
-                 q6.remove(0);
-             }
-             if (q7.size() > MeasureTimes){
-                 q7.remove(0);
-             }
-             q1.add(myfliter?ResolveUtil.getPPGData(Double.valueOf(p1)):Float.valueOf(p1));
-             q2.add(myfliter?ResolveUtil.getPPGData2(Double.valueOf(p2)):Float.valueOf(p2));
-             q3.add(myfliter?ResolveUtil.getPPGData3(Double.valueOf(p4)):Float.valueOf(p4));
-             q4.add(myfliter?ResolveUtil.getPPGData4(Double.valueOf(p6)):Float.valueOf(p6));
-             if(null!=ppg_tt0){
-                 ppg_tt0.setText("Max: "+ Collections.max(q1)+"\t"+"Min: "+ Collections.min(q1));
-                 ppg_tt1.setText("Max: "+ Collections.max(q2)+"\t"+"Min: "+ Collections.min(q2));
-                 ppg_tt2.setText("Max: "+ Collections.max(q3)+"\t"+"Min: "+ Collections.min(q3));
-                 ppg_tt3.setText("Max: "+ Collections.max(q4)+"\t"+"Min: "+ Collections.min(q4));
-             }
-             q5.add(ResolveUtil.getFloat( px));
-             q6.add(ResolveUtil.getFloat( py));
-             q7.add(ResolveUtil.getFloat( pz));
-             List<String>   dd=new ArrayList<>();
-             dd.add(p1+"");
-             dd.add(p2+"");
-             dd.add(p4+"");
-             dd.add(p6+"");
-             dd.add(px+"");
-             dd.add(py+"");
-             dd.add(pz+"");
-             if(null!=datassss&&null!=dataer){
-                 datassss.add(dd);
-                 dataer.add(ResolveData.byte2Hex(value));
-             }
-
-                           /* q5.add(1d);
-                            q6.add(1.5d);
-                            q7.add(2d);*/
-             Log.e("BleService", p1+"*"+p2+"*"+p4+"*"+p6+"*"+px+"*"+py+"*"+pz);
-                                   /* lineChartView_ecg.setLineChartData(getEcgLineChartData(q1)) ;
-                                    lineChartView_ecg2.setLineChartData(getEcgLineChartData2(q2)) ;
-                                    lineChartView_ecg3.setLineChartData(getEcgLineChartData3(q3)) ;
-                                    lineChartView_ecg4.setLineChartData(getEcgLineChartData4(q4)) ;
-                                    lineChartView_ecger.setLineChartData(getEcgLineChartDataer(q5,q6,q7)) ;*/
-                                /*    if(q1.size()>=5){
-                                        lineChartView_ecg.setLineChartData(ChartDataUtil.getPpgChartData(lineChartView_ecg, q1, Color.parseColor("#ff99cc00"),500));
-                                    }
-                                    if(q2.size()>=5){
-                                        lineChartView_ecg2.setLineChartData(ChartDataUtil.getPpgChartData(lineChartView_ecg2, q2, Color.parseColor("#ffcc0000"),500));
-                                    }
-                                    if(q3.size()>=5){
-                                        lineChartView_ecg3.setLineChartData(ChartDataUtil.getPpgChartData(lineChartView_ecg3, q3, Color.parseColor("#ffff4444"),500));
-                                    }
-                                    if(q4.size()>=5){
-                                        lineChartView_ecg4.setLineChartData(ChartDataUtil.getPpgChartData(lineChartView_ecg4, q4,  Color.parseColor("#ff669900"),500));
-                                    }
-                                    if(q5.size()>=5){
-                                        lineChartView_ecger.setLineChartData(ChartDataUtil.getPpgChartDataXyz(lineChartView_ecger, q5,q6,q7));
-                                    }*/
-         }
+        if(GetPpgPPGSensor&&null!=dataer&&value.length>20){
+            dataer.add(value);//原始包，导出时再转16进制
+        }
+    }
+
+    @Override
+    protected boolean wantsReplay() {
+        return true;
+    }
 
-     }
+    private void resetCharts(){
+        q1=new LinkedList<>();
+        q2=new LinkedList<>();
+        q3=new LinkedList<>();
+        q4=new LinkedList<>();
+        q5=new LinkedList<>();
+        q6=new LinkedList<>();
+        q7=new LinkedList<>();
+        for (WindowMinMax window : ppgWindows) {
+            window.clear();
+        }
+    }
+
+    /**
+     * 每批回调一次，图表队列和最大最小值也按批更新，显示的是图表中的最大最小值
+     * 回放的最近30秒(如旋转屏幕后)只画图，不写入导出的数据
+     */
+    @Override
+    public void onRawSensorBatch(RawSensorBatch batch) {
+        boolean replayed = BleEvents.isReplay(batch);
+        if(replayed&&null==q1&&GetPpgPPGSensor){
+            resetCharts();
+            startPPGTimer();
+        }
+        if(null==q1||!GetPpgPPGSensor)return;
+        if(null!=recording&&!replayed){
+            recording.append(batch);
+        }
+        int[] p1 = batch.getChannel(RawSensorBatch.P1);
+        int[] p2 = batch.getChannel(RawSensorBatch.P2);
+        int[] p4 = batch.getChannel(RawSensorBatch.P4);
+        int[] p6 = batch.getChannel(RawSensorBatch.P6);
+        int[] px = batch.getChannel(RawSensorBatch.X);
+        int[] py = batch.getChannel(RawSensorBatch.Y);
+        int[] pz = batch.getChannel(RawSensorBatch.Z);
+        int n = batch.size();
+        if (myfliter) {
+            if (ppgFiltered[0].length < n) ppgFiltered = new float[4][n];
+            ppgFilter.process(0, p1, 0, ppgFiltered[0], 0, n);
+            ppgFilter.process(1, p2, 0, ppgFiltered[1], 0, n);
+            ppgFilter.process(2, p4, 0, ppgFiltered[2], 0, n);
+            ppgFilter.process(3, p6, 0, ppgFiltered[3], 0, n);
+        }
+        WindowMinMax[] windows = ppgWindows;
+        for (int i = 0; i < n; i++) {
+            if (q1.size() > MeasureTimes){
+                q1.removeFirst();
+                q2.removeFirst();
+                q3.removeFirst();
+                q4.removeFirst();
+            }
+            if (q5.size() > MeasureTimes){
+                q5.removeFirst();
+                q6.removeFirst();
+                q7.removeFirst();
+            }
+            float v1 = myfliter?ppgFiltered[0][i]:p1[i];
+            float v2 = myfliter?ppgFiltered[1][i]:p2[i];
+            float v3 = myfliter?ppgFiltered[2][i]:p4[i];
+            float v4 = myfliter?ppgFiltered[3][i]:p6[i];
+            q1.add(v1);
+            q2.add(v2);
+            q3.add(v3);
+            q4.add(v4);
+            q5.add(ResolveUtil.getFloat( px[i]));
+            q6.add(ResolveUtil.getFloat( py[i]));
+            q7.add(ResolveUtil.getFloat( pz[i]));
+            //边加边算，不再每批遍历整个队列
+            windows[0].add(v1);
+            windows[1].add(v2);
+            windows[2].add(v3);
+            windows[3].add(v4);
+        }
+        if(null!=ppg_tt0&&n>0){
+            ppg_tt0.setText("Max: "+ windows[0].getMax()+"\t"+"Min: "+ windows[0].getMin());
+            ppg_tt1.setText("Max: "+ windows[1].getMax()+"\t"+"Min: "+ windows[1].getMin());
+            ppg_tt2.setText("Max: "+ windows[2].getMax()+"\t"+"Min: "+ windows[2].getMin());
+            ppg_tt3.setText("Max: "+ windows[3].getMax()+"\t"+"Min: "+ windows[3].getMin());
+        }
+    }
+
+    private static List<List<String>> getCsvRows(RawSensorBatch batch) {
+        List<List<String>> rows = new ArrayList<>(batch.size() + 1);
+        String[] head = {"P1", "P2", "P4", "P6", "X", "Y","Z"};
+        rows.add(Arrays.asList(head));
+        for (int i = 0; i < batch.size(); i++) {
+            String[] row = new String[RawSensorBatch.CHANNEL_COUNT];
+            for (int channel = 0; channel < RawSensorBatch.CHANNEL_COUNT; channel++) {
+                row[channel] = String.valueOf(batch.get(channel, i));
+            }
+            rows.add(Arrays.asList(row));
+        }
+        return rows;
+    }
 
     Disposable ppgDisposable;
     private void startPPGTimer(){
@@ -408,5 +439,9 @@ public class EcgPPgStatusActivity extends BaseActivity {
         if (subscription != null && !subscription.isDisposed()) {
             subscription.dispose();
         }
+        if (linkAcquired) {
+            linkAcquired = false;
+            BleManager.getInstance().releaseLink();
+        }
     }
 }
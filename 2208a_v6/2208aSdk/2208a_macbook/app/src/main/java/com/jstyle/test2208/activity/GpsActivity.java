@@ -10,7 +10,10 @@ import android.view.View;
 import android.widget.CompoundButton;
 
 import com.jstyle.blesdk2208a.Util.BleSDK;
+import com.jstyle.blesdk2208a.Util.GpsTrackEncoder;
+import com.jstyle.blesdk2208a.callback.GpsListener2025;
 import com.jstyle.blesdk2208a.constant.BleConst;
+import com.jstyle.blesdk2208a.model.GpsTrack;
 import com.jstyle.test2208.R;
 import com.jstyle.test2208.adapter.GpsDataAdapter;
 
@@ -22,13 +25,14 @@ import butterknife.BindView;
 import butterknife.ButterKnife;
 import butterknife.OnClick;
 
-public class GpsActivity extends BaseActivity {
+public class GpsActivity extends BaseActivity implements GpsListener2025 {
     @BindView(R.id.Opengps)
     SwitchCompat Opengps;
     @BindView(R.id.RecyclerView_gps)
     RecyclerView RecyclerView_gps;
     GpsDataAdapter hrvDataAdapter;
     List<Map<String, String>> list = new ArrayList<>();
+    GpsTrack track = new GpsTrack();
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -58,6 +62,8 @@ public class GpsActivity extends BaseActivity {
     public void onViewClicked(View view) {
         switch (view.getId()) {
             case R.id.ReadGps:
+                track.clear();
+                hrvDataAdapter.Clear();
                 sendValue(BleSDK.GetGpsData(1));
                 break;
 
@@ -77,10 +83,19 @@ public class GpsActivity extends BaseActivity {
             case BleConst.GPSControlCommand:
                 showDialogInfo(maps.toString());
                 break;
-            case BleConst.Gps:
-                    hrvDataAdapter.ADDData(maps.toString());
-                break;
+        }
+    }
 
+    @Override
+    public void onGpsTrack(GpsTrack page, boolean end) {
+        track.append(page);
+        for (int i = 0; i < page.size(); i += GpsTrack.POINTS_PER_RECORD) {
+            hrvDataAdapter.ADDData(page.getTimestamp(i) + " " + page.getLatitude(i) + "," + page.getLongitude(i));
+        }
+        if (end) {
+            //存储或传给Flutter时用压缩编码，不用字符串列表
+            String polyline = GpsTrackEncoder.encodePolyline(track);
+            hrvDataAdapter.ADDData("points: " + track.size() + "\n" + polyline);
         }
     }
 }
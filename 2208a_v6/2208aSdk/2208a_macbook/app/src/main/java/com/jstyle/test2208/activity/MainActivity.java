@@ -25,23 +25,26 @@ import com.jstyle.blesdk2208a.constant.BleConst;
 import com.jstyle.blesdk2208a.constant.DeviceKey;
 import com.jstyle.test2208.R;
 import com.jstyle.test2208.Util.BleData;
-import com.jstyle.test2208.Util.RxBus;
 import com.jstyle.test2208.Util.SDUtil;
+import com.jstyle.test2208.Util.SchedulersTransformer;
 import com.jstyle.test2208.adapter.MainAdapter;
+import com.jstyle.test2208.ble.BleCapture;
+import com.jstyle.test2208.ble.BleEvents;
 import com.jstyle.test2208.ble.BleManager;
 import com.jstyle.test2208.ble.BleService;
 
 import java.io.File;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Callable;
 
 import butterknife.BindArray;
 import butterknife.BindView;
 import butterknife.ButterKnife;
+import io.reactivex.Observable;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.functions.Consumer;
-import io.reactivex.schedulers.Schedulers;
 
 public class MainActivity extends BaseActivity implements MainAdapter.onItemClickListener {
     private static final String TAG = "MainActivity";
@@ -55,6 +58,7 @@ public class MainActivity extends BaseActivity implements MainAdapter.onItemClic
 
     private ProgressDialog progressDialog;
     private Disposable subscription;
+    private Disposable exportDisposable;
     private String address;
     boolean isStartReal;
     public static int phoneDataLength = 200;//手机一个包能发送的最多数据
@@ -77,7 +81,7 @@ public class MainActivity extends BaseActivity implements MainAdapter.onItemClic
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
             // 先判断有没有权限
             if (Environment.isExternalStorageManager()) {
-                SDUtil.createFile("log");
+                startCapture();
             } else {
                 Intent intent = new Intent(Settings.ACTION_MANAGE_APP_ALL_FILES_ACCESS_PERMISSION);
                 intent.setData(Uri.parse("package:" + context.getPackageName()));
@@ -87,15 +91,51 @@ public class MainActivity extends BaseActivity implements MainAdapter.onItemClic
             // 先判断有没有权限
             if (ActivityCompat.checkSelfPermission(this, Manifest.permission.READ_EXTERNAL_STORAGE) == PackageManager.PERMISSION_GRANTED &&
                     ContextCompat.checkSelfPermission(this, Manifest.permission.WRITE_EXTERNAL_STORAGE) == PackageManager.PERMISSION_GRANTED) {
-                SDUtil.createFile("log");
+                startCapture();
             } else {
                 ActivityCompat.requestPermissions(this, new String[]{Manifest.permission.READ_EXTERNAL_STORAGE, Manifest.permission.WRITE_EXTERNAL_STORAGE}, 0);
             }
         }else{
-            SDUtil.createFile("log");
+            startCapture();
         }
     }
 
+    /**
+     * 蓝牙收发数据抓包，保存在SDUtil.log目录
+     */
+    private void startCapture() {
+        BleCapture.getInstance().setDirectory(new File(SDUtil.log)).setEnabled(true);
+    }
+
+    /**
+     * 抓包文件转为文本后分享
+     */
+    private void shareCapture() {
+        final BleCapture capture = BleCapture.getInstance();
+        if (capture.getFiles().isEmpty()) {
+            showToast("The log file does not exist");
+            return;
+        }
+        exportDisposable = Observable.fromCallable(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                String path = SDUtil.log + "log.txt";
+                capture.exportText(new File(path));
+                return path;
+            }
+        }).compose(SchedulersTransformer.<String>applySchedulers()).subscribe(new Consumer<String>() {
+            @Override
+            public void accept(String path) throws Exception {
+                SDUtil.sharePdfByPhone(MainActivity.this, path);
+            }
+        }, new Consumer<Throwable>() {
+            @Override
+            public void accept(Throwable throwable) throws Exception {
+                showToast("Export failed: " + throwable.getMessage());
+            }
+        });
+    }
+
     /**
      * 蓝牙状态监听
      *Bluetooth status monitoring
@@ -165,7 +205,7 @@ public class MainActivity extends BaseActivity implements MainAdapter.onItemClic
         mainRecyclerview.setLayoutManager(gridLayoutManager);
          mainAdapter = new MainAdapter(options, this);
         mainRecyclerview.setAdapter(mainAdapter);
-        subscription = RxBus.getInstance().toObservable(BleData.class).subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread()).subscribe(new Consumer<BleData>() {
+        subscription = BleEvents.getInstance().states().observeOn(AndroidSchedulers.mainThread()).subscribe(new Consumer<BleData>() {
             @Override
             public void accept(BleData bleData) throws Exception {
                 String action = bleData.getAction();
@@ -188,6 +228,7 @@ public class MainActivity extends BaseActivity implements MainAdapter.onItemClic
     protected void onDestroy() {
         super.onDestroy();
         unsubscribe();
+        if (exportDisposable != null && !exportDisposable.isDisposed()) exportDisposable.dispose();
         if (BleManager.getInstance().isConnected()) BleManager.getInstance().disconnectDevice();
     }
 
@@ -292,13 +333,10 @@ public class MainActivity extends BaseActivity implements MainAdapter.onItemClic
                 startActivity(new Intent(MainActivity.this, BloodpressurecalibrationActivity.class));
                 break;
             case 29:
-                String path=SDUtil.log+"log.txt";
-                File F=new File(path);
-                if(F.exists()){
-                    SDUtil.sharePdfByPhone(MainActivity.this,path);
-                }else{
-                    showToast("The log file does not exist");
-                }
+                shareCapture();
+                break;
+            case 30:
+                startActivity(new Intent(MainActivity.this, MetricsActivity.class));
                 break;
           /*  case 37:
                 sendValue(BleSDK.TestVlue());
@@ -412,7 +450,7 @@ public class MainActivity extends BaseActivity implements MainAdapter.onItemClic
         if (requestCode == MY_PERMISSIONS_REQUEST_CALL_PHONE) {
             if (ActivityCompat.checkSelfPermission(this, Manifest.permission.READ_EXTERNAL_STORAGE) == PackageManager.PERMISSION_GRANTED &&
                     ContextCompat.checkSelfPermission(this, Manifest.permission.WRITE_EXTERNAL_STORAGE) == PackageManager.PERMISSION_GRANTED) {
-                SDUtil.createFile("log");
+                startCapture();
             }
         }
     }
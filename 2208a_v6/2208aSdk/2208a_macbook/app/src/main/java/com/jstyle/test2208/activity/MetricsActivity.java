@@ -0,0 +1,99 @@
+package com.jstyle.test2208.activity;
+
+import android.os.Bundle;
+import android.support.v7.widget.SwitchCompat;
+import android.view.View;
+import android.widget.CompoundButton;
+import android.widget.TextView;
+
+import com.jstyle.test2208.R;
+import com.jstyle.test2208.ble.BleCapture;
+import com.jstyle.test2208.ble.BleManager;
+import com.jstyle.test2208.ble.BleMetrics;
+import com.jstyle.test2208.ble.LinkManager;
+import com.jstyle.test2208.ble.ReconnectEngine;
+
+import java.util.concurrent.TimeUnit;
+
+import butterknife.BindView;
+import butterknife.ButterKnife;
+import butterknife.OnClick;
+import io.reactivex.Observable;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+
+/**
+ * 蓝牙数据链路统计，每秒刷新 (BLE pipeline metrics, refreshed every second)
+ */
+public class MetricsActivity extends BaseActivity {
+    @BindView(R.id.info)
+    TextView info;
+    @BindView(R.id.capture)
+    SwitchCompat capture;
+    private Disposable refreshDisposable;
+    private BleMetrics.Snapshot previous;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_metrics);
+        ButterKnife.bind(this);
+        capture.setChecked(BleCapture.getInstance().isEnabled());
+        capture.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
+            @Override
+            public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+                BleCapture.getInstance().setEnabled(isChecked);
+            }
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        refresh();
+        refreshDisposable = Observable.interval(1, TimeUnit.SECONDS).observeOn(AndroidSchedulers.mainThread()).subscribe(new Consumer<Long>() {
+            @Override
+            public void accept(Long aLong) throws Exception {
+                refresh();
+            }
+        });
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        unSubscribe(refreshDisposable);
+    }
+
+    @OnClick({R.id.reset})
+    public void onViewClicked(View view) {
+        switch (view.getId()) {
+            case R.id.reset://清零 (Reset counters and histograms)
+                BleMetrics.getInstance().reset();
+                previous = null;
+                refresh();
+                break;
+        }
+    }
+
+    private void refresh() {
+        BleMetrics.Snapshot snapshot = BleMetrics.getInstance().snapshot();
+        StringBuilder builder = new StringBuilder(snapshot.format(previous));
+        previous = snapshot;
+        LinkManager linkManager = BleManager.getInstance().getLinkManager();
+        if (linkManager != null) {
+            builder.append("\n\nlink ").append(linkManager.getLastBytesPerSecond()).append(" B/s, phy ").append(linkManager.getPhy());
+        }
+        ReconnectEngine reconnectEngine = BleManager.getInstance().getReconnectEngine();
+        if (reconnectEngine != null) {
+            builder.append("\nreconnect ").append(reconnectEngine.getReconnectCount())
+                    .append(" last ").append(reconnectEngine.getLastReconnectMillis())
+                    .append("ms avg ").append(reconnectEngine.getAverageReconnectMillis())
+                    .append("ms max ").append(reconnectEngine.getMaxReconnectMillis()).append("ms");
+        }
+        BleCapture bleCapture = BleCapture.getInstance();
+        builder.append("\ncapture written ").append(bleCapture.getWritten()).append(" dropped ").append(bleCapture.getDropped());
+        info.setText(builder.toString());
+    }
+}
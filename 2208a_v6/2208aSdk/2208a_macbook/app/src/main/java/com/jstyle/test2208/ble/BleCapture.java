@@ -0,0 +1,419 @@
+package com.jstyle.test2208.ble;
+
+import android.os.Process;
+import android.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 蓝牙收发数据抓包，替代SDUtil.saveBTLog
+ * The GATT callbacks only copy the raw bytes into a preallocated lock-free ring
+ * ({@link #CAPACITY} slots, several producers, one consumer). A background thread
+ * drains it through a direct buffer into a FileChannel. Records are dropped and
+ * counted when the ring is full, the callbacks never wait for the disk.
+ * File format: the 4 byte magic "BTC1", then one record per packet:
+ * time (int64 ms) | direction (u8) | address (6 bytes) | length (u16) | bytes,
+ * all big endian. The file is rotated when it reaches {@link #DEFAULT_MAX_FILE_SIZE}:
+ * capture.bin is the newest, capture.1.bin .. capture.(n-1).bin the older ones.
+ * Use {@link #exportText(File)} to convert to the old readable log.
+ */
+
+public class BleCapture {
+    private static final String TAG = "BleCapture";
+    public static final byte DIRECTION_RX = 0;
+    public static final byte DIRECTION_TX = 1;
+    public static final int CAPACITY = 1024;
+    /**
+     * MTU 512时一包最多509字节，更长的数据单独分配
+     */
+    public static final int SLOT_SIZE = 512;
+    public static final long DEFAULT_MAX_FILE_SIZE = 4 * 1024 * 1024;
+    public static final int DEFAULT_MAX_FILES = 4;
+    public static final String FILE_NAME = "capture";
+    private static final byte[] MAGIC = {'B', 'T', 'C', '1'};
+    private static final int HEADER_LENGTH = 8 + 1 + 6 + 2;
+    private static final long IDLE_PARK_NANOS = 20 * 1000 * 1000L;
+    private static final long REOPEN_DELAY = 5000;
+
+    private static final BleCapture instance = new BleCapture();
+
+    private final int mask = CAPACITY - 1;
+    private final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+    private final long[] times = new long[CAPACITY];
+    private final long[] addresses = new long[CAPACITY];
+    private final byte[] directions = new byte[CAPACITY];
+    private final int[] lengths = new int[CAPACITY];
+    private final byte[][] values = new byte[CAPACITY][];
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private long head;//只在写线程中使用
+
+    private volatile boolean enabled;
+    private volatile File directory;
+    private volatile long maxFileSize = DEFAULT_MAX_FILE_SIZE;
+    private volatile int maxFiles = DEFAULT_MAX_FILES;
+    private Thread writer;
+
+    private BleCapture() {
+        for (int i = 0; i < CAPACITY; i++) {
+            sequences.set(i, i);
+            values[i] = new byte[SLOT_SIZE];
+        }
+    }
+
+    public static BleCapture getInstance() {
+        return instance;
+    }
+
+    /**
+     * 抓包文件目录，如 SDUtil.log
+     */
+    public BleCapture setDirectory(File directory) {
+        this.directory = directory;
+        return this;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @param maxFileSize 单个文件的最大字节数
+     * @param maxFiles    最多保留的文件数，包括正在写的
+     */
+    public BleCapture setRotation(long maxFileSize, int maxFiles) {
+        this.maxFileSize = Math.max(HEADER_LENGTH + SLOT_SIZE + MAGIC.length, maxFileSize);
+        this.maxFiles = Math.max(1, maxFiles);
+        return this;
+    }
+
+    /**
+     * 运行时开关，关闭后写完剩余的数据并关闭文件
+     */
+    public synchronized BleCapture setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (writer == null && enabled) {
+            writer = new Thread(new Writer(), TAG);
+            writer.setDaemon(true);
+            writer.start();
+        } else if (writer != null) {
+            LockSupport.unpark(writer);
+        }
+        return this;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 环形缓冲区满时丢弃的包数
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * 已写入文件的包数
+     */
+    public long getWritten() {
+        return written.get();
+    }
+
+    /**
+     * "AA:BB:CC:DD:EE:FF" 转为低48位，每个连接算一次
+     */
+    public static long parseAddress(String address) {
+        long result = 0;
+        if (address == null) return result;
+        for (int i = 0; i < address.length(); i++) {
+            int digit = Character.digit(address.charAt(i), 16);
+            if (digit >= 0) result = (result << 4) | digit;
+        }
+        return result & 0xffffffffffffL;
+    }
+
+    /**
+     * 在GATT回调中调用，只复制数据，不做IO
+     *
+     * @return false if capture is off or the record was dropped
+     */
+    public boolean record(byte direction, long address, byte[] value) {
+        if (!enabled || value == null) return false;
+        long pos = tail.get();
+        int index;
+        for (; ; ) {
+            index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) break;
+                pos = tail.get();
+            } else if (diff < 0) {
+                //写线程跟不上
+                dropped.incrementAndGet();
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+        int length = Math.min(value.length, 0xffff);
+        byte[] slot = values[index];
+        if (slot.length < length) slot = values[index] = new byte[length];
+        System.arraycopy(value, 0, slot, 0, length);
+        lengths[index] = length;
+        times[index] = System.currentTimeMillis();
+        addresses[index] = address;
+        directions[index] = direction;
+        sequences.lazySet(index, pos + 1);
+        return true;
+    }
+
+    /**
+     * 从旧到新的抓包文件
+     */
+    public List<File> getFiles() {
+        List<File> files = new ArrayList<>();
+        File dir = directory;
+        if (dir == null) return files;
+        for (int i = maxFiles - 1; i >= 0; i--) {
+            File file = fileAt(dir, i);
+            if (file.exists()) files.add(file);
+        }
+        return files;
+    }
+
+    /**
+     * 全部抓包文件转为文本，每包一行，在后台线程调用
+     */
+    public void exportText(File out) throws IOException {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.ENGLISH);
+        BufferedWriter text = new BufferedWriter(new FileWriter(out));
+        try {
+            for (File file : getFiles()) {
+                exportText(file, text, format);
+            }
+        } finally {
+            text.close();
+        }
+    }
+
+    private static void exportText(File file, BufferedWriter text, SimpleDateFormat format) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+            }
+            buffer.flip();
+            if (buffer.remaining() < MAGIC.length) return;
+            buffer.position(MAGIC.length);
+            StringBuilder line = new StringBuilder();
+            //最后一条可能还没写完整
+            while (buffer.remaining() >= HEADER_LENGTH) {
+                long time = buffer.getLong();
+                byte direction = buffer.get();
+                int length;
+                line.setLength(0);
+                line.append(format.format(new Date(time))).append(' ');
+                for (int i = 0; i < 6; i++) {
+                    if (i > 0) line.append(':');
+                    appendHex(line, buffer.get());
+                }
+                length = buffer.getShort() & 0xffff;
+                if (buffer.remaining() < length) break;
+                line.append(direction == DIRECTION_TX ? " writeValue: " : " Receiving: ");
+                for (int i = 0; i < length; i++) {
+                    appendHex(line, buffer.get());
+                    line.append(' ');
+                }
+                text.write(line.toString());
+                text.newLine();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void appendHex(StringBuilder builder, byte value) {
+        builder.append(Character.forDigit((value >> 4) & 0xf, 16)).append(Character.forDigit(value & 0xf, 16));
+    }
+
+    private static File fileAt(File dir, int index) {
+        return new File(dir, index == 0 ? FILE_NAME + ".bin" : FILE_NAME + "." + index + ".bin");
+    }
+
+    /**
+     * 写线程，唯一的消费者
+     */
+    private class Writer implements Runnable {
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.BIG_ENDIAN);
+        private FileChannel channel;
+        private File openDirectory;
+        private long size;
+        private long openFailedAt;
+
+        @Override
+        public void run() {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            for (; ; ) {
+                boolean drained = false;
+                while (poll()) {
+                    drained = true;
+                }
+                if (!drained) {
+                    flush();
+                    if (!enabled) {
+                        //关闭期间不再轮询，setEnabled时唤醒
+                        close();
+                        LockSupport.park(this);
+                    } else {
+                        if (openDirectory != directory) close();
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                }
+            }
+        }
+
+        /**
+         * 取出一包写入缓冲区
+         */
+        private boolean poll() {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) return false;
+            int length = lengths[index];
+            if (ensureOpen()) {
+                int recordLength = HEADER_LENGTH + length;
+                if (size + buffer.position() + recordLength > maxFileSize) rotate();
+                if (channel != null) {
+                    if (buffer.remaining() < recordLength) flush();
+                    byte[] value = values[index];
+                    if (buffer.remaining() >= recordLength) {
+                        long address = addresses[index];
+                        buffer.putLong(times[index]);
+                        buffer.put(directions[index]);
+                        for (int shift = 40; shift >= 0; shift -= 8) {
+                            buffer.put((byte) (address >> shift));
+                        }
+                        buffer.putShort((short) length);
+                        buffer.put(value, 0, length);
+                        written.incrementAndGet();
+                    } else {
+                        dropped.incrementAndGet();
+                    }
+                    if (value.length > SLOT_SIZE) values[index] = new byte[SLOT_SIZE];
+                } else {
+                    dropped.incrementAndGet();
+                }
+            } else {
+                dropped.incrementAndGet();
+            }
+            sequences.lazySet(index, head + CAPACITY);
+            head++;
+            return true;
+        }
+
+        private boolean ensureOpen() {
+            File dir = directory;
+            if (channel != null && openDirectory == dir) return true;
+            close();
+            if (dir == null) return false;
+            long now = System.currentTimeMillis();
+            if (openFailedAt != 0 && now - openFailedAt < REOPEN_DELAY) return false;
+            try {
+                if (!dir.exists()) dir.mkdirs();
+                open(fileAt(dir, 0));
+                openDirectory = dir;
+                openFailedAt = 0;
+                return true;
+            } catch (IOException e) {
+                Log.e(TAG, "open: ", e);
+                openFailedAt = now;
+                close();
+                return false;
+            }
+        }
+
+        private void open(File file) throws IOException {
+            channel = new RandomAccessFile(file, "rw").getChannel();
+            size = channel.size();
+            channel.position(size);
+            if (size == 0) {
+                buffer.put(MAGIC);
+            }
+        }
+
+        /**
+         * capture.bin 改名为 capture.1.bin，依次后移，最旧的删除
+         */
+        private void rotate() {
+            flush();
+            File dir = openDirectory;
+            closeChannel();
+            int files = maxFiles;
+            try {
+                File oldest = fileAt(dir, files - 1);
+                if (oldest.exists()) oldest.delete();
+                for (int i = files - 2; i >= 0; i--) {
+                    File file = fileAt(dir, i);
+                    if (file.exists()) file.renameTo(fileAt(dir, i + 1));
+                }
+                open(fileAt(dir, 0));
+            } catch (IOException e) {
+                Log.e(TAG, "rotate: ", e);
+                openFailedAt = System.currentTimeMillis();
+                close();
+            }
+        }
+
+        private void flush() {
+            if (buffer.position() == 0) return;
+            buffer.flip();
+            try {
+                if (channel != null) {
+                    while (buffer.hasRemaining()) {
+                        size += channel.write(buffer);
+                    }
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "flush: ", e);
+                closeChannel();
+            }
+            buffer.clear();
+        }
+
+        private void close() {
+            flush();
+            closeChannel();
+            openDirectory = null;
+        }
+
+        private void closeChannel() {
+            buffer.clear();
+            if (channel == null) return;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                Log.e(TAG, "close: ", e);
+            }
+            channel = null;
+            size = 0;
+        }
+    }
+}
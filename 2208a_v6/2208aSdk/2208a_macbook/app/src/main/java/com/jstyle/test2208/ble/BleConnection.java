@@ -0,0 +1,533 @@
+package com.jstyle.test2208.ble;
+
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothGatt;
+import android.bluetooth.BluetoothGattCallback;
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.bluetooth.BluetoothGattDescriptor;
+import android.bluetooth.BluetoothGattService;
+import android.bluetooth.BluetoothProfile;
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Message;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.jstyle.blesdk2208a.Util.BleSDK;
+import com.jstyle.blesdk2208a.Util.CommandEncoder;
+import com.jstyle.blesdk2208a.Util.RecordFramer;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一个手环的连接
+ * Everything that belongs to one bracelet: the GATT, its operation queue, record
+ * reassembly, request correlation and reconnect state. BleService keeps one instance
+ * per address and is told about connection changes and data through {@link Callback}.
+ * The GATT callbacks only hand their data over to the handler thread, where all
+ * the processing and the Callback methods run.
+ */
+
+public class BleConnection {
+    private static final String TAG = "BleConnection";
+    private static final UUID NOTIY = UUID.fromString("00002902-0000-1000-8000-00805f9b34fb");
+    private static final UUID SERVICE_DATA = UUID.fromString("0000fff0-0000-1000-8000-00805f9b34fb");
+    private static final UUID DATA_Characteristic = UUID.fromString("0000fff6-0000-1000-8000-00805f9b34fb");
+    private static final UUID NOTIY_Characteristic = UUID.fromString("0000fff7-0000-1000-8000-00805f9b34fb");
+    /**
+     * 手环支持的最大MTU，协商失败时再试FALLBACK_MTU
+     */
+    private static final int MAX_MTU = 512;
+    private static final int FALLBACK_MTU = 153;
+    private static final int MSG_NOTIFICATION = 1;
+    /**
+     * GATT线程积压的通知超过这个数量时丢弃，正常时只有几包
+     */
+    private static final int MAX_PENDING_NOTIFICATIONS = 4096;
+    /**
+     * 历史记录的后续数据超过这个时间没有到达时丢弃未完成的记录
+     */
+    private static final long RECORD_IDLE_TIMEOUT = 1000;
+
+    public interface Callback {
+        /**
+         * 通知已打开，可以收发数据
+         */
+        void onReady(BleConnection connection);
+
+        /**
+         * 连接断开或连接失败，needReconnect时由BleService重连
+         */
+        void onDisconnected(BleConnection connection, int status);
+
+        void onData(BleConnection connection, byte[] value);
+    }
+
+    private final String address;
+    private final long captureAddress;
+    private final Context context;
+    private final Handler handler;
+    private final Callback callback;
+    private final GattScheduler scheduler;
+    private final RequestManager requestManager;
+    private final LinkManager linkManager;
+    private final RecordFramer recordFramer = new RecordFramer();//历史数据跨包重组
+    private final BleMetrics.RoundTrip roundTrip = new BleMetrics.RoundTrip();
+    private final Queue<byte[]> queues = new ConcurrentLinkedQueue<>();//UI线程和GATT线程都会加入指令
+    private final AtomicInteger pendingNotifications = new AtomicInteger();
+    private final Handler notificationHandler;
+    private final Runnable flushRecord = new Runnable() {
+        @Override
+        public void run() {
+            long idle = SystemClock.uptimeMillis() - lastNotificationTime;
+            if (idle < RECORD_IDLE_TIMEOUT && recordFramer.hasPending()) {
+                handler.postDelayed(this, RECORD_IDLE_TIMEOUT - idle);
+                return;
+            }
+            flushPosted = false;
+            if (recordFramer.flush()) Log.w(TAG, "partial history record dropped: " + address);
+        }
+    };
+    private long lastNotificationTime;
+    private boolean flushPosted;
+    private volatile BluetoothGatt mGatt;
+    private volatile boolean isConnected;
+    private boolean needReconnect;
+    private boolean autoConnect;
+    private int mtu = 23;
+
+    BleConnection(String address, Context context, Handler handler, GattArbiter arbiter, Callback callback) {
+        this.address = address;
+        this.captureAddress = BleCapture.parseAddress(address);
+        this.context = context;
+        this.handler = handler;
+        this.callback = callback;
+        this.scheduler = new GattScheduler(handler, arbiter);
+        this.linkManager = new LinkManager(this, scheduler);
+        this.requestManager = new RequestManager(this, handler);
+        //通知量大，用Message转交，不为每包创建Runnable
+        this.notificationHandler = new Handler(handler.getLooper(), new Handler.Callback() {
+            @Override
+            public boolean handleMessage(Message msg) {
+                pendingNotifications.decrementAndGet();
+                handleNotification((byte[]) msg.obj);
+                return true;
+            }
+        });
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public boolean isConnected() {
+        return isConnected;
+    }
+
+    public boolean isNeedReconnect() {
+        return needReconnect;
+    }
+
+    /**
+     * 请求与应答配对
+     */
+    public RequestManager getRequestManager() {
+        return requestManager;
+    }
+
+    /**
+     * 历史数据同步、实时波形时的连接参数
+     */
+    public LinkManager getLinkManager() {
+        return linkManager;
+    }
+
+    /**
+     * 一次写入的最大字节数
+     */
+    public int getWritePayload() {
+        return mtu - 3;
+    }
+
+    /**
+     * 正在直接连接或已经连上，不是在等autoConnect
+     */
+    boolean isDirectConnecting() {
+        return mGatt != null && !autoConnect;
+    }
+
+    /**
+     * @param autoConnect true时由控制器在设备广播时连接，没有超时
+     */
+    void connect(final BluetoothDevice device, final boolean autoConnect) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (mGatt != null) {
+                    //放弃之前未完成的连接
+                    mGatt.close();
+                    mGatt = null;
+                }
+                try {
+                    needReconnect = true;
+                    BleConnection.this.autoConnect = autoConnect;
+                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                        mGatt = device.connectGatt(context, autoConnect, bleGattCallback, BluetoothDevice.TRANSPORT_LE, BluetoothDevice.PHY_LE_1M_MASK);
+                    } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                        mGatt = device.connectGatt(context, autoConnect, bleGattCallback, BluetoothDevice.TRANSPORT_LE);
+                    } else {
+                        mGatt = device.connectGatt(context, autoConnect, bleGattCallback);
+                    }
+                } catch (Exception ignored) {
+                }
+            }
+        });
+    }
+
+    /**
+     * 主动断开，不再重连
+     */
+    public void disconnect() {
+        needReconnect = false;
+        if (mGatt != null) {
+            if (isConnected) {
+                mGatt.disconnect();
+                mGatt.close();
+                mGatt = null;
+            } else {
+                Log.i(TAG, "close: " + address);
+                mGatt.close();
+                mGatt = null;
+            }
+        }
+        onLinkLost();
+    }
+
+    private void onLinkLost() {
+        isConnected = false;
+        BleMetrics.getInstance().onCommandQueueChanged(-queues.size());
+        queues.clear();
+        roundTrip.clear();
+        scheduler.clear();
+        handler.removeCallbacks(flushRecord);
+        flushPosted = false;
+        requestManager.onDisconnected();
+        linkManager.onDisconnected();
+    }
+
+    /**
+     * 回调在binder线程，只把数据转交给GATT线程，不做其他工作
+     */
+    private final BluetoothGattCallback bleGattCallback = new BluetoothGattCallback() {
+        @Override
+        public void onConnectionStateChange(final BluetoothGatt gatt, final int status, final int newState) {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    handleConnectionStateChange(gatt, status, newState);
+                }
+            });
+        }
+
+        @Override
+        public void onServicesDiscovered(final BluetoothGatt gatt, final int status) {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    handleServicesDiscovered(gatt, status);
+                }
+            });
+        }
+
+        @Override
+        public void onMtuChanged(BluetoothGatt gatt, final int mtu, final int status) {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (BluetoothGatt.GATT_SUCCESS == status) {
+                        BleConnection.this.mtu = mtu;
+                    }
+                    scheduler.complete(GattScheduler.TYPE_MTU, status);
+                }
+            });
+        }
+
+        @Override
+        public void onPhyUpdate(BluetoothGatt gatt, final int txPhy, final int rxPhy, final int status) {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    linkManager.onPhyUpdate(txPhy, rxPhy, status);
+                    scheduler.complete(GattScheduler.TYPE_PHY, status);
+                }
+            });
+        }
+
+        @Override
+        public void onCharacteristicRead(BluetoothGatt gatt, BluetoothGattCharacteristic characteristic, final int status) {
+            final byte[] value = characteristic.getValue();
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    scheduler.complete(GattScheduler.TYPE_READ, status);
+                    if (status == BluetoothGatt.GATT_SUCCESS) {
+                        callback.onData(BleConnection.this, value);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void onDescriptorWrite(BluetoothGatt gatt, BluetoothGattDescriptor descriptor, int status) {
+            //结果在WriteDescriptor.onComplete中处理
+            scheduler.complete(GattScheduler.TYPE_DESCRIPTOR, status);
+        }
+
+        @Override
+        public void onCharacteristicChanged(BluetoothGatt gatt, BluetoothGattCharacteristic characteristic) {
+            //下一包通知会替换getValue()的数组，不会改写这一包
+            byte[] value = characteristic.getValue();
+            int pending = pendingNotifications.incrementAndGet();
+            if (pending > MAX_PENDING_NOTIFICATIONS) {
+                pendingNotifications.decrementAndGet();
+                BleMetrics.getInstance().onNotificationDropped();
+                return;
+            }
+            BleMetrics.getInstance().onNotificationBacklog(pending);
+            notificationHandler.obtainMessage(MSG_NOTIFICATION, value).sendToTarget();
+        }
+
+        @Override
+        public void onCharacteristicWrite(BluetoothGatt gatt, BluetoothGattCharacteristic characteristic, int status) {
+            //无应答写入时表示协议栈已发出，可以写下一包
+            scheduler.complete(GattScheduler.TYPE_WRITE, status);
+            if (status != BluetoothGatt.GATT_SUCCESS) {
+                Log.i(TAG, "onCharacteristicWrite: failed " + status);
+            }
+        }
+    };
+
+    private void handleConnectionStateChange(BluetoothGatt gatt, int status, int newState) {
+        Log.i(TAG, "onConnectionStateChange: " + address + " status " + status + " newstate " + newState);
+        if (status == 133 || newState == BluetoothProfile.STATE_DISCONNECTED) {
+            if (mGatt != null) {
+                mGatt.disconnect();
+                mGatt.close();
+                mGatt = null;
+            }
+            if (gatt != null) {
+                gatt.disconnect();
+                gatt.close();
+            }
+            onLinkLost();
+            callback.onDisconnected(BleConnection.this, status);
+            return;
+        }
+        if (newState == BluetoothProfile.STATE_CONNECTED) {
+            autoConnect = false;
+            recordFramer.reset();
+            mtu = 23;
+            scheduler.reset(gatt);
+            try {
+                gatt.discoverServices();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void handleServicesDiscovered(BluetoothGatt gatt, int status) {
+        if (status != BluetoothGatt.GATT_SUCCESS || gatt.getService(SERVICE_DATA) == null) {
+            //服务缓存可能已过期，清除后断开重连
+            Log.w(TAG, "onServicesDiscovered failed: " + status);
+            refreshDeviceCache(gatt);
+            gatt.disconnect();
+            return;
+        }
+        //先协商MTU再打开通知，都在GATT队列中依次执行
+        scheduler.enqueue(new GattScheduler.RequestMtu(MAX_MTU) {
+            @Override
+            protected void onComplete(int status) {
+                //断开时队列中的操作也以失败结束，不再重试
+                if (status != BluetoothGatt.GATT_SUCCESS && mGatt != null && getMtu() > FALLBACK_MTU) {
+                    scheduler.enqueueFirst(new GattScheduler.RequestMtu(FALLBACK_MTU));
+                }
+            }
+        });
+        setCharacteristicNotification(true);
+    }
+
+    /**
+     * 通知已打开，发送连接后的指令
+     */
+    private void onNotificationEnabled() {
+        offerCommands(BleSDK.newCommandEncoder(getWritePayload()).disableAncs());
+        nextQueue();
+        isConnected = true;
+        callback.onReady(BleConnection.this);
+    }
+
+    /**
+     * 在GATT线程处理一包通知
+     */
+    private void handleNotification(byte[] value) {
+        if (mGatt == null || value == null)
+            return;
+        BleCapture.getInstance().record(BleCapture.DIRECTION_RX, captureAddress, value);
+        BleMetrics.getInstance().onNotification(value);
+        roundTrip.onReceived(value);
+        linkManager.onNotification(value.length);
+        requestManager.onNotification(value);
+        lastNotificationTime = SystemClock.uptimeMillis();
+        byte[] page = recordFramer.feed(value);
+        if (!flushPosted && recordFramer.hasPending()) {
+            //每包只记时间，不重复post
+            flushPosted = true;
+            handler.postDelayed(flushRecord, RECORD_IDLE_TIMEOUT);
+        }
+        if (page == null) return;//历史记录还没收完整
+        requestManager.onPage(page);
+        callback.onData(BleConnection.this, page);
+    }
+
+    public boolean refreshDeviceCache(BluetoothGatt gatt) {
+        try {
+            Method localMethod = gatt.getClass().getMethod("refresh", new Class[0]);
+            if (localMethod != null) {
+                return ((Boolean) localMethod.invoke(gatt, new Object[0])).booleanValue();
+            }
+        } catch (Exception localException) {
+            Log.e(TAG, "An exception occured while refreshing device");
+        }
+        return false;
+    }
+
+    /**
+     * 读取设备数据
+     */
+    public void readValue(BluetoothGattCharacteristic characteristic) {
+        if (mGatt == null) return;
+        scheduler.enqueue(new GattScheduler.Read(characteristic));
+    }
+
+    /**
+     * 写入设备数据
+     */
+    public void writeValue(byte[] value) {
+        writeValue(value, false, null);
+    }
+
+    /**
+     * @param listener 写入完成或失败时回调
+     */
+    public void writeValue(byte[] value, GattScheduler.OnCompleteListener listener) {
+        writeValue(value, false, listener);
+    }
+
+    /**
+     * 加入GATT队列，轮到时写入
+     *
+     * @param bulk 连续发送的指令用无应答写入
+     */
+    private void writeValue(final byte[] value, boolean bulk, final GattScheduler.OnCompleteListener listener) {
+        if (mGatt == null || value == null) {
+            if (listener != null) listener.onComplete(BluetoothGatt.GATT_FAILURE);
+            return;
+        }
+        BluetoothGattService service = mGatt.getService(SERVICE_DATA);
+        BluetoothGattCharacteristic characteristic = service == null ? null : service.getCharacteristic(DATA_Characteristic);
+        if (characteristic == null) {
+            if (listener != null) listener.onComplete(BluetoothGatt.GATT_FAILURE);
+            return;
+        }
+        if (value[0] == (byte) 0x47) {
+            needReconnect = false;
+        }
+        scheduler.enqueue(new GattScheduler.Write(characteristic, value, bulk) {
+            @Override
+            protected void onStart() {
+                recordFramer.onCommand(value);
+                BleCapture.getInstance().record(BleCapture.DIRECTION_TX, captureAddress, value);
+                BleMetrics.getInstance().onWrite(value);
+                roundTrip.onSent(value);
+            }
+
+            @Override
+            protected void onComplete(int status) {
+                if (listener != null) listener.onComplete(status);
+            }
+        });
+    }
+
+    /**
+     * 设置PHY，Android 8.0以上有效
+     */
+    public void setPreferredPhy(int txPhy, int rxPhy, int phyOptions) {
+        if (mGatt == null) return;
+        scheduler.enqueue(new GattScheduler.SetPreferredPhy(txPhy, rxPhy, phyOptions));
+    }
+
+    public void setCharacteristicNotification(final boolean enable) {
+        if (mGatt == null) return;
+        BluetoothGattService service = mGatt.getService(SERVICE_DATA);
+        if (service == null) return;
+        BluetoothGattCharacteristic characteristic = service.getCharacteristic(NOTIY_Characteristic);
+        if (characteristic == null) return;
+        BluetoothGattDescriptor descriptor = characteristic.getDescriptor(NOTIY);
+        if (descriptor == null) return;
+        //本地设置完成后才写描述符，不再sleep
+        scheduler.enqueue(new GattScheduler.SetNotification(characteristic, enable));
+        scheduler.enqueue(new GattScheduler.WriteDescriptor(descriptor,
+                enable ? BluetoothGattDescriptor.ENABLE_NOTIFICATION_VALUE : BluetoothGattDescriptor.DISABLE_NOTIFICATION_VALUE) {
+            @Override
+            protected void onComplete(int status) {
+                if (status != BluetoothGatt.GATT_SUCCESS) {
+                    Log.i(TAG, "onDescriptorWrite: failed " + status);
+                } else if (enable) {
+                    onNotificationEnabled();
+                }
+            }
+        });
+    }
+
+    public List<BluetoothGattService> getSupportedGattServices() {
+        if (mGatt == null) return null;
+        return mGatt.getServices();
+    }
+
+    public void readRssi() {
+        if (mGatt == null) return;
+        mGatt.readRemoteRssi();
+    }
+
+    public void offerValue(byte[] value) {
+        queues.offer(value);
+        BleMetrics.getInstance().onCommandQueueChanged(1);
+    }
+
+    /**
+     * 编码器中的指令按MTU合并后加入队列
+     */
+    public void offerCommands(CommandEncoder encoder) {
+        List<byte[]> commands = encoder.finish();
+        queues.addAll(commands);
+        BleMetrics.getInstance().onCommandQueueChanged(commands.size());
+    }
+
+    /**
+     * 队列中的指令全部加入GATT队列，连续无应答写入，不再每条等一次写入回调
+     */
+    public void nextQueue() {
+        byte[] data;
+        while ((data = queues.poll()) != null) {
+            BleMetrics.getInstance().onCommandQueueChanged(-1);
+            writeValue(data, true, null);
+        }
+    }
+}
@@ -0,0 +1,671 @@
+package com.jstyle.test2208.ble;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Message;
+import android.os.SystemClock;
+
+import com.jstyle.blesdk2208a.Util.BleSDK;
+import com.jstyle.blesdk2208a.Util.WaveformDecoder;
+import com.jstyle.blesdk2208a.callback.DataListener2025;
+import com.jstyle.blesdk2208a.callback.GpsListener2025;
+import com.jstyle.blesdk2208a.callback.RawSensorListener2025;
+import com.jstyle.blesdk2208a.callback.WaveformListener2025;
+import com.jstyle.blesdk2208a.constant.BleConst;
+import com.jstyle.blesdk2208a.constant.DeviceConst;
+import com.jstyle.blesdk2208a.constant.DeviceKey;
+import com.jstyle.blesdk2208a.model.GpsTrack;
+import com.jstyle.blesdk2208a.model.RawSensorBatch;
+import com.jstyle.test2208.Util.BleData;
+
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.reactivex.BackpressureOverflowStrategy;
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableEmitter;
+import io.reactivex.FlowableOnSubscribe;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Cancellable;
+
+/**
+ * 设备数据只解析一次，按类型分发
+ * Frames of the main device are decoded once, on a "decode" HandlerThread, and
+ * published as typed events, one channel per kind: connection states, realtime
+ * step, acknowledgements, history pages, ECG/PPG waveform samples, raw PPG batches,
+ * GPS pages and the frames the SDK passes through undecoded. Each channel has its
+ * own backpressure strategy: realtime step keeps only the latest value, raw PPG
+ * batches are buffered up to {@link #RAW_SENSOR_BUFFER} and drop the oldest,
+ * everything else is buffered. Sample arrays, batches and tracks are copied (the
+ * decoders reuse them), and only when their channel has subscribers. Realtime
+ * ECG/PPG samples are not sent per packet: a {@link SampleWindow} per stream collects
+ * them for 40 ms or 64 samples, so the main thread gets one batch per window,
+ * with min/max/mean, whatever the packet rate.
+ * The recent past is kept in fixed-capacity {@link SampleRing}s, written on the
+ * decode thread whether anyone listens or not: 30 s of realtime ECG, PPG and raw
+ * 0x3B (PPG + 3-axis) data. The replaying channels hand a new subscriber a snapshot
+ * of its ring first, taken on the decode thread so it joins the live tail without a
+ * gap or a duplicate, e.g. after a rotation; realtime steps replay the last packet
+ * of the past 5 min. The rings are cleared on disconnect.
+ * Events are emitted on the decode thread in the order of the frames, use observeOn
+ * for the UI. Once observed elsewhere only the order within one channel holds: each
+ * channel is buffered, conflated or dropped on its own and each observeOn has its
+ * own queue, so e.g. an ack may reach the main thread before the history page that
+ * was decoded ahead of it.
+ */
+
+public class BleEvents {
+    /**
+     * 原始PPG批次的最大积压，超过时丢弃最早的
+     */
+    public static final int RAW_SENSOR_BUFFER = 256;
+    /**
+     * 实时波形和原始数据保存的时长
+     */
+    public static final long WAVEFORM_HISTORY_MILLIS = 30 * 1000;
+    /**
+     * 实时计步最后一包保留的时长
+     */
+    public static final long STEP_HISTORY_MILLIS = 5 * 60 * 1000;
+    /**
+     * 0x3B原始数据每秒最多的包数
+     */
+    private static final int RAW_SENSOR_RATE = 100;
+    /**
+     * 回放的波形批次的序号
+     */
+    public static final int REPLAY_SEQUENCE_ID = -1;
+    private static final int MSG_FRAME = 1;
+    private static final int MSG_STATE = 2;
+    private static final int MSG_FLUSH_RAW_SENSOR = 3;
+    private static final int MSG_FLUSH_WINDOW = 4;
+    private static final BleEvents instance = new BleEvents();
+
+    private final Channel<BleData> states = new Channel<>(BackpressureStrategy.BUFFER);
+    private final Channel<Map<String, Object>> realtimeSteps = new Channel<>(BackpressureStrategy.LATEST);
+    private final Channel<Map<String, Object>> acks = new Channel<>(BackpressureStrategy.BUFFER);
+    private final Channel<Map<String, Object>> historyPages = new Channel<>(BackpressureStrategy.BUFFER);
+    private final Channel<Waveform> waveforms = new Channel<>(BackpressureStrategy.BUFFER);
+    private final Channel<RawSensorBatch> rawSensorBatches = new Channel<>(BackpressureStrategy.MISSING);
+    private final Channel<GpsPage> gpsPages = new Channel<>(BackpressureStrategy.BUFFER);
+    private final Channel<byte[]> rawFrames = new Channel<>(BackpressureStrategy.BUFFER);
+    private final SampleWindow ecgWindow = new SampleWindow(BleConst.RealtimeEcgWaveform);
+    private final SampleWindow ppgWindow = new SampleWindow(BleConst.RealtimePpgWaveform);
+    private final SampleRing ecgRing = new SampleRing(1, (int) (WAVEFORM_HISTORY_MILLIS / 1000 * WaveformDecoder.ECG_SAMPLE_RATE), false);
+    private final SampleRing ppgRing = new SampleRing(1, (int) (WAVEFORM_HISTORY_MILLIS / 1000 * WaveformDecoder.PPG_SAMPLE_RATE), false);
+    private final SampleRing rawSensorRing = new SampleRing(RawSensorBatch.CHANNEL_COUNT, (int) (WAVEFORM_HISTORY_MILLIS / 1000 * RAW_SENSOR_RATE), true);
+    private Map<String, Object> lastRealtimeStep;
+    private long lastRealtimeStepAt;
+    private final Decoder decoder = new Decoder();
+    private final Handler handler;
+
+    private BleEvents() {
+        HandlerThread thread = new HandlerThread("decode");
+        thread.start();
+        handler = new Handler(thread.getLooper(), new Handler.Callback() {
+            @Override
+            public boolean handleMessage(Message msg) {
+                switch (msg.what) {
+                    case MSG_FRAME:
+                        decode((BleData) msg.obj);
+                        break;
+                    case MSG_STATE:
+                        onState((BleData) msg.obj);
+                        break;
+                    case MSG_FLUSH_RAW_SENSOR:
+                        BleSDK.FlushRawSensor(decoder);
+                        break;
+                    case MSG_FLUSH_WINDOW:
+                        flush((SampleWindow) msg.obj);
+                        break;
+                }
+                return true;
+            }
+        });
+    }
+
+    public static BleEvents getInstance() {
+        return instance;
+    }
+
+    /**
+     * BleService收到一包数据 (重组后)，value和time必须已设置
+     */
+    public void onFrame(BleData bleData) {
+        handler.obtainMessage(MSG_FRAME, bleData).sendToTarget();
+    }
+
+    /**
+     * 连接状态变化，在decode线程上与数据按发生的顺序发出
+     */
+    public void onStateChanged(BleData bleData) {
+        handler.obtainMessage(MSG_STATE, bleData).sendToTarget();
+    }
+
+    /**
+     * 关闭原始数据后发出剩余不满一批的数据
+     */
+    public void flushRawSensor() {
+        handler.sendEmptyMessage(MSG_FLUSH_RAW_SENSOR);
+    }
+
+    /**
+     * 实时ECG/PPG的合并窗口，默认64个采样点或40毫秒
+     */
+    public void setSampleWindow(final int maxSamples, final long windowMillis) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                flush(ecgWindow);
+                flush(ppgWindow);
+                ecgWindow.setWindow(maxSamples, windowMillis);
+                ppgWindow.setWindow(maxSamples, windowMillis);
+            }
+        });
+    }
+
+    /**
+     * BleService中的ACTION_GATT_*
+     */
+    public Flowable<BleData> states() {
+        return states.flowable();
+    }
+
+    /**
+     * 实时计步，只保留最新的一个；订阅时先收到5分钟内的最后一个
+     */
+    public Flowable<Map<String, Object>> realtimeSteps() {
+        return realtimeSteps.flowable(new Replay<Map<String, Object>>() {
+            @Override
+            public void replay(FlowableEmitter<Map<String, Object>> emitter) {
+                if (lastRealtimeStep != null && SystemClock.uptimeMillis() - lastRealtimeStepAt <= STEP_HISTORY_MILLIS) {
+                    emitter.onNext(lastRealtimeStep);
+                }
+            }
+        });
+    }
+
+    /**
+     * 设置、查询等指令的应答
+     */
+    public Flowable<Map<String, Object>> acks() {
+        return acks.flowable();
+    }
+
+    /**
+     * 历史数据，每包一个Map (包括删除的应答)
+     */
+    public Flowable<Map<String, Object>> historyPages() {
+        return historyPages.flowable();
+    }
+
+    /**
+     * ECG历史数据 (每包一个) 和实时ECG/PPG采样点 (每个窗口一批)
+     */
+    public Flowable<Waveform> waveforms() {
+        return waveforms.flowable();
+    }
+
+    /**
+     * @param replay 先收到最近30秒的实时ECG和PPG (各一批，sequenceId为REPLAY_SEQUENCE_ID)
+     */
+    public Flowable<Waveform> waveforms(boolean replay) {
+        if (!replay) return waveforms();
+        return waveforms.flowable(new Replay<Waveform>() {
+            @Override
+            public void replay(FlowableEmitter<Waveform> emitter) {
+                if (ecgRing.size() > 0 && isRecent(ecgRing, WAVEFORM_HISTORY_MILLIS)) {
+                    emitter.onNext(Waveform.ecg(BleConst.RealtimeEcgWaveform, REPLAY_SEQUENCE_ID, WaveformDecoder.ECG_SAMPLE_RATE, ecgRing.toShortArray(0)));
+                }
+                if (ppgRing.size() > 0 && isRecent(ppgRing, WAVEFORM_HISTORY_MILLIS)) {
+                    emitter.onNext(Waveform.ppg(BleConst.RealtimePpgWaveform, REPLAY_SEQUENCE_ID, WaveformDecoder.PPG_SAMPLE_RATE, ppgRing.toArray(0)));
+                }
+            }
+        });
+    }
+
+    /**
+     * 0x3B原始PPG/三轴数据，每批一个
+     */
+    public Flowable<RawSensorBatch> rawSensorBatches() {
+        return rawSensorBatches(false);
+    }
+
+    /**
+     * @param replay 先收到最近30秒的数据 (一批，见isReplay)
+     */
+    public Flowable<RawSensorBatch> rawSensorBatches(boolean replay) {
+        Replay<RawSensorBatch> snapshot = !replay ? null : new Replay<RawSensorBatch>() {
+            @Override
+            public void replay(FlowableEmitter<RawSensorBatch> emitter) {
+                if (rawSensorRing.size() > 0 && isRecent(rawSensorRing, WAVEFORM_HISTORY_MILLIS)) {
+                    emitter.onNext(rawSensorRing.toRawSensorBatch(new ReplayedBatch(rawSensorRing.size())));
+                }
+            }
+        };
+        return rawSensorBatches.flowable(snapshot).onBackpressureBuffer(RAW_SENSOR_BUFFER, new Action() {
+            @Override
+            public void run() throws Exception {
+                BleMetrics.getInstance().onEventDropped();
+            }
+        }, BackpressureOverflowStrategy.DROP_OLDEST);
+    }
+
+    /**
+     * @return true for the batch replayed from the last 30 s, it must not be recorded
+     * or fed to an algorithm again
+     */
+    public static boolean isReplay(RawSensorBatch batch) {
+        return batch instanceof ReplayedBatch;
+    }
+
+    public Flowable<GpsPage> gpsPages() {
+        return gpsPages.flowable();
+    }
+
+    /**
+     * SDK不解析的数据 (如实时ECG/PPG的原始包) 和0x3B原始包，用于保存原始数据
+     */
+    public Flowable<byte[]> rawFrames() {
+        return rawFrames.flowable();
+    }
+
+    private void onState(BleData bleData) {
+        if (BleService.ACTION_GATT_DISCONNECTED.equals(bleData.getAction())) {
+            //断开后不再回放上一次连接的数据
+            ecgRing.clear();
+            ppgRing.clear();
+            rawSensorRing.clear();
+            lastRealtimeStep = null;
+        }
+        states.post(bleData);
+    }
+
+    private static boolean isRecent(SampleRing ring, long millis) {
+        return SystemClock.uptimeMillis() - ring.getUpdatedAt() <= millis;
+    }
+
+    private void decode(BleData bleData) {
+        byte[] value = bleData.getValue();
+        if (value == null || value.length == 0) return;
+        long start = System.nanoTime();
+        BleMetrics.getInstance().onDecodeWait(start - bleData.getTime());
+        decoder.history = isHistory(value[0]);
+        if (value[0] == DeviceConst.PPGSensor) {
+            rawFrames.post(value);
+            if (BleSDK.DataParsingWithRawSensor(value, decoder)) {
+                BleMetrics.getInstance().onDecoded(value[0], System.nanoTime() - start);
+                return;//关闭应答仍走DataParsingWithData
+            }
+        }
+        if (!BleSDK.DataParsingWithGps(value, decoder)
+                && !BleSDK.DataParsingWithWaveform(value, decoder)) {
+            BleSDK.DataParsingWithData(value, decoder);
+        }
+        BleMetrics.getInstance().onDecoded(value[0], System.nanoTime() - start);
+    }
+
+    /**
+     * 窗口中的采样点作为一批发出
+     */
+    private void flush(SampleWindow window) {
+        handler.removeMessages(MSG_FLUSH_WINDOW, window);
+        if (window.isEmpty()) return;
+        Waveform waveform;
+        if (window == ecgWindow) {
+            waveform = new Waveform(Waveform.ECG_SAMPLES, window.getDataType(), window.getSequenceId(), window.getSampleRate());
+            waveform.ecgSamples = window.toShortArray();
+        } else {
+            waveform = new Waveform(Waveform.PPG_SAMPLES, window.getDataType(), window.getSequenceId(), window.getSampleRate());
+            waveform.ppgSamples = window.toIntArray();
+        }
+        waveform.min = window.getMin();
+        waveform.max = window.getMax();
+        waveform.mean = window.getMean();
+        window.clear();
+        waveforms.post(waveform);
+    }
+
+    /**
+     * 窗口满了立即发出，否则第一包到达时开始计时
+     */
+    private void onWindowAdded(SampleWindow window, boolean first, boolean full) {
+        if (full) {
+            flush(window);
+        } else if (first) {
+            handler.sendMessageDelayed(handler.obtainMessage(MSG_FLUSH_WINDOW, window), window.getWindowMillis());
+        }
+    }
+
+    /**
+     * 分页读取的历史数据
+     */
+    private static boolean isHistory(byte cmd) {
+        switch (cmd) {
+            case DeviceConst.CMD_Get_TotalData:
+            case DeviceConst.CMD_Get_DetailData:
+            case DeviceConst.CMD_Get_SleepData:
+            case DeviceConst.CMD_Get_HeartData:
+            case DeviceConst.CMD_Get_OnceHeartData:
+            case DeviceConst.CMD_Get_HrvTestData:
+            case DeviceConst.CMD_Get_Blood_oxygen:
+            case DeviceConst.GetAutomaticSpo2Monitoring:
+            case DeviceConst.Temperature_history:
+            case DeviceConst.GetAxillaryTemperatureDataWithMode:
+            case DeviceConst.CMD_Get_SPORTData:
+            case DeviceConst.CMD_Get_GPSDATA:
+            case DeviceConst.GetECGwaveform:
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * 解析结果按类型发到各个通道，只在decode线程使用
+     */
+    private class Decoder implements DataListener2025, WaveformListener2025, RawSensorListener2025, GpsListener2025 {
+        boolean history;
+
+        @Override
+        public void dataCallback(Map<String, Object> maps) {
+            if (BleConst.RealTimeStep.equals(maps.get(DeviceKey.DataType))) {
+                lastRealtimeStep = maps;
+                lastRealtimeStepAt = SystemClock.uptimeMillis();
+                realtimeSteps.post(maps);
+            } else if (history) {
+                historyPages.post(maps);
+            } else {
+                acks.post(maps);
+            }
+        }
+
+        @Override
+        public void dataCallback(byte[] value) {
+            rawFrames.post(value);
+        }
+
+        @Override
+        public void onEcgHistoryStart(String date, long timeMillis, int hrv, int heartRate, int moodValue) {
+            if (!waveforms.hasSubscribers()) return;
+            Waveform waveform = new Waveform(Waveform.ECG_HISTORY_START, BleConst.ECGdata, 0, 0);
+            waveform.date = date;
+            waveform.timeMillis = timeMillis;
+            waveform.hrv = hrv;
+            waveform.heartRate = heartRate;
+            waveform.moodValue = moodValue;
+            waveforms.post(waveform);
+        }
+
+        @Override
+        public void onEcgSamples(String dataType, int sequenceId, int sampleRate, short[] samples, int count) {
+            boolean realtime = BleConst.RealtimeEcgWaveform.equals(dataType);
+            if (realtime) ecgRing.add(samples, count);
+            if (!waveforms.hasSubscribers()) return;
+            if (realtime) {
+                boolean first = ecgWindow.isEmpty();
+                onWindowAdded(ecgWindow, first, ecgWindow.add(sequenceId, sampleRate, samples, count));
+                return;
+            }
+            short[] copy = new short[count];
+            System.arraycopy(samples, 0, copy, 0, count);
+            waveforms.post(Waveform.ecg(dataType, sequenceId, sampleRate, copy));
+        }
+
+        @Override
+        public void onPpgSamples(String dataType, int sequenceId, int sampleRate, int[] samples, int count) {
+            ppgRing.add(samples, count);
+            if (!waveforms.hasSubscribers()) return;
+            boolean first = ppgWindow.isEmpty();
+            onWindowAdded(ppgWindow, first, ppgWindow.add(sequenceId, sampleRate, samples, count));
+        }
+
+        @Override
+        public void onEcgHistoryEnd() {
+            if (!waveforms.hasSubscribers()) return;
+            waveforms.post(new Waveform(Waveform.ECG_HISTORY_END, BleConst.ECGdata, 0, 0));
+        }
+
+        @Override
+        public void onRawSensorBatch(RawSensorBatch batch) {
+            rawSensorRing.add(batch);
+            if (!rawSensorBatches.hasSubscribers()) return;
+            RawSensorBatch copy = new RawSensorBatch(batch.size());
+            copy.append(batch);
+            rawSensorBatches.post(copy);
+        }
+
+        @Override
+        public void onGpsTrack(GpsTrack page, boolean end) {
+            if (!gpsPages.hasSubscribers()) return;
+            GpsTrack copy = new GpsTrack(page.size());
+            copy.append(page);
+            gpsPages.post(new GpsPage(copy, end));
+        }
+    }
+
+    /**
+     * 新订阅者在decode线程收到的历史数据
+     */
+    private interface Replay<T> {
+        void replay(FlowableEmitter<T> emitter);
+    }
+
+    /**
+     * 一个事件类型的所有订阅者
+     */
+    private class Channel<T> {
+        private final BackpressureStrategy strategy;
+        private final CopyOnWriteArrayList<FlowableEmitter<T>> emitters = new CopyOnWriteArrayList<>();
+
+        Channel(BackpressureStrategy strategy) {
+            this.strategy = strategy;
+        }
+
+        Flowable<T> flowable() {
+            return flowable(null);
+        }
+
+        /**
+         * @param replay 不为null时，在decode线程先发出历史数据再加入订阅者，与之后的数据衔接
+         */
+        Flowable<T> flowable(final Replay<T> replay) {
+            return Flowable.create(new FlowableOnSubscribe<T>() {
+                @Override
+                public void subscribe(final FlowableEmitter<T> emitter) throws Exception {
+                    emitter.setCancellable(new Cancellable() {
+                        @Override
+                        public void cancel() throws Exception {
+                            emitters.remove(emitter);
+                        }
+                    });
+                    if (replay == null) {
+                        emitters.add(emitter);
+                        return;
+                    }
+                    handler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (emitter.isCancelled()) return;
+                            replay.replay(emitter);
+                            emitters.add(emitter);
+                        }
+                    });
+                }
+            }, strategy);
+        }
+
+        boolean hasSubscribers() {
+            return !emitters.isEmpty();
+        }
+
+        void post(T event) {
+            for (FlowableEmitter<T> emitter : emitters) {
+                emitter.onNext(event);
+            }
+        }
+    }
+
+    /**
+     * ECG/PPG波形事件，对应WaveformListener2025的一个回调
+     */
+    public static class Waveform {
+        public static final int ECG_HISTORY_START = 0;
+        public static final int ECG_SAMPLES = 1;
+        public static final int PPG_SAMPLES = 2;
+        public static final int ECG_HISTORY_END = 3;
+
+        private final int kind;
+        private final String dataType;
+        private final int sequenceId;
+        private final int sampleRate;
+        private short[] ecgSamples;
+        private int[] ppgSamples;
+        private String date;
+        private long timeMillis;
+        private int hrv;
+        private int heartRate;
+        private int moodValue;
+        private int min;
+        private int max;
+        private double mean;
+
+        Waveform(int kind, String dataType, int sequenceId, int sampleRate) {
+            this.kind = kind;
+            this.dataType = dataType;
+            this.sequenceId = sequenceId;
+            this.sampleRate = sampleRate;
+        }
+
+        /**
+         * ECG采样点一批，同时计算最小值，最大值和平均值
+         */
+        static Waveform ecg(String dataType, int sequenceId, int sampleRate, short[] samples) {
+            Waveform waveform = new Waveform(ECG_SAMPLES, dataType, sequenceId, sampleRate);
+            waveform.ecgSamples = samples;
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            long sum = 0;
+            for (short sample : samples) {
+                if (sample < min) min = sample;
+                if (sample > max) max = sample;
+                sum += sample;
+            }
+            waveform.setStatistics(samples.length, min, max, sum);
+            return waveform;
+        }
+
+        static Waveform ppg(String dataType, int sequenceId, int sampleRate, int[] samples) {
+            Waveform waveform = new Waveform(PPG_SAMPLES, dataType, sequenceId, sampleRate);
+            waveform.ppgSamples = samples;
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            long sum = 0;
+            for (int sample : samples) {
+                if (sample < min) min = sample;
+                if (sample > max) max = sample;
+                sum += sample;
+            }
+            waveform.setStatistics(samples.length, min, max, sum);
+            return waveform;
+        }
+
+        private void setStatistics(int count, int min, int max, long sum) {
+            if (count == 0) return;
+            this.min = min;
+            this.max = max;
+            this.mean = (double) sum / count;
+        }
+
+        public int getKind() {
+            return kind;
+        }
+
+        public String getDataType() {
+            return dataType;
+        }
+
+        public int getSampleRate() {
+            return sampleRate;
+        }
+
+        /**
+         * @return ECG_SAMPLES时的采样点，否则为null
+         */
+        public short[] getEcgSamples() {
+            return ecgSamples;
+        }
+
+        /**
+         * @return PPG_SAMPLES时的采样点，否则为null
+         */
+        public int[] getPpgSamples() {
+            return ppgSamples;
+        }
+
+        /**
+         * 本批采样点的最小值，最大值和平均值，没有采样点时为0
+         */
+        public int getMin() {
+            return min;
+        }
+
+        public int getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        /**
+         * 交给listener对应的回调
+         */
+        public void dispatch(WaveformListener2025 listener) {
+            switch (kind) {
+                case ECG_HISTORY_START:
+                    listener.onEcgHistoryStart(date, timeMillis, hrv, heartRate, moodValue);
+                    break;
+                case ECG_SAMPLES:
+                    listener.onEcgSamples(dataType, sequenceId, sampleRate, ecgSamples, ecgSamples.length);
+                    break;
+                case PPG_SAMPLES:
+                    listener.onPpgSamples(dataType, sequenceId, sampleRate, ppgSamples, ppgSamples.length);
+                    break;
+                case ECG_HISTORY_END:
+                    listener.onEcgHistoryEnd();
+                    break;
+            }
+        }
+    }
+
+    /**
+     * GPS历史数据的一包
+     */
+    public static class GpsPage {
+        private final GpsTrack track;
+        private final boolean end;
+
+        GpsPage(GpsTrack track, boolean end) {
+            this.track = track;
+            this.end = end;
+        }
+
+        public GpsTrack getTrack() {
+            return track;
+        }
+
+        public boolean isEnd() {
+            return end;
+        }
+    }
+
+    /**
+     * rawSensorBatches(true)的第一批
+     */
+    private static class ReplayedBatch extends RawSensorBatch {
+        ReplayedBatch(int capacity) {
+            super(capacity);
+        }
+    }
+}
@@ -1,29 +1,33 @@
 package com.jstyle.test2208.ble;
 
-import android.annotation.TargetApi;
 import android.app.Service;
 import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
 import android.bluetooth.BluetoothManager;
-import android.bluetooth.le.ScanCallback;
-import android.bluetooth.le.ScanResult;
-import android.bluetooth.le.ScanSettings;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.content.ServiceConnection;
-import android.os.Build;
 import android.os.IBinder;
 import android.support.annotation.NonNull;
-import android.support.annotation.RequiresApi;
 import android.text.TextUtils;
 
+import com.jstyle.blesdk2208a.Util.BleSDK;
+import com.jstyle.blesdk2208a.Util.CommandEncoder;
 import com.jstyle.blesdk2208a.callback.OnScanResults;
 import com.jstyle.blesdk2208a.model.Device;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+
 /**
  * 蓝牙管理类 Bluetooth management class
  */
@@ -127,6 +131,71 @@ public class BleManager {
     }
 
 
+    /**
+     * 按当前MTU合并指令的编码器，用offerCommands加入队列
+     * Command encoder packing several commands into one write for the current MTU
+     */
+    public CommandEncoder newCommandEncoder(){
+        return BleSDK.newCommandEncoder(bleService==null?CommandEncoder.DEFAULT_PAYLOAD:bleService.getWritePayload());
+    }
+
+    public void offerCommands(CommandEncoder encoder){
+        if(bleService==null)return;
+        bleService.offerCommands(encoder);
+    }
+
+    /**
+     * 发送命令并等待设备应答，超时或写入失败时重发，dispose取消
+     * Send a command and wait for the response with the same command byte
+     */
+    public Single<Map<String, Object>> request(byte[] value){
+        return request(value, RequestManager.DEFAULT_TIMEOUT, RequestManager.DEFAULT_RETRIES);
+    }
+
+    public Single<Map<String, Object>> request(byte[] value, long timeoutMillis, int retries){
+        RequestManager requestManager=bleService==null?null:bleService.getRequestManager();
+        if(requestManager==null)return Single.error(new IOException("not connected"));
+        return requestManager.request(value, timeoutMillis, retries);
+    }
+
+    /**
+     * 读取全部历史数据，自动发送继续读取的命令，收到结束标志后完成
+     * Read all pages of a history type, ModeContinue is sent automatically
+     */
+    public Flowable<Map<String, Object>> readHistory(RequestManager.HistoryCommand command){
+        RequestManager requestManager=bleService==null?null:bleService.getRequestManager();
+        if(requestManager==null)return Flowable.error(new IOException("not connected"));
+        return requestManager.readHistory(command);
+    }
+
+    /**
+     * 实时波形等大量数据开始传输，切换到高优先级和2M PHY，与releaseLink成对调用
+     * Tune the link for throughput while a stream runs, pair with releaseLink
+     */
+    public void acquireLink(){
+        LinkManager linkManager=getLinkManager();
+        if(linkManager!=null)linkManager.acquire();
+    }
+
+    public void releaseLink(){
+        LinkManager linkManager=getLinkManager();
+        if(linkManager!=null)linkManager.release();
+    }
+
+    public LinkManager getLinkManager(){
+        if(bleService==null)return null;
+        return bleService.getLinkManager();
+    }
+
+    /**
+     * 重连次数和耗时
+     * Reconnect count and durations, null if the service is not bound yet
+     */
+    public ReconnectEngine getReconnectEngine(){
+        if(bleService==null)return null;
+        return bleService.getReconnectEngine();
+    }
+
     /**
      * 写入指令到蓝牙设备
      * Write command to Bluetooth device
@@ -146,6 +215,40 @@ public class BleManager {
     }
 
 
+    /**
+     * 同时连接其他手环，不影响当前设备，通过返回的连接收发数据
+     * Connect another bracelet next to the current device
+     * @return null if the service is not bound yet
+     */
+    public BleConnection addDevice(String address){
+        if(bleService==null||!bluetoothAdapter.isEnabled()|| TextUtils.isEmpty(address))return null;
+        return bleService.connect(address);
+    }
+
+    /**
+     * 连接池中的设备，没有时返回null
+     * Connection of a bracelet in the pool, null if it isn't connected
+     */
+    public BleConnection getConnection(String address){
+        if(bleService==null)return null;
+        return bleService.getConnection(address);
+    }
+
+    public List<BleConnection> getConnections(){
+        if(bleService==null)return new ArrayList<>();
+        return bleService.getConnections();
+    }
+
+    /**
+     * 断开并移出连接池
+     * Disconnect a bracelet and remove it from the pool
+     */
+    public void disconnectDevice(String address){
+        if(bleService==null)return;
+        bleService.disconnect(address);
+    }
+
+
     /**
      * 查询设备是否已经连接
      * Query whether the device is connected
@@ -157,15 +260,25 @@ public class BleManager {
     }
 
 
+    /**
+     * 扫描设备，名字包含nameFilters之一，按MAC去重，定时发送有变化的设备
+     * Scan for devices whose name contains one of nameFilters, updates are rate limited.
+     * Substrings can't be filtered by the controller, the bracelets (also in DFU mode)
+     * are found by name only; use ScanPipeline.setNames where the exact names are known
+     */
+    public Flowable<List<Device>> scanDevices(String... nameFilters){
+        return new ScanPipeline(bluetoothAdapter).setNameFilters(nameFilters).scan();
+    }
+
+
     /**
      * 取消扫描设备
      * Cancel scanning device
      */
-    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
     public void StopDeviceScan() {
         isinScan = false;
-        if (null !=bluetoothAdapter && null != bluetoothAdapter.getBluetoothLeScanner()) {
-            bluetoothAdapter.getBluetoothLeScanner().stopScan(scanCallback);
+        if (scanDisposable != null && !scanDisposable.isDisposed()) {
+            scanDisposable.dispose();
         }
     }
 
@@ -177,9 +290,10 @@ public class BleManager {
     private String[] DevicesName = null;
     private OnScanResults onScanResult = null;
     private boolean isinScan = false;
+    private Disposable scanDisposable;
 
-    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
     public void DeviceScanResults(@NonNull String []Devicesname, @NonNull OnScanResults onScanResults) {
+        if (null == Devicesname || Devicesname.length == 0) return;//没有设备名时不扫描，也不占用isinScan
         if (!isinScan && ourInstance.isBleEnable()) {//如果蓝牙开关是开启的就进行扫描
             isinScan = true;
             DevicesName = Devicesname;
@@ -201,40 +315,25 @@ public class BleManager {
                     }
                 }
             }
-            bluetoothAdapter.getBluetoothLeScanner().startScan(null, new ScanSettings.Builder().setScanMode(ScanSettings.SCAN_MODE_LOW_LATENCY).build(), scanCallback);
+            scanDisposable = scanDevices(DevicesName).subscribe(new Consumer<List<Device>>() {
+                @Override
+                public void accept(List<Device> devices) throws Exception {
+                    for (int i = 0; i < devices.size(); i++) {
+                        onScanResult.Success(devices.get(i));
+                    }
+                }
+            }, new Consumer<Throwable>() {
+                @Override
+                public void accept(Throwable throwable) throws Exception {
+                    isinScan = false;
+                    int code = throwable instanceof ScanPipeline.ScanFailedException
+                            ? ((ScanPipeline.ScanFailedException) throwable).getErrorCode() : -1;
+                    onScanResult.Fail(code);
+                }
+            });
         }
     }
 
-    @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
-    private final ScanCallback scanCallback = new ScanCallback() {
-        @Override
-        public void onScanResult(int callbackType, ScanResult result) {
-            super.onScanResult(callbackType, result);
-            String deviceName = result.getDevice().getName();
-            if (isinScan && !TextUtils.isEmpty(deviceName) && Canctians(deviceName.toLowerCase().trim())) {
-                Device device = new Device();
-                device.setBluetoothDevice(result.getDevice());
-                device.setIsconted(false);
-                device.setPaired(false);
-                device.setIsdfu(deviceName.toLowerCase().contains("dfu"));
-                device.setName(result.getDevice().getName());
-                device.setMac(result.getDevice().getAddress());
-                device.setRiss(result.getRssi());
-                onScanResult.Success(device);
-            }
-        }
-
-        @Override
-        public void onBatchScanResults(List<ScanResult> results) {
-            super.onBatchScanResults(results);
-        }
-
-        @Override
-        public void onScanFailed(int errorCode) {
-            super.onScanFailed(errorCode);
-            onScanResult.Fail(errorCode);
-        }
-    };
     private boolean Canctians(@NonNull String name){
         boolean catian=false;
         if(null==DevicesName||DevicesName.length==0){
@@ -0,0 +1,406 @@
+package com.jstyle.test2208.ble;
+
+import android.os.SystemClock;
+
+import com.jstyle.blesdk2208a.Util.CommandEncoder;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 蓝牙数据链路的统计
+ * Counters and histograms along the path of a notification: GATT callback (per
+ * opcode count and bytes), hand-off backlog to the GATT thread, GATT and command
+ * queues (depth, wait time), command round trip (write started to first
+ * notification with the same command byte), hand-off to the decode thread, decode
+ * time per opcode (one full decode in BleEvents), events dropped by a full channel
+ * and database inserts per batch. Everything is lock-free and can be recorded from
+ * any thread; times are in nanoseconds.
+ * {@link #snapshot()} copies the current values, see MetricsActivity.
+ */
+
+public class BleMetrics {
+    private static final BleMetrics instance = new BleMetrics();
+
+    private final AtomicLongArray notifications = new AtomicLongArray(256);
+    private final AtomicLongArray notificationBytes = new AtomicLongArray(256);
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong writeBytes = new AtomicLong();
+    private final AtomicInteger gattQueueDepth = new AtomicInteger();
+    private final AtomicInteger gattQueuePeak = new AtomicInteger();
+    private final AtomicInteger commandQueueDepth = new AtomicInteger();
+    private final AtomicInteger commandQueuePeak = new AtomicInteger();
+    private final AtomicInteger notificationBacklogPeak = new AtomicInteger();
+    private final AtomicLong droppedNotifications = new AtomicLong();
+    private final AtomicHistogram gattQueueWait = new AtomicHistogram();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicHistogram decodeWait = new AtomicHistogram();
+    private final AtomicReferenceArray<AtomicHistogram> roundTrips = new AtomicReferenceArray<>(256);
+    private final AtomicReferenceArray<AtomicHistogram> decodes = new AtomicReferenceArray<>(256);
+    private final ConcurrentHashMap<String, AtomicHistogram> dbInserts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicLong> dbRows = new ConcurrentHashMap<>();
+
+    private BleMetrics() {
+    }
+
+    public static BleMetrics getInstance() {
+        return instance;
+    }
+
+    public void onNotification(byte[] value) {
+        if (value == null || value.length == 0) return;
+        int cmd = value[0] & 0xff;
+        notifications.incrementAndGet(cmd);
+        notificationBytes.addAndGet(cmd, value.length);
+    }
+
+    public void onWrite(byte[] value) {
+        writes.incrementAndGet();
+        writeBytes.addAndGet(value.length);
+    }
+
+    /**
+     * GATT操作队列长度变化
+     */
+    public void onGattQueueChanged(int delta) {
+        updatePeak(gattQueuePeak, gattQueueDepth.addAndGet(delta));
+    }
+
+    /**
+     * 等待nextQueue的指令数量变化
+     */
+    public void onCommandQueueChanged(int delta) {
+        updatePeak(commandQueuePeak, commandQueueDepth.addAndGet(delta));
+    }
+
+    /**
+     * 回调转交给GATT线程时，还没处理的通知数量
+     */
+    public void onNotificationBacklog(int pending) {
+        updatePeak(notificationBacklogPeak, pending);
+    }
+
+    /**
+     * GATT线程积压太多，通知被丢弃
+     */
+    public void onNotificationDropped() {
+        droppedNotifications.incrementAndGet();
+    }
+
+    /**
+     * GATT操作从加入队列到开始执行
+     */
+    public void onGattQueueWait(long nanos) {
+        gattQueueWait.record(nanos);
+    }
+
+    public void onRoundTrip(int cmd, long nanos) {
+        histogram(roundTrips, cmd).record(nanos);
+    }
+
+    public void onDecoded(int cmd, long nanos) {
+        histogram(decodes, cmd).record(nanos);
+    }
+
+    /**
+     * BleService发出到decode线程开始解析
+     */
+    public void onDecodeWait(long nanos) {
+        decodeWait.record(nanos);
+    }
+
+    /**
+     * 订阅者处理太慢，有界通道丢弃的事件
+     */
+    public void onEventDropped() {
+        droppedEvents.incrementAndGet();
+    }
+
+    /**
+     * @param table 表名，每个表一个直方图
+     */
+    public void onDbInsert(String table, int rows, long nanos) {
+        AtomicHistogram histogram = dbInserts.get(table);
+        if (histogram == null) {
+            dbInserts.putIfAbsent(table, new AtomicHistogram());
+            dbRows.putIfAbsent(table, new AtomicLong());
+            histogram = dbInserts.get(table);
+        }
+        histogram.record(nanos);
+        dbRows.get(table).addAndGet(rows);
+    }
+
+    /**
+     * 清零计数和直方图，队列长度不变
+     */
+    public void reset() {
+        for (int i = 0; i < 256; i++) {
+            notifications.set(i, 0);
+            notificationBytes.set(i, 0);
+            AtomicHistogram histogram = roundTrips.get(i);
+            if (histogram != null) histogram.reset();
+            histogram = decodes.get(i);
+            if (histogram != null) histogram.reset();
+        }
+        writes.set(0);
+        writeBytes.set(0);
+        gattQueuePeak.set(gattQueueDepth.get());
+        commandQueuePeak.set(commandQueueDepth.get());
+        notificationBacklogPeak.set(0);
+        droppedNotifications.set(0);
+        gattQueueWait.reset();
+        droppedEvents.set(0);
+        decodeWait.reset();
+        for (AtomicHistogram histogram : dbInserts.values()) {
+            histogram.reset();
+        }
+        for (AtomicLong rows : dbRows.values()) {
+            rows.set(0);
+        }
+    }
+
+    public Snapshot snapshot() {
+        Snapshot snapshot = new Snapshot();
+        for (int i = 0; i < 256; i++) {
+            snapshot.notifications[i] = notifications.get(i);
+            snapshot.notificationBytes[i] = notificationBytes.get(i);
+            AtomicHistogram histogram = roundTrips.get(i);
+            if (histogram != null) snapshot.roundTrips[i] = histogram.snapshot();
+            histogram = decodes.get(i);
+            if (histogram != null) snapshot.decodes[i] = histogram.snapshot();
+        }
+        snapshot.writes = writes.get();
+        snapshot.writeBytes = writeBytes.get();
+        snapshot.gattQueueDepth = gattQueueDepth.get();
+        snapshot.gattQueuePeak = gattQueuePeak.get();
+        snapshot.commandQueueDepth = commandQueueDepth.get();
+        snapshot.commandQueuePeak = commandQueuePeak.get();
+        snapshot.notificationBacklogPeak = notificationBacklogPeak.get();
+        snapshot.droppedNotifications = droppedNotifications.get();
+        snapshot.gattQueueWait = gattQueueWait.snapshot();
+        snapshot.droppedEvents = droppedEvents.get();
+        snapshot.decodeWait = decodeWait.snapshot();
+        for (Map.Entry<String, AtomicHistogram> entry : dbInserts.entrySet()) {
+            snapshot.dbInserts.put(entry.getKey(), entry.getValue().snapshot());
+            snapshot.dbRows.put(entry.getKey(), dbRows.get(entry.getKey()).get());
+        }
+        return snapshot;
+    }
+
+    private static AtomicHistogram histogram(AtomicReferenceArray<AtomicHistogram> histograms, int cmd) {
+        cmd &= 0xff;
+        AtomicHistogram histogram = histograms.get(cmd);
+        if (histogram == null) {
+            histograms.compareAndSet(cmd, null, new AtomicHistogram());
+            histogram = histograms.get(cmd);
+        }
+        return histogram;
+    }
+
+    private static void updatePeak(AtomicInteger peak, int depth) {
+        int current;
+        while (depth > (current = peak.get())) {
+            if (peak.compareAndSet(current, depth)) break;
+        }
+    }
+
+    /**
+     * 一个连接的命令往返时间，写入开始时记下时间，收到同一命令字的通知时结束
+     */
+    public static class RoundTrip {
+        private final AtomicLongArray sentAt = new AtomicLongArray(256);
+
+        public void onSent(byte[] command) {
+            if (command == null || command.length == 0) return;
+            long now = System.nanoTime();
+            if (CommandEncoder.isPacked(command)) {
+                for (int offset = 0; offset < command.length; offset += CommandEncoder.COMMAND_LENGTH) {
+                    sentAt.set(command[offset] & 0xff, now);
+                }
+            } else {
+                sentAt.set(command[0] & 0xff, now);
+            }
+        }
+
+        public void onReceived(byte[] value) {
+            if (value == null || value.length == 0) return;
+            int cmd = value[0] & 0xff;
+            long sent = sentAt.getAndSet(cmd, 0);
+            if (sent != 0) instance.onRoundTrip(cmd, System.nanoTime() - sent);
+        }
+
+        public void clear() {
+            for (int i = 0; i < 256; i++) {
+                sentAt.set(i, 0);
+            }
+        }
+    }
+
+    public static class Snapshot {
+        private final long time = SystemClock.elapsedRealtime();
+        private final long[] notifications = new long[256];
+        private final long[] notificationBytes = new long[256];
+        private final AtomicHistogram.Snapshot[] roundTrips = new AtomicHistogram.Snapshot[256];
+        private final AtomicHistogram.Snapshot[] decodes = new AtomicHistogram.Snapshot[256];
+        private final Map<String, AtomicHistogram.Snapshot> dbInserts = new TreeMap<>();
+        private final Map<String, Long> dbRows = new TreeMap<>();
+        private long writes;
+        private long writeBytes;
+        private int gattQueueDepth;
+        private int gattQueuePeak;
+        private int commandQueueDepth;
+        private int commandQueuePeak;
+        private int notificationBacklogPeak;
+        private long droppedNotifications;
+        private AtomicHistogram.Snapshot gattQueueWait;
+        private long droppedEvents;
+        private AtomicHistogram.Snapshot decodeWait;
+
+        public long getTime() {
+            return time;
+        }
+
+        public long getNotifications(int cmd) {
+            return notifications[cmd & 0xff];
+        }
+
+        public long getNotificationBytes(int cmd) {
+            return notificationBytes[cmd & 0xff];
+        }
+
+        public long getTotalNotifications() {
+            long total = 0;
+            for (long count : notifications) total += count;
+            return total;
+        }
+
+        public long getTotalNotificationBytes() {
+            long total = 0;
+            for (long count : notificationBytes) total += count;
+            return total;
+        }
+
+        public long getWrites() {
+            return writes;
+        }
+
+        public long getWriteBytes() {
+            return writeBytes;
+        }
+
+        public int getGattQueueDepth() {
+            return gattQueueDepth;
+        }
+
+        public int getGattQueuePeak() {
+            return gattQueuePeak;
+        }
+
+        public int getCommandQueueDepth() {
+            return commandQueueDepth;
+        }
+
+        public int getCommandQueuePeak() {
+            return commandQueuePeak;
+        }
+
+        public int getNotificationBacklogPeak() {
+            return notificationBacklogPeak;
+        }
+
+        public long getDroppedNotifications() {
+            return droppedNotifications;
+        }
+
+        public AtomicHistogram.Snapshot getGattQueueWait() {
+            return gattQueueWait;
+        }
+
+        public long getDroppedEvents() {
+            return droppedEvents;
+        }
+
+        public AtomicHistogram.Snapshot getDecodeWait() {
+            return decodeWait;
+        }
+
+        /**
+         * @return null if the command byte was never answered
+         */
+        public AtomicHistogram.Snapshot getRoundTrip(int cmd) {
+            return roundTrips[cmd & 0xff];
+        }
+
+        /**
+         * @return null if no frame with this command byte was decoded
+         */
+        public AtomicHistogram.Snapshot getDecode(int cmd) {
+            return decodes[cmd & 0xff];
+        }
+
+        public Map<String, AtomicHistogram.Snapshot> getDbInserts() {
+            return dbInserts;
+        }
+
+        public Map<String, Long> getDbRows() {
+            return dbRows;
+        }
+
+        /**
+         * 调试页面显示的文本，速率按与previous的差值计算
+         *
+         * @param previous 上一次的快照，null时只显示累计值
+         */
+        public String format(Snapshot previous) {
+            StringBuilder builder = new StringBuilder();
+            double seconds = previous == null ? 0 : (time - previous.time) / 1000.0;
+            builder.append("notifications ").append(getTotalNotifications())
+                    .append(", bytes ").append(getTotalNotificationBytes());
+            if (seconds > 0) {
+                builder.append(String.format(Locale.ENGLISH, ", %.1f/s, %.0f B/s",
+                        (getTotalNotifications() - previous.getTotalNotifications()) / seconds,
+                        (getTotalNotificationBytes() - previous.getTotalNotificationBytes()) / seconds));
+            }
+            builder.append("\nwrites ").append(writes).append(", bytes ").append(writeBytes);
+            builder.append("\ngatt queue ").append(gattQueueDepth).append(" (peak ").append(gattQueuePeak)
+                    .append("), command queue ").append(commandQueueDepth).append(" (peak ").append(commandQueuePeak).append(")");
+            builder.append("\nnotification backlog peak ").append(notificationBacklogPeak)
+                    .append(", dropped ").append(droppedNotifications)
+                    .append(", dropped events ").append(droppedEvents);
+            appendHistogram(builder.append("\ngatt queue wait "), gattQueueWait);
+            appendHistogram(builder.append("\ndecode wait     "), decodeWait);
+            builder.append("\n\ncmd   count    /s   round trip            decode");
+            for (int cmd = 0; cmd < 256; cmd++) {
+                if (notifications[cmd] == 0 && roundTrips[cmd] == null && decodes[cmd] == null) continue;
+                builder.append(String.format(Locale.ENGLISH, "\n%02X %8d %5.1f ", cmd, notifications[cmd],
+                        seconds > 0 ? (notifications[cmd] - previous.notifications[cmd]) / seconds : 0));
+                appendHistogram(builder, roundTrips[cmd]);
+                builder.append("  ");
+                appendHistogram(builder, decodes[cmd]);
+            }
+            for (Map.Entry<String, AtomicHistogram.Snapshot> entry : dbInserts.entrySet()) {
+                builder.append("\ndb ").append(entry.getKey()).append(" rows ").append(dbRows.get(entry.getKey())).append(' ');
+                appendHistogram(builder, entry.getValue());
+            }
+            return builder.toString();
+        }
+
+        /**
+         * 次数 p50/p99/max，单位毫秒
+         */
+        private static void appendHistogram(StringBuilder builder, AtomicHistogram.Snapshot histogram) {
+            if (histogram == null || histogram.getCount() == 0) {
+                builder.append("-");
+                return;
+            }
+            builder.append(String.format(Locale.ENGLISH, "%d %.2f/%.2f/%.2fms", histogram.getCount(),
+                    histogram.getPercentile(50) / 1e6, histogram.getPercentile(99) / 1e6, histogram.getMax() / 1e6));
+        }
+    }
+}
@@ -1 +1 @@
-package com.jstyle.test2208.ble;import android.annotation.SuppressLint;import android.app.Service;import android.bluetooth.BluetoothAdapter;import android.bluetooth.BluetoothDevice;import android.bluetooth.BluetoothGatt;import android.bluetooth.BluetoothGattCallback;import android.bluetooth.BluetoothGattCharacteristic;import android.bluetooth.BluetoothGattDescriptor;import android.bluetooth.BluetoothGattService;import android.bluetooth.BluetoothManager;import android.bluetooth.BluetoothProfile;import android.content.Context;import android.content.Intent;import android.os.Binder;import android.os.Build;import android.os.Handler;import android.os.IBinder;import android.text.TextUtils;import android.util.Log;import com.jstyle.blesdk2208a.Util.BleSDK;import com.jstyle.test2208.Util.BleData;import com.jstyle.test2208.Util.ResolveData;import com.jstyle.test2208.Util.RxBus;import com.jstyle.test2208.Util.SDUtil;import java.lang.reflect.Method;import java.util.ArrayList;import java.util.HashMap;import java.util.LinkedList;import java.util.List;import java.util.Queue;import java.util.UUID;public final class BleService extends Service {    private static final String TAG = "BleService";    private static final UUID NOTIY = UUID.fromString("00002902-0000-1000-8000-00805f9b34fb");    private static final UUID SERVICE_DATA = UUID.fromString("0000fff0-0000-1000-8000-00805f9b34fb");    private static final UUID DATA_Characteristic = UUID.fromString("0000fff6-0000-1000-8000-00805f9b34fb");    private static final UUID NOTIY_Characteristic = UUID.fromString("0000fff7-0000-1000-8000-00805f9b34fb");    private boolean NeedReconnect=false;    public boolean fastconnect = false;//是否连接成功过设备    public final static String ACTION_GATT_onDescriptorWrite = "com.jstylelife.ble.service.onDescriptorWrite";    public final static String ACTION_GATT_CONNECTED = "com.jstylelife.ble.service.ACTION_GATT_CONNECTED";    public final static String ACTION_GATT_DISCONNECTED = "com.jstylelife.ble.service.ACTION_GATT_DISCONNECTED";    public final static String ACTION_DATA_AVAILABLE = "com.jstylelife.ble.service.ACTION_DATA_AVAILABLE";    public HashMap<BluetoothDevice, BluetoothGatt> hasp = new HashMap<BluetoothDevice, BluetoothGatt>();    private final IBinder kBinder = new LocalBinder();    private static ArrayList<BluetoothGatt> arrayGatts = new ArrayList<BluetoothGatt>(); // 存放BluetoothGatt的集�?    private final Handler handler = new Handler();    private BluetoothManager bluetoothManager;    private BluetoothAdapter mBluetoothAdapter;    private BluetoothGatt mGatt;    private boolean isConnected;    @Override    public IBinder onBind(Intent intent) {        initAdapter();        return kBinder;    }    @Override    public boolean onUnbind(Intent intent) {        return super.onUnbind(intent);    }    /**     * 初始化BLE 如果已经连接就不用再次连     *     * @param bleDevice     * @return     */    private String address;    private Context mContext;    public void initBluetoothDevice(final String address, final Context context) {        //MyLog.i("开始连接");        fastconnect = false;        this.address = address;        this.mContext = context;        if(isConnected())return;        if(null!=mGatt){            refreshDeviceCache(mGatt);            mGatt=null;        }        handler.post(new Runnable() {            @Override            public void run() {                final BluetoothDevice device = mBluetoothAdapter.getRemoteDevice(address.toUpperCase());                try{                    NeedReconnect = true;                    if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.O){                        mGatt = device.connectGatt(context, false, bleGattCallback,BluetoothDevice.TRANSPORT_LE,BluetoothDevice.PHY_LE_1M_MASK);                    }else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {                        mGatt = device.connectGatt(context, false, bleGattCallback,BluetoothDevice.TRANSPORT_LE);                    } else {                        mGatt = device.connectGatt(context, false, bleGattCallback);                    }                }catch(Exception ignored){ }            }        });        // this.mContext=context;        // reconnect(true);    }    private boolean scanToConnect=true;    private boolean isScaning;    @SuppressLint("MissingPermission")    public void startScan(boolean enable) {        Log.i(TAG, "startScan: "+enable);        if (!mBluetoothAdapter.isEnabled() ) {            return;        }        if(scanToConnect){            startScanDevice(true);        }else{            initBluetoothDevice(address,mContext);        }        scanToConnect=!scanToConnect;    }    @SuppressLint("MissingPermission")    private void startScanDevice(boolean enable){        if(enable){            if(isScaning)return;            handler.postDelayed(new Runnable() {                @Override                public void run() {                    mBluetoothAdapter.stopLeScan(mLeScanCallback);                    isScaning=false;                    startScan(true);                }            },20000);            fastconnect=false;            mBluetoothAdapter.startLeScan(mLeScanCallback);        }else{            if(isScaning){                mBluetoothAdapter.stopLeScan(mLeScanCallback);                handler.removeCallbacksAndMessages(null);            }        }        isScaning=enable;    }    private BluetoothAdapter.LeScanCallback mLeScanCallback = new BluetoothAdapter.LeScanCallback() {        @Override        public void onLeScan(final BluetoothDevice device, final int rssi,                             final byte[] scanRecord) {            if (device.getAddress().equals(address)) {                String name = ResolveData.decodeDeviceName(device,scanRecord);                if (!TextUtils.isEmpty(name) && name.equals("DfuTarg"))                    return;                if (mGatt != null)                    return;                handler.post(new Runnable() {                    @Override                    public void run() {                        startScanDevice(false);                        try{                            NeedReconnect = true;                            if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.O){                                mGatt = device.connectGatt(mContext, false, bleGattCallback,BluetoothDevice.TRANSPORT_LE,BluetoothDevice.PHY_LE_1M_MASK);                            }else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {                                mGatt = device.connectGatt(mContext, false, bleGattCallback,BluetoothDevice.TRANSPORT_LE);                            } else {                                mGatt = device.connectGatt(mContext, false, bleGattCallback);                            }                        }catch(Exception ignored){ }                    }                });            }        }    };    private void initAdapter() {        if (bluetoothManager == null) {            bluetoothManager = (BluetoothManager) getSystemService(Context.BLUETOOTH_SERVICE);            if (bluetoothManager == null) {                return;            }        }        mBluetoothAdapter = bluetoothManager.getAdapter();    }    /**     * 断开连接     */    public void disconnect() {        NeedReconnect = false;        broadcastUpdate(ACTION_GATT_DISCONNECTED);        if (mGatt != null) {            if(isConnected){                mGatt.disconnect();                mGatt.close();                mGatt=null;            }else{                Log.i(TAG, "close: ");                mGatt.close();                mGatt=null;            }        }        isConnected=false;    }    /**     * 根据设备的Mac地址断开连接     *     * @param address     */    public void disconnect(String address) {        ArrayList<BluetoothGatt> gatts = new ArrayList<BluetoothGatt>();        for (BluetoothGatt gatt : arrayGatts) {            if (gatt != null && gatt.getDevice().getAddress().equals(address)) {                gatts.add(gatt);                // gatt.disconnect();                gatt.close();                // gatt = null;            }        }        arrayGatts.removeAll(gatts);    }    public class LocalBinder extends Binder {        public BleService getService() {            return BleService.this;        }    }    private int discoverCount;    private Object ob = new Object();    private BluetoothGattCallback bleGattCallback = new BluetoothGattCallback() {        @Override        public void onConnectionStateChange(BluetoothGatt gatt, int status, int newState) {            if (status == 133||newState==0) {                if(mGatt!=null){                    mGatt.disconnect();                    mGatt.close();                    refreshDeviceCache(mGatt);                    mGatt=null;                } if(gatt!=null){                    gatt.disconnect();                    gatt.close();                    refreshDeviceCache(gatt);                    gatt=null;                }                if(NeedReconnect)startScan(true);                return;            }            String action = null;            Log.i(TAG, "onConnectionStateChange:  status"+ status+" newstate "+newState);            if (newState == BluetoothProfile.STATE_CONNECTED) {                try {                    gatt.discoverServices();                } catch (Exception e) { e.printStackTrace(); }            } else if (newState == BluetoothProfile.STATE_DISCONNECTED) {                isConnected=false;                Log.i(TAG, "onConnectionStateChange: "+ACTION_GATT_DISCONNECTED);                if (mGatt != null) {                    mGatt.close();                    mGatt = null;                }                queues.clear();                if(!NeedReconnect) {                    action = ACTION_GATT_DISCONNECTED;                    broadcastUpdate(action);                }if(!NeedReconnect) {                }else{                    if (fastconnect) {                        fastconnect=false;                        Log.e(TAG, "发送异常断开");                    }                    if (status == 133) {                        refreshDeviceCache(gatt);                    }                    startScan(true);                }            }        }        /*         * 搜索device中的services (non-Javadoc)         *         * @see         * android.bluetooth.BluetoothGattCallback#onServicesDiscovered(android         * .bluetooth.BluetoothGatt, int)         */        @Override        public void onServicesDiscovered(BluetoothGatt gatt, int status) {            // if (mGatt == null)            // return;            if (status == BluetoothGatt.GATT_SUCCESS) {                String address = gatt.getDevice().getAddress();                String name = mBluetoothAdapter.getRemoteDevice(address)                        .getName();                setCharacteristicNotification(true);              /*  if (gatt != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {                    gatt.requestMtu(512);                }else{                    setCharacteristicNotification(true);                }*/                discoverCount = 0;            } else {                // mGatt = null;                Log.w("servieDiscovered", "onServicesDiscovered received: "                        + status);            }        }        @Override        public void onMtuChanged(BluetoothGatt gatt, int mtu, int status) {            super.onMtuChanged(gatt, mtu, status);            if (BluetoothGatt.GATT_SUCCESS == status) {                setCharacteristicNotification(true);            }else {                gatt.requestMtu(153);            }        }        /*         * 读取特征�?(non-Javadoc)         *         * @see         * android.bluetooth.BluetoothGattCallback#onCharacteristicRead(android         * .bluetooth.BluetoothGatt,         * android.bluetooth.BluetoothGattCharacteristic, int)         */        public void onCharacteristicRead(BluetoothGatt gatt, android.bluetooth.BluetoothGattCharacteristic characteristic, int status) {            if (status == BluetoothGatt.GATT_SUCCESS) {                broadcastUpdate(ACTION_DATA_AVAILABLE, characteristic, gatt                        .getDevice().getAddress());            } else {            }        }        public void onDescriptorWrite(BluetoothGatt gatt,                                      BluetoothGattDescriptor descriptor, int status) {            if (status == BluetoothGatt.GATT_SUCCESS) {                offerValue(BleSDK.disableAncs());                nextQueue();                isConnected=true;                broadcastUpdate(ACTION_GATT_onDescriptorWrite);            }else{                Log.i(TAG, "onDescriptorWrite: failed");            }        }        ;        /*         * 特征值的变化 (non-Javadoc)         *         * @see         * android.bluetooth.BluetoothGattCallback#onCharacteristicChanged(android         * .bluetooth.BluetoothGatt,         * android.bluetooth.BluetoothGattCharacteristic)         */        public void onCharacteristicChanged(BluetoothGatt gatt,                                            android.bluetooth.BluetoothGattCharacteristic characteristic) {            if (mGatt == null)                return;           Log.i(TAG, "onCharacteristicChanged: " + ResolveData.byte2Hex(characteristic.getValue()));            SDUtil.saveBTLog("log","Receiving: "+ ResolveData.byte2Hex(characteristic.getValue()));            broadcastUpdate(ACTION_DATA_AVAILABLE, characteristic, gatt                    .getDevice().getAddress());            //	SendData.sendBus(ACTION_DATA_AVAILABLE, characteristic.getValue());        }        public void onCharacteristicWrite(BluetoothGatt gatt,                                          BluetoothGattCharacteristic characteristic, int status) {            if (status == BluetoothGatt.GATT_SUCCESS) {                nextQueue();            } else {                //	MyLog.i("status" + status);            }        }        ;    };    public boolean refreshDeviceCache(BluetoothGatt gatt) {        try {            BluetoothGatt localBluetoothGatt = gatt;            Method localMethod = localBluetoothGatt.getClass().getMethod(                    "refresh", new Class[0]);            if (localMethod != null) {                boolean bool = ((Boolean) localMethod.invoke(                        localBluetoothGatt, new Object[0])).booleanValue();                return bool;            }        } catch (Exception localException) {            Log.e("s", "An exception occured while refreshing device");        }        return false;    }    /**     * 广播     *     * @param action     */    private void broadcastUpdate(String action) {        BleData bleData = new BleData();        bleData.setAction(action);        RxBus.getInstance().post(bleData);        //Intent intent = new Intent(action);        //sendBroadcast(intent);    }    /**     * 发�?带蓝牙信息的到广�? *     *     * @param action     * @param characteristic     */    private void broadcastUpdate(String action,                                 BluetoothGattCharacteristic characteristic, String mac) {     //   Intent intent = new Intent(action);        byte[] data = characteristic.getValue();        BleData bleData = new BleData();        bleData.setAction(action);        bleData.setValue(data);        RxBus.getInstance().post(bleData);    }    /**     * 读取设备数据     *     * @param     * @param characteristic     */    public void readValue(BluetoothGattCharacteristic characteristic) {        if (mGatt == null) return;        mGatt.readCharacteristic(characteristic);    }    /**     * 写入设备数据     */    public void writeValue(byte[] value) {        if (mGatt == null||value==null) return;        BluetoothGattService service = mGatt.getService(SERVICE_DATA);        if (service == null) return;        BluetoothGattCharacteristic characteristic = service.getCharacteristic(DATA_Characteristic);        if (characteristic == null) return;        if (value[0] ==(byte) 0x47) {            NeedReconnect = false;        }        characteristic.setValue(value);        Log.i(TAG, "writeValue: "+ ResolveData.byte2Hex(value));        mGatt.writeCharacteristic(characteristic);        SDUtil.saveBTLog("log","writeValue: "+ ResolveData.byte2Hex(value));    }    public void setCharacteristicNotification(boolean enable) {        if (mGatt == null) return;        BluetoothGattService service = mGatt.getService(SERVICE_DATA);        if (service == null) return;        BluetoothGattCharacteristic characteristic = service.getCharacteristic(NOTIY_Characteristic);        if (characteristic == null) return;        mGatt.setCharacteristicNotification(characteristic, enable);        try {            Thread.sleep(20);        } catch (InterruptedException e) { e.printStackTrace(); }        BluetoothGattDescriptor descriptor = characteristic.getDescriptor(NOTIY);        if (descriptor == null) {            //MyLog.e("setCharacteristicNotification  descriptor=null，所以不能发送使能数据");            return;        }        descriptor.setValue(BluetoothGattDescriptor.ENABLE_NOTIFICATION_VALUE);        if (mGatt == null)            return;        mGatt.writeDescriptor(descriptor);    }    /**     * 获取services     *     * @return     */    public List<BluetoothGattService> getSupportedGattServices() {        if (mGatt == null) {            //MyLog.e("getServices, gatt is null ");            return null;        }        return mGatt.getServices();    }    /**     * 根据设备的Mac地址从已经连接的设备中匹配对应的BluetoothGatt对象     *     * @param device     * @return     */    private BluetoothGatt getBluetoothGatt(BluetoothDevice device) {        return mGatt;    }    /**     * //读取信号     *     * @param device     */    public void readRssi(BluetoothDevice device) {        mGatt.readRemoteRssi();    }    @Override    public void onDestroy() {        super.onDestroy();    }    Queue<byte[]> queues=new LinkedList<>();    public void offerValue(byte[]value) {        queues.offer(value);    }    public void nextQueue(){        final Queue<byte[]> requests=queues;        byte[]data=requests!=null?requests.poll():null;        writeValue(data);    }    public boolean isConnected(){        return this.isConnected;    }}
\ No newline at end of file
+package com.jstyle.test2208.ble;import android.app.Service;import android.bluetooth.BluetoothAdapter;import android.bluetooth.BluetoothDevice;import android.bluetooth.BluetoothGatt;import android.bluetooth.BluetoothGattCharacteristic;import android.bluetooth.BluetoothGattService;import android.bluetooth.BluetoothManager;import android.content.Context;import android.content.Intent;import android.os.Binder;import android.os.Handler;import android.os.HandlerThread;import android.os.IBinder;import android.os.Process;import android.text.TextUtils;import android.util.Log;import com.jstyle.blesdk2208a.Util.CommandEncoder;import com.jstyle.test2208.Util.BleData;import java.util.ArrayList;import java.util.LinkedHashMap;import java.util.List;import java.util.Map;/** * 同时连接多个手环 * Every bracelet has its own {@link BleConnection} in the pool, keyed by address. The * methods without an address work on the main device set by initBluetoothDevice, the * one the screens show; only its data and state changes go to {@link BleEvents}. A new * main device replaces the previous one, which is disconnected and removed. Other * devices are used through {@link #getConnection(String)} and their RequestManager. * GATT operations of all connections take turns through one {@link GattArbiter}. * GATT callbacks, queues and reconnects all run on one "gatt" HandlerThread, never * on the binder or the main thread; the frames are decoded on the BleEvents thread. */public final class BleService extends Service {    private static final String TAG = "BleService";    public boolean fastconnect = false;//是否连接成功过设备    public final static String ACTION_GATT_onDescriptorWrite = "com.jstylelife.ble.service.onDescriptorWrite";    public final static String ACTION_GATT_CONNECTED = "com.jstylelife.ble.service.ACTION_GATT_CONNECTED";    public final static String ACTION_GATT_DISCONNECTED = "com.jstylelife.ble.service.ACTION_GATT_DISCONNECTED";    public final static String ACTION_DATA_AVAILABLE = "com.jstylelife.ble.service.ACTION_DATA_AVAILABLE";    private final IBinder kBinder = new LocalBinder();    private final HandlerThread gattThread = startGattThread();    private final Handler handler = new Handler(gattThread.getLooper());    private BluetoothManager bluetoothManager;    private BluetoothAdapter mBluetoothAdapter;    private final GattArbiter arbiter = new GattArbiter();    /**     * 连接池，按大写地址索引     */    private final Map<String, BleConnection> connections = new LinkedHashMap<>();    private ReconnectEngine reconnectEngine;    @Override    public IBinder onBind(Intent intent) {        initAdapter();        return kBinder;    }    @Override    public boolean onUnbind(Intent intent) {        return super.onUnbind(intent);    }    /**     * 初始化BLE 如果已经连接就不用再次连     *     * @param bleDevice     * @return     */    private String address;    private Context mContext;    public void initBluetoothDevice(final String address, final Context context) {        //MyLog.i("开始连接");        fastconnect = false;        BleConnection previous = getConnection();        if (previous != null && !previous.getAddress().equalsIgnoreCase(address)) disconnect(previous);        this.address = address;        this.mContext = context;        connect(address);    }    /**     * 连接一个手环并加入连接池，已经连接时直接返回     *     * @return the connection of this address     */    public BleConnection connect(String address) {        BleConnection connection = obtainConnection(address);        if (connection.isConnected()) return connection;        connection.connect(mBluetoothAdapter.getRemoteDevice(connection.getAddress()), false);        return connection;    }    private BleConnection obtainConnection(String address) {        address = address.toUpperCase();        synchronized (connections) {            BleConnection connection = connections.get(address);            if (connection == null) {                connection = new BleConnection(address, mContext == null ? this : mContext, handler, arbiter, connectionCallback);                connections.put(address, connection);            }            return connection;        }    }    /**     * @return null if the device is not in the pool     */    public BleConnection getConnection(String address) {        if (TextUtils.isEmpty(address)) return null;        synchronized (connections) {            return connections.get(address.toUpperCase());        }    }    public List<BleConnection> getConnections() {        synchronized (connections) {            return new ArrayList<>(connections.values());        }    }    /**     * 主设备的连接     */    private BleConnection getConnection() {        return getConnection(address);    }    private boolean isMain(BleConnection connection) {        return connection.getAddress().equalsIgnoreCase(address);    }    private void initAdapter() {        if (bluetoothManager == null) {            bluetoothManager = (BluetoothManager) getSystemService(Context.BLUETOOTH_SERVICE);            if (bluetoothManager == null) {                return;            }        }        mBluetoothAdapter = bluetoothManager.getAdapter();        if (reconnectEngine == null) reconnectEngine = new ReconnectEngine(mBluetoothAdapter, handler);    }    /**     * 断开连接     */    public void disconnect() {        broadcastUpdate(ACTION_GATT_DISCONNECTED);        BleConnection connection = getConnection();        if (connection != null) disconnect(connection);    }    /**     * 根据设备的Mac地址断开连接，并移出连接池     *     * @param address     */    public void disconnect(String address) {        BleConnection connection = getConnection(address);        if (connection == null) return;        if (isMain(connection)) {            disconnect();        } else {            disconnect(connection);        }    }    private void disconnect(BleConnection connection) {        synchronized (connections) {            connections.remove(connection.getAddress());        }        connection.disconnect();        if (reconnectEngine != null) reconnectEngine.cancel(connection);    }    public class LocalBinder extends Binder {        public BleService getService() {            return BleService.this;        }    }    private final BleConnection.Callback connectionCallback = new BleConnection.Callback() {        @Override        public void onReady(BleConnection connection) {            reconnectEngine.onConnected(connection);            if (isMain(connection)) broadcastUpdate(ACTION_GATT_onDescriptorWrite);        }        @Override        public void onDisconnected(BleConnection connection, int status) {            Log.i(TAG, "onDisconnected: "+connection.getAddress()+" "+status);            if(!connection.isNeedReconnect()) {                if (isMain(connection)) broadcastUpdate(ACTION_GATT_DISCONNECTED);                return;            }            if (fastconnect) {                fastconnect=false;                Log.e(TAG, "发送异常断开");            }            if (getConnection(connection.getAddress()) == connection) reconnectEngine.onDisconnected(connection);        }        @Override        public void onData(BleConnection connection, byte[] value) {            if (isMain(connection)) broadcastUpdate(ACTION_DATA_AVAILABLE, connection.getAddress(), value);        }    };    /**     * 广播     *     * @param action     */    private void broadcastUpdate(String action) {        BleData bleData = new BleData();        bleData.setAction(action);        bleData.setAddress(address);        bleData.setTime(System.nanoTime());        BleEvents.getInstance().onStateChanged(bleData);        //Intent intent = new Intent(action);        //sendBroadcast(intent);    }    private void broadcastUpdate(String action, String address, byte[] data) {        BleData bleData = new BleData();        bleData.setAction(action);        bleData.setAddress(address);        bleData.setValue(data);        bleData.setTime(System.nanoTime());        BleEvents.getInstance().onFrame(bleData);    }    /**     * 读取设备数据     *     * @param     * @param characteristic     */    public void readValue(BluetoothGattCharacteristic characteristic) {        BleConnection connection = getConnection();        if (connection == null) return;        connection.readValue(characteristic);    }    /**     * 写入设备数据     */    public void writeValue(byte[] value) {        writeValue(value, null);    }    /**     * @param listener 写入完成或失败时回调     */    public void writeValue(byte[] value, GattScheduler.OnCompleteListener listener) {        BleConnection connection = getConnection();        if (connection == null) {            if (listener != null) listener.onComplete(BluetoothGatt.GATT_FAILURE);            return;        }        connection.writeValue(value, listener);    }    /**     * 设置PHY，Android 8.0以上有效     */    public void setPreferredPhy(int txPhy, int rxPhy, int phyOptions) {        BleConnection connection = getConnection();        if (connection == null) return;        connection.setPreferredPhy(txPhy, rxPhy, phyOptions);    }    public void setCharacteristicNotification(boolean enable) {        BleConnection connection = getConnection();        if (connection == null) return;        connection.setCharacteristicNotification(enable);    }    /**     * 获取services     *     * @return     */    public List<BluetoothGattService> getSupportedGattServices() {        BleConnection connection = getConnection();        if (connection == null) {            //MyLog.e("getServices, gatt is null ");            return null;        }        return connection.getSupportedGattServices();    }    /**     * //读取信号     *     * @param device     */    public void readRssi(BluetoothDevice device) {        BleConnection connection = getConnection(device.getAddress());        if (connection == null) return;        connection.readRssi();    }    @Override    public void onDestroy() {        super.onDestroy();        //先断开全部连接并停止重连，再退出gatt线程        for (BleConnection connection : getConnections()) {            disconnect(connection);        }        gattThread.quitSafely();    }    private static HandlerThread startGattThread() {        HandlerThread thread = new HandlerThread("gatt", Process.THREAD_PRIORITY_MORE_FAVORABLE);        thread.start();        return thread;    }    public void offerValue(byte[]value) {        BleConnection connection = getConnection();        if (connection == null) return;        connection.offerValue(value);    }    /**     * 编码器中的指令按MTU合并后加入队列     */    public void offerCommands(CommandEncoder encoder) {        BleConnection connection = getConnection();        if (connection == null) return;        connection.offerCommands(encoder);    }    /**     * 请求与应答配对     */    public RequestManager getRequestManager() {        BleConnection connection = getConnection();        return connection == null ? null : connection.getRequestManager();    }    /**     * 重连次数和耗时     */    public ReconnectEngine getReconnectEngine() {        return reconnectEngine;    }    /**     * 大量传输时的连接参数     */    public LinkManager getLinkManager() {        BleConnection connection = getConnection();        return connection == null ? null : connection.getLinkManager();    }    /**     * 一次写入的最大字节数     */    public int getWritePayload() {        BleConnection connection = getConnection();        return connection == null ? CommandEncoder.DEFAULT_PAYLOAD : connection.getWritePayload();    }    /**     * 队列中的指令全部加入GATT队列，连续无应答写入，不再每条等一次写入回调     */    public void nextQueue(){        BleConnection connection = getConnection();        if (connection == null) return;        connection.nextQueue();    }    public boolean isConnected(){        BleConnection connection = getConnection();        return connection != null && connection.isConnected();    }}
\ No newline at end of file
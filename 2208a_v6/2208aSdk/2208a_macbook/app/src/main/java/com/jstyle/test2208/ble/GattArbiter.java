@@ -0,0 +1,68 @@
+package com.jstyle.test2208.ble;
+
+import java.util.ArrayDeque;
+
+/**
+ * 多个连接的GATT操作轮流执行
+ * Every connection has its own {@link GattScheduler}; the arbiter limits how many of
+ * them may have an operation outstanding at once and hands free slots to the waiting
+ * schedulers in turn, so a long history sync on one bracelet can't starve the others.
+ * A scheduler that finishes an operation goes to the back of the line if others are
+ * waiting.
+ * Only used on the handler thread shared by all schedulers.
+ */
+
+public class GattArbiter {
+    /**
+     * 一个连接等待超时时其他连接仍可继续
+     */
+    public static final int DEFAULT_MAX_ACTIVE = 2;
+
+    private final int maxActive;
+    private final ArrayDeque<GattScheduler> waiting = new ArrayDeque<>();
+    private int active;
+
+    public GattArbiter() {
+        this(DEFAULT_MAX_ACTIVE);
+    }
+
+    public GattArbiter(int maxActive) {
+        this.maxActive = Math.max(1, maxActive);
+    }
+
+    /**
+     * @return true if the scheduler may start its next operation now, otherwise it
+     * is resumed when its turn comes
+     */
+    boolean acquire(GattScheduler scheduler) {
+        GattScheduler head = waiting.peek();
+        if (active < maxActive && (head == null || head == scheduler)) {
+            if (head == scheduler) waiting.poll();
+            active++;
+            resumeNext();
+            return true;
+        }
+        if (!waiting.contains(scheduler)) waiting.offer(scheduler);
+        return false;
+    }
+
+    /**
+     * 操作完成或连接断开时归还
+     */
+    void release(GattScheduler scheduler) {
+        if (active > 0) active--;
+        resumeNext();
+    }
+
+    /**
+     * 队列已清空，不再等待
+     */
+    void cancel(GattScheduler scheduler) {
+        if (waiting.remove(scheduler)) resumeNext();
+    }
+
+    private void resumeNext() {
+        GattScheduler next = waiting.peek();
+        if (next != null && active < maxActive) next.resume();
+    }
+}
@@ -0,0 +1,407 @@
+package com.jstyle.test2208.ble;
+
+import android.annotation.TargetApi;
+import android.bluetooth.BluetoothGatt;
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.bluetooth.BluetoothGattDescriptor;
+import android.os.Build;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+
+/**
+ * GATT操作队列，每个连接一个实例
+ * Android runs one GATT operation per connection at a time and silently drops the
+ * ones issued while another is outstanding. Every write, descriptor write, read,
+ * MTU, PHY and notification setting goes through this queue, the next one starts when the
+ * callback of the current one arrives or when its timeout expires.
+ * Writes without response are flow controlled by the stack: it returns false while
+ * its buffers are full (no credits left), the operation is then retried until its
+ * timeout, and onCharacteristicWrite hands the credit back.
+ * All state is kept on the handler thread, the public methods can be called from
+ * any thread. Schedulers of several connections that share a {@link GattArbiter}
+ * must share the handler as well.
+ */
+
+public class GattScheduler {
+    private static final String TAG = "GattScheduler";
+    public static final int TYPE_WRITE = 1;
+    public static final int TYPE_DESCRIPTOR = 2;
+    public static final int TYPE_READ = 3;
+    public static final int TYPE_MTU = 4;
+    public static final int TYPE_PHY = 5;
+    public static final int TYPE_PRIORITY = 6;
+    public static final int TYPE_NOTIFICATION = 7;
+
+    public static final long DEFAULT_TIMEOUT = 3000;
+    /**
+     * 无应答写入一般几毫秒内就有回调
+     */
+    public static final long BULK_WRITE_TIMEOUT = 1000;
+    private static final long RETRY_DELAY = 10;
+
+    private static final int STARTED = 0;
+    private static final int BUSY = 1;
+    private static final int FAILED = 2;
+    /**
+     * 没有回调的操作，开始即完成
+     */
+    private static final int COMPLETED = 3;
+
+    private final Handler handler;
+    private final GattArbiter arbiter;
+    private final ArrayDeque<Operation> queue = new ArrayDeque<>();
+    private BluetoothGatt gatt;
+    private Operation current;
+    private long deadline;
+    private int generation;
+    private final Runnable nextRunnable = new Runnable() {
+        @Override
+        public void run() {
+            next();
+        }
+    };
+
+    public GattScheduler(Handler handler) {
+        this(handler, null);
+    }
+
+    /**
+     * @param arbiter 与其他连接轮流执行，为null时不限制
+     */
+    public GattScheduler(Handler handler, GattArbiter arbiter) {
+        this.handler = handler;
+        this.arbiter = arbiter;
+    }
+
+    /**
+     * 新连接，清空之前的队列，未完成的操作以GATT_FAILURE结束
+     */
+    public void reset(final BluetoothGatt gatt) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                clearQueue();
+                GattScheduler.this.gatt = gatt;
+            }
+        });
+    }
+
+    /**
+     * 断开连接，当前和排队的操作都以GATT_FAILURE结束
+     */
+    public void clear() {
+        reset(null);
+    }
+
+    public void enqueue(final Operation operation) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                operation.enqueuedAt = System.nanoTime();
+                queue.offer(operation);
+                BleMetrics.getInstance().onGattQueueChanged(1);
+                next();
+            }
+        });
+    }
+
+    /**
+     * 插到队列最前面，在当前操作完成后立即执行
+     */
+    public void enqueueFirst(final Operation operation) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                operation.enqueuedAt = System.nanoTime();
+                queue.offerFirst(operation);
+                BleMetrics.getInstance().onGattQueueChanged(1);
+                next();
+            }
+        });
+    }
+
+    /**
+     * 在BluetoothGattCallback中调用，type与当前操作不一致时忽略
+     */
+    public void complete(final int type, final int status) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                Operation operation = current;
+                if (operation == null || operation.type != type) return;
+                finish(operation, status);
+            }
+        });
+    }
+
+    /**
+     * 轮到本连接时由GattArbiter调用
+     */
+    void resume() {
+        handler.post(nextRunnable);
+    }
+
+    private void next() {
+        if (current != null || gatt == null || queue.isEmpty()) return;
+        if (arbiter != null && !arbiter.acquire(this)) return;
+        Operation operation = queue.poll();
+        BleMetrics.getInstance().onGattQueueChanged(-1);
+        BleMetrics.getInstance().onGattQueueWait(System.nanoTime() - operation.enqueuedAt);
+        current = operation;
+        deadline = SystemClock.uptimeMillis() + operation.timeoutMillis;
+        generation++;
+        start(operation, generation);
+    }
+
+    private void start(final Operation operation, final int startGeneration) {
+        if (current != operation || generation != startGeneration) return;
+        int result;
+        try {
+            result = operation.start(gatt);
+        } catch (Exception e) {
+            Log.e(TAG, "start: ", e);
+            result = FAILED;
+        }
+        if (result == FAILED) {
+            finish(operation, BluetoothGatt.GATT_FAILURE);
+            return;
+        }
+        if (result == COMPLETED) {
+            finish(operation, BluetoothGatt.GATT_SUCCESS);
+            return;
+        }
+        long now = SystemClock.uptimeMillis();
+        if (now >= deadline) {
+            Log.w(TAG, "timeout: type " + operation.type);
+            finish(operation, BluetoothGatt.GATT_FAILURE);
+            return;
+        }
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                start(operation, startGeneration);
+            }
+        };
+        if (result == BUSY) {
+            //协议栈忙或没有缓冲区，稍后重试
+            handler.postDelayed(runnable, RETRY_DELAY);
+        } else {
+            handler.postDelayed(new Runnable() {
+                @Override
+                public void run() {
+                    if (current != operation || generation != startGeneration) return;
+                    Log.w(TAG, "timeout: type " + operation.type);
+                    finish(operation, BluetoothGatt.GATT_FAILURE);
+                }
+            }, deadline - now);
+        }
+    }
+
+    private void finish(Operation operation, int status) {
+        current = null;
+        generation++;
+        if (arbiter != null) arbiter.release(this);
+        operation.onComplete(status);
+        //onComplete中enqueueFirst的操作先执行
+        handler.post(nextRunnable);
+    }
+
+    private void clearQueue() {
+        Operation operation = current;
+        Operation[] queued = queue.toArray(new Operation[queue.size()]);
+        BleMetrics.getInstance().onGattQueueChanged(-queue.size());
+        queue.clear();
+        if (arbiter != null) {
+            if (current != null) arbiter.release(this);
+            arbiter.cancel(this);
+        }
+        current = null;
+        generation++;
+        //先清空再回调，回调中加入的操作留给下一个连接
+        if (operation != null) operation.onComplete(BluetoothGatt.GATT_FAILURE);
+        for (Operation op : queued) {
+            op.onComplete(BluetoothGatt.GATT_FAILURE);
+        }
+    }
+
+    /**
+     * 操作完成的回调，status为BluetoothGatt.GATT_SUCCESS或错误码，超时为GATT_FAILURE
+     */
+    public interface OnCompleteListener {
+        void onComplete(int status);
+    }
+
+    public abstract static class Operation {
+        final int type;
+        final long timeoutMillis;
+        long enqueuedAt;
+
+        protected Operation(int type, long timeoutMillis) {
+            this.type = type;
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        /**
+         * @return STARTED, BUSY (retry later), FAILED or COMPLETED
+         */
+        abstract int start(BluetoothGatt gatt);
+
+        /**
+         * 操作完成、失败或超时，在handler线程回调
+         */
+        protected void onComplete(int status) {
+        }
+    }
+
+    public static class Write extends Operation {
+        private final BluetoothGattCharacteristic characteristic;
+        private final byte[] value;
+        private final int writeType;
+        private boolean started;
+
+        /**
+         * @param noResponse 无应答写入，特征值不支持时使用普通写入
+         */
+        public Write(BluetoothGattCharacteristic characteristic, byte[] value, boolean noResponse) {
+            super(TYPE_WRITE, noResponse ? BULK_WRITE_TIMEOUT : DEFAULT_TIMEOUT);
+            this.characteristic = characteristic;
+            this.value = value;
+            this.writeType = noResponse && (characteristic.getProperties() & BluetoothGattCharacteristic.PROPERTY_WRITE_NO_RESPONSE) != 0
+                    ? BluetoothGattCharacteristic.WRITE_TYPE_NO_RESPONSE : BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT;
+        }
+
+        public byte[] getValue() {
+            return value;
+        }
+
+        /**
+         * 真正写入前调用，重试时不会重复调用
+         */
+        protected void onStart() {
+        }
+
+        @Override
+        int start(BluetoothGatt gatt) {
+            if (!started) {
+                started = true;
+                onStart();
+            }
+            characteristic.setWriteType(writeType);
+            characteristic.setValue(value);
+            return gatt.writeCharacteristic(characteristic) ? STARTED : BUSY;
+        }
+    }
+
+    public static class WriteDescriptor extends Operation {
+        private final BluetoothGattDescriptor descriptor;
+        private final byte[] value;
+
+        public WriteDescriptor(BluetoothGattDescriptor descriptor, byte[] value) {
+            super(TYPE_DESCRIPTOR, DEFAULT_TIMEOUT);
+            this.descriptor = descriptor;
+            this.value = value;
+        }
+
+        @Override
+        int start(BluetoothGatt gatt) {
+            descriptor.setValue(value);
+            return gatt.writeDescriptor(descriptor) ? STARTED : BUSY;
+        }
+    }
+
+    public static class Read extends Operation {
+        private final BluetoothGattCharacteristic characteristic;
+
+        public Read(BluetoothGattCharacteristic characteristic) {
+            super(TYPE_READ, DEFAULT_TIMEOUT);
+            this.characteristic = characteristic;
+        }
+
+        @Override
+        int start(BluetoothGatt gatt) {
+            return gatt.readCharacteristic(characteristic) ? STARTED : BUSY;
+        }
+    }
+
+    public static class RequestMtu extends Operation {
+        private final int mtu;
+
+        public RequestMtu(int mtu) {
+            super(TYPE_MTU, DEFAULT_TIMEOUT);
+            this.mtu = mtu;
+        }
+
+        public int getMtu() {
+            return mtu;
+        }
+
+        @Override
+        int start(BluetoothGatt gatt) {
+            return gatt.requestMtu(mtu) ? STARTED : BUSY;
+        }
+    }
+
+    /**
+     * 本地打开或关闭通知，没有回调，之后再写描述符
+     */
+    public static class SetNotification extends Operation {
+        private final BluetoothGattCharacteristic characteristic;
+        private final boolean enable;
+
+        public SetNotification(BluetoothGattCharacteristic characteristic, boolean enable) {
+            super(TYPE_NOTIFICATION, DEFAULT_TIMEOUT);
+            this.characteristic = characteristic;
+            this.enable = enable;
+        }
+
+        @Override
+        int start(BluetoothGatt gatt) {
+            return gatt.setCharacteristicNotification(characteristic, enable) ? COMPLETED : FAILED;
+        }
+    }
+
+    /**
+     * 连接参数更新没有回调，请求发出即完成
+     */
+    public static class RequestConnectionPriority extends Operation {
+        private final int priority;
+
+        public RequestConnectionPriority(int priority) {
+            super(TYPE_PRIORITY, DEFAULT_TIMEOUT);
+            this.priority = priority;
+        }
+
+        @Override
+        int start(BluetoothGatt gatt) {
+            return gatt.requestConnectionPriority(priority) ? COMPLETED : BUSY;
+        }
+    }
+
+    /**
+     * Android 8.0以上才能设置PHY，低版本直接以失败完成
+     */
+    public static class SetPreferredPhy extends Operation {
+        private final int txPhy;
+        private final int rxPhy;
+        private final int phyOptions;
+
+        public SetPreferredPhy(int txPhy, int rxPhy, int phyOptions) {
+            super(TYPE_PHY, DEFAULT_TIMEOUT);
+            this.txPhy = txPhy;
+            this.rxPhy = rxPhy;
+            this.phyOptions = phyOptions;
+        }
+
+        @TargetApi(Build.VERSION_CODES.O)
+        @Override
+        int start(BluetoothGatt gatt) {
+            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) return FAILED;
+            //没有返回值，结果在onPhyUpdate中
+            gatt.setPreferredPhy(txPhy, rxPhy, phyOptions);
+            return STARTED;
+        }
+    }
+}
@@ -0,0 +1,534 @@
+package com.jstyle.test2208.ble;
+
+import com.jstyle.blesdk2208a.Util.BleSDK;
+import com.jstyle.blesdk2208a.Util.WaveformBuffer;
+import com.jstyle.blesdk2208a.Util.WaveformDecoder;
+import com.jstyle.blesdk2208a.callback.WaveformListener2025;
+import com.jstyle.blesdk2208a.constant.BleConst;
+import com.jstyle.blesdk2208a.constant.DeviceKey;
+import com.jstyle.blesdk2208a.model.GpsTrack;
+import com.jstyle.test2208.Util.DateUtil;
+import com.jstyle.test2208.Util.SharedPreferenceUtils;
+import com.jstyle.test2208.daomananger.EcgDataDaoManager;
+import com.jstyle.test2208.daomananger.HeartDataDaoManager;
+import com.jstyle.test2208.daomananger.SleepDataDaoManager;
+import com.jstyle.test2208.daomananger.StepDataDaoManager;
+import com.jstyle.test2208.daomananger.StepDetailDataDaoManager;
+import com.jstyle.test2208.daomananger.SyncWatermarkDaoManager;
+import com.jstyle.test2208.model.EcgHistoryData;
+import com.jstyle.test2208.model.HeartData;
+import com.jstyle.test2208.model.SleepData;
+import com.jstyle.test2208.model.StepData;
+import com.jstyle.test2208.model.StepDetailData;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableEmitter;
+import io.reactivex.FlowableOnSubscribe;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Cancellable;
+import io.reactivex.functions.Consumer;
+
+/**
+ * SyncEngine的各种历史数据
+ * The step name is the data type (BleConst) of the pages it reads. Total and detail
+ * steps, sleep, dynamic/static heart rate and ECG are saved to the database one page
+ * at a time; HRV, blood oxygen, temperature, exercise and GPS have no table and go
+ * to a Sink of the caller. The saved types are read incrementally: unless a step is
+ * given a date with since(), it passes the newest record saved for the device and
+ * data type (SyncWatermarkDaoManager) as dateOfLastData. The watermark moves when
+ * the whole type is read, in the transaction of the last page (ECG: after the last
+ * record), so an interrupted sync never skips the older records it didn't reach. The
+ * paged types are read with RequestManager (ModeContinue every 50 packets), ECG one
+ * record per request and GPS until its end page, both through BleEvents.
+ */
+
+public class HistorySteps {
+    /**
+     * 设备最多保存的ECG记录数
+     */
+    public static final int MAX_ECG_RECORDS = 10;
+
+    /**
+     * 按mode和开始时间生成读取命令，如 BleSDK.GetDetailActivityDataWithMode(mode, since)
+     */
+    public interface HistoryQuery {
+        byte[] build(byte mode, String since);
+    }
+
+    /**
+     * 分页的历史数据，每页一个Map，DeviceKey.Data为记录列表
+     */
+    public static SyncEngine.Step<Map<String, Object>> history(String dataType, HistoryQuery query, SyncEngine.Sink<Map<String, Object>> sink) {
+        return new PagedStep(dataType, query, sink);
+    }
+
+    /**
+     * 保存到数据库的分页数据，从上次保存的最新记录开始读取
+     */
+    public static SyncEngine.Step<Map<String, Object>> stored(String dataType, HistoryQuery query, SyncEngine.Sink<Map<String, Object>> sink) {
+        return new StoredStep(dataType, query, sink);
+    }
+
+    /**
+     * 全部历史数据，没有数据库表的交给pages和gps
+     */
+    public static SyncEngine.Plan all(SyncEngine.Sink<Map<String, Object>> pages, SyncEngine.Sink<GpsTrack> gps) {
+        return new SyncEngine.Plan()
+                .add(total())
+                .add(detail())
+                .add(sleep())
+                .add(dynamicHeartRate())
+                .add(staticHeartRate())
+                .add(hrv(pages))
+                .add(bloodOxygen(pages))
+                .add(temperature(pages))
+                .add(axillaryTemperature(pages))
+                .add(ecg())
+                .add(gps(gps))
+                .add(exercise(pages));
+    }
+
+    private static class PagedStep extends SyncEngine.Step<Map<String, Object>> {
+        final HistoryQuery query;
+        final SyncEngine.Sink<Map<String, Object>> sink;
+
+        PagedStep(String dataType, HistoryQuery query, SyncEngine.Sink<Map<String, Object>> sink) {
+            super(dataType);
+            this.query = query;
+            this.sink = sink;
+        }
+
+        @Override
+        protected Flowable<Map<String, Object>> read(final String since) {
+            return BleManager.getInstance().readHistory(new RequestManager.HistoryCommand() {
+                @Override
+                public byte[] build(byte mode) {
+                    return query.build(mode, since);
+                }
+            });
+        }
+
+        @Override
+        protected int save(Map<String, Object> page) throws Exception {
+            sink.save(page);
+            return getRecords(page).size();
+        }
+    }
+
+    /**
+     * 结束页与新的位置在同一个事务中保存
+     */
+    private static class StoredStep extends PagedStep {
+        String address;
+        String newest;
+
+        StoredStep(String dataType, HistoryQuery query, SyncEngine.Sink<Map<String, Object>> sink) {
+            super(dataType, query, sink);
+        }
+
+        @Override
+        protected String start() throws Exception {
+            address = getAddress();
+            newest = null;
+            if (!getSince().isEmpty()) return getSince();
+            return SyncWatermarkDaoManager.getLastDate(address, getName());
+        }
+
+        @Override
+        protected int save(final Map<String, Object> page) throws Exception {
+            List<Map<String, String>> records = getRecords(page);
+            for (Map<String, String> map : records) {
+                newest = newer(newest, map.get(DeviceKey.Date));
+            }
+            boolean end = Boolean.TRUE.equals(page.get(DeviceKey.End));
+            SyncWatermarkDaoManager.insertInTx(address, getName(), end ? newest : null, new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    sink.save(page);
+                    return null;
+                }
+            });
+            return records.size();
+        }
+    }
+
+    private static String newer(String newest, String date) {
+        if (date == null) return newest;
+        return newest == null || date.compareTo(newest) > 0 ? date : newest;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static List<Map<String, String>> getRecords(Map<String, Object> page) {
+        Object data = page.get(DeviceKey.Data);
+        if (data instanceof List) return (List<Map<String, String>>) data;
+        return Collections.emptyList();
+    }
+
+    private static String getAddress() {
+        return SharedPreferenceUtils.getSpString(SharedPreferenceUtils.KEY_ADDRESS);
+    }
+
+    public static SyncEngine.Step<Map<String, Object>> total() {
+        return stored(BleConst.GetTotalActivityData, new HistoryQuery() {
+            @Override
+            public byte[] build(byte mode, String since) {
+                return BleSDK.GetTotalActivityDataWithMode(mode, since);
+            }
+        }, new SyncEngine.Sink<Map<String, Object>>() {
+            @Override
+            public void save(Map<String, Object> page) throws Exception {
+                String address = getAddress();
+                List<StepData> stepDataList = new ArrayList<>();
+                for (Map<String, String> map : getRecords(page)) {
+                    StepData stepData = new StepData();
+                    stepData.setAddress(address);
+                    stepData.setDate(map.get(DeviceKey.Date));
+                    stepData.setStep(map.get(DeviceKey.Step));
+                    stepData.setCal(map.get(DeviceKey.Calories));
+                    stepData.setDistance(map.get(DeviceKey.Distance));
+                    stepData.setExerciseTime(map.get(DeviceKey.ExerciseMinutes));
+                    stepData.setGoal(map.get(DeviceKey.Goal));
+                    stepDataList.add(stepData);
+                }
+                StepDataDaoManager.insertData(stepDataList);
+            }
+        });
+    }
+
+    public static SyncEngine.Step<Map<String, Object>> detail() {
+        return stored(BleConst.GetDetailActivityData, new HistoryQuery() {
+            @Override
+            public byte[] build(byte mode, String since) {
+                return BleSDK.GetDetailActivityDataWithMode(mode, since);
+            }
+        }, new SyncEngine.Sink<Map<String, Object>>() {
+            @Override
+            public void save(Map<String, Object> page) throws Exception {
+                String address = getAddress();
+                List<StepDetailData> stepDataList = new ArrayList<>();
+                for (Map<String, String> map : getRecords(page)) {
+                    StepDetailData stepData = new StepDetailData();
+                    stepData.setAddress(address);
+                    stepData.setDate(map.get(DeviceKey.Date));
+                    stepData.setStep(map.get(DeviceKey.KDetailMinterStep));
+                    stepData.setDistance(map.get(DeviceKey.Distance));
+                    stepData.setCal(map.get(DeviceKey.Calories));
+                    stepData.setMinterStep(map.get(DeviceKey.ArraySteps));
+                    stepDataList.add(stepData);
+                }
+                StepDetailDataDaoManager.insertData(stepDataList);
+            }
+        });
+    }
+
+    /**
+     * 每分钟一条睡眠数据
+     */
+    public static SyncEngine.Step<Map<String, Object>> sleep() {
+        return stored(BleConst.GetDetailSleepData, new HistoryQuery() {
+            @Override
+            public byte[] build(byte mode, String since) {
+                return BleSDK.GetDetailSleepDataWithMode(mode, since);
+            }
+        }, new SyncEngine.Sink<Map<String, Object>>() {
+            @Override
+            public void save(Map<String, Object> page) throws Exception {
+                String address = getAddress();
+                List<SleepData> sleepDataList = new ArrayList<>();
+                for (Map<String, String> map : getRecords(page)) {
+                    long startMil = DateUtil.getDefaultLongMi(map.get(DeviceKey.Date));
+                    String[] sleepQuantity = map.get(DeviceKey.ArraySleep).split(" ");
+                    for (int i = 0; i < sleepQuantity.length; i++) {
+                        SleepData sleepData = new SleepData();
+                        sleepData.setAddress(address);
+                        sleepData.setDateString(sleepQuantity[i]);
+                        sleepData.setTime(DateUtil.getFormatTimeString(startMil + 60 * 1000L * i));
+                        sleepDataList.add(sleepData);
+                    }
+                }
+                SleepDataDaoManager.insertData(sleepDataList);
+            }
+        });
+    }
+
+    /**
+     * 每分钟一个心率，0不保存
+     */
+    public static SyncEngine.Step<Map<String, Object>> dynamicHeartRate() {
+        return stored(BleConst.GetDynamicHR, new HistoryQuery() {
+            @Override
+            public byte[] build(byte mode, String since) {
+                return BleSDK.GetDynamicHRWithMode(mode, since);
+            }
+        }, new SyncEngine.Sink<Map<String, Object>>() {
+            @Override
+            public void save(Map<String, Object> page) throws Exception {
+                String address = getAddress();
+                List<HeartData> heartDataList = new ArrayList<>();
+                for (Map<String, String> map : getRecords(page)) {
+                    long startL = DateUtil.getGpsDateLong(map.get(DeviceKey.Date));
+                    String[] hrArray = map.get(DeviceKey.ArrayDynamicHR).split(" ");
+                    for (int i = 0; i < hrArray.length; i++) {
+                        int hr = Integer.valueOf(hrArray[i]);
+                        if (hr == 0) continue;
+                        HeartData heartData = new HeartData();
+                        heartData.setAddress(address);
+                        heartData.setHeart(hr);
+                        heartData.setTime(DateUtil.getFormatTimeString(startL + i * 1000 * 60L));
+                        heartDataList.add(heartData);
+                    }
+                }
+                HeartDataDaoManager.insertData(heartDataList);
+            }
+        });
+    }
+
+    public static SyncEngine.Step<Map<String, Object>> staticHeartRate() {
+        return stored(BleConst.GetStaticHR, new HistoryQuery() {
+            @Override
+            public byte[] build(byte mode, String since) {
+                return BleSDK.GetStaticHRWithMode(mode, since);
+            }
+        }, new SyncEngine.Sink<Map<String, Object>>() {
+            @Override
+            public void save(Map<String, Object> page) throws Exception {
+                String address = getAddress();
+                List<HeartData> heartDataList = new ArrayList<>();
+                for (Map<String, String> map : getRecords(page)) {
+                    int heartRate = Integer.parseInt(map.get(DeviceKey.StaticHR));
+                    if (heartRate == 0) continue;
+                    HeartData heartData = new HeartData();
+                    heartData.setAddress(address);
+                    heartData.setHeart(heartRate);
+                    heartData.setTime(map.get(DeviceKey.Date));
+                    heartDataList.add(heartData);
+                }
+                HeartDataDaoManager.insertData(heartDataList);
+            }
+        });
+    }
+
+    public static SyncEngine.Step<Map<String, Object>> hrv(SyncEngine.Sink<Map<String, Object>> sink) {
+        return history(BleConst.GetHRVData, new HistoryQuery() {
+            @Override
+            public byte[] build(byte mode, String since) {
+                return BleSDK.GetHRVDataWithMode(mode, since);
+            }
+        }, sink);
+    }
+
+    public static SyncEngine.Step<Map<String, Object>> bloodOxygen(SyncEngine.Sink<Map<String, Object>> sink) {
+        return history(BleConst.Blood_oxygen, new HistoryQuery() {
+            @Override
+            public byte[] build(byte mode, String since) {
+                return BleSDK.GetBloodOxygen(mode, since);
+            }
+        }, sink);
+    }
+
+    /**
+     * 手动测试的温度
+     */
+    public static SyncEngine.Step<Map<String, Object>> temperature(SyncEngine.Sink<Map<String, Object>> sink) {
+        return history(BleConst.Temperature_history, new HistoryQuery() {
+            @Override
+            public byte[] build(byte mode, String since) {
+                return BleSDK.GetTemperature_historyDataWithMode(mode, since);
+            }
+        }, sink);
+    }
+
+    /**
+     * 设备自动测试的温度
+     */
+    public static SyncEngine.Step<Map<String, Object>> axillaryTemperature(SyncEngine.Sink<Map<String, Object>> sink) {
+        return history(BleConst.GetAxillaryTemperatureDataWithMode, new HistoryQuery() {
+            @Override
+            public byte[] build(byte mode, String since) {
+                return BleSDK.GetAxillaryTemperatureDataWithMode(mode, since);
+            }
+        }, sink);
+    }
+
+    /**
+     * 运动记录，设备不支持按时间读取
+     */
+    public static SyncEngine.Step<Map<String, Object>> exercise(SyncEngine.Sink<Map<String, Object>> sink) {
+        return history(BleConst.GetActivityModeData, new HistoryQuery() {
+            @Override
+            public byte[] build(byte mode, String since) {
+                return BleSDK.GetActivityModeDataWithMode(mode);
+            }
+        }, sink);
+    }
+
+    /**
+     * ECG记录，每次请求一条，每条一页
+     */
+    public static SyncEngine.Step<EcgHistoryData> ecg() {
+        return new SyncEngine.Step<EcgHistoryData>(BleConst.ECGdata) {
+            String address;
+            String newest;
+
+            @Override
+            protected String start() throws Exception {
+                address = getAddress();
+                newest = null;
+                if (!getSince().isEmpty()) return getSince();
+                return SyncWatermarkDaoManager.getLastDate(address, getName());
+            }
+
+            @Override
+            protected Flowable<EcgHistoryData> read(final String since) {
+                return Flowable.create(new FlowableOnSubscribe<EcgHistoryData>() {
+                    @Override
+                    public void subscribe(final FlowableEmitter<EcgHistoryData> emitter) throws Exception {
+                        final EcgReader reader = new EcgReader(since, address, emitter);
+                        final Disposable waveforms = BleEvents.getInstance().waveforms().subscribe(new Consumer<BleEvents.Waveform>() {
+                            @Override
+                            public void accept(BleEvents.Waveform waveform) throws Exception {
+                                waveform.dispatch(reader);
+                            }
+                        }, new Consumer<Throwable>() {
+                            @Override
+                            public void accept(Throwable throwable) throws Exception {
+                                emitter.onError(throwable);
+                            }
+                        });
+                        BleManager.getInstance().acquireLink();
+                        emitter.setCancellable(new Cancellable() {
+                            @Override
+                            public void cancel() throws Exception {
+                                waveforms.dispose();
+                                BleManager.getInstance().releaseLink();
+                            }
+                        });
+                        reader.request();
+                    }
+                }, BackpressureStrategy.BUFFER);
+            }
+
+            @Override
+            protected int save(EcgHistoryData page) throws Exception {
+                EcgDataDaoManager.insertData(page);
+                newest = newer(newest, page.getTime());
+                return 1;
+            }
+
+            @Override
+            protected void finish() throws Exception {
+                SyncWatermarkDaoManager.update(address, getName(), newest);
+            }
+        };
+    }
+
+    /**
+     * 从第0条开始读取，直到读到since那一条、没有数据或读满MAX_ECG_RECORDS条
+     * Waveform events arrive on the decode thread, one request is in flight at a time
+     */
+    private static class EcgReader implements WaveformListener2025 {
+        final String since;
+        final String address;
+        final FlowableEmitter<EcgHistoryData> emitter;
+        final WaveformBuffer buffer = new WaveformBuffer(WaveformDecoder.ECG_SAMPLE_RATE, WaveformDecoder.ECG_SAMPLE_RATE * 600);
+        EcgHistoryData record;
+        int index;
+
+        EcgReader(String since, String address, FlowableEmitter<EcgHistoryData> emitter) {
+            this.since = since;
+            this.address = address;
+            this.emitter = emitter;
+        }
+
+        void request() {
+            BleManager.getInstance().writeValue(BleSDK.getEcgHistoryData(index, since));
+        }
+
+        @Override
+        public void onEcgHistoryStart(String date, long timeMillis, int hrv, int heartRate, int moodValue) {
+            buffer.clear();
+            record = new EcgHistoryData();
+            record.setTime(date);
+            record.setHrv(hrv);
+            record.setHeartRate(heartRate);
+            record.setBreathValue(moodValue);
+            record.setAddress(address);
+        }
+
+        @Override
+        public void onEcgSamples(String dataType, int sequenceId, int sampleRate, short[] samples, int count) {
+            if (record != null && BleConst.ECGdata.equals(dataType)) buffer.append(samples, 0, count, sequenceId);
+        }
+
+        @Override
+        public void onPpgSamples(String dataType, int sequenceId, int sampleRate, int[] samples, int count) {
+        }
+
+        @Override
+        public void onEcgHistoryEnd() {
+            if (record == null) {
+                //没有数据
+                emitter.onComplete();
+                return;
+            }
+            EcgHistoryData page = record;
+            record = null;
+            page.setArrayECGData(buffer.appendTo(new StringBuilder(buffer.size() * 6), ',').toString());
+            buffer.clear();
+            emitter.onNext(page);
+            if (page.getTime().equals(since) || ++index >= MAX_ECG_RECORDS) {
+                emitter.onComplete();
+            } else {
+                request();
+            }
+        }
+    }
+
+    /**
+     * GPS轨迹，读到结束页为止
+     */
+    public static SyncEngine.Step<GpsTrack> gps(final SyncEngine.Sink<GpsTrack> sink) {
+        return new SyncEngine.Step<GpsTrack>(BleConst.Gps) {
+            @Override
+            protected Flowable<GpsTrack> read(String since) {
+                return Flowable.create(new FlowableOnSubscribe<GpsTrack>() {
+                    @Override
+                    public void subscribe(final FlowableEmitter<GpsTrack> emitter) throws Exception {
+                        final Disposable pages = BleEvents.getInstance().gpsPages().subscribe(new Consumer<BleEvents.GpsPage>() {
+                            @Override
+                            public void accept(BleEvents.GpsPage page) throws Exception {
+                                emitter.onNext(page.getTrack());
+                                if (page.isEnd()) emitter.onComplete();
+                            }
+                        }, new Consumer<Throwable>() {
+                            @Override
+                            public void accept(Throwable throwable) throws Exception {
+                                emitter.onError(throwable);
+                            }
+                        });
+                        emitter.setCancellable(new Cancellable() {
+                            @Override
+                            public void cancel() throws Exception {
+                                pages.dispose();
+                            }
+                        });
+                        BleManager.getInstance().writeValue(BleSDK.GetGpsData(1));
+                    }
+                }, BackpressureStrategy.BUFFER);
+            }
+
+            @Override
+            protected int save(GpsTrack page) throws Exception {
+                sink.save(page);
+                return page.size();
+            }
+        };
+    }
+}
@@ -0,0 +1,132 @@
+package com.jstyle.test2208.ble;
+
+import android.annotation.TargetApi;
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothGatt;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * 大量数据传输时调整连接参数，每个连接一个实例
+ * While at least one history sync or ECG/PPG stream holds the link, the connection
+ * runs at HIGH priority (short connection interval) and on the 2M PHY when phone and
+ * bracelet support it. When the last one releases it the priority drops back to the
+ * idle priority and the PHY to 1M, which has the longer range. The bytes received
+ * in between are reported as throughput.
+ * Data length extension has no Android API, the stack negotiates it by itself.
+ */
+
+public class LinkManager {
+    private static final String TAG = "LinkManager";
+
+    public interface OnThroughputListener {
+        /**
+         * 一次传输结束
+         *
+         * @param bytes 收到的通知字节数
+         * @param phy   结束时的接收PHY，BluetoothDevice.PHY_LE_1M或PHY_LE_2M
+         */
+        void onThroughput(String address, long bytes, long elapsedMillis, int phy);
+    }
+
+    private final BleConnection connection;
+    private final GattScheduler scheduler;
+    private OnThroughputListener listener;
+    private int idlePriority = BluetoothGatt.CONNECTION_PRIORITY_BALANCED;
+    private int holders;
+    private long startTime;
+    private long bytes;
+    private int rxPhy = BluetoothDevice.PHY_LE_1M;
+    /**
+     * 设备拒绝过2M PHY后本次连接不再请求
+     */
+    private boolean remote2MRejected;
+    private long lastBytesPerSecond;
+
+    LinkManager(BleConnection connection, GattScheduler scheduler) {
+        this.connection = connection;
+        this.scheduler = scheduler;
+    }
+
+    public void setOnThroughputListener(OnThroughputListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 空闲时的连接优先级，BALANCED或LOW_POWER
+     */
+    public synchronized void setIdlePriority(int priority) {
+        idlePriority = priority;
+        if (holders == 0 && connection.isConnected()) {
+            scheduler.enqueue(new GattScheduler.RequestConnectionPriority(priority));
+        }
+    }
+
+    /**
+     * 开始大量传输，与release成对调用
+     */
+    public synchronized void acquire() {
+        if (holders++ > 0 || !connection.isConnected()) return;
+        startTime = SystemClock.uptimeMillis();
+        bytes = 0;
+        scheduler.enqueue(new GattScheduler.RequestConnectionPriority(BluetoothGatt.CONNECTION_PRIORITY_HIGH));
+        if (supports2M()) {
+            scheduler.enqueue(new GattScheduler.SetPreferredPhy(BluetoothDevice.PHY_LE_2M_MASK,
+                    BluetoothDevice.PHY_LE_2M_MASK, BluetoothDevice.PHY_OPTION_NO_PREFERRED));
+        }
+    }
+
+    public synchronized void release() {
+        if (holders == 0 || --holders > 0) return;
+        long elapsed = SystemClock.uptimeMillis() - startTime;
+        lastBytesPerSecond = elapsed > 0 ? bytes * 1000 / elapsed : 0;
+        Log.i(TAG, connection.getAddress() + " " + bytes + " bytes in " + elapsed + " ms, "
+                + lastBytesPerSecond + " B/s, phy " + rxPhy);
+        if (listener != null) listener.onThroughput(connection.getAddress(), bytes, elapsed, rxPhy);
+        if (!connection.isConnected()) return;
+        scheduler.enqueue(new GattScheduler.RequestConnectionPriority(idlePriority));
+        if (rxPhy != BluetoothDevice.PHY_LE_1M) {
+            scheduler.enqueue(new GattScheduler.SetPreferredPhy(BluetoothDevice.PHY_LE_1M_MASK,
+                    BluetoothDevice.PHY_LE_1M_MASK, BluetoothDevice.PHY_OPTION_NO_PREFERRED));
+        }
+    }
+
+    /**
+     * 上一次传输的平均速率 (字节/秒)
+     */
+    public synchronized long getLastBytesPerSecond() {
+        return lastBytesPerSecond;
+    }
+
+    public synchronized int getPhy() {
+        return rxPhy;
+    }
+
+    synchronized void onNotification(int length) {
+        if (holders > 0) bytes += length;
+    }
+
+    synchronized void onPhyUpdate(int txPhy, int rxPhy, int status) {
+        if (status != BluetoothGatt.GATT_SUCCESS) return;
+        this.rxPhy = rxPhy;
+        if (holders > 0 && rxPhy != BluetoothDevice.PHY_LE_2M) remote2MRejected = true;
+    }
+
+    /**
+     * 断开连接，传输全部结束，PHY回到1M
+     */
+    synchronized void onDisconnected() {
+        holders = 0;
+        rxPhy = BluetoothDevice.PHY_LE_1M;
+        remote2MRejected = false;
+    }
+
+    @TargetApi(Build.VERSION_CODES.O)
+    private boolean supports2M() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O || remote2MRejected) return false;
+        BluetoothAdapter adapter = BluetoothAdapter.getDefaultAdapter();
+        return adapter != null && adapter.isLe2MPhySupported();
+    }
+}
@@ -0,0 +1,204 @@
+package com.jstyle.test2208.ble;
+
+import android.annotation.SuppressLint;
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.le.BluetoothLeScanner;
+import android.bluetooth.le.ScanCallback;
+import android.bluetooth.le.ScanFilter;
+import android.bluetooth.le.ScanResult;
+import android.bluetooth.le.ScanSettings;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 意外断开后的重连
+ * Right after the link is lost the cached device is connected with autoConnect, which
+ * the controller completes as soon as the bracelet advertises again. At the same time
+ * a scan filtered on the addresses of the lost devices runs in the background; when it
+ * sees one, the pending autoConnect is replaced by a direct connection, which is set up
+ * faster on most phones. Failed attempts are retried after an exponential backoff with
+ * jitter, a sighting during the backoff doesn't cut it short. Time from disconnect to
+ * the notifications being enabled again is recorded.
+ * All state is kept on the handler thread.
+ */
+
+public class ReconnectEngine {
+    private static final String TAG = "ReconnectEngine";
+    private static final long BASE_DELAY = 500;
+    private static final long MAX_DELAY = 30000;
+
+    private final BluetoothAdapter adapter;
+    private final Handler handler;
+    private final Random random = new Random();
+    private final Map<String, Attempt> attempts = new LinkedHashMap<>();
+    private boolean scanning;
+    private int reconnectCount;
+    private long lastReconnectMillis;
+    private long totalReconnectMillis;
+    private long maxReconnectMillis;
+
+    public ReconnectEngine(BluetoothAdapter adapter, Handler handler) {
+        this.adapter = adapter;
+        this.handler = handler;
+    }
+
+    /**
+     * 连接意外断开或连接失败
+     */
+    public void onDisconnected(final BleConnection connection) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                Attempt attempt = attempts.get(connection.getAddress());
+                if (attempt == null) {
+                    attempt = new Attempt(connection);
+                    attempts.put(connection.getAddress(), attempt);
+                    updateScan();
+                    //刚断开，直接用autoConnect等设备重新广播
+                    attempt.run();
+                    return;
+                }
+                long delay = backoff(attempt.failures++);
+                Log.i(TAG, "retry " + connection.getAddress() + " in " + delay + " ms");
+                attempt.retryAt = SystemClock.elapsedRealtime() + delay;
+                handler.postDelayed(attempt, delay);
+            }
+        });
+    }
+
+    /**
+     * 重连成功，通知已打开
+     */
+    public void onConnected(final BleConnection connection) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                Attempt attempt = attempts.remove(connection.getAddress());
+                if (attempt == null) return;
+                handler.removeCallbacks(attempt);
+                long millis = SystemClock.elapsedRealtime() - attempt.lostAt;
+                reconnectCount++;
+                lastReconnectMillis = millis;
+                totalReconnectMillis += millis;
+                maxReconnectMillis = Math.max(maxReconnectMillis, millis);
+                Log.i(TAG, "reconnected " + connection.getAddress() + " in " + millis + " ms, " + attempt.failures + " failures");
+                updateScan();
+            }
+        });
+    }
+
+    /**
+     * 主动断开，不再重连
+     */
+    public void cancel(final BleConnection connection) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                Attempt attempt = attempts.remove(connection.getAddress());
+                if (attempt == null) return;
+                handler.removeCallbacks(attempt);
+                updateScan();
+            }
+        });
+    }
+
+    public int getReconnectCount() {
+        return reconnectCount;
+    }
+
+    public long getLastReconnectMillis() {
+        return lastReconnectMillis;
+    }
+
+    public long getAverageReconnectMillis() {
+        return reconnectCount == 0 ? 0 : totalReconnectMillis / reconnectCount;
+    }
+
+    public long getMaxReconnectMillis() {
+        return maxReconnectMillis;
+    }
+
+    /**
+     * 指数退避，在delay/2到delay之间随机，避免多个手环同时重试
+     */
+    private long backoff(int failures) {
+        long delay = BASE_DELAY << Math.min(failures, 16);
+        delay = Math.min(delay, MAX_DELAY);
+        return delay / 2 + (long) (random.nextDouble() * (delay / 2));
+    }
+
+    /**
+     * 扫描等待重连的地址，地址变化时重新开始
+     */
+    @SuppressLint("MissingPermission")
+    private void updateScan() {
+        BluetoothLeScanner scanner = adapter.isEnabled() ? adapter.getBluetoothLeScanner() : null;
+        if (scanner == null) return;
+        if (scanning) {
+            scanner.stopScan(scanCallback);
+            scanning = false;
+        }
+        if (attempts.isEmpty()) return;
+        List<ScanFilter> filters = new ArrayList<>();
+        for (String address : attempts.keySet()) {
+            filters.add(new ScanFilter.Builder().setDeviceAddress(address).build());
+        }
+        ScanSettings settings = new ScanSettings.Builder().setScanMode(ScanSettings.SCAN_MODE_BALANCED).build();
+        scanner.startScan(filters, settings, scanCallback);
+        scanning = true;
+    }
+
+    private final ScanCallback scanCallback = new ScanCallback() {
+        @Override
+        public void onScanResult(int callbackType, final ScanResult result) {
+            final BluetoothDevice device = result.getDevice();
+            String name = result.getScanRecord() == null ? null : result.getScanRecord().getDeviceName();
+            if ("DfuTarg".equals(name)) return;
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    Attempt attempt = attempts.get(device.getAddress());
+                    if (attempt == null || attempt.connection.isDirectConnecting()) return;
+                    //失败后的退避期间不直连，设备一直在广播时也不会连续重试
+                    if (SystemClock.elapsedRealtime() < attempt.retryAt) return;
+                    //设备在广播，不再等autoConnect
+                    handler.removeCallbacks(attempt);
+                    attempt.connection.connect(device, false);
+                }
+            });
+        }
+
+        @Override
+        public void onScanFailed(int errorCode) {
+            Log.w(TAG, "onScanFailed: " + errorCode);
+            scanning = false;
+        }
+    };
+
+    private class Attempt implements Runnable {
+        final BleConnection connection;
+        final long lostAt = SystemClock.elapsedRealtime();
+        int failures;
+        /**
+         * 退避结束的时间，之前扫描到也不直连
+         */
+        long retryAt;
+
+        Attempt(BleConnection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public void run() {
+            connection.connect(adapter.getRemoteDevice(connection.getAddress()), true);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.jstyle.test2208.ble;
+
+import android.bluetooth.BluetoothGatt;
+import android.os.Handler;
+
+import com.jstyle.blesdk2208a.Util.FrameDispatcher;
+import com.jstyle.blesdk2208a.callback.DataListener2025;
+import com.jstyle.blesdk2208a.constant.DeviceKey;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableEmitter;
+import io.reactivex.FlowableOnSubscribe;
+import io.reactivex.Single;
+import io.reactivex.SingleEmitter;
+import io.reactivex.SingleOnSubscribe;
+import io.reactivex.functions.Cancellable;
+
+/**
+ * 请求与应答配对，每个连接一个实例
+ * The device answers a command with frames that start with the same command byte,
+ * so responses are matched to the request by that byte. Requests with the same
+ * command byte are sent one after another and can't take each other's responses,
+ * different command bytes run in parallel. A request is sent again when the GATT
+ * write fails or no response arrives within the timeout, and fails with an
+ * IOException or TimeoutException after the last retry. Disposing the subscriber
+ * cancels the request.
+ * History reads are paged: the device sends {@link #PAGE_BATCH} notifications and
+ * waits for a ModeContinue command, which is sent here until the end marker.
+ * The link is tuned for throughput while a history read runs, see {@link LinkManager}.
+ * Results are delivered on the GATT thread, use observeOn for the UI.
+ */
+
+public class RequestManager {
+    public static final long DEFAULT_TIMEOUT = 3000;
+    public static final long DEFAULT_PAGE_TIMEOUT = 5000;
+    public static final int DEFAULT_RETRIES = 2;
+    public static final byte MODE_START = 0x00;
+    public static final byte MODE_CONTINUE = 0x02;
+    /**
+     * 设备每发送50包等待继续读取的命令
+     */
+    public static final int PAGE_BATCH = 50;
+
+    /**
+     * 按mode生成历史数据读取命令，如 BleSDK.GetDetailActivityDataWithMode(mode, "")
+     */
+    public interface HistoryCommand {
+        byte[] build(byte mode);
+    }
+
+    private final BleConnection connection;
+    private final Handler handler;
+    private final FrameDispatcher dispatcher = new FrameDispatcher();
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Request>[] queues = new ArrayDeque[256];
+    private final List<Map<String, Object>> parsed = new ArrayList<>();
+    private final DataListener2025 collector = new DataListener2025() {
+        @Override
+        public void dataCallback(Map<String, Object> maps) {
+            parsed.add(maps);
+        }
+
+        @Override
+        public void dataCallback(byte[] value) {
+        }
+    };
+
+    public RequestManager(BleConnection connection, Handler handler) {
+        this.connection = connection;
+        this.handler = handler;
+    }
+
+    public Single<Map<String, Object>> request(byte[] command) {
+        return request(command, DEFAULT_TIMEOUT, DEFAULT_RETRIES);
+    }
+
+    /**
+     * 发送命令并等待同一命令字的第一个应答
+     */
+    public Single<Map<String, Object>> request(final byte[] command, final long timeoutMillis, final int retries) {
+        return Single.create(new SingleOnSubscribe<Map<String, Object>>() {
+            @Override
+            public void subscribe(SingleEmitter<Map<String, Object>> emitter) throws Exception {
+                final Request request = new Request(command, null, timeoutMillis, retries);
+                request.single = emitter;
+                emitter.setCancellable(new Cancellable() {
+                    @Override
+                    public void cancel() throws Exception {
+                        RequestManager.this.cancel(request);
+                    }
+                });
+                start(request);
+            }
+        });
+    }
+
+    public Flowable<Map<String, Object>> readHistory(HistoryCommand command) {
+        return readHistory(command, DEFAULT_PAGE_TIMEOUT, DEFAULT_RETRIES);
+    }
+
+    /**
+     * 读取全部历史数据，每包数据一个Map，收到结束标志后完成
+     *
+     * @param pageTimeoutMillis 两包数据之间的最长间隔
+     */
+    public Flowable<Map<String, Object>> readHistory(final HistoryCommand command, final long pageTimeoutMillis, final int retries) {
+        return Flowable.create(new FlowableOnSubscribe<Map<String, Object>>() {
+            @Override
+            public void subscribe(FlowableEmitter<Map<String, Object>> emitter) throws Exception {
+                final Request request = new Request(command.build(MODE_START), command, pageTimeoutMillis, retries);
+                request.flowable = emitter;
+                emitter.setCancellable(new Cancellable() {
+                    @Override
+                    public void cancel() throws Exception {
+                        RequestManager.this.cancel(request);
+                    }
+                });
+                start(request);
+            }
+        }, BackpressureStrategy.BUFFER);
+    }
+
+    /**
+     * 收到的每个通知 (重组前)，用于历史数据的分批计数
+     */
+    public synchronized void onNotification(byte[] value) {
+        if (value == null || value.length == 0) return;
+        Request request = head(value[0] & 0xff);
+        if (request == null || request.history == null) return;
+        request.notifications++;
+    }
+
+    /**
+     * 重组后的一包数据
+     */
+    public synchronized void onPage(byte[] value) {
+        if (value == null || value.length == 0) return;
+        Request request = head(value[0] & 0xff);
+        if (request == null) return;
+        parsed.clear();
+        long start = System.nanoTime();
+        dispatcher.dispatch(value, collector);
+        BleMetrics.getInstance().onDecoded(value[0], System.nanoTime() - start);
+        for (int i = 0; i < parsed.size() && !request.done; i++) {
+            Map<String, Object> maps = parsed.get(i);
+            if (request.single != null) {
+                finish(request);
+                request.single.onSuccess(maps);
+                continue;
+            }
+            request.pages++;
+            request.flowable.onNext(maps);
+            if (Boolean.TRUE.equals(maps.get(DeviceKey.End))) {
+                finish(request);
+                request.flowable.onComplete();
+            }
+        }
+        parsed.clear();
+        if (request.done) return;
+        if (request.history != null && request.notifications >= PAGE_BATCH) {
+            //本批收完，继续读取
+            request.command = request.history.build(MODE_CONTINUE);
+            request.retriesLeft = request.retries;
+            send(request);
+        } else {
+            scheduleTimeout(request);
+        }
+    }
+
+    /**
+     * 断开连接，所有请求以IOException结束
+     */
+    public synchronized void onDisconnected() {
+        for (int cmd = 0; cmd < queues.length; cmd++) {
+            ArrayDeque<Request> queue = queues[cmd];
+            if (queue == null) continue;
+            Request request;
+            while ((request = queue.poll()) != null) {
+                request.done = true;
+                handler.removeCallbacks(request.timeout);
+                if (request.history != null) connection.getLinkManager().release();
+                request.onError(new IOException("disconnected"));
+            }
+        }
+    }
+
+    private synchronized void start(Request request) {
+        if (!connection.isConnected()) {
+            request.done = true;
+            request.onError(new IOException("not connected"));
+            return;
+        }
+        if (request.history != null) connection.getLinkManager().acquire();
+        int cmd = request.command[0] & 0xff;
+        ArrayDeque<Request> queue = queues[cmd];
+        if (queue == null) queue = queues[cmd] = new ArrayDeque<>();
+        queue.offer(request);
+        if (queue.peek() == request) send(request);
+    }
+
+    private void send(final Request request) {
+        final int attempt = ++request.attempt;
+        request.notifications = 0;
+        dispatcher.onCommand(request.command);
+        connection.writeValue(request.command, new GattScheduler.OnCompleteListener() {
+            @Override
+            public void onComplete(int status) {
+                if (status != BluetoothGatt.GATT_SUCCESS) onWriteFailed(request, attempt, status);
+            }
+        });
+        scheduleTimeout(request);
+    }
+
+    private synchronized void onWriteFailed(Request request, int attempt, int status) {
+        if (request.done || request.attempt != attempt) return;
+        retry(request, new IOException("write failed: " + status));
+    }
+
+    private void scheduleTimeout(Request request) {
+        handler.removeCallbacks(request.timeout);
+        handler.postDelayed(request.timeout, request.timeoutMillis);
+    }
+
+    private synchronized void onTimeout(Request request) {
+        if (request.done) return;
+        retry(request, new TimeoutException("no response to 0x" + Integer.toHexString(request.command[0] & 0xff)));
+    }
+
+    private void retry(Request request, Exception error) {
+        if (request.retriesLeft <= 0) {
+            finish(request);
+            request.onError(error);
+            return;
+        }
+        request.retriesLeft--;
+        if (request.history != null && request.pages > 0) {
+            //已经收到过数据，从断开的位置继续读取
+            request.command = request.history.build(MODE_CONTINUE);
+        }
+        send(request);
+    }
+
+    private synchronized void cancel(Request request) {
+        if (request.done) return;
+        finish(request);
+    }
+
+    /**
+     * 移出队列，开始同一命令字的下一个请求
+     */
+    private void finish(Request request) {
+        request.done = true;
+        handler.removeCallbacks(request.timeout);
+        if (request.history != null) connection.getLinkManager().release();
+        ArrayDeque<Request> queue = queues[request.cmd];
+        if (queue == null) return;
+        boolean wasHead = queue.peek() == request;
+        queue.remove(request);
+        Request next = queue.peek();
+        if (wasHead && next != null) send(next);
+    }
+
+    private Request head(int cmd) {
+        ArrayDeque<Request> queue = queues[cmd];
+        return queue == null ? null : queue.peek();
+    }
+
+    private class Request {
+        final int cmd;
+        final HistoryCommand history;
+        final long timeoutMillis;
+        final int retries;
+        byte[] command;
+        int retriesLeft;
+        int attempt;
+        int notifications;
+        int pages;
+        boolean done;
+        SingleEmitter<Map<String, Object>> single;
+        FlowableEmitter<Map<String, Object>> flowable;
+        final Runnable timeout = new Runnable() {
+            @Override
+            public void run() {
+                onTimeout(Request.this);
+            }
+        };
+
+        Request(byte[] command, HistoryCommand history, long timeoutMillis, int retries) {
+            this.cmd = command[0] & 0xff;
+            this.command = command;
+            this.history = history;
+            this.timeoutMillis = timeoutMillis;
+            this.retries = retries;
+            this.retriesLeft = retries;
+        }
+
+        void onError(Exception error) {
+            if (single != null) {
+                single.onError(error);
+            } else {
+                flowable.onError(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.jstyle.test2208.ble;
+
+import android.os.SystemClock;
+
+import com.jstyle.blesdk2208a.model.RawSensorBatch;
+
+/**
+ * 固定容量的采样点环形缓冲，保存最近一段时间的数据
+ * One int array per channel (and optionally the timestamps), allocated once; when
+ * full the oldest samples are overwritten. Bulk adds are array copies in at most
+ * two segments, nothing is allocated while recording. Not thread safe: written and
+ * read on the BleEvents decode thread only, which is also where late subscribers
+ * take their snapshot, so no lock is needed.
+ */
+
+public class SampleRing {
+    private final int capacity;
+    private final int[][] channels;
+    private final long[] times;
+    private int head;
+    private int size;
+    private long updatedAt;
+
+    /**
+     * @param timed 是否保存每个采样点的时间
+     */
+    public SampleRing(int channelCount, int capacity, boolean timed) {
+        this.capacity = capacity;
+        this.channels = new int[channelCount][capacity];
+        this.times = timed ? new long[capacity] : null;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 单通道，不带时间
+     */
+    public void add(short[] values, int count) {
+        int[] channel = channels[0];
+        int start = Math.max(0, count - capacity);
+        for (int i = start; i < count; i++) {
+            channel[head] = values[i];
+            if (++head == capacity) head = 0;
+        }
+        grow(count - start);
+    }
+
+    /**
+     * 单通道，不带时间
+     */
+    public void add(int[] values, int count) {
+        int start = Math.max(0, count - capacity);
+        copyIn(values, start, channels[0], count - start);
+        advance(count - start);
+    }
+
+    /**
+     * 0x3B原始数据，通道顺序与RawSensorBatch一致
+     */
+    public void add(RawSensorBatch batch) {
+        int count = batch.size();
+        int start = Math.max(0, count - capacity);
+        int length = count - start;
+        for (int channel = 0; channel < RawSensorBatch.CHANNEL_COUNT; channel++) {
+            copyIn(batch.getChannel(channel), start, channels[channel], length);
+        }
+        if (times != null) {
+            long[] timestamps = batch.getTimestamps();
+            int first = Math.min(length, capacity - head);
+            System.arraycopy(timestamps, start, times, head, first);
+            System.arraycopy(timestamps, start + first, times, 0, length - first);
+        }
+        advance(length);
+    }
+
+    private void copyIn(int[] source, int offset, int[] target, int length) {
+        int first = Math.min(length, capacity - head);
+        System.arraycopy(source, offset, target, head, first);
+        System.arraycopy(source, offset + first, target, 0, length - first);
+    }
+
+    private void advance(int count) {
+        head = (head + count) % capacity;
+        grow(count);
+    }
+
+    private void grow(int count) {
+        size = Math.min(capacity, size + count);
+        updatedAt = SystemClock.uptimeMillis();
+    }
+
+    /**
+     * 最后一次写入的SystemClock.uptimeMillis()
+     */
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * 从最早到最新复制一个通道
+     */
+    public int[] toArray(int channel) {
+        int[] out = new int[size];
+        int[] source = channels[channel];
+        int tail = (head - size + capacity) % capacity;
+        int first = Math.min(size, capacity - tail);
+        System.arraycopy(source, tail, out, 0, first);
+        System.arraycopy(source, 0, out, first, size - first);
+        return out;
+    }
+
+    public short[] toShortArray(int channel) {
+        short[] out = new short[size];
+        int[] source = channels[channel];
+        int index = (head - size + capacity) % capacity;
+        for (int i = 0; i < size; i++) {
+            out[i] = (short) source[index];
+            if (++index == capacity) index = 0;
+        }
+        return out;
+    }
+
+    /**
+     * 0x3B原始数据的快照，追加到batch后返回
+     */
+    public RawSensorBatch toRawSensorBatch(RawSensorBatch batch) {
+        int index = (head - size + capacity) % capacity;
+        int[][] c = channels;
+        for (int i = 0; i < size; i++) {
+            batch.add(times == null ? 0 : times[index],
+                    c[RawSensorBatch.P1][index], c[RawSensorBatch.P2][index], c[RawSensorBatch.P4][index], c[RawSensorBatch.P6][index],
+                    c[RawSensorBatch.X][index], c[RawSensorBatch.Y][index], c[RawSensorBatch.Z][index]);
+            if (++index == capacity) index = 0;
+        }
+        return batch;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+}
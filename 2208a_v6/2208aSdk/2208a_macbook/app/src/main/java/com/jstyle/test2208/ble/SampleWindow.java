@@ -0,0 +1,141 @@
+package com.jstyle.test2208.ble;
+
+/**
+ * 高频采样点按时间或数量合并成一批
+ * Collects the samples of one realtime stream (whole packets) until the window holds
+ * at least {@code maxSamples} samples or the owner's timer of {@code windowMillis}
+ * fires. Min, max and sum are updated per sample as it is added, so the statistics
+ * of a batch need no second pass. Not thread safe, used on the decode thread only.
+ */
+
+public class SampleWindow {
+    public static final int DEFAULT_MAX_SAMPLES = 64;
+    public static final long DEFAULT_WINDOW_MILLIS = 40;
+
+    private final String dataType;
+    private int maxSamples = DEFAULT_MAX_SAMPLES;
+    private long windowMillis = DEFAULT_WINDOW_MILLIS;
+    private int[] samples = new int[DEFAULT_MAX_SAMPLES * 2];
+    private int count;
+    private int min;
+    private int max;
+    private long sum;
+    private int sequenceId;
+    private int sampleRate;
+
+    /**
+     * @param dataType BleConst.RealtimeEcgWaveform 或 BleConst.RealtimePpgWaveform
+     */
+    public SampleWindow(String dataType) {
+        this.dataType = dataType;
+    }
+
+    public void setWindow(int maxSamples, long windowMillis) {
+        this.maxSamples = Math.max(1, maxSamples);
+        this.windowMillis = windowMillis;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    /**
+     * @return true if the window is full and should be taken now
+     */
+    public boolean add(int sequenceId, int sampleRate, short[] values, int length) {
+        start(sequenceId, sampleRate, length);
+        for (int i = 0; i < length; i++) {
+            append(values[i]);
+        }
+        return count >= maxSamples;
+    }
+
+    /**
+     * @return true if the window is full and should be taken now
+     */
+    public boolean add(int sequenceId, int sampleRate, int[] values, int length) {
+        start(sequenceId, sampleRate, length);
+        for (int i = 0; i < length; i++) {
+            append(values[i]);
+        }
+        return count >= maxSamples;
+    }
+
+    private void start(int sequenceId, int sampleRate, int length) {
+        if (count == 0) {
+            this.sequenceId = sequenceId;
+            this.sampleRate = sampleRate;
+            min = Integer.MAX_VALUE;
+            max = Integer.MIN_VALUE;
+            sum = 0;
+        }
+        if (samples.length < count + length) {
+            int[] grown = new int[Math.max(samples.length * 2, count + length)];
+            System.arraycopy(samples, 0, grown, 0, count);
+            samples = grown;
+        }
+    }
+
+    private void append(int value) {
+        samples[count++] = value;
+        if (value < min) min = value;
+        if (value > max) max = value;
+        sum += value;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public String getDataType() {
+        return dataType;
+    }
+
+    /**
+     * 第一包的序号
+     */
+    public int getSequenceId() {
+        return sequenceId;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public short[] toShortArray() {
+        short[] out = new short[count];
+        for (int i = 0; i < count; i++) {
+            out[i] = (short) samples[i];
+        }
+        return out;
+    }
+
+    public int[] toIntArray() {
+        int[] out = new int[count];
+        System.arraycopy(samples, 0, out, 0, count);
+        return out;
+    }
+
+    /**
+     * 取走一批后清空，缓冲区保留
+     */
+    public void clear() {
+        count = 0;
+    }
+}
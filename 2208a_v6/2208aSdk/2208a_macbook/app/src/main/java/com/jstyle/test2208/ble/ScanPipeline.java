@@ -0,0 +1,290 @@
+package com.jstyle.test2208.ble;
+
+import android.annotation.SuppressLint;
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.le.BluetoothLeScanner;
+import android.bluetooth.le.ScanCallback;
+import android.bluetooth.le.ScanFilter;
+import android.bluetooth.le.ScanResult;
+import android.bluetooth.le.ScanSettings;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.ParcelUuid;
+import android.text.TextUtils;
+
+import com.jstyle.blesdk2208a.model.Device;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableEmitter;
+import io.reactivex.FlowableOnSubscribe;
+import io.reactivex.functions.Cancellable;
+
+/**
+ * 扫描设备，按MAC去重并平滑RSSI
+ * Service UUIDs and exact names are handed to the controller as ScanFilters, results
+ * are batched by the controller when it supports it (setReportDelay). Every MAC gets
+ * one {@link Device} whose RSSI is an exponential moving average; name substrings
+ * can't be filtered in hardware and are checked once per MAC. Subscribers receive the
+ * devices that changed, at most once per update interval.
+ * Runs on the main thread, the emitted Device objects are reused by later updates.
+ */
+
+public class ScanPipeline {
+    public static final long DEFAULT_REPORT_DELAY = 500;
+    public static final long DEFAULT_UPDATE_INTERVAL = 500;
+    /**
+     * 新RSSI的权重
+     */
+    public static final float DEFAULT_RSSI_ALPHA = 0.3f;
+
+    public static class ScanFailedException extends Exception {
+        private static final long serialVersionUID = 1L;
+        private final int errorCode;
+
+        public ScanFailedException(int errorCode) {
+            super("scan failed: " + errorCode);
+            this.errorCode = errorCode;
+        }
+
+        /**
+         * ScanCallback.SCAN_FAILED_*
+         */
+        public int getErrorCode() {
+            return errorCode;
+        }
+    }
+
+    private final BluetoothAdapter adapter;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private String[] nameFilters;
+    private String[] names;
+    private UUID[] serviceUuids;
+    private long reportDelay = DEFAULT_REPORT_DELAY;
+    private long updateInterval = DEFAULT_UPDATE_INTERVAL;
+    private float rssiAlpha = DEFAULT_RSSI_ALPHA;
+
+    public ScanPipeline(BluetoothAdapter adapter) {
+        this.adapter = adapter;
+    }
+
+    /**
+     * 名字包含其中之一 (不区分大小写)，在Java中过滤
+     */
+    public ScanPipeline setNameFilters(String... nameFilters) {
+        this.nameFilters = nameFilters;
+        return this;
+    }
+
+    /**
+     * 完整的设备名，由控制器过滤
+     */
+    public ScanPipeline setNames(String... names) {
+        this.names = names;
+        return this;
+    }
+
+    /**
+     * 广播中的服务UUID，由控制器过滤
+     */
+    public ScanPipeline setServiceUuids(UUID... serviceUuids) {
+        this.serviceUuids = serviceUuids;
+        return this;
+    }
+
+    /**
+     * 控制器批量上报的间隔，0为每个广播立即上报
+     */
+    public ScanPipeline setReportDelay(long reportDelay) {
+        this.reportDelay = reportDelay;
+        return this;
+    }
+
+    /**
+     * 两次更新之间的最短间隔
+     */
+    public ScanPipeline setUpdateInterval(long updateInterval) {
+        this.updateInterval = updateInterval;
+        return this;
+    }
+
+    public ScanPipeline setRssiAlpha(float rssiAlpha) {
+        this.rssiAlpha = rssiAlpha;
+        return this;
+    }
+
+    /**
+     * 订阅时开始扫描，dispose时停止，每次发送有变化的设备
+     */
+    public Flowable<List<Device>> scan() {
+        return Flowable.create(new FlowableOnSubscribe<List<Device>>() {
+            @Override
+            public void subscribe(final FlowableEmitter<List<Device>> emitter) throws Exception {
+                final Session session = new Session(emitter);
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        session.start();
+                    }
+                });
+                emitter.setCancellable(new Cancellable() {
+                    @Override
+                    public void cancel() throws Exception {
+                        handler.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                session.stop();
+                            }
+                        });
+                    }
+                });
+            }
+        }, BackpressureStrategy.LATEST);
+    }
+
+    private List<ScanFilter> buildFilters() {
+        List<ScanFilter> filters = new ArrayList<>();
+        if (serviceUuids != null) {
+            for (UUID uuid : serviceUuids) {
+                filters.add(new ScanFilter.Builder().setServiceUuid(new ParcelUuid(uuid)).build());
+            }
+        }
+        if (names != null) {
+            for (String name : names) {
+                filters.add(new ScanFilter.Builder().setDeviceName(name).build());
+            }
+        }
+        return filters;
+    }
+
+    private boolean matchName(String name) {
+        if (nameFilters == null || nameFilters.length == 0) return true;
+        if (TextUtils.isEmpty(name)) return false;
+        String lowerName = name.toLowerCase();
+        for (String filter : nameFilters) {
+            if (lowerName.contains(filter.toLowerCase())) return true;
+        }
+        return false;
+    }
+
+    private class Session extends ScanCallback implements Runnable {
+        private final FlowableEmitter<List<Device>> emitter;
+        private final Map<String, Entry> entries = new LinkedHashMap<>();
+        /**
+         * 名字不符合的MAC，之后的广播直接忽略
+         */
+        private final Set<String> rejected = new HashSet<>();
+        private final Set<Device> changed = new LinkedHashSet<>();
+        private BluetoothLeScanner scanner;
+        private boolean stopped;
+
+        Session(FlowableEmitter<List<Device>> emitter) {
+            this.emitter = emitter;
+        }
+
+        @SuppressLint("MissingPermission")
+        void start() {
+            if (stopped) return;
+            scanner = adapter.isEnabled() ? adapter.getBluetoothLeScanner() : null;
+            if (scanner == null) {
+                emitter.onError(new ScanFailedException(ScanCallback.SCAN_FAILED_INTERNAL_ERROR));
+                return;
+            }
+            ScanSettings.Builder settings = new ScanSettings.Builder().setScanMode(ScanSettings.SCAN_MODE_LOW_LATENCY);
+            if (reportDelay > 0 && adapter.isOffloadedScanBatchingSupported()) {
+                settings.setReportDelay(reportDelay);
+            }
+            scanner.startScan(buildFilters(), settings.build(), this);
+            handler.postDelayed(this, updateInterval);
+        }
+
+        @SuppressLint("MissingPermission")
+        void stop() {
+            if (stopped) return;
+            stopped = true;
+            handler.removeCallbacks(this);
+            if (scanner != null && adapter.isEnabled()) scanner.stopScan(this);
+        }
+
+        @Override
+        public void onScanResult(int callbackType, ScanResult result) {
+            add(result);
+        }
+
+        @Override
+        public void onBatchScanResults(List<ScanResult> results) {
+            for (int i = 0; i < results.size(); i++) {
+                add(results.get(i));
+            }
+        }
+
+        @Override
+        public void onScanFailed(int errorCode) {
+            stop();
+            emitter.onError(new ScanFailedException(errorCode));
+        }
+
+        private void add(ScanResult result) {
+            if (stopped) return;
+            BluetoothDevice bluetoothDevice = result.getDevice();
+            String mac = bluetoothDevice.getAddress();
+            if (rejected.contains(mac)) return;
+            Entry entry = entries.get(mac);
+            if (entry == null) {
+                String name = result.getScanRecord() == null ? null : result.getScanRecord().getDeviceName();
+                if (TextUtils.isEmpty(name)) name = bluetoothDevice.getName();
+                if (!matchName(name)) {
+                    //名字可能在扫描应答中，拿到名字后才拒绝
+                    if (!TextUtils.isEmpty(name)) rejected.add(mac);
+                    return;
+                }
+                Device device = new Device();
+                device.setBluetoothDevice(bluetoothDevice);
+                device.setIsconted(false);
+                device.setPaired(false);
+                device.setIsdfu(name != null && name.toLowerCase().contains("dfu"));
+                device.setName(name);
+                device.setMac(mac);
+                entry = new Entry(device, result.getRssi());
+                entries.put(mac, entry);
+            } else {
+                entry.rssi += rssiAlpha * (result.getRssi() - entry.rssi);
+            }
+            entry.device.setRiss(Math.round(entry.rssi));
+            changed.add(entry.device);
+        }
+
+        /**
+         * 按固定间隔发送有变化的设备
+         */
+        @Override
+        public void run() {
+            if (stopped) return;
+            if (!changed.isEmpty()) {
+                emitter.onNext(new ArrayList<>(changed));
+                changed.clear();
+            }
+            handler.postDelayed(this, updateInterval);
+        }
+    }
+
+    private static class Entry {
+        final Device device;
+        float rssi;
+
+        Entry(Device device, float rssi) {
+            this.device = device;
+            this.rssi = rssi;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.jstyle.test2208.ble;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableEmitter;
+import io.reactivex.FlowableOnSubscribe;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Cancellable;
+import io.reactivex.functions.Consumer;
+
+/**
+ * 按计划依次同步多种历史数据
+ * A {@link Plan} lists the history types to read, each a {@link Step} that knows how
+ * to read its pages from the device and how to save one page (see {@link HistorySteps}).
+ * The steps run one after another. Within a step the radio and the database overlap:
+ * a page is handed to the "sync" thread and saved there while the device already
+ * sends the next one, RequestManager sends ModeContinue from the GATT thread as soon
+ * as a batch is in and doesn't wait for the save. {@link Progress} is emitted after
+ * every saved page and at the end of every step. A step fails when no page arrives
+ * for {@link #DEFAULT_PAGE_TIMEOUT}. Disposing the subscriber cancels the read in
+ * flight and drops the pages not saved yet.
+ * The plan remembers the steps that are done: syncing an unfinished plan again (after
+ * an error or a cancel) resumes at the first step that is not. That step is read again
+ * from its start date, the device sends the newest records first so a partial read
+ * can't be continued, and the DAOs replace the records that were already saved.
+ */
+
+public class SyncEngine {
+    /**
+     * 两页数据之间的最长间隔，包含RequestManager的重试
+     */
+    public static final long DEFAULT_PAGE_TIMEOUT = RequestManager.DEFAULT_PAGE_TIMEOUT * (RequestManager.DEFAULT_RETRIES + 1);
+    private static final SyncEngine instance = new SyncEngine();
+
+    private final Handler handler;
+
+    private SyncEngine() {
+        HandlerThread thread = new HandlerThread("sync");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    public static SyncEngine getInstance() {
+        return instance;
+    }
+
+    /**
+     * 保存一页数据，在sync线程调用
+     */
+    public interface Sink<T> {
+        void save(T page) throws Exception;
+    }
+
+    /**
+     * 执行计划，从第一个未完成的步骤开始；同一个计划同时只能执行一次
+     * Progress is emitted on the sync thread, use observeOn for the UI
+     */
+    public Flowable<Progress> sync(final Plan plan) {
+        return Flowable.create(new FlowableOnSubscribe<Progress>() {
+            @Override
+            public void subscribe(FlowableEmitter<Progress> emitter) throws Exception {
+                final Run run = new Run(plan, emitter);
+                emitter.setCancellable(new Cancellable() {
+                    @Override
+                    public void cancel() throws Exception {
+                        run.cancel();
+                    }
+                });
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        run.next();
+                    }
+                });
+            }
+        }, BackpressureStrategy.BUFFER);
+    }
+
+    /**
+     * 一次执行，状态只在sync线程修改
+     */
+    private class Run {
+        final Plan plan;
+        final FlowableEmitter<Progress> emitter;
+        final Runnable timeout = new Runnable() {
+            @Override
+            public void run() {
+                fail(new TimeoutException("no history page for " + DEFAULT_PAGE_TIMEOUT + " ms"));
+            }
+        };
+        volatile boolean done;
+        volatile Disposable read;
+        int pages;
+        int records;
+
+        Run(Plan plan, FlowableEmitter<Progress> emitter) {
+            this.plan = plan;
+            this.emitter = emitter;
+        }
+
+        void next() {
+            if (done) return;
+            if (plan.isFinished()) {
+                done = true;
+                emitter.onComplete();
+                return;
+            }
+            pages = 0;
+            records = 0;
+            start(plan.steps.get(plan.position));
+        }
+
+        private <T> void start(final Step<T> step) {
+            handler.postDelayed(timeout, DEFAULT_PAGE_TIMEOUT);
+            String since;
+            try {
+                since = step.start();
+            } catch (Exception e) {
+                fail(e);
+                return;
+            }
+            read = step.read(since).subscribe(new Consumer<T>() {
+                @Override
+                public void accept(final T page) throws Exception {
+                    //GATT或decode线程，只转交，不等待保存
+                    handler.removeCallbacks(timeout);
+                    handler.postDelayed(timeout, DEFAULT_PAGE_TIMEOUT);
+                    handler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            save(step, page);
+                        }
+                    });
+                }
+            }, new Consumer<Throwable>() {
+                @Override
+                public void accept(final Throwable throwable) throws Exception {
+                    handler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            fail(throwable);
+                        }
+                    });
+                }
+            }, new Action() {
+                @Override
+                public void run() throws Exception {
+                    handler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            finishStep(step);
+                        }
+                    });
+                }
+            });
+            if (done) read.dispose();
+        }
+
+        private <T> void save(Step<T> step, T page) {
+            if (done) return;
+            int count;
+            try {
+                count = step.save(page);
+            } catch (Exception e) {
+                fail(e);
+                return;
+            }
+            pages++;
+            records += count;
+            emitter.onNext(new Progress(plan.position, plan.size(), step.getName(), pages, records, false));
+        }
+
+        private void finishStep(Step<?> step) {
+            if (done) return;
+            handler.removeCallbacks(timeout);
+            try {
+                step.finish();
+            } catch (Exception e) {
+                fail(e);
+                return;
+            }
+            emitter.onNext(new Progress(plan.position, plan.size(), step.getName(), pages, records, true));
+            plan.position++;
+            next();
+        }
+
+        private void fail(Throwable throwable) {
+            if (done) return;
+            cancel();
+            emitter.onError(throwable);
+        }
+
+        void cancel() {
+            done = true;
+            handler.removeCallbacks(timeout);
+            Disposable disposable = read;
+            if (disposable != null) disposable.dispose();
+        }
+    }
+
+    /**
+     * 要同步的历史数据类型，按加入的顺序读取
+     */
+    public static class Plan {
+        private final List<Step<?>> steps = new ArrayList<>();
+        private volatile int position;
+
+        public Plan add(Step<?> step) {
+            steps.add(step);
+            return this;
+        }
+
+        public int size() {
+            return steps.size();
+        }
+
+        /**
+         * 已完成的步骤数
+         */
+        public int getPosition() {
+            return position;
+        }
+
+        public boolean isFinished() {
+            return position >= steps.size();
+        }
+
+        /**
+         * 下次从第一个步骤重新开始
+         */
+        public void reset() {
+            position = 0;
+        }
+    }
+
+    /**
+     * 一种历史数据：如何从设备读取，如何保存一页
+     */
+    public abstract static class Step<T> {
+        private final String name;
+        private String since = "";
+
+        protected Step(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @param dateOfLastData 只读取这个时间之后的数据，""表示全部
+         */
+        public Step<T> since(String dateOfLastData) {
+            this.since = dateOfLastData == null ? "" : dateOfLastData;
+            return this;
+        }
+
+        public String getSince() {
+            return since;
+        }
+
+        /**
+         * 在sync线程开始这个步骤
+         *
+         * @return 读取的开始时间，传给read
+         */
+        protected String start() throws Exception {
+            return since;
+        }
+
+        /**
+         * 读取全部页，读完后完成；页在哪个线程发出都可以
+         */
+        protected abstract Flowable<T> read(String since);
+
+        /**
+         * 在sync线程保存一页
+         *
+         * @return 保存的记录数
+         */
+        protected abstract int save(T page) throws Exception;
+
+        /**
+         * 全部页保存后在sync线程调用
+         */
+        protected void finish() throws Exception {
+        }
+    }
+
+    public static class Progress {
+        private final int step;
+        private final int stepCount;
+        private final String name;
+        private final int pages;
+        private final int records;
+        private final boolean stepDone;
+
+        Progress(int step, int stepCount, String name, int pages, int records, boolean stepDone) {
+            this.step = step;
+            this.stepCount = stepCount;
+            this.name = name;
+            this.pages = pages;
+            this.records = records;
+            this.stepDone = stepDone;
+        }
+
+        /**
+         * 当前步骤的序号，从0开始
+         */
+        public int getStep() {
+            return step;
+        }
+
+        public int getStepCount() {
+            return stepCount;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 当前步骤已保存的页数
+         */
+        public int getPages() {
+            return pages;
+        }
+
+        /**
+         * 当前步骤已保存的记录数
+         */
+        public int getRecords() {
+            return records;
+        }
+
+        public boolean isStepDone() {
+            return stepDone;
+        }
+
+        @Override
+        public String toString() {
+            return name + " " + (step + 1) + "/" + stepCount + ", pages " + pages + ", records " + records + (stepDone ? ", done" : "");
+        }
+    }
+}
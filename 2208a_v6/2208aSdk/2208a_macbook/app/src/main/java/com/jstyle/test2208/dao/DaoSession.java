@@ -13,6 +13,7 @@ import com.jstyle.test2208.model.HeartData;
 import com.jstyle.test2208.model.SleepData;
 import com.jstyle.test2208.model.StepData;
 import com.jstyle.test2208.model.StepDetailData;
+import com.jstyle.test2208.model.SyncWatermark;
 
 // THIS CODE IS GENERATED BY greenDAO, DO NOT EDIT.
 
@@ -28,12 +29,14 @@ public class DaoSession extends AbstractDaoSession {
     private final DaoConfig sleepDataDaoConfig;
     private final DaoConfig stepDataDaoConfig;
     private final DaoConfig stepDetailDataDaoConfig;
+    private final DaoConfig syncWatermarkDaoConfig;
 
     private final EcgHistoryDataDao ecgHistoryDataDao;
     private final HeartDataDao heartDataDao;
     private final SleepDataDao sleepDataDao;
     private final StepDataDao stepDataDao;
     private final StepDetailDataDao stepDetailDataDao;
+    private final SyncWatermarkDao syncWatermarkDao;
 
     public DaoSession(Database db, IdentityScopeType type, Map<Class<? extends AbstractDao<?, ?>>, DaoConfig>
             daoConfigMap) {
@@ -54,17 +57,22 @@ public class DaoSession extends AbstractDaoSession {
         stepDetailDataDaoConfig = daoConfigMap.get(StepDetailDataDao.class).clone();
         stepDetailDataDaoConfig.initIdentityScope(type);
 
+        syncWatermarkDaoConfig = daoConfigMap.get(SyncWatermarkDao.class).clone();
+        syncWatermarkDaoConfig.initIdentityScope(type);
+
         ecgHistoryDataDao = new EcgHistoryDataDao(ecgHistoryDataDaoConfig, this);
         heartDataDao = new HeartDataDao(heartDataDaoConfig, this);
         sleepDataDao = new SleepDataDao(sleepDataDaoConfig, this);
         stepDataDao = new StepDataDao(stepDataDaoConfig, this);
         stepDetailDataDao = new StepDetailDataDao(stepDetailDataDaoConfig, this);
+        syncWatermarkDao = new SyncWatermarkDao(syncWatermarkDaoConfig, this);
 
         registerDao(EcgHistoryData.class, ecgHistoryDataDao);
         registerDao(HeartData.class, heartDataDao);
         registerDao(SleepData.class, sleepDataDao);
         registerDao(StepData.class, stepDataDao);
         registerDao(StepDetailData.class, stepDetailDataDao);
+        registerDao(SyncWatermark.class, syncWatermarkDao);
     }
     
     public void clear() {
@@ -73,6 +81,7 @@ public class DaoSession extends AbstractDaoSession {
         sleepDataDaoConfig.clearIdentityScope();
         stepDataDaoConfig.clearIdentityScope();
         stepDetailDataDaoConfig.clearIdentityScope();
+        syncWatermarkDaoConfig.clearIdentityScope();
     }
 
     public EcgHistoryDataDao getEcgHistoryDataDao() {
@@ -95,4 +104,8 @@ public class DaoSession extends AbstractDaoSession {
         return stepDetailDataDao;
     }
 
+    public SyncWatermarkDao getSyncWatermarkDao() {
+        return syncWatermarkDao;
+    }
+
 }
@@ -0,0 +1,162 @@
+package com.jstyle.test2208.dao;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
+
+import org.greenrobot.greendao.AbstractDao;
+import org.greenrobot.greendao.Property;
+import org.greenrobot.greendao.internal.DaoConfig;
+import org.greenrobot.greendao.database.Database;
+import org.greenrobot.greendao.database.DatabaseStatement;
+
+import com.jstyle.test2208.model.SyncWatermark;
+
+// THIS CODE IS GENERATED BY greenDAO, DO NOT EDIT.
+/** 
+ * DAO for table "SYNC_WATERMARK".
+*/
+public class SyncWatermarkDao extends AbstractDao<SyncWatermark, String> {
+
+    public static final String TABLENAME = "SYNC_WATERMARK";
+
+    /**
+     * Properties of entity SyncWatermark.<br/>
+     * Can be used for QueryBuilder and for referencing column names.
+     */
+    public static class Properties {
+        public final static Property Key = new Property(0, String.class, "key", true, "KEY");
+        public final static Property Address = new Property(1, String.class, "address", false, "ADDRESS");
+        public final static Property DataType = new Property(2, String.class, "dataType", false, "DATA_TYPE");
+        public final static Property LastDate = new Property(3, String.class, "lastDate", false, "LAST_DATE");
+        public final static Property UpdateTime = new Property(4, long.class, "updateTime", false, "UPDATE_TIME");
+    }
+
+
+    public SyncWatermarkDao(DaoConfig config) {
+        super(config);
+    }
+    
+    public SyncWatermarkDao(DaoConfig config, DaoSession daoSession) {
+        super(config, daoSession);
+    }
+
+    /** Creates the underlying database table. */
+    public static void createTable(Database db, boolean ifNotExists) {
+        String constraint = ifNotExists? "IF NOT EXISTS ": "";
+        db.execSQL("CREATE TABLE " + constraint + "\"SYNC_WATERMARK\" (" + //
+                "\"KEY\" TEXT PRIMARY KEY NOT NULL ," + // 0: key
+                "\"ADDRESS\" TEXT," + // 1: address
+                "\"DATA_TYPE\" TEXT," + // 2: dataType
+                "\"LAST_DATE\" TEXT," + // 3: lastDate
+                "\"UPDATE_TIME\" INTEGER NOT NULL );"); // 4: updateTime
+    }
+
+    /** Drops the underlying database table. */
+    public static void dropTable(Database db, boolean ifExists) {
+        String sql = "DROP TABLE " + (ifExists ? "IF EXISTS " : "") + "\"SYNC_WATERMARK\"";
+        db.execSQL(sql);
+    }
+
+    @Override
+    protected final void bindValues(DatabaseStatement stmt, SyncWatermark entity) {
+        stmt.clearBindings();
+ 
+        String key = entity.getKey();
+        if (key != null) {
+            stmt.bindString(1, key);
+        }
+ 
+        String address = entity.getAddress();
+        if (address != null) {
+            stmt.bindString(2, address);
+        }
+ 
+        String dataType = entity.getDataType();
+        if (dataType != null) {
+            stmt.bindString(3, dataType);
+        }
+ 
+        String lastDate = entity.getLastDate();
+        if (lastDate != null) {
+            stmt.bindString(4, lastDate);
+        }
+        stmt.bindLong(5, entity.getUpdateTime());
+    }
+
+    @Override
+    protected final void bindValues(SQLiteStatement stmt, SyncWatermark entity) {
+        stmt.clearBindings();
+ 
+        String key = entity.getKey();
+        if (key != null) {
+            stmt.bindString(1, key);
+        }
+ 
+        String address = entity.getAddress();
+        if (address != null) {
+            stmt.bindString(2, address);
+        }
+ 
+        String dataType = entity.getDataType();
+        if (dataType != null) {
+            stmt.bindString(3, dataType);
+        }
+ 
+        String lastDate = entity.getLastDate();
+        if (lastDate != null) {
+            stmt.bindString(4, lastDate);
+        }
+        stmt.bindLong(5, entity.getUpdateTime());
+    }
+
+    @Override
+    public String readKey(Cursor cursor, int offset) {
+        return cursor.isNull(offset + 0) ? null : cursor.getString(offset + 0);
+    }    
+
+    @Override
+    public SyncWatermark readEntity(Cursor cursor, int offset) {
+        SyncWatermark entity = new SyncWatermark( //
+            cursor.isNull(offset + 0) ? null : cursor.getString(offset + 0), // key
+            cursor.isNull(offset + 1) ? null : cursor.getString(offset + 1), // address
+            cursor.isNull(offset + 2) ? null : cursor.getString(offset + 2), // dataType
+            cursor.isNull(offset + 3) ? null : cursor.getString(offset + 3), // lastDate
+            cursor.getLong(offset + 4) // updateTime
+        );
+        return entity;
+    }
+     
+    @Override
+    public void readEntity(Cursor cursor, SyncWatermark entity, int offset) {
+        entity.setKey(cursor.isNull(offset + 0) ? null : cursor.getString(offset + 0));
+        entity.setAddress(cursor.isNull(offset + 1) ? null : cursor.getString(offset + 1));
+        entity.setDataType(cursor.isNull(offset + 2) ? null : cursor.getString(offset + 2));
+        entity.setLastDate(cursor.isNull(offset + 3) ? null : cursor.getString(offset + 3));
+        entity.setUpdateTime(cursor.getLong(offset + 4));
+     }
+    
+    @Override
+    protected final String updateKeyAfterInsert(SyncWatermark entity, long rowId) {
+        return entity.getKey();
+    }
+    
+    @Override
+    public String getKey(SyncWatermark entity) {
+        if(entity != null) {
+            return entity.getKey();
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean hasKey(SyncWatermark entity) {
+        return entity.getKey() != null;
+    }
+
+    @Override
+    protected final boolean isEntityUpdateable() {
+        return true;
+    }
+    
+}
@@ -2,6 +2,7 @@ package com.jstyle.test2208.daomananger;
 
 import android.text.TextUtils;
 
+import com.jstyle.test2208.ble.BleMetrics;
 import com.jstyle.test2208.dao.EcgHistoryDataDao;
 import com.jstyle.test2208.model.EcgHistoryData;
 import org.greenrobot.greendao.query.QueryBuilder;
@@ -16,7 +17,9 @@ public class EcgDataDaoManager {
         DbManager.getInstance().getDaoSession().getEcgHistoryDataDao().insertOrReplace(healthData);
     }
     public static void insertData(List<EcgHistoryData>healthDataList){
+        long start = System.nanoTime();
         DbManager.getInstance().getDaoSession().getEcgHistoryDataDao().insertOrReplaceInTx(healthDataList);
+        BleMetrics.getInstance().onDbInsert("EcgHistoryData", healthDataList.size(), System.nanoTime() - start);
     }
     public static EcgHistoryData getLastEcgData(String address) {
         QueryBuilder<EcgHistoryData> queryBuilder = DbManager.getInstance().getDaoSession().getEcgHistoryDataDao().queryBuilder();
@@ -4,6 +4,7 @@ import android.text.TextUtils;
 
 
 import com.jstyle.test2208.Util.SharedPreferenceUtils;
+import com.jstyle.test2208.ble.BleMetrics;
 import com.jstyle.test2208.dao.HeartDataDao;
 import com.jstyle.test2208.model.HeartData;
 
@@ -21,7 +22,9 @@ public class HeartDataDaoManager {
         DbManager.getInstance().getDaoSession().getHeartDataDao().insertOrReplace(heartData);
     }
     public static void insertData(List<HeartData> heartDataList){
+        long start = System.nanoTime();
         DbManager.getInstance().getDaoSession().getHeartDataDao().insertOrReplaceInTx(heartDataList);
+        BleMetrics.getInstance().onDbInsert("HeartData", heartDataList.size(), System.nanoTime() - start);
     }
     public static List<HeartData> queryData(String date){
 
@@ -10,6 +10,7 @@ import com.jstyle.test2208.dao.HeartDataDao;
 import com.jstyle.test2208.dao.SleepDataDao;
 import com.jstyle.test2208.dao.StepDataDao;
 import com.jstyle.test2208.dao.StepDetailDataDao;
+import com.jstyle.test2208.dao.SyncWatermarkDao;
 
 import org.greenrobot.greendao.database.Database;
 
@@ -31,7 +32,7 @@ public class MySqlLiteOpenHelper extends DaoMaster.OpenHelper {
     public void onUpgrade(Database db, int oldVersion, int newVersion) {
         Log.i(TAG,"oldVersion:"+oldVersion+",newVersion"+newVersion);
         MigrationHelper.getInstance().migrate(db, StepDataDao.class, StepDetailDataDao.class,
-              HeartDataDao.class, SleepDataDao.class, EcgHistoryDataDao.class);
+              HeartDataDao.class, SleepDataDao.class, EcgHistoryDataDao.class, SyncWatermarkDao.class);
 
     }
 }
@@ -4,6 +4,7 @@ import android.text.TextUtils;
 
 
 import com.jstyle.test2208.Util.SharedPreferenceUtils;
+import com.jstyle.test2208.ble.BleMetrics;
 import com.jstyle.test2208.dao.SleepDataDao;
 import com.jstyle.test2208.model.SleepData;
 
@@ -21,7 +22,9 @@ public class SleepDataDaoManager {
         DbManager.getInstance().getDaoSession().getSleepDataDao().insertOrReplace(sleepData);
     }
     public static void insertData(List<SleepData> SleepDataList){
+        long start = System.nanoTime();
         DbManager.getInstance().getDaoSession().getSleepDataDao().insertOrReplaceInTx(SleepDataList);
+        BleMetrics.getInstance().onDbInsert("SleepData", SleepDataList.size(), System.nanoTime() - start);
     }
     public static List<SleepData> queryData(String date){
 
@@ -4,6 +4,7 @@ import android.text.TextUtils;
 
 
 import com.jstyle.test2208.Util.SharedPreferenceUtils;
+import com.jstyle.test2208.ble.BleMetrics;
 import com.jstyle.test2208.dao.StepDataDao;
 import com.jstyle.test2208.model.StepData;
 
@@ -21,7 +22,9 @@ public class StepDataDaoManager {
         DbManager.getInstance().getDaoSession().getStepDataDao().insertOrReplace(stepData);
     }
     public static void insertData(List<StepData> stepDataList){
+        long start = System.nanoTime();
         DbManager.getInstance().getDaoSession().getStepDataDao().insertOrReplaceInTx(stepDataList);
+        BleMetrics.getInstance().onDbInsert("StepData", stepDataList.size(), System.nanoTime() - start);
     }
     public static StepData queryData(String date){
         StepData stepData=null;
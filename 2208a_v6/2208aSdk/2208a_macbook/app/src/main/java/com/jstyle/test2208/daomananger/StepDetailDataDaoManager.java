@@ -4,6 +4,7 @@ import android.text.TextUtils;
 
 
 import com.jstyle.test2208.Util.SharedPreferenceUtils;
+import com.jstyle.test2208.ble.BleMetrics;
 import com.jstyle.test2208.dao.StepDetailDataDao;
 import com.jstyle.test2208.model.StepDetailData;
 
@@ -18,7 +19,9 @@ import java.util.List;
 
 public class StepDetailDataDaoManager {
     public static void insertData(List<StepDetailData> stepDataList){
+        long start = System.nanoTime();
         DbManager.getInstance().getDaoSession().getStepDetailDataDao().insertOrReplaceInTx(stepDataList);
+        BleMetrics.getInstance().onDbInsert("StepDetailData", stepDataList.size(), System.nanoTime() - start);
     }
     public static List<StepDetailData> queryData(String date){
         return queryData(date,date);
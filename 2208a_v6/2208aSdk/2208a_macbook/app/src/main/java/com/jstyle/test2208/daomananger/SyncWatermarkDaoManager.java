@@ -0,0 +1,74 @@
+package com.jstyle.test2208.daomananger;
+
+import android.text.TextUtils;
+
+import com.jstyle.test2208.dao.DaoSession;
+import com.jstyle.test2208.model.SyncWatermark;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 增量同步的位置，按设备地址和数据类型保存
+ * The watermark only moves forward and is written in the same transaction as the
+ * records it covers, so it never points past data that is not in the database.
+ */
+
+public class SyncWatermarkDaoManager {
+    private static String getKey(String address, String dataType) {
+        return address + "_" + dataType;
+    }
+
+    /**
+     * @return 已保存的最新记录时间，没有时为""
+     */
+    public static String getLastDate(String address, String dataType) {
+        if (TextUtils.isEmpty(address)) return "";
+        SyncWatermark watermark = DbManager.getInstance().getDaoSession().getSyncWatermarkDao().load(getKey(address, dataType));
+        return watermark == null || watermark.getLastDate() == null ? "" : watermark.getLastDate();
+    }
+
+    /**
+     * 在一个事务中执行insert并把位置更新为lastDate (比原来的新时)
+     *
+     * @param lastDate 为空时只执行insert
+     */
+    public static <V> V insertInTx(final String address, final String dataType, final String lastDate, final Callable<V> insert) throws Exception {
+        final DaoSession daoSession = DbManager.getInstance().getDaoSession();
+        return daoSession.callInTx(new Callable<V>() {
+            @Override
+            public V call() throws Exception {
+                V result = insert.call();
+                if (TextUtils.isEmpty(address) || TextUtils.isEmpty(lastDate)) return result;
+                String key = getKey(address, dataType);
+                SyncWatermark watermark = daoSession.getSyncWatermarkDao().load(key);
+                if (watermark == null || watermark.getLastDate() == null || lastDate.compareTo(watermark.getLastDate()) > 0) {
+                    daoSession.getSyncWatermarkDao().insertOrReplace(new SyncWatermark(key, address, dataType, lastDate, System.currentTimeMillis()));
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * 数据已保存后更新位置 (比原来的新时)
+     */
+    public static void update(String address, String dataType, String lastDate) throws Exception {
+        insertInTx(address, dataType, lastDate, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 下次同步读取设备上的全部数据
+     */
+    public static void deleteData(String address, String dataType) {
+        DbManager.getInstance().getDaoSession().getSyncWatermarkDao().deleteByKey(getKey(address, dataType));
+    }
+
+    public static void deleteAll() {
+        DbManager.getInstance().getDaoSession().getSyncWatermarkDao().deleteAll();
+    }
+}
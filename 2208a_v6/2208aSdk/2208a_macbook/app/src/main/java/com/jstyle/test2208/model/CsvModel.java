@@ -1,7 +1,10 @@
 package com.jstyle.test2208.model;
 
+import com.jstyle.test2208.Util.DateUtil;
+
 public class CsvModel {
     String date="--";
+    long time=-1;//设置了时间戳时，日期字符串在导出时才格式化
     String heartRate="--";
     String step="--";;
     String cal="--";;
@@ -9,11 +12,20 @@ public class CsvModel {
     String SleepQuality="--";
 
     public String getDate() {
+        if (time != -1) {
+            date = DateUtil.getFormatTimeString(time);
+            time = -1;
+        }
         return date;
     }
 
     public void setDate(String date) {
         this.date = date;
+        this.time = -1;
+    }
+
+    public void setTime(long time) {
+        this.time = time;
     }
 
     public String getHeartRate() {
@@ -59,7 +71,7 @@ public class CsvModel {
     @Override
     public String toString() {
         return "CsvModel{" +
-                "date='" + date + '\'' +
+                "date='" + getDate() + '\'' +
                 ", heartRate='" + heartRate + '\'' +
                 ", step='" + step + '\'' +
                 ", cal='" + cal + '\'' +
@@ -0,0 +1,68 @@
+package com.jstyle.test2208.model;
+
+import org.greenrobot.greendao.annotation.Entity;
+import org.greenrobot.greendao.annotation.Id;
+import org.greenrobot.greendao.annotation.Keep;
+
+/**
+ * 每个设备每种历史数据已保存的最新记录时间，下次同步时作为dateOfLastData
+ */
+@Entity
+public class SyncWatermark {
+    @Id
+    String key;
+    String address;
+    String dataType;
+    String lastDate;
+    long updateTime;
+    @Keep
+    public SyncWatermark(String key, String address, String dataType, String lastDate, long updateTime) {
+        this.key = key;
+        this.address = address;
+        this.dataType = dataType;
+        this.lastDate = lastDate;
+        this.updateTime = updateTime;
+    }
+    @Keep
+    public SyncWatermark() {
+    }
+    public String getKey() {
+        return this.key;
+    }
+    public void setKey(String key) {
+        this.key = key;
+    }
+    public String getAddress() {
+        return this.address;
+    }
+    public void setAddress(String address) {
+        this.address = address;
+    }
+    public String getDataType() {
+        return this.dataType;
+    }
+    public void setDataType(String dataType) {
+        this.dataType = dataType;
+    }
+    public String getLastDate() {
+        return this.lastDate;
+    }
+    public void setLastDate(String lastDate) {
+        this.lastDate = lastDate;
+    }
+    public long getUpdateTime() {
+        return this.updateTime;
+    }
+    public void setUpdateTime(long updateTime) {
+        this.updateTime = updateTime;
+    }
+
+    @Override
+    public String toString() {
+        return "SyncWatermark{" +
+                "address='" + address + '\'' +
+                ", dataType='" + dataType + '\'' +
+                ", lastDate='" + lastDate + '\'' +
+                '}';
+    }
+}
@@ -5,9 +5,12 @@ import android.text.TextUtils;
 import android.util.Log;
 
 import com.jstyle.blesdk2208a.callback.DataListener2025;
+import com.jstyle.blesdk2208a.callback.GpsListener2025;
+import com.jstyle.blesdk2208a.callback.RawSensorListener2025;
+import com.jstyle.blesdk2208a.callback.RecordListener2025;
+import com.jstyle.blesdk2208a.callback.WaveformListener2025;
 import com.jstyle.blesdk2208a.constant.BleConst;
 import com.jstyle.blesdk2208a.constant.DeviceConst;
-import com.jstyle.blesdk2208a.constant.DeviceKey;
 
 import com.jstyle.blesdk2208a.model.AutoMode;
 import com.jstyle.blesdk2208a.model.MyAutomaticHRMonitoring;
@@ -20,15 +23,8 @@ import com.jstyle.blesdk2208a.model.MySedentaryReminder;
 import com.jstyle.blesdk2208a.model.WeatherData;
 
 import java.io.UnsupportedEncodingException;
-import java.text.NumberFormat;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
-import static com.jstyle.blesdk2208a.Util.ResolveUtil.bcd2String;
-import static com.jstyle.blesdk2208a.Util.ResolveUtil.getFloat;
-import static com.jstyle.blesdk2208a.Util.ResolveUtil.getNumberFormat;
-import static com.jstyle.blesdk2208a.Util.ResolveUtil.getValue;
 
 
 /**
@@ -49,7 +45,6 @@ public class BleSDK {
     public static final byte TempUnit_F = (byte) 0x81;
 
     public static final String TAG = "BleSDK";
-    public  static boolean isruning=false;
 
     public static byte[] deleteAllClock() {
         byte[] value = new byte[16];
@@ -163,615 +158,86 @@ public class BleSDK {
 
 
 
-    public static void DataParsingWithData(byte[] value, final DataListener2025 dataListener) {
-        Map<String, String> map = new HashMap<>();
-        switch (value[0]) {
-            case DeviceConst.CMD_Set_Goal:
-                dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.SetStepGoal));
-                break;
-            case DeviceConst.CMD_Set_UseInfo:
-                dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.SetPersonalInfo));
-                break;
-         /*   case DeviceConst.CMD_Set_Name:
-                dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.SetDeviceName));
-                break;*/
-            case DeviceConst.CMD_Set_MOT_SIGN:
-                dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.SetMotorVibrationWithTimes));
-                break;
-            case DeviceConst.CMD_Set_DeviceInfo:
-                if(!isSetDialinterface){
-                    dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.SetDeviceInfo));
-                }else{
-                    dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.SetDialinterface));
-                }
-                break;
-            case DeviceConst.CMD_Set_Auto:
-                dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.SetAutomatic));
-                break;
-            case DeviceConst.CMD_Set_ActivityAlarm:
-                dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.SetSedentaryReminder));
-                break;
-           case DeviceConst.CMD_Set_DeviceID:
-               dataListener.dataCallback(ResolveUtil.setMacSuccessful());
-               break;
-            case DeviceConst.CMD_Start_EXERCISE:
-                Map<String, Object> mapEXERCISE = new HashMap<>();
-                mapEXERCISE.put(DeviceKey.DataType, BleConst.EnterActivityMode);
-                mapEXERCISE.put(DeviceKey.End, true);
-                Map<String, String> mapsx = new HashMap<>();
-                mapsx.put(DeviceKey.enterActivityModeSuccess, ResolveUtil.getValue(value[1], 0) + "");
-                mapEXERCISE.put(DeviceKey.Data, mapsx);
-                dataListener.dataCallback(mapEXERCISE);
-                break;
-            case DeviceConst.CMD_Set_TemperatureCorrection:
-                if (value[2] != 0 && value[3] != 0) {
-                    dataListener.dataCallback(ResolveUtil.GetTemperatureCorrectionValue(value));
-                }
-                break;
-            case DeviceConst.CMD_HeartPackageFromDevice:
-                dataListener.dataCallback(ResolveUtil.getActivityExerciseData(value));
-                break;
-            case DeviceConst.CMD_SET_TIME:
-                dataListener.dataCallback(ResolveUtil.setTimeSuccessful(value));
-
-                break;
-
-            case DeviceConst.CMD_Get_SPORTData:
-                if(GetActivityModeDataWithMode){
-                    dataListener.dataCallback(ResolveUtil.setMethodSuccessful( BleConst.Delete_ActivityModeData));
-                }else{
-                    dataListener.dataCallback(ResolveUtil.getExerciseData(value));
-                }
-                break;
-            case DeviceConst.Enter_photo_mode:
-                dataListener.dataCallback(ResolveUtil.setMethodSuccessful( BleConst.Enter_photo_mode));
-                break;
-            case DeviceConst.CMD_GET_TIME:
-                dataListener.dataCallback(ResolveUtil.getDeviceTime(value));
-                break;
-            case DeviceConst.CMD_GET_USERINFO:
-                dataListener.dataCallback(ResolveUtil.getUserInfo(value));
-                break;
-            case DeviceConst.CMD_Get_DeviceInfo:
-                dataListener.dataCallback(ResolveUtil.getDeviceInfo(value));
-                dataListener.dataCallback(value);
-                break;
-            case DeviceConst.CMD_Enable_Activity:
-                dataListener.dataCallback(ResolveUtil.getActivityData(value));
-                break;
-            case DeviceConst.CMD_Get_Goal:
-                dataListener.dataCallback(ResolveUtil.getGoal(value));
-                break;
-            case DeviceConst.CMD_Get_BatteryLevel:
-
-                dataListener.dataCallback(ResolveUtil.getDeviceBattery(value));
-                break;
-            case DeviceConst.CMD_Get_Address:
-                dataListener.dataCallback(ResolveUtil.getDeviceAddress(value));
-                break;
-            case DeviceConst.CMD_Get_Version:
-                dataListener.dataCallback(ResolveUtil.getDeviceVersion(value));
-                break;
-            case DeviceConst.CMD_Get_Name:
-                dataListener.dataCallback(ResolveUtil.getDeviceName(value));
-                break;
-            case DeviceConst.CMD_Get_Auto:
-                dataListener.dataCallback(ResolveUtil.getAutoHeart(value));
-                break;
-            case DeviceConst.CMD_Reset:
-                dataListener.dataCallback(ResolveUtil.Reset());
-                break;
-            case DeviceConst.CMD_Mcu_Reset:
-                dataListener.dataCallback(ResolveUtil.MCUReset());
-                break;
-            case DeviceConst.CMD_Notify:
-                dataListener.dataCallback(ResolveUtil.Notify());
-                break;
-            case DeviceConst.CMD_Get_ActivityAlarm:
-                dataListener.dataCallback(ResolveUtil.getActivityAlarm(value));
-                break;
-            case DeviceConst.CMD_Get_TotalData:
-                if(GetTotalActivityDataWithMode){
-                    dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.Delete_GetTotalActivityData));
-                }else{
-                    dataListener.dataCallback(ResolveUtil.getTotalStepData(value));
-                }
-
-                break;
-            case DeviceConst.CMD_Get_DetailData:
-                if(GetDetailActivityDataWithMode){
-                    dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.deleteGetDetailActivityDataWithMode));
-                }else{
-                    dataListener.dataCallback(ResolveUtil.getDetailData(value));
-                }
-                break;
-            case DeviceConst.CMD_Get_SleepData:
-                if(Delete_GetDetailSleepData){
-                    dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.Delete_GetDetailSleepData));
-                }else{
-                    dataListener.dataCallback(ResolveUtil.getSleepData(value));
-                }
-                break;
-            case DeviceConst.CMD_Get_HeartData:
-                if(GetDynamicHRWithMode){
-                    dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.Delete_GetDynamicHR));
-                }else{
-                    dataListener.dataCallback(ResolveUtil.getHeartData(value));
-                }
-
-                break;
-            case DeviceConst.CMD_Get_OnceHeartData:
-                if(GetStaticHRWithMode){
-                    dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.Delete_GetStaticHR));
-                }else{
-                    dataListener.dataCallback(ResolveUtil.getOnceHeartData(value));
-                }
+    /**
+     * 没有自己的FrameDispatcher时使用，命令生成时登记期望的应答
+     * Shared dispatcher of the static API. Commands that change how their response
+     * is parsed (delete vs read, set vs get) are bound when they are built.
+     */
+    private static final FrameDispatcher frameDispatcher = new FrameDispatcher();
 
-                break;
-            case DeviceConst.CMD_Get_HrvTestData:
-                if(readhrv){
-                    dataListener.dataCallback(ResolveUtil.getHrvTestData(value));
-                }else{
-                    dataListener.dataCallback(ResolveUtil.DeleteHrv());
-                }
-                break;
-            case DeviceConst.CMD_Get_Clock:
-                if(GetAlarmClock){
-                    dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.Delete_AlarmClock));
-                }else{
-                    dataListener.dataCallback(ResolveUtil.getClockData(value));
-                }
+    private static byte[] bindRequest(byte[] value) {
+        frameDispatcher.onCommand(value);
+        return value;
+    }
 
-                break;
-            case DeviceConst.CMD_Set_Clock:
-                dataListener.dataCallback(ResolveUtil.updateClockSuccessful(value));
-                break;
-            case DeviceConst.CMD_Set_HeartbeatPackets:
-                Map<String,Object> maps=new HashMap<>();
-                Map<String, String> mapb = new HashMap<>();
-                mapb.put(DeviceKey.Type, value[1] == 0 ?DeviceKey.Manual:DeviceKey.automatic);
-                maps.put(DeviceKey.Data, mapb);
-                maps.put(DeviceKey.DataType, BleConst.HeartBeatpacket);
-                maps.put(DeviceKey.End, true);
-                dataListener.dataCallback(maps);
-                break;
-
-            case DeviceConst.Enter_photo_modeback:
-                Map<String,Object> mapdd=new HashMap<>();
-                Map<String, String> mapbb = new HashMap<>();
-                switch (value[1]){
-                    case 1:
-                        mapbb.put(DeviceKey.type, value[2]==0?DeviceKey.HangUp:DeviceKey.Telephone);
-                        break;
-                    case 2:
-                        if (value[2] == 0) {
-                            mapbb.put(DeviceKey.type, DeviceKey.Photograph);
-                        } else {
-                            mapbb.put(DeviceKey.type, DeviceKey.CanclePhotograph);
-                        }
-                        break;
-                    case 3:
-                        switch (value[2]){
-                            case 0:
-                                mapbb.put(DeviceKey.type,DeviceKey.Suspend);
-                                break;
-                            case 1:
-                                mapbb.put(DeviceKey.type, DeviceKey.Play);
-                                break;
-                            case 2:
-                                mapbb.put(DeviceKey.type, DeviceKey.LastSong);
-                                break;
-                            case 3:
-                                mapbb.put(DeviceKey.type, DeviceKey.NextSong);
-                                break;
-                            case 4:
-                                mapbb.put(DeviceKey.type, DeviceKey.VolumeReduction);
-                                break;
-                            case 5:
-                                mapbb.put(DeviceKey.type, DeviceKey.VolumeUp);
-                                break;
-                        }
-                        break;
-                    case 4:
-                        switch (value[2]) {
-                            case 1:
-                                mapbb.put(DeviceKey.type, DeviceKey.FindYourPhone);
-                                break;
-                            case 2:
-                                map.put(DeviceKey.type, DeviceKey.Cancle_FindPhone);
-                                break;
-                        }
-                        break;
-                    case ((byte) 0XFE):
-                        mapbb.put(DeviceKey.type, DeviceKey.SOS);
-                        break;
-                }
-                mapdd.put(DeviceKey.Data, mapbb);
-                mapdd.put(DeviceKey.DataType, BleConst.DeviceSendDataToAPP);
-                mapdd.put(DeviceKey.End, true);
-                dataListener.dataCallback(mapdd);
-                break;
-            case DeviceConst.Exit_photo_mode:
-                Map<String,Object> aaaa=new HashMap<>();
-                aaaa.put(DeviceKey.DataType, BleConst. BackHomeView);
-                aaaa.put(DeviceKey.End, true);
-                aaaa.put(DeviceKey.Data,new HashMap<>());
-                dataListener.dataCallback(aaaa);
-                break;
-            case DeviceConst.CMD_ECGQuality:
-                Map<String,Object> bn=new HashMap<>();
-                Map<String, String> ccc = new HashMap<>();
-                ccc.put(DeviceKey.heartValue,getValue(value[1], 0)+"");
-                ccc.put(DeviceKey.hrvValue, getValue(value[2], 0)+"");
-                ccc.put(DeviceKey.Quality, getValue(value[3], 0)+"");
-                bn.put(DeviceKey.DataType,BleConst. EcgppG);
-                bn.put(DeviceKey.End, true);
-                bn.put(DeviceKey.Data, ccc);
-                dataListener.dataCallback(bn);
-                break;
-
-            case DeviceConst.CMD_ECGDATA:
-            case DeviceConst.CMD_PPGGDATA:
-                dataListener.dataCallback(value);
-                break;
-            case DeviceConst. GetEcgPpgStatus:
-                dataListener.dataCallback(ResolveUtil.GetEcgPpgStatus(value));
-                break;
-            case DeviceConst.Openecg:
-                if(ecgopen){
-                    if(16<=value.length){
-                        dataListener.dataCallback(ResolveUtil.ecgData(value));
-                    }
-                }else{
-                    Map<String,Object> ffff=new HashMap<>();
-                    ffff.put(DeviceKey.DataType, BleConst.ECG);
-                    ffff.put(DeviceKey.End, true);
-                    ffff.put(DeviceKey.Data,new HashMap<>());
-                    dataListener.dataCallback(ffff);
-                }
-                break;
-            case DeviceConst.Closeecg:
-                Map<String,Object> ffff=new HashMap<>();
-                ffff.put(DeviceKey.DataType, BleConst.CloseECGPPG);
-                ffff.put(DeviceKey.End, true);
-                ffff.put(DeviceKey.Data,new HashMap<>());
-                dataListener.dataCallback(ffff);
-                break;
-            case DeviceConst.Weather:
-                Map<String,Object> fffff=new HashMap<>();
-                fffff.put(DeviceKey.DataType, BleConst.Weather);
-                fffff.put(DeviceKey.End, true);
-                fffff.put(DeviceKey.Data,new HashMap<>());
-                dataListener.dataCallback(fffff);
-                break;
-            case DeviceConst.Braceletdial:
-                if(isruning){
-                    Map<String,Object> lll=new HashMap<>();
-                    lll.put(DeviceKey.DataType, BleConst.Braceletdial);
-                    lll.put(DeviceKey.End, true);
-                    lll.put(DeviceKey.Data,new HashMap<>());
-                    dataListener.dataCallback(lll);
-                }else{
-                    Map<String,Object> lll=new HashMap<>();
-                    Map<String, String> lm = new HashMap<>();
-                    lm.put(DeviceKey.index,value[1]+"");
-                    lll.put(DeviceKey.DataType, BleConst.Braceletdialok);
-                    lll.put(DeviceKey.End, true);
-                    lll.put(DeviceKey.Data, lm);
-                    dataListener.dataCallback(lll);
-                }
-                break;
-
-            case DeviceConst.SportMode:
-                Map<String,Object> baba=new HashMap<>();
-                baba.put(DeviceKey.DataType, BleConst.SportMode);
-                baba.put(DeviceKey.End, true);
-                baba.put(DeviceKey.Data,new HashMap<>());
-                dataListener.dataCallback(baba);
-                break;
-            case DeviceConst.GetSportMode:
-                Map<String,Object> nnn=new HashMap<>();
-                nnn.put(DeviceKey.DataType, BleConst.GetSportMode);
-                nnn.put(DeviceKey.End, true);
-                StringBuffer workOutType=new StringBuffer();
-                int length=getValue(value[1],0);
-                for(int i=0;i<length;i++){//workoutType里没有呼吸模式选项
-                    int selected=getValue(value[i+2],0);
-                    workOutType.append(selected).append(",");
-                }
-                nnn.put(DeviceKey.Data, workOutType.toString());
-                dataListener.dataCallback(nnn);
-                break;
-
-            case DeviceConst.MeasurementWithType:
-                if(StartDeviceMeasurementWithType){
-                    Map<String,Object> vv=new HashMap<>();
-                    switch (value[1]){
-                        case 1://hrv
-                            vv.put(DeviceKey.DataType, BleConst.MeasurementHrvCallback);
-                            vv.put(DeviceKey.End, true);
-                            Map<String, String> lmaa = new HashMap<>();
-                            lmaa.put(DeviceKey.HeartRate,getValue(value[2], 0)+"");
-                            lmaa.put(DeviceKey.Blood_oxygen,getValue(value[3], 0)+"");
-                            lmaa.put(DeviceKey.HRV,getValue(value[4], 0)+"");
-                            lmaa.put(DeviceKey.Stress,getValue(value[5], 0)+"");
-                            lmaa.put(DeviceKey.HighPressure,getValue(value[6], 0)+"");
-                            lmaa.put(DeviceKey.LowPressure,getValue(value[7], 0)+"");
-                            int temp = getValue(value[8], 0) + getValue(value[9], 1);
-                            NumberFormat numberFormat = getNumberFormat(2);
-                            numberFormat.setMaximumFractionDigits(1);
-                            lmaa.put(DeviceKey.KHrvTempValue,numberFormat.format(temp * 0.1f));
-                            vv.put(DeviceKey.Data,lmaa);
-                            dataListener.dataCallback(vv);
-                            break;
-                        case 2://heart
-                            vv.put(DeviceKey.DataType, BleConst.MeasurementHeartCallback);
-                            vv.put(DeviceKey.End, true);
-                            Map<String, String> lmB = new HashMap<>();
-                            lmB.put(DeviceKey.HeartRate,getValue(value[2], 0)+"");
-                            lmB.put(DeviceKey.Blood_oxygen,getValue(value[3], 0)+"");
-                            lmB.put(DeviceKey.HRV,getValue(value[4], 0)+"");
-                            lmB.put(DeviceKey.Stress,getValue(value[5], 0)+"");
-                            lmB.put(DeviceKey.HighPressure,getValue(value[6], 0)+"");
-                            lmB.put(DeviceKey.LowPressure,getValue(value[7], 0)+"");
-                            int temp2 = getValue(value[8], 0) + getValue(value[9], 1);
-                            NumberFormat numberFormat2 = getNumberFormat(2);
-                            numberFormat2.setMaximumFractionDigits(1);
-                            lmB.put(DeviceKey.KHrvTempValue,numberFormat2.format(temp2 * 0.1f));
-                            vv.put(DeviceKey.Data,lmB);
-                           dataListener.dataCallback(vv);
-                            break;
-                        case 3://0xy
-                            vv.put(DeviceKey.DataType, BleConst.MeasurementOxygenCallback);
-                            vv.put(DeviceKey.End, true);
-                            Map<String, String> lmC = new HashMap<>();
-                            lmC.put(DeviceKey.HeartRate,getValue(value[2], 0)+"");
-                            lmC.put(DeviceKey.Blood_oxygen,getValue(value[3], 0)+"");
-                            lmC.put(DeviceKey.HRV,getValue(value[4], 0)+"");
-                            lmC.put(DeviceKey.Stress,getValue(value[5], 0)+"");
-                            lmC.put(DeviceKey.HighPressure,getValue(value[6], 0)+"");
-                            lmC.put(DeviceKey.LowPressure,getValue(value[7], 0)+"");
-                            int temp3 = getValue(value[8], 0) + getValue(value[9], 1);
-                            NumberFormat numberFormat3 = getNumberFormat(2);
-                            numberFormat3.setMaximumFractionDigits(1);
-                            lmC.put(DeviceKey.KHrvTempValue,numberFormat3.format(temp3 * 0.1f));
-                            vv.put(DeviceKey.Data,lmC);
-                            dataListener.dataCallback(vv);
-                            break;
-
-                        case 4://0xy
-                            vv.put(DeviceKey.DataType, BleConst.MeasurementTemperatureCallback);
-                            vv.put(DeviceKey.End, true);
-                            Map<String, String> lmD = new HashMap<>();
-                            lmD.put(DeviceKey.HeartRate,getValue(value[2], 0)+"");
-                            lmD.put(DeviceKey.Blood_oxygen,getValue(value[3], 0)+"");
-                            lmD.put(DeviceKey.HRV,getValue(value[4], 0)+"");
-                            lmD.put(DeviceKey.Stress,getValue(value[5], 0)+"");
-                            lmD.put(DeviceKey.HighPressure,getValue(value[6], 0)+"");
-                            lmD.put(DeviceKey.LowPressure,getValue(value[7], 0)+"");
-                            int temp4 = getValue(value[8], 0) + getValue(value[9], 1);
-                            NumberFormat numberFormat4 = getNumberFormat(2);
-                            numberFormat4.setMaximumFractionDigits(1);
-                            lmD.put(DeviceKey.KHrvTempValue,numberFormat4.format(temp4 * 0.1f));
-                            vv.put(DeviceKey.Data,lmD);
-                            dataListener.dataCallback(vv);
-                            break;
-                    }
-                }else{
-                    Map<String,Object> vv=new HashMap<>();
-                    switch (value[1]){
-                        case 1://hrv
-                            vv.put(DeviceKey.DataType, BleConst.StopMeasurementHrvCallback);
-                            vv.put(DeviceKey.End, true);
-                            vv.put(DeviceKey.Data,new HashMap<>());
-                            dataListener.dataCallback(vv);
-                            break;
-                        case 2://heart
-                            vv.put(DeviceKey.DataType, BleConst.StopMeasurementHeartCallback);
-                            vv.put(DeviceKey.End, true);
-                            vv.put(DeviceKey.Data,new HashMap<>());
-                            dataListener.dataCallback(vv);
-                            break;
-                        case 3://0xy
-                            vv.put(DeviceKey.DataType, BleConst.StopMeasurementOxygenCallback);
-                            vv.put(DeviceKey.End, true);
-                            vv.put(DeviceKey.Data,new HashMap<>());
-                            dataListener.dataCallback(vv);
-                            break;
-                    }
-                }
-                break;
-            case DeviceConst.GPSControlCommand:
-                Map<String,Object> GPSControlCommand=new HashMap<>();
-                GPSControlCommand.put(DeviceKey.DataType, BleConst.GPSControlCommand);
-                GPSControlCommand.put(DeviceKey.End, true);
-
-                Map<String, String> hashMap = new HashMap<>();
-                String date = "20"+bcd2String(value[1]) + "-"
-                        + bcd2String(value[2]) + "-" + bcd2String(value[3]) + " "
-                        + bcd2String(value[4]) + ":" + bcd2String(value[5]) + ":" + bcd2String(value[6]);
-                byte[] valueLatitude = new byte[4];
-                byte[] valueLongitude = new byte[4];
-                for (int j = 0; j < 4; j++) {
-                    valueLatitude[3 - j] = value[9 + j];
-                    valueLongitude[3 - j] = value[14 + j];
-                }
-                String Latitude = String.valueOf(getFloat(valueLatitude, 0));
-                String Longitude = String.valueOf(getFloat(valueLongitude, 0));
-                int count = getValue(value[18], 0);
-                hashMap.put(DeviceKey.KActivityLocationTime, date);
-                hashMap.put(DeviceKey.KActivityLocationLatitude, Latitude);
-                hashMap.put(DeviceKey.KActivityLocationLongitude, Longitude);
-                hashMap.put(DeviceKey.KActivityLocationCount, String.valueOf(count));
-                GPSControlCommand.put(DeviceKey.Data,hashMap.toString());
-                dataListener.dataCallback(GPSControlCommand);
-                break;
-
-            case DeviceConst.CMD_Get_GPSDATA:
-                dataListener.dataCallback(ResolveUtil.getHistoryGpsData(value));
-
-                break;
-
-            case DeviceConst.Clear_Bracelet_data:
-                Map<String,Object> language=new HashMap<>();
-                language.put(DeviceKey.DataType, BleConst.Clear_Bracelet_data);
-                language.put(DeviceKey.End, true);
-                language.put(DeviceKey.Data,new HashMap<>());
-                dataListener.dataCallback(language);
-                break;
-            case DeviceConst.CMD_Get_Blood_oxygen:
-                if(GetBloodOxygen){
-                    dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.Delete_Blood_oxygen));
-                }else{
-                    dataListener.dataCallback(ResolveUtil.getBloodoxygen(value));
-                }
+    /**
+     * 历史数据解析为类型化记录，不生成Map和字符串
+     * Delete acknowledgements and all other frames still go through DataParsingWithData.
+     *
+     * @return true if the frame was a history page and has been delivered to recordListener
+     */
+    public static synchronized boolean DataParsingWithRecords(byte[] value, RecordListener2025 recordListener) {
+        return frameDispatcher.dispatchRecords(value, recordListener);
+    }
 
-                break;
-            case  DeviceConst.CMD_SET_SOCIAL:
-                if(isSettingSocial){
-                    dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.SocialdistanceSetting));
-                }else{
-                    Map<String, Object> mapsa = new HashMap<>();
-                    mapsa.put(DeviceKey.DataType, BleConst.SocialdistanceGetting);
-                    mapsa.put(DeviceKey.End, true);
-                    Map<String, String> mapll = new HashMap<>();
-                    int interval = ResolveUtil.getValue(value[2], 0);
-                    int duration = ResolveUtil.getValue(value[3], 0);
-                    mapll.put(DeviceKey.scanInterval, interval+"");
-                    mapll.put(DeviceKey.scanTime, duration+"");
-                    mapll.put(DeviceKey.signalStrength,value[4]+"");
-                    mapsa.put(DeviceKey.Data, mapll);
-                    dataListener.dataCallback(mapsa);
-                }
-                break;
-            case  DeviceConst.Sos:
-                    dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.Sos));
-                break;
-            case  DeviceConst.Temperature_history:
-                if(GetTemperature_historyDataWithMode){
-                    dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.deleteGetTemperature_historyDataWithMode));
-                }else{
-                    dataListener.dataCallback(ResolveUtil.getTempData(value));
-                }
-                break;
-            case  DeviceConst.GetAxillaryTemperatureDataWithMode:
-                if(GetAxillaryTemperatureDataWithMode){
-                    dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.deleteGetAxillaryTemperatureDataWithMode));
+    /**
+     * ECG历史数据和实时ECG/PPG解析为采样点数组，不生成字符串
+     *
+     * @return true if the frame was a waveform frame and has been delivered to waveformListener
+     */
+    public static synchronized boolean DataParsingWithWaveform(byte[] value, WaveformListener2025 waveformListener) {
+        return frameDispatcher.dispatchWaveform(value, waveformListener);
+    }
 
-                }else{
-                    dataListener.dataCallback(ResolveUtil.getTempDataer(value));
-                }
+    /**
+     * 0x3B原始PPG/三轴数据按批解析，每batchFrames包或batchMillis毫秒回调一次
+     *
+     * @return true if the frame was a raw sensor frame, the close acknowledgement returns false
+     */
+    public static synchronized boolean DataParsingWithRawSensor(byte[] value, RawSensorListener2025 rawSensorListener) {
+        return frameDispatcher.dispatchRawSensor(value, rawSensorListener);
+    }
 
-                break;
-            case  DeviceConst. Get3D:
-                dataListener.dataCallback(ResolveUtil.get3d(value));
-                break;
-            case  DeviceConst. PPG:
-                dataListener.dataCallback(ResolveUtil.getPPG(value));
-                break;
-            case  DeviceConst.Qrcode:
-                if(Qrcode){
-                    Map<String,Object> qr=new HashMap<>();
-                    qr.put(DeviceKey.DataType, BleConst.EnterQRcode);
-                    qr.put(DeviceKey.End, true);
-                    qr.put(DeviceKey.Data, new HashMap<>());
-                    dataListener.dataCallback(qr);
-                }else{
-                    if((byte) 0x80==value[1]||(byte)0x81==value[1]){
-                        Map<String,Object> qr=new HashMap<>();
-                        qr.put(DeviceKey.DataType, BleConst.QRcodebandBack);
-                        qr.put(DeviceKey.End, true);
-                        Map<String, String> mapll = new HashMap<>();
-                        mapll.put(DeviceKey.Band,((byte)0x81==value[1])?1+"":0+"");
-                        qr.put(DeviceKey.Data, mapll);
-                        dataListener.dataCallback(qr);
-                    }else{
-                        Map<String,Object> qr=new HashMap<>();
-                        qr.put(DeviceKey.DataType, BleConst.ExitQRcode);
-                        qr.put(DeviceKey.End, true);
-                        qr.put(DeviceKey.Data, new HashMap<>());
-                        dataListener.dataCallback(qr);
+    public static synchronized void SetRawSensorBatch(int batchFrames, long batchMillis) {
+        frameDispatcher.getRawSensorDecoder().setBatch(batchFrames, batchMillis);
+    }
 
-                    }
+    /**
+     * 关闭原始数据后回调剩余不满一批的数据
+     */
+    public static synchronized void FlushRawSensor(RawSensorListener2025 rawSensorListener) {
+        frameDispatcher.getRawSensorDecoder().flush(rawSensorListener);
+    }
 
-                }
-                break;
-            case DeviceConst.GetAutomaticSpo2Monitoring:
-                if(Obtain_The_data_of_manual_blood_oxygen_test){
-                    dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.Delete_Obtain_The_data_of_manual_blood_oxygen_test));
-                }else{
-                    dataListener.dataCallback(ResolveUtil.GetAutomaticSpo2Monitoring(value));
-                }
-                break;
-           case  DeviceConst. GetECGwaveform:
-               if(read){
-                   dataListener.dataCallback(ResolveUtil.getEcgHistoryData(value));
-               }else {
-                   dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.DeleteECGdata));
-               }
-                break;
-            case DeviceConst.spo2:
-                if(issetting){
-                    dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.SetSpo2));
-                }else{
-                    dataListener.dataCallback(ResolveUtil.getSpo2(value));
-                }
-                break;
-            case DeviceConst.openRRIntervalTime:
-                        if(Deviceopenppg){
-                            Map<String,Object> vv=new HashMap<>();
-                            vv.put(DeviceKey.DataType, BleConst.realtimePPGData);
-                            vv.put(DeviceKey.End, false);
-                            Map<String, String> lm = new HashMap<>();
-                            int ppi = getValue(value[1], 0)+getValue(value[2],1);
-                            lm.put(DeviceKey.KPPIData, ppi+"");
-                            vv.put(DeviceKey.Data,lm);
-                            dataListener.dataCallback(vv);
-                        }
-
-                break;
-            case DeviceConst.openPPG:
-                      if(Deviceopenppi){
-                          Map<String,Object> vv=new HashMap<>();
-                          vv.put(DeviceKey.DataType, BleConst.realtimePPIData);
-                          vv.put(DeviceKey.End, false);
-                          Map<String, String> lm = new HashMap<>();
-                          byte[] tempValue = new byte[value.length - 3];
-                          System.arraycopy(value, 3, tempValue, 0, tempValue.length);
-                            String ecgData = ResolveUtil.getDoublePPGData(tempValue);
-                            lm.put(DeviceKey.KPPGData, ecgData);
-                            vv.put(DeviceKey.Data,lm);
-                          dataListener.dataCallback(vv);
-                      }
-                break;
-            case DeviceConst.PPGSensor  :
-                if(GetPpgPPGSensor){
-
-                }else{
-                    dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.ClosePPGSensor));
-                }
+    /**
+     * GPS历史数据解析为经纬度数组，不生成字符串；压缩编码见GpsTrackEncoder
+     *
+     * @return true if the frame was a GPS history page and has been delivered to gpsListener
+     */
+    public static synchronized boolean DataParsingWithGps(byte[] value, GpsListener2025 gpsListener) {
+        return frameDispatcher.dispatchGps(value, gpsListener);
+    }
 
-                break;
+    /**
+     * 指令编码器，可以把多条指令合并到一次写入；历史数据读取等指令的应答解析登记到共享的解析器
+     *
+     * @param payloadSize 一次写入的最大字节数 (MTU - 3)
+     */
+    public static CommandEncoder newCommandEncoder(int payloadSize) {
+        return new CommandEncoder(payloadSize, frameDispatcher);
+    }
 
-            case DeviceConst.  SetBloodpressure_calibration:
-                dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.SetBloodpressure_calibration));
-                break;
-            case DeviceConst.  ReadBloodpressure_calibration:
-                dataListener.dataCallback(ResolveUtil.ReadOxy(value));
-                break;
-        }
-        //  return map;
+    public static synchronized void DataParsingWithData(byte[] value, final DataListener2025 dataListener) {
+        frameDispatcher.dispatch(value, dataListener);
     }
 
-   protected static  boolean Delete_GetDetailSleepData=false;
     public static byte[] GetDetailSleepDataWithMode(byte mode, String dateOfLastData) {
-        Delete_GetDetailSleepData=((byte)0x99==mode);
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_Get_SleepData;
         value[1] = mode;
         insertDateValue(value, dateOfLastData);
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
 
@@ -922,15 +388,13 @@ public class BleSDK {
      * @return
      *  * dateOfLastData "yyyy-MM-dd HH:mm:ss   or  yyyy.MM.dd HH:mm:ss"
      */
-   private static boolean GetDetailActivityDataWithMode=false;
     public static byte[] GetDetailActivityDataWithMode(byte mode, String dateOfLastData) {
-        GetDetailActivityDataWithMode=((byte)0x99==mode);
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_Get_DetailData;
         value[1] = (byte) mode;
         insertDateValue(value,dateOfLastData);
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
     /**
      * 99: 删除温度数据 ,
@@ -941,15 +405,13 @@ public class BleSDK {
      * @param
      * @return
      */
-    protected  static boolean GetTemperature_historyDataWithMode;
     public static byte[] GetTemperature_historyDataWithMode(byte mode, String dateOfLastData) {
-        GetTemperature_historyDataWithMode=((byte)0x99==mode);
         byte[] value = new byte[16];
         value[0] = DeviceConst.Temperature_history;
          value[1] = mode;
         insertDateValue(value, dateOfLastData);
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
     /**
@@ -961,15 +423,13 @@ public class BleSDK {
      * @param
      * @return
      */
-    private static boolean GetAxillaryTemperatureDataWithMode;
     public static byte[] GetAxillaryTemperatureDataWithMode(byte mode, String dateOfLastData) {
-        GetAxillaryTemperatureDataWithMode= (byte) 0x99 == mode;
         byte[] value = new byte[16];
         value[0] = DeviceConst.GetAxillaryTemperatureDataWithMode;
         value[1] = mode;
         insertDateValue(value, dateOfLastData);
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
     public static byte[] SetAutomatic(boolean open, int time, AutoMode type) {
@@ -1040,15 +500,13 @@ public class BleSDK {
      *             动数据
      * @return
      */
-  protected  static boolean GetTotalActivityDataWithMode;
     public static byte[] GetTotalActivityDataWithMode(byte mode, String dateOfLastData) {
-        GetTotalActivityDataWithMode= (byte) 0x99 == mode;
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_Get_TotalData;
         value[1] = mode;
         insertDateValueNoH(value, dateOfLastData);
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
 
@@ -1087,16 +545,14 @@ public class BleSDK {
 
 
 
-   protected static boolean ecgopen=false;
     public static byte[] OpenECGPPG(int level, int time) {
-            ecgopen= 0 != level;
             byte[] value = new byte[16];
             value[0] = DeviceConst.Openecg;
             value[1] = (byte) level;
             value[3] = (byte) ((time) & 0xff);
             value[4] = (byte) ((time >> 8) & 0xff);
             crcValue(value);
-            return value;
+            return bindRequest(value);
         }
 
     public static byte[] stopEcgPPg(){
@@ -1115,15 +571,13 @@ public class BleSDK {
 
 
 
-   protected static boolean GetPpgPPGSensor=false;
 
     public static byte[] GetPpgPPGSensor(boolean open){
-        GetPpgPPGSensor=open;
         byte[] value = new byte[16];
         value[0]=DeviceConst.PPGSensor;
         value[1]=open?(byte)0x01:(byte)0x00;
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
 
@@ -1163,14 +617,12 @@ public class BleSDK {
      * @param
      * @return
      */
-    protected static boolean GetAlarmClock;
     public static byte[] GetAlarmClock(byte mode) {
-        GetAlarmClock= (byte) 0x99 == mode;
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_Get_Clock;
         value[1] = mode;
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
 
@@ -1321,12 +773,11 @@ public class BleSDK {
      * @return
      */
     public static byte[] SetDistanceUnit(boolean km) {
-        isSetDialinterface=false;
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_Set_DeviceInfo;
         value[1] =  km?(byte)0x80:(byte)0x81;
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
     /**
@@ -1336,12 +787,11 @@ public class BleSDK {
      * @return
      */
     public static byte[] SetTimeModeUnit(boolean unit12) {
-        isSetDialinterface=false;
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_Set_DeviceInfo;
         value[2] = unit12?(byte)0x81:(byte)0x80;
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
     /**
      * 抬手亮屏
@@ -1349,12 +799,11 @@ public class BleSDK {
      * @return
      */
     public static byte[] setWristOnEnable(boolean enable) {
-        isSetDialinterface=false;
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_Set_DeviceInfo;
         value[3] = enable?WristOn_Enable:WristOn_DisEnable;
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
     /**
@@ -1363,12 +812,11 @@ public class BleSDK {
      * @return
      */
     public static byte[] setTemperatureUnit(boolean Fahrenheit_degree) {
-        isSetDialinterface=false;
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_Set_DeviceInfo;
         value[4] = Fahrenheit_degree?WristOn_Enable:WristOn_DisEnable;
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
     /**
      * 是否开启夜间模式
@@ -1376,55 +824,49 @@ public class BleSDK {
      * @return
      */
     public static byte[] setLightMode(boolean LightMode) {
-        isSetDialinterface=false;
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_Set_DeviceInfo;
         value[5] = LightMode?WristOn_Enable:WristOn_DisEnable;
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
     public static byte[] disableAncs() {
-        isSetDialinterface=false;
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_Set_DeviceInfo;
         value[6] = (byte) 0x80;
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
 
 
     private  static final byte[] BrightnessLevel={(byte)0x8f, (byte)0x8d, (byte)0x8b,(byte)0x89, (byte)0x87, (byte)0x85};
     public static byte[] SetBrightness(int level) {
-        isSetDialinterface=false;
         if(level<0){level=0;}else if(level>5){level=5;}
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_Set_DeviceInfo;
         value[11] = BrightnessLevel[level];
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
 
-    static boolean isSetDialinterface=false;
     public static byte[] SetDialinterface(int index) {
-        isSetDialinterface=true;
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_Set_DeviceInfo;
         value[12] =(byte)( 0x80+index);
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
 
     public static byte[] Social_distance_switch(boolean open) {
-        isSetDialinterface=false;
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_Set_DeviceInfo;
         value[13] = open?WristOn_Enable:WristOn_DisEnable;
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
     /**
@@ -1433,16 +875,14 @@ public class BleSDK {
      * @return
      */
     public static byte[] setLauage(boolean chaina) {
-        isSetDialinterface=false;
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_Set_DeviceInfo;
         value[14] = chaina?WristOn_Enable:WristOn_DisEnable;
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
     public static byte[] SetDeviceInfo(MyDeviceInfo deviceBaseParameter) {
-        isSetDialinterface=false;
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_Set_DeviceInfo;
         value[1] = (byte) (deviceBaseParameter.isDistanceUnit() ? 0x81 : 0x80);
@@ -1461,7 +901,7 @@ public class BleSDK {
         }
         value[14] =(byte) (deviceBaseParameter.isChinese_English_switch() ? 0x81 : 0x80);
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
 
@@ -1494,11 +934,7 @@ public class BleSDK {
      * 除了心率，其他最好设置为120000秒，也就是2分钟或者2分钟以上
      * Except for heart rate, it is best to set it to 120000 seconds, which is 2 minutes or more
      */
-    public static boolean StartDeviceMeasurementWithType=false;
-    public static boolean Deviceopenppg=false;
-    public static boolean Deviceopenppi=false;
     public static byte[] StartDeviceMeasurementWithType(int dataType,boolean open,int measureTime) {
-        StartDeviceMeasurementWithType=open;
         byte[] value = new byte[16];
         value[0] = DeviceConst.MeasurementWithType;
         value[1]=(byte)dataType;
@@ -1509,13 +945,10 @@ public class BleSDK {
             value[5] = (byte) ((measureTime >> 8) & 0xff);
         }
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
     public static byte[] StartDeviceMeasurementWithHrv(boolean open,boolean openppg,boolean openppi) {
-        StartDeviceMeasurementWithType=open;
-        Deviceopenppg=openppg;
-        Deviceopenppi=openppi;
         byte[] value = new byte[16];
         value[0] = DeviceConst.MeasurementWithType;
         value[1]=(byte)0x01;
@@ -1523,7 +956,7 @@ public class BleSDK {
         value[3] = openppg?(byte)0x01:(byte)0x00;
         value[4] = openppi?(byte)0x01:(byte)0x00;
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
 
@@ -1564,39 +997,33 @@ public class BleSDK {
 
 
     public static byte[] SetBraceletdial(int mode) {
-        isruning=true;
         byte[] value = new byte[16];
         value[0] = DeviceConst.Braceletdial;
         value[1] = (byte) mode;
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
 
     public static byte[] GetBraceletdial() {
-        isruning=false;
         byte[] value = new byte[16];
         value[0] = DeviceConst.Braceletdial;
         value[1] = (byte)0x00;
         value[2] = (byte)0x01;
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
-  private static  boolean readhrv=false;
     public static byte[] GetHRVDataWithMode(byte mode, String dateOfLastData) {
-        readhrv=(byte) 0x99!=mode;
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_Get_HrvTestData;
         value[1] = mode;
         insertDateValue(value, dateOfLastData);
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
-    private static boolean isSettingSocial=false;
     public static byte[] setSocialSetting(int Interval,int duration,short rssi){
-        isSettingSocial=true;
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_SET_SOCIAL;
         value[1] =  1;//1设置，0读取
@@ -1604,16 +1031,15 @@ public class BleSDK {
         value[3]= (byte) duration;
         value[4]= (byte) rssi;
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
     public static byte[] getSocialSetting(){
-        isSettingSocial=false;
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_SET_SOCIAL;
         value[1] =  0;//1设置，0读取
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
 
@@ -1630,14 +1056,12 @@ public class BleSDK {
      *             GPS数据
      * @return
      */
-    protected static boolean GetActivityModeDataWithMode;
     public static byte[] GetActivityModeDataWithMode(byte mode) {
-        GetActivityModeDataWithMode=((byte)0x99==mode);
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_Get_SPORTData;
         value[1] =  mode;
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
 
@@ -1651,38 +1075,32 @@ public class BleSDK {
     }
 
 
-    protected static boolean GetStaticHRWithMode;
     public static byte[] GetStaticHRWithMode(byte mode, String dateOfLastData) {
-        GetStaticHRWithMode=((byte)0x99==mode);
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_Get_OnceHeartData;
         value[1] =  mode;
         insertDateValue(value, dateOfLastData);
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
 
-    protected  static boolean GetDynamicHRWithMode;
     public static byte[] GetDynamicHRWithMode(byte Number, String dateOfLastData) {
-        GetDynamicHRWithMode=(byte)0x99==Number;
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_Get_HeartData;
         value[1] = (byte) Number;
         insertDateValue(value, dateOfLastData);
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
-    private static boolean GetBloodOxygen;
     public static byte[] GetBloodOxygen(byte Number,String dateOfLastData) {
-        GetBloodOxygen=((byte) 0x99 == Number);
         byte[] value = new byte[16];
         value[0] = DeviceConst.CMD_Get_Blood_oxygen;
         value[1] = (byte) Number;
         insertDateValue(value, dateOfLastData);
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
     public static byte[] SetStepGoal(int stepGoal) {
@@ -1737,37 +1155,32 @@ public class BleSDK {
         return value;
     }
 
-     protected static boolean read;
     public static byte[] getEcgHistoryData(int days, String dateOfLastData) {
         Log.e("sjdnjskfnjkdnv",dateOfLastData);
-        read=true;
         byte[] value = new byte[16];
         value[0] = DeviceConst.GetECGwaveform;
         value[1] = (byte) 0;
         value[2] = (byte) days;
         insertDateValue(value, dateOfLastData);
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
     public static byte[] DeleteEcgHistoryData() {
-        read=false;
         byte[] value = new byte[16];
         value[0] = DeviceConst.GetECGwaveform;
         value[1] = (byte)0x99;
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
 
-   protected static  boolean Obtain_The_data_of_manual_blood_oxygen_test;
     public static byte[] Obtain_The_data_of_manual_blood_oxygen_test(byte Number,String dateOfLastData) {
-        Obtain_The_data_of_manual_blood_oxygen_test=((byte) 0x99 == Number);
         byte[] value = new byte[16];
         value[0] = DeviceConst.GetAutomaticSpo2Monitoring;
         value[1] = (byte) Number;
         insertDateValue(value, dateOfLastData);
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
     public static byte[] GetDeviceInfo() {
@@ -1778,7 +1191,6 @@ public class BleSDK {
     }
 
     public static byte[] SetAutomaticSpo2Monitoring(MyAutomaticHRMonitoring autoHeart) {
-        issetting=true;
         byte[] value = new byte[16];
         int time = autoHeart.getTime();
         value[0] = DeviceConst.spo2;
@@ -1791,16 +1203,14 @@ public class BleSDK {
         value[7] = ResolveUtil.getTimeValue(autoHeart.getEndMinute());
         value[8] = (byte) autoHeart.getWeek();
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
-    public  static boolean issetting=false;
     public static byte[] GetAutomaticSpo2Monitoring() {
-        issetting=false;
         byte[] value = new byte[16];
         value[0] = DeviceConst.spo2;
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
     public static byte[] setNotifyData(Notifier sendData) {
        /* String info = sendData.getInfo();
@@ -1935,15 +1345,13 @@ public class BleSDK {
 
 
 
-    protected static boolean Qrcode=false;
 
     public static byte[] lockScreen() {
-        Qrcode=true;
         byte[] value = new byte[16];
         value[0] = DeviceConst.Qrcode;
         value[1] = (byte) 0x80;
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
     private  static boolean openRRIntervalTime=false;
@@ -1958,49 +1366,46 @@ public class BleSDK {
 
 
     public static byte[]  unlockScreen() {
-        Qrcode=false;
         byte[] value = new byte[16];
         value[0] = DeviceConst.Qrcode;
         value[1] =  (byte) 0x81;
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
 
 
 
     public static byte[] EnterTheMainInterface() {
-        Qrcode=true;
         byte[] value = new byte[16];
         value[0] = DeviceConst.Qrcode;
         value[1] = (byte) 0x82;
         crcValue(value);
-        return value;
+        return bindRequest(value);
     }
     public static void insertDateValue(byte[] value, String time) {
         if (!TextUtils.isEmpty(time)&&time.length()>8) {
-            String[] timeArray = time.split(" ");
-            String INDEX;
-            if (time.contains("-")) {
-                INDEX = "-";
-            } else {
-                INDEX = "\\.";
-            }
-            int year = Integer.parseInt(timeArray[0].split(INDEX)[0]);
-            int month = Integer.parseInt(timeArray[0].split(INDEX)[1]);
-            int day = Integer.parseInt(timeArray[0].split(INDEX)[2]);
-            int hour = Integer.parseInt(timeArray[1].split(":")[0]);
-            int min = Integer.parseInt(timeArray[1].split(":")[1]);
-            int second = Integer.parseInt(timeArray[1].split(":")[2]);
-            value[4] = ResolveUtil.getTimeValue(year);
-            value[5] = ResolveUtil.getTimeValue(month);
-            value[6] = ResolveUtil.getTimeValue(day);
-            value[7] = ResolveUtil.getTimeValue(hour);
-            value[8] = ResolveUtil.getTimeValue(min);
-            value[9] = ResolveUtil.getTimeValue(second);
+            insertDateFields(value, 4, time, 6);
         }
 
     }
 
+    /**
+     * 依次取出字符串中的数字 (年 月 日 时 分 秒) 写为BCD，缺少的字段为0
+     */
+    private static void insertDateFields(byte[] value, int index, String time, int count) {
+        int length = time.length();
+        int i = 0;
+        for (int field = 0; field < count; field++) {
+            while (i < length && (time.charAt(i) < '0' || time.charAt(i) > '9')) i++;
+            int number = 0;
+            while (i < length && time.charAt(i) >= '0' && time.charAt(i) <= '9') {
+                number = number * 10 + time.charAt(i) - '0';
+                i++;
+            }
+            value[index + field] = ByteCodec.toBcd(number);
+        }
+    }
+
     public static byte[] BloodPressureCalibrationWithMinDiastolicBP(int minDiastolicBP,int maxDiastolicBP,int minSystolicBP,int maxSystolicBP) {
         byte[] value = new byte[16];
         value[0] = DeviceConst.SetBloodpressure_calibration;
@@ -2023,19 +1428,7 @@ public class BleSDK {
 
     public static void insertDateValueNoH(byte[] value, String time) {
         if (!TextUtils.isEmpty(time)&&time.contains("-")) {
-            String[] timeArray = time.split(" ");
-            String INDEX;
-            if (time.contains("-")) {
-                INDEX = "-";
-            } else {
-                INDEX = "\\.";
-            }
-            int year = Integer.parseInt(timeArray[0].split(INDEX)[0]);
-            int month = Integer.parseInt(timeArray[0].split(INDEX)[1]);
-            int day = Integer.parseInt(timeArray[0].split(INDEX)[2]);
-            value[4] = ResolveUtil.getTimeValue(year);
-            value[5] = ResolveUtil.getTimeValue(month);
-            value[6] = ResolveUtil.getTimeValue(day);
+            insertDateFields(value, 4, time, 3);
         }
 
 
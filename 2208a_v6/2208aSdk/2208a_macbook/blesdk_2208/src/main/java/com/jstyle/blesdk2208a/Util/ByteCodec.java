@@ -0,0 +1,187 @@
+package com.jstyle.blesdk2208a.Util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 基本类型编解码，全部用移位实现，不分配对象
+ * Primitive little/big endian and BCD readers used by the parsers. The byte[]
+ * and ByteBuffer versions take an absolute index and do not move the buffer position.
+ */
+
+public final class ByteCodec {
+    private static final long MILLIS_PER_DAY = 24 * 3600 * 1000L;
+
+    private ByteCodec() {
+    }
+
+    public static int readU8(byte[] value, int index) {
+        return value[index] & 0xff;
+    }
+
+    public static int readU16LE(byte[] value, int index) {
+        return (value[index] & 0xff) | (value[index + 1] & 0xff) << 8;
+    }
+
+    public static int readU16BE(byte[] value, int index) {
+        return (value[index] & 0xff) << 8 | (value[index + 1] & 0xff);
+    }
+
+    public static int readS16LE(byte[] value, int index) {
+        return (short) readU16LE(value, index);
+    }
+
+    public static int readS16BE(byte[] value, int index) {
+        return (short) readU16BE(value, index);
+    }
+
+    public static int readU24LE(byte[] value, int index) {
+        return (value[index] & 0xff) | (value[index + 1] & 0xff) << 8 | (value[index + 2] & 0xff) << 16;
+    }
+
+    public static int readU24BE(byte[] value, int index) {
+        return (value[index] & 0xff) << 16 | (value[index + 1] & 0xff) << 8 | (value[index + 2] & 0xff);
+    }
+
+    /**
+     * 32位小端，按int返回 (超过Integer.MAX_VALUE为负数)
+     */
+    public static int readI32LE(byte[] value, int index) {
+        return (value[index] & 0xff) | (value[index + 1] & 0xff) << 8
+                | (value[index + 2] & 0xff) << 16 | (value[index + 3] & 0xff) << 24;
+    }
+
+    public static int readI32BE(byte[] value, int index) {
+        return (value[index] & 0xff) << 24 | (value[index + 1] & 0xff) << 16
+                | (value[index + 2] & 0xff) << 8 | (value[index + 3] & 0xff);
+    }
+
+    public static long readU32LE(byte[] value, int index) {
+        return readI32LE(value, index) & 0xffffffffL;
+    }
+
+    public static float readF32LE(byte[] value, int index) {
+        return Float.intBitsToFloat(readI32LE(value, index));
+    }
+
+    public static float readF32BE(byte[] value, int index) {
+        return Float.intBitsToFloat(readI32BE(value, index));
+    }
+
+    public static int readBcd(byte b) {
+        return ((b >> 4) & 0x0f) * 10 + (b & 0x0f);
+    }
+
+    /**
+     * 6个BCD字节(yy MM dd HH mm ss)转为毫秒时间戳
+     *
+     * @param zoneOffsetMillis 设备时区相对UTC的偏移
+     */
+    public static long readBcdDateTimeToEpoch(byte[] value, int index, int zoneOffsetMillis) {
+        long days = daysFromCivil(2000 + readBcd(value[index]), readBcd(value[index + 1]), readBcd(value[index + 2]));
+        int seconds = readBcd(value[index + 3]) * 3600 + readBcd(value[index + 4]) * 60 + readBcd(value[index + 5]);
+        return days * MILLIS_PER_DAY + seconds * 1000L - zoneOffsetMillis;
+    }
+
+    public static int readU8(ByteBuffer buffer, int index) {
+        return buffer.get(index) & 0xff;
+    }
+
+    public static int readU16LE(ByteBuffer buffer, int index) {
+        return (buffer.get(index) & 0xff) | (buffer.get(index + 1) & 0xff) << 8;
+    }
+
+    public static int readU16BE(ByteBuffer buffer, int index) {
+        return (buffer.get(index) & 0xff) << 8 | (buffer.get(index + 1) & 0xff);
+    }
+
+    public static int readS16LE(ByteBuffer buffer, int index) {
+        return (short) readU16LE(buffer, index);
+    }
+
+    public static int readS16BE(ByteBuffer buffer, int index) {
+        return (short) readU16BE(buffer, index);
+    }
+
+    public static int readU24LE(ByteBuffer buffer, int index) {
+        return (buffer.get(index) & 0xff) | (buffer.get(index + 1) & 0xff) << 8 | (buffer.get(index + 2) & 0xff) << 16;
+    }
+
+    public static int readU24BE(ByteBuffer buffer, int index) {
+        return (buffer.get(index) & 0xff) << 16 | (buffer.get(index + 1) & 0xff) << 8 | (buffer.get(index + 2) & 0xff);
+    }
+
+    public static int readI32LE(ByteBuffer buffer, int index) {
+        return (buffer.get(index) & 0xff) | (buffer.get(index + 1) & 0xff) << 8
+                | (buffer.get(index + 2) & 0xff) << 16 | (buffer.get(index + 3) & 0xff) << 24;
+    }
+
+    public static int readI32BE(ByteBuffer buffer, int index) {
+        return (buffer.get(index) & 0xff) << 24 | (buffer.get(index + 1) & 0xff) << 16
+                | (buffer.get(index + 2) & 0xff) << 8 | (buffer.get(index + 3) & 0xff);
+    }
+
+    public static long readU32LE(ByteBuffer buffer, int index) {
+        return readI32LE(buffer, index) & 0xffffffffL;
+    }
+
+    public static float readF32LE(ByteBuffer buffer, int index) {
+        return Float.intBitsToFloat(readI32LE(buffer, index));
+    }
+
+    public static float readF32BE(ByteBuffer buffer, int index) {
+        return Float.intBitsToFloat(readI32BE(buffer, index));
+    }
+
+    public static long readBcdDateTimeToEpoch(ByteBuffer buffer, int index, int zoneOffsetMillis) {
+        long days = daysFromCivil(2000 + readBcd(buffer.get(index)), readBcd(buffer.get(index + 1)), readBcd(buffer.get(index + 2)));
+        int seconds = readBcd(buffer.get(index + 3)) * 3600 + readBcd(buffer.get(index + 4)) * 60 + readBcd(buffer.get(index + 5));
+        return days * MILLIS_PER_DAY + seconds * 1000L - zoneOffsetMillis;
+    }
+
+    /**
+     * 十进制数的后两位转为BCD，与ResolveUtil.getTimeValue一致
+     */
+    public static byte toBcd(int value) {
+        int n = value % 100;
+        return (byte) ((n / 10) << 4 | n % 10);
+    }
+
+    /**
+     * 毫秒时间戳写为6个BCD字节(yy MM dd HH mm ss)
+     *
+     * @param zoneOffsetMillis 设备时区相对UTC的偏移
+     */
+    public static void writeBcdDateTime(byte[] value, int index, long epochMillis, int zoneOffsetMillis) {
+        long local = epochMillis + zoneOffsetMillis;
+        long days = local / MILLIS_PER_DAY;
+        if (local < days * MILLIS_PER_DAY) days--;
+        int seconds = (int) ((local - days * MILLIS_PER_DAY) / 1000);
+        long z = days + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        int doe = (int) (z - era * 146097);
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int day = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        value[index] = toBcd((int) year);
+        value[index + 1] = toBcd(month);
+        value[index + 2] = toBcd(day);
+        value[index + 3] = toBcd(seconds / 3600);
+        value[index + 4] = toBcd(seconds / 60 % 60);
+        value[index + 5] = toBcd(seconds % 60);
+    }
+
+    /**
+     * 公历日期到1970-01-01的天数
+     */
+    public static long daysFromCivil(int year, int month, int day) {
+        if (month <= 2) year--;
+        int era = (year >= 0 ? year : year - 399) / 400;
+        int yoe = year - era * 400;
+        int doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097L + doe - 719468;
+    }
+}
@@ -0,0 +1,217 @@
+package com.jstyle.blesdk2208a.Util;
+
+import com.jstyle.blesdk2208a.constant.DeviceConst;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * 指令编码，参数为时间戳和整数，多条16字节指令可以合并到一次写入
+ * Commands are built in one reused 16 byte array and appended back-to-back to the
+ * current packet. With a caller supplied ByteBuffer the commands are written at its
+ * position (BufferOverflowException when it is full); otherwise packets of
+ * payloadSize bytes are collected and returned by {@link #finish()}, one byte[] per
+ * GATT write. Commands that are not 16 bytes long (notifications, clock data) are
+ * written on their own. Not thread safe.
+ */
+
+public class CommandEncoder {
+    public static final int COMMAND_LENGTH = 16;
+    /**
+     * 默认MTU 23 减去ATT头3字节，一次只能写一条指令
+     */
+    public static final int DEFAULT_PAYLOAD = 20;
+
+    private final byte[] command = new byte[COMMAND_LENGTH];
+    private final FrameDispatcher dispatcher;
+    private final ByteBuffer packet;
+    private final boolean pooled;
+    private final List<byte[]> writes = new ArrayList<>();
+    private TimeZone timeZone = TimeZone.getDefault();
+
+    /**
+     * @param payloadSize 一次写入的最大字节数 (MTU - 3)
+     * @param dispatcher  登记历史数据读取等指令的应答解析，可以为null
+     */
+    public CommandEncoder(int payloadSize, FrameDispatcher dispatcher) {
+        int commands = Math.max(1, payloadSize / COMMAND_LENGTH);
+        this.packet = ByteBuffer.allocate(commands * COMMAND_LENGTH);
+        this.pooled = true;
+        this.dispatcher = dispatcher;
+    }
+
+    public CommandEncoder(ByteBuffer out, FrameDispatcher dispatcher) {
+        this.packet = out;
+        this.pooled = false;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * 设置时间和读取历史数据时使用的时区，默认为系统时区
+     */
+    public CommandEncoder setTimeZone(TimeZone timeZone) {
+        this.timeZone = timeZone;
+        return this;
+    }
+
+    public CommandEncoder setDeviceTime(long epochMillis) {
+        int offset = timeZone.getOffset(epochMillis);
+        int hours = offset / (3600 * 1000);
+        byte[] value = begin(DeviceConst.CMD_SET_TIME);
+        ByteCodec.writeBcdDateTime(value, 1, epochMillis, offset);
+        value[8] = (byte) (hours < 0 ? -hours : 0x80 + hours);
+        return end();
+    }
+
+    public CommandEncoder getDeviceTime() {
+        return simple(DeviceConst.CMD_GET_TIME);
+    }
+
+    /**
+     * @param sex 0女 1男
+     */
+    public CommandEncoder setPersonalInfo(int sex, int age, int height, int weight, int stepLength) {
+        byte[] value = begin(DeviceConst.CMD_Set_UseInfo);
+        value[1] = (byte) sex;
+        value[2] = (byte) age;
+        value[3] = (byte) height;
+        value[4] = (byte) weight;
+        value[5] = (byte) stepLength;
+        return end();
+    }
+
+    public CommandEncoder getPersonalInfo() {
+        return simple(DeviceConst.CMD_GET_USERINFO);
+    }
+
+    public CommandEncoder setStepGoal(int stepGoal) {
+        byte[] value = begin(DeviceConst.CMD_Set_Goal);
+        value[1] = (byte) stepGoal;
+        value[2] = (byte) (stepGoal >> 8);
+        value[3] = (byte) (stepGoal >> 16);
+        value[4] = (byte) (stepGoal >> 24);
+        return end();
+    }
+
+    public CommandEncoder getStepGoal() {
+        return simple(DeviceConst.CMD_Get_Goal);
+    }
+
+    public CommandEncoder getDeviceInfo() {
+        return simple(DeviceConst.CMD_Get_DeviceInfo);
+    }
+
+    public CommandEncoder getDeviceBatteryLevel() {
+        return simple(DeviceConst.CMD_Get_BatteryLevel);
+    }
+
+    public CommandEncoder disableAncs() {
+        byte[] value = begin(DeviceConst.CMD_Set_DeviceInfo);
+        value[6] = (byte) 0x80;
+        return end();
+    }
+
+    /**
+     * 读取历史数据，与BleSDK的GetXxxDataWithMode相同
+     *
+     * @param cmd        DeviceConst中的历史数据命令字
+     * @param mode       0读最近的数据 2继续读 0x99删除
+     * @param sinceMillis 上次读到的数据时间，小于等于0时不填
+     */
+    public CommandEncoder readHistory(byte cmd, byte mode, long sinceMillis) {
+        byte[] value = begin(cmd);
+        value[1] = mode;
+        if (sinceMillis > 0) {
+            ByteCodec.writeBcdDateTime(value, 4, sinceMillis, timeZone.getOffset(sinceMillis));
+        }
+        return end();
+    }
+
+    /**
+     * 只有命令字的指令
+     */
+    public CommandEncoder simple(byte cmd) {
+        begin(cmd);
+        return end();
+    }
+
+    /**
+     * 添加BleSDK生成的指令，应答解析已在生成时登记
+     */
+    public CommandEncoder add(byte[] value) {
+        if (value.length != COMMAND_LENGTH) {
+            flush();
+            if (!pooled) {
+                packet.put(value);
+            } else {
+                writes.add(value);
+            }
+            return this;
+        }
+        append(value);
+        return this;
+    }
+
+    /**
+     * @return 待写入的数据，每个byte[]为一次写入；使用调用方的ByteBuffer时为空
+     */
+    public List<byte[]> finish() {
+        flush();
+        List<byte[]> result = new ArrayList<>(writes);
+        writes.clear();
+        return result;
+    }
+
+    /**
+     * 每16字节校验都正确时认为是合并的指令
+     */
+    public static boolean isPacked(byte[] value) {
+        int length = value.length;
+        if (length <= COMMAND_LENGTH || length % COMMAND_LENGTH != 0) return false;
+        for (int offset = 0; offset < length; offset += COMMAND_LENGTH) {
+            byte crc = 0;
+            for (int i = offset; i < offset + COMMAND_LENGTH - 1; i++) {
+                crc += value[i];
+            }
+            if (value[offset + COMMAND_LENGTH - 1] != crc) return false;
+        }
+        return true;
+    }
+
+    private byte[] begin(byte cmd) {
+        byte[] value = command;
+        value[0] = cmd;
+        for (int i = 1; i < COMMAND_LENGTH; i++) {
+            value[i] = 0;
+        }
+        return value;
+    }
+
+    private CommandEncoder end() {
+        byte[] value = command;
+        byte crc = 0;
+        for (int i = 0; i < COMMAND_LENGTH - 1; i++) {
+            crc += value[i];
+        }
+        value[COMMAND_LENGTH - 1] = crc;
+        if (dispatcher != null) dispatcher.onCommand(value);
+        append(value);
+        return this;
+    }
+
+    private void append(byte[] value) {
+        if (pooled && packet.remaining() < COMMAND_LENGTH) flush();
+        packet.put(value, 0, COMMAND_LENGTH);
+    }
+
+    private void flush() {
+        if (!pooled || packet.position() == 0) return;
+        byte[] write = new byte[packet.position()];
+        packet.flip();
+        packet.get(write);
+        packet.clear();
+        writes.add(write);
+    }
+}
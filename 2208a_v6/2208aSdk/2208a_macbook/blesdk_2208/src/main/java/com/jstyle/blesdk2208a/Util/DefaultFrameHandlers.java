@@ -0,0 +1,699 @@
+package com.jstyle.blesdk2208a.Util;
+
+import com.jstyle.blesdk2208a.callback.DataListener2025;
+import com.jstyle.blesdk2208a.callback.FrameHandler;
+import com.jstyle.blesdk2208a.callback.RequestBinder;
+import com.jstyle.blesdk2208a.constant.BleConst;
+import com.jstyle.blesdk2208a.constant.DeviceConst;
+import com.jstyle.blesdk2208a.constant.DeviceKey;
+
+import java.text.NumberFormat;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.jstyle.blesdk2208a.Util.ResolveUtil.bcd2String;
+import static com.jstyle.blesdk2208a.Util.ResolveUtil.getFloat;
+import static com.jstyle.blesdk2208a.Util.ResolveUtil.getNumberFormat;
+import static com.jstyle.blesdk2208a.Util.ResolveUtil.getValue;
+
+/**
+ * FrameDispatcher的默认解析表和请求登记
+ * Default handler table and request binders of FrameDispatcher, one entry per
+ * command byte. What used to be decided by static flags in BleSDK is now decided
+ * by the binder from the bytes of the outgoing command.
+ */
+
+final class DefaultFrameHandlers {
+
+    private DefaultFrameHandlers() {
+    }
+
+    static void install(FrameDispatcher dispatcher) {
+        dispatcher.setHandler(DeviceConst.CMD_Set_Goal, new Success(BleConst.SetStepGoal));
+        dispatcher.setHandler(DeviceConst.CMD_Set_UseInfo, new Success(BleConst.SetPersonalInfo));
+        dispatcher.setHandler(DeviceConst.CMD_Set_MOT_SIGN, new Success(BleConst.SetMotorVibrationWithTimes));
+        dispatcher.setHandler(DeviceConst.CMD_Set_DeviceInfo, new Success(BleConst.SetDeviceInfo));
+        dispatcher.setRequestBinder(DeviceConst.CMD_Set_DeviceInfo, new RequestBinder() {
+            @Override
+            public void bind(byte[] command, FrameDispatcher dispatcher) {
+                //只设置表盘时 value[1]为0，value[12]为表盘序号
+                boolean dial = command.length > 12 && command[1] == 0 && command[12] != 0;
+                dispatcher.expect(DeviceConst.CMD_Set_DeviceInfo, dial ? new Success(BleConst.SetDialinterface) : null);
+            }
+        });
+        dispatcher.setHandler(DeviceConst.CMD_Set_Auto, new Success(BleConst.SetAutomatic));
+        dispatcher.setHandler(DeviceConst.CMD_Set_ActivityAlarm, new Success(BleConst.SetSedentaryReminder));
+        dispatcher.setHandler(DeviceConst.CMD_Set_DeviceID, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.setMacSuccessful());
+            }
+        });
+        dispatcher.setHandler(DeviceConst.CMD_Start_EXERCISE, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                Map<String, Object> mapEXERCISE = new HashMap<>();
+                mapEXERCISE.put(DeviceKey.DataType, BleConst.EnterActivityMode);
+                mapEXERCISE.put(DeviceKey.End, true);
+                Map<String, String> mapsx = new HashMap<>();
+                mapsx.put(DeviceKey.enterActivityModeSuccess, ResolveUtil.getValue(value[1], 0) + "");
+                mapEXERCISE.put(DeviceKey.Data, mapsx);
+                dataListener.dataCallback(mapEXERCISE);
+            }
+        });
+        dispatcher.setHandler(DeviceConst.CMD_Set_TemperatureCorrection, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                if (value[2] != 0 && value[3] != 0) {
+                    dataListener.dataCallback(ResolveUtil.GetTemperatureCorrectionValue(value));
+                }
+            }
+        });
+        dispatcher.setHandler(DeviceConst.CMD_HeartPackageFromDevice, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getActivityExerciseData(value));
+            }
+        });
+        dispatcher.setHandler(DeviceConst.CMD_SET_TIME, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.setTimeSuccessful(value));
+            }
+        });
+        dispatcher.setHandler(DeviceConst.Enter_photo_mode, new Success(BleConst.Enter_photo_mode));
+        dispatcher.setHandler(DeviceConst.CMD_GET_TIME, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getDeviceTime(value));
+            }
+        });
+        dispatcher.setHandler(DeviceConst.CMD_GET_USERINFO, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getUserInfo(value));
+            }
+        });
+        dispatcher.setHandler(DeviceConst.CMD_Get_DeviceInfo, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getDeviceInfo(value));
+                dataListener.dataCallback(value);
+            }
+        });
+        dispatcher.setHandler(DeviceConst.CMD_Enable_Activity, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getActivityData(value));
+            }
+        });
+        dispatcher.setHandler(DeviceConst.CMD_Get_Goal, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getGoal(value));
+            }
+        });
+        dispatcher.setHandler(DeviceConst.CMD_Get_BatteryLevel, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getDeviceBattery(value));
+            }
+        });
+        dispatcher.setHandler(DeviceConst.CMD_Get_Address, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getDeviceAddress(value));
+            }
+        });
+        dispatcher.setHandler(DeviceConst.CMD_Get_Version, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getDeviceVersion(value));
+            }
+        });
+        dispatcher.setHandler(DeviceConst.CMD_Get_Name, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getDeviceName(value));
+            }
+        });
+        dispatcher.setHandler(DeviceConst.CMD_Get_Auto, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getAutoHeart(value));
+            }
+        });
+        dispatcher.setHandler(DeviceConst.CMD_Reset, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.Reset());
+            }
+        });
+        dispatcher.setHandler(DeviceConst.CMD_Mcu_Reset, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.MCUReset());
+            }
+        });
+        dispatcher.setHandler(DeviceConst.CMD_Notify, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.Notify());
+            }
+        });
+        dispatcher.setHandler(DeviceConst.CMD_Get_ActivityAlarm, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getActivityAlarm(value));
+            }
+        });
+
+        //历史数据，命令的value[1]为0x99时应答是删除结果
+        dispatcher.setHandler(DeviceConst.CMD_Get_TotalData, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getTotalStepData(value));
+            }
+        });
+        dispatcher.setRequestBinder(DeviceConst.CMD_Get_TotalData, new DeleteBinder(new Success(BleConst.Delete_GetTotalActivityData)));
+        dispatcher.setHandler(DeviceConst.CMD_Get_DetailData, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getDetailData(value));
+            }
+        });
+        dispatcher.setRequestBinder(DeviceConst.CMD_Get_DetailData, new DeleteBinder(new Success(BleConst.deleteGetDetailActivityDataWithMode)));
+        dispatcher.setHandler(DeviceConst.CMD_Get_SleepData, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getSleepData(value));
+            }
+        });
+        dispatcher.setRequestBinder(DeviceConst.CMD_Get_SleepData, new DeleteBinder(new Success(BleConst.Delete_GetDetailSleepData)));
+        dispatcher.setHandler(DeviceConst.CMD_Get_HeartData, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getHeartData(value));
+            }
+        });
+        dispatcher.setRequestBinder(DeviceConst.CMD_Get_HeartData, new DeleteBinder(new Success(BleConst.Delete_GetDynamicHR)));
+        dispatcher.setHandler(DeviceConst.CMD_Get_OnceHeartData, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getOnceHeartData(value));
+            }
+        });
+        dispatcher.setRequestBinder(DeviceConst.CMD_Get_OnceHeartData, new DeleteBinder(new Success(BleConst.Delete_GetStaticHR)));
+        dispatcher.setHandler(DeviceConst.CMD_Get_HrvTestData, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getHrvTestData(value));
+            }
+        });
+        bindDeleteByDefault(dispatcher, DeviceConst.CMD_Get_HrvTestData, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.DeleteHrv());
+            }
+        });
+        dispatcher.setHandler(DeviceConst.CMD_Get_Clock, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getClockData(value));
+            }
+        });
+        dispatcher.setRequestBinder(DeviceConst.CMD_Get_Clock, new DeleteBinder(new Success(BleConst.Delete_AlarmClock)));
+        dispatcher.setHandler(DeviceConst.CMD_Get_SPORTData, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getExerciseData(value));
+            }
+        });
+        dispatcher.setRequestBinder(DeviceConst.CMD_Get_SPORTData, new DeleteBinder(new Success(BleConst.Delete_ActivityModeData)));
+        dispatcher.setHandler(DeviceConst.CMD_Get_Blood_oxygen, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getBloodoxygen(value));
+            }
+        });
+        dispatcher.setRequestBinder(DeviceConst.CMD_Get_Blood_oxygen, new DeleteBinder(new Success(BleConst.Delete_Blood_oxygen)));
+        dispatcher.setHandler(DeviceConst.GetAutomaticSpo2Monitoring, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.GetAutomaticSpo2Monitoring(value));
+            }
+        });
+        dispatcher.setRequestBinder(DeviceConst.GetAutomaticSpo2Monitoring, new DeleteBinder(new Success(BleConst.Delete_Obtain_The_data_of_manual_blood_oxygen_test)));
+        dispatcher.setHandler(DeviceConst.Temperature_history, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getTempData(value));
+            }
+        });
+        dispatcher.setRequestBinder(DeviceConst.Temperature_history, new DeleteBinder(new Success(BleConst.deleteGetTemperature_historyDataWithMode)));
+        dispatcher.setHandler(DeviceConst.GetAxillaryTemperatureDataWithMode, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getTempDataer(value));
+            }
+        });
+        dispatcher.setRequestBinder(DeviceConst.GetAxillaryTemperatureDataWithMode, new DeleteBinder(new Success(BleConst.deleteGetAxillaryTemperatureDataWithMode)));
+        dispatcher.setHandler(DeviceConst.GetECGwaveform, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getEcgHistoryData(value));
+            }
+        });
+        bindDeleteByDefault(dispatcher, DeviceConst.GetECGwaveform, new Success(BleConst.DeleteECGdata));
+        dispatcher.setHandler(DeviceConst.CMD_Get_GPSDATA, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getHistoryGpsData(value));
+            }
+        });
+
+        dispatcher.setHandler(DeviceConst.CMD_Set_Clock, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.updateClockSuccessful(value));
+            }
+        });
+        dispatcher.setHandler(DeviceConst.CMD_Set_HeartbeatPackets, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                Map<String, Object> maps = new HashMap<>();
+                Map<String, String> mapb = new HashMap<>();
+                mapb.put(DeviceKey.Type, value[1] == 0 ? DeviceKey.Manual : DeviceKey.automatic);
+                maps.put(DeviceKey.Data, mapb);
+                maps.put(DeviceKey.DataType, BleConst.HeartBeatpacket);
+                maps.put(DeviceKey.End, true);
+                dataListener.dataCallback(maps);
+            }
+        });
+        dispatcher.setHandler(DeviceConst.Enter_photo_modeback, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                Map<String, Object> mapdd = new HashMap<>();
+                Map<String, String> mapbb = new HashMap<>();
+                switch (value[1]) {
+                    case 1:
+                        mapbb.put(DeviceKey.type, value[2] == 0 ? DeviceKey.HangUp : DeviceKey.Telephone);
+                        break;
+                    case 2:
+                        if (value[2] == 0) {
+                            mapbb.put(DeviceKey.type, DeviceKey.Photograph);
+                        } else {
+                            mapbb.put(DeviceKey.type, DeviceKey.CanclePhotograph);
+                        }
+                        break;
+                    case 3:
+                        switch (value[2]) {
+                            case 0:
+                                mapbb.put(DeviceKey.type, DeviceKey.Suspend);
+                                break;
+                            case 1:
+                                mapbb.put(DeviceKey.type, DeviceKey.Play);
+                                break;
+                            case 2:
+                                mapbb.put(DeviceKey.type, DeviceKey.LastSong);
+                                break;
+                            case 3:
+                                mapbb.put(DeviceKey.type, DeviceKey.NextSong);
+                                break;
+                            case 4:
+                                mapbb.put(DeviceKey.type, DeviceKey.VolumeReduction);
+                                break;
+                            case 5:
+                                mapbb.put(DeviceKey.type, DeviceKey.VolumeUp);
+                                break;
+                        }
+                        break;
+                    case 4:
+                        switch (value[2]) {
+                            case 1:
+                                mapbb.put(DeviceKey.type, DeviceKey.FindYourPhone);
+                                break;
+                            case 2:
+                                mapbb.put(DeviceKey.type, DeviceKey.Cancle_FindPhone);
+                                break;
+                        }
+                        break;
+                    case ((byte) 0XFE):
+                        mapbb.put(DeviceKey.type, DeviceKey.SOS);
+                        break;
+                }
+                mapdd.put(DeviceKey.Data, mapbb);
+                mapdd.put(DeviceKey.DataType, BleConst.DeviceSendDataToAPP);
+                mapdd.put(DeviceKey.End, true);
+                dataListener.dataCallback(mapdd);
+            }
+        });
+        dispatcher.setHandler(DeviceConst.Exit_photo_mode, new Success(BleConst.BackHomeView));
+        dispatcher.setHandler(DeviceConst.CMD_ECGQuality, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                Map<String, Object> bn = new HashMap<>();
+                Map<String, String> ccc = new HashMap<>();
+                ccc.put(DeviceKey.heartValue, getValue(value[1], 0) + "");
+                ccc.put(DeviceKey.hrvValue, getValue(value[2], 0) + "");
+                ccc.put(DeviceKey.Quality, getValue(value[3], 0) + "");
+                bn.put(DeviceKey.DataType, BleConst.EcgppG);
+                bn.put(DeviceKey.End, true);
+                bn.put(DeviceKey.Data, ccc);
+                dataListener.dataCallback(bn);
+            }
+        });
+        FrameHandler raw = new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(value);
+            }
+        };
+        dispatcher.setHandler(DeviceConst.CMD_ECGDATA, raw);
+        dispatcher.setHandler(DeviceConst.CMD_PPGGDATA, raw);
+        dispatcher.setHandler(DeviceConst.GetEcgPpgStatus, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.GetEcgPpgStatus(value));
+            }
+        });
+
+        //ECG测量：level不为0时，之后的0x99数据是心电数据
+        dispatcher.setHandler(DeviceConst.Openecg, new Success(BleConst.ECG));
+        dispatcher.setRequestBinder(DeviceConst.Openecg, new RequestBinder() {
+            @Override
+            public void bind(byte[] command, FrameDispatcher dispatcher) {
+                dispatcher.expect(DeviceConst.Openecg, command[1] != 0 ? ECG_DATA : null);
+            }
+        });
+        dispatcher.setHandler(DeviceConst.Closeecg, new Success(BleConst.CloseECGPPG));
+        dispatcher.setHandler(DeviceConst.Weather, new Success(BleConst.Weather));
+
+        //表盘：value[2]为1是读取，否则是设置
+        dispatcher.setHandler(DeviceConst.Braceletdial, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                Map<String, Object> lll = new HashMap<>();
+                Map<String, String> lm = new HashMap<>();
+                lm.put(DeviceKey.index, value[1] + "");
+                lll.put(DeviceKey.DataType, BleConst.Braceletdialok);
+                lll.put(DeviceKey.End, true);
+                lll.put(DeviceKey.Data, lm);
+                dataListener.dataCallback(lll);
+            }
+        });
+        dispatcher.setRequestBinder(DeviceConst.Braceletdial, new RequestBinder() {
+            @Override
+            public void bind(byte[] command, FrameDispatcher dispatcher) {
+                dispatcher.expect(DeviceConst.Braceletdial, command[2] == 1 ? null : new Success(BleConst.Braceletdial));
+            }
+        });
+        dispatcher.setHandler(DeviceConst.SportMode, new Success(BleConst.SportMode));
+        dispatcher.setHandler(DeviceConst.GetSportMode, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                Map<String, Object> nnn = new HashMap<>();
+                nnn.put(DeviceKey.DataType, BleConst.GetSportMode);
+                nnn.put(DeviceKey.End, true);
+                StringBuffer workOutType = new StringBuffer();
+                int length = getValue(value[1], 0);
+                for (int i = 0; i < length; i++) {//workoutType里没有呼吸模式选项
+                    int selected = getValue(value[i + 2], 0);
+                    workOutType.append(selected).append(",");
+                }
+                nnn.put(DeviceKey.Data, workOutType.toString());
+                dataListener.dataCallback(nnn);
+            }
+        });
+
+        //测量：value[2]为1开始测量，HRV测量时value[3]/value[4]控制PPG(0x9B)/PPI(0x3A)数据
+        dispatcher.setHandler(DeviceConst.MeasurementWithType, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                switch (value[1]) {
+                    case 1://hrv
+                        dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.StopMeasurementHrvCallback));
+                        break;
+                    case 2://heart
+                        dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.StopMeasurementHeartCallback));
+                        break;
+                    case 3://0xy
+                        dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.StopMeasurementOxygenCallback));
+                        break;
+                }
+            }
+        });
+        dispatcher.setRequestBinder(DeviceConst.MeasurementWithType, new RequestBinder() {
+            @Override
+            public void bind(byte[] command, FrameDispatcher dispatcher) {
+                dispatcher.expect(DeviceConst.MeasurementWithType, command[2] != 0 ? MEASUREMENT_DATA : null);
+                //StartDeviceMeasurementWithHrv，value[4]/value[5]不是测量时间
+                if (command[1] == 1 && command[5] == 0 && (command[3] & 0xfe) == 0 && (command[4] & 0xfe) == 0) {
+                    dispatcher.expect(DeviceConst.openRRIntervalTime, command[3] == 1 ? REALTIME_PPG : null);
+                    dispatcher.expect(DeviceConst.openPPG, command[4] == 1 ? REALTIME_PPI : null);
+                }
+            }
+        });
+        dispatcher.setHandler(DeviceConst.GPSControlCommand, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                Map<String, Object> GPSControlCommand = new HashMap<>();
+                GPSControlCommand.put(DeviceKey.DataType, BleConst.GPSControlCommand);
+                GPSControlCommand.put(DeviceKey.End, true);
+
+                Map<String, String> hashMap = new HashMap<>();
+                String date = "20" + bcd2String(value[1]) + "-"
+                        + bcd2String(value[2]) + "-" + bcd2String(value[3]) + " "
+                        + bcd2String(value[4]) + ":" + bcd2String(value[5]) + ":" + bcd2String(value[6]);
+                byte[] valueLatitude = new byte[4];
+                byte[] valueLongitude = new byte[4];
+                for (int j = 0; j < 4; j++) {
+                    valueLatitude[3 - j] = value[9 + j];
+                    valueLongitude[3 - j] = value[14 + j];
+                }
+                String Latitude = String.valueOf(getFloat(valueLatitude, 0));
+                String Longitude = String.valueOf(getFloat(valueLongitude, 0));
+                int count = getValue(value[18], 0);
+                hashMap.put(DeviceKey.KActivityLocationTime, date);
+                hashMap.put(DeviceKey.KActivityLocationLatitude, Latitude);
+                hashMap.put(DeviceKey.KActivityLocationLongitude, Longitude);
+                hashMap.put(DeviceKey.KActivityLocationCount, String.valueOf(count));
+                GPSControlCommand.put(DeviceKey.Data, hashMap.toString());
+                dataListener.dataCallback(GPSControlCommand);
+            }
+        });
+        dispatcher.setHandler(DeviceConst.Clear_Bracelet_data, new Success(BleConst.Clear_Bracelet_data));
+
+        //社交距离：value[1]为1是设置，0是读取
+        dispatcher.setHandler(DeviceConst.CMD_SET_SOCIAL, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                Map<String, Object> mapsa = new HashMap<>();
+                mapsa.put(DeviceKey.DataType, BleConst.SocialdistanceGetting);
+                mapsa.put(DeviceKey.End, true);
+                Map<String, String> mapll = new HashMap<>();
+                int interval = ResolveUtil.getValue(value[2], 0);
+                int duration = ResolveUtil.getValue(value[3], 0);
+                mapll.put(DeviceKey.scanInterval, interval + "");
+                mapll.put(DeviceKey.scanTime, duration + "");
+                mapll.put(DeviceKey.signalStrength, value[4] + "");
+                mapsa.put(DeviceKey.Data, mapll);
+                dataListener.dataCallback(mapsa);
+            }
+        });
+        dispatcher.setRequestBinder(DeviceConst.CMD_SET_SOCIAL, new RequestBinder() {
+            @Override
+            public void bind(byte[] command, FrameDispatcher dispatcher) {
+                dispatcher.expect(DeviceConst.CMD_SET_SOCIAL, command[1] == 1 ? new Success(BleConst.SocialdistanceSetting) : null);
+            }
+        });
+        dispatcher.setHandler(DeviceConst.Sos, new Success(BleConst.Sos));
+        dispatcher.setHandler(DeviceConst.Get3D, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.get3d(value));
+            }
+        });
+        dispatcher.setHandler(DeviceConst.PPG, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getPPG(value));
+            }
+        });
+
+        //二维码：0x80锁屏、0x82回到主界面后应答为EnterQRcode，0x81解锁后按设备数据解析
+        dispatcher.setHandler(DeviceConst.Qrcode, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                if ((byte) 0x80 == value[1] || (byte) 0x81 == value[1]) {
+                    Map<String, Object> qr = new HashMap<>();
+                    qr.put(DeviceKey.DataType, BleConst.QRcodebandBack);
+                    qr.put(DeviceKey.End, true);
+                    Map<String, String> mapll = new HashMap<>();
+                    mapll.put(DeviceKey.Band, ((byte) 0x81 == value[1]) ? 1 + "" : 0 + "");
+                    qr.put(DeviceKey.Data, mapll);
+                    dataListener.dataCallback(qr);
+                } else {
+                    dataListener.dataCallback(ResolveUtil.setMethodSuccessful(BleConst.ExitQRcode));
+                }
+            }
+        });
+        dispatcher.setRequestBinder(DeviceConst.Qrcode, new RequestBinder() {
+            @Override
+            public void bind(byte[] command, FrameDispatcher dispatcher) {
+                dispatcher.expect(DeviceConst.Qrcode, command[1] == (byte) 0x81 ? null : new Success(BleConst.EnterQRcode));
+            }
+        });
+
+        //自动血氧：value[1]为1是设置，0是读取
+        dispatcher.setHandler(DeviceConst.spo2, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.getSpo2(value));
+            }
+        });
+        dispatcher.setRequestBinder(DeviceConst.spo2, new RequestBinder() {
+            @Override
+            public void bind(byte[] command, FrameDispatcher dispatcher) {
+                dispatcher.expect(DeviceConst.spo2, command[1] == 1 ? new Success(BleConst.SetSpo2) : null);
+            }
+        });
+
+        //PPG传感器：打开后的0x3B数据由上层处理，关闭时应答ClosePPGSensor
+        dispatcher.setHandler(DeviceConst.PPGSensor, new Success(BleConst.ClosePPGSensor));
+        dispatcher.setRequestBinder(DeviceConst.PPGSensor, new RequestBinder() {
+            @Override
+            public void bind(byte[] command, FrameDispatcher dispatcher) {
+                dispatcher.expect(DeviceConst.PPGSensor, command[1] != 0 ? IGNORE : null);
+            }
+        });
+        dispatcher.setHandler(DeviceConst.SetBloodpressure_calibration, new Success(BleConst.SetBloodpressure_calibration));
+        dispatcher.setHandler(DeviceConst.ReadBloodpressure_calibration, new FrameHandler() {
+            @Override
+            public void handle(byte[] value, DataListener2025 dataListener) {
+                dataListener.dataCallback(ResolveUtil.ReadOxy(value));
+            }
+        });
+    }
+
+    /**
+     * 只返回数据类型的应答
+     */
+    static class Success implements FrameHandler {
+        private final String dataType;
+
+        Success(String dataType) {
+            this.dataType = dataType;
+        }
+
+        @Override
+        public void handle(byte[] value, DataListener2025 dataListener) {
+            dataListener.dataCallback(ResolveUtil.setMethodSuccessful(dataType));
+        }
+    }
+
+    /**
+     * 0x56和0x71原来在没有发过读取命令时按删除应答解析，保持这个默认
+     */
+    private static void bindDeleteByDefault(FrameDispatcher dispatcher, byte cmd, FrameHandler deleteHandler) {
+        dispatcher.setRequestBinder(cmd, new DeleteBinder(deleteHandler));
+        dispatcher.expect(cmd, deleteHandler);
+    }
+
+    /**
+     * 历史数据命令：mode为0x99时期望删除应答，否则按默认解析
+     */
+    static class DeleteBinder implements RequestBinder {
+        private final FrameHandler deleteHandler;
+
+        DeleteBinder(FrameHandler deleteHandler) {
+            this.deleteHandler = deleteHandler;
+        }
+
+        @Override
+        public void bind(byte[] command, FrameDispatcher dispatcher) {
+            dispatcher.expect(command[0], command[1] == (byte) 0x99 ? deleteHandler : null);
+        }
+    }
+
+    private static final FrameHandler IGNORE = new FrameHandler() {
+        @Override
+        public void handle(byte[] value, DataListener2025 dataListener) {
+        }
+    };
+
+    private static final FrameHandler ECG_DATA = new FrameHandler() {
+        @Override
+        public void handle(byte[] value, DataListener2025 dataListener) {
+            if (16 <= value.length) {
+                dataListener.dataCallback(ResolveUtil.ecgData(value));
+            }
+        }
+    };
+
+    private static final FrameHandler REALTIME_PPG = new FrameHandler() {
+        @Override
+        public void handle(byte[] value, DataListener2025 dataListener) {
+            Map<String, Object> vv = new HashMap<>();
+            vv.put(DeviceKey.DataType, BleConst.realtimePPGData);
+            vv.put(DeviceKey.End, false);
+            Map<String, String> lm = new HashMap<>();
+            int ppi = getValue(value[1], 0) + getValue(value[2], 1);
+            lm.put(DeviceKey.KPPIData, ppi + "");
+            vv.put(DeviceKey.Data, lm);
+            dataListener.dataCallback(vv);
+        }
+    };
+
+    private static final FrameHandler REALTIME_PPI = new FrameHandler() {
+        @Override
+        public void handle(byte[] value, DataListener2025 dataListener) {
+            Map<String, Object> vv = new HashMap<>();
+            vv.put(DeviceKey.DataType, BleConst.realtimePPIData);
+            vv.put(DeviceKey.End, false);
+            Map<String, String> lm = new HashMap<>();
+            String ecgData = ResolveUtil.getDoublePPGData(value, 3);
+            lm.put(DeviceKey.KPPGData, ecgData);
+            vv.put(DeviceKey.Data, lm);
+            dataListener.dataCallback(vv);
+        }
+    };
+
+    private static final FrameHandler MEASUREMENT_DATA = new FrameHandler() {
+        @Override
+        public void handle(byte[] value, DataListener2025 dataListener) {
+            switch (value[1]) {
+                case 1://hrv
+                    dataListener.dataCallback(getMeasurementData(BleConst.MeasurementHrvCallback, value));
+                    break;
+                case 2://heart
+                    dataListener.dataCallback(getMeasurementData(BleConst.MeasurementHeartCallback, value));
+                    break;
+                case 3://0xy
+                    dataListener.dataCallback(getMeasurementData(BleConst.MeasurementOxygenCallback, value));
+                    break;
+                case 4://temperature
+                    dataListener.dataCallback(getMeasurementData(BleConst.MeasurementTemperatureCallback, value));
+                    break;
+            }
+        }
+    };
+
+    private static Map<String, Object> getMeasurementData(String dataType, byte[] value) {
+        Map<String, Object> vv = new HashMap<>();
+        vv.put(DeviceKey.DataType, dataType);
+        vv.put(DeviceKey.End, true);
+        Map<String, String> lmaa = new HashMap<>();
+        lmaa.put(DeviceKey.HeartRate, getValue(value[2], 0) + "");
+        lmaa.put(DeviceKey.Blood_oxygen, getValue(value[3], 0) + "");
+        lmaa.put(DeviceKey.HRV, getValue(value[4], 0) + "");
+        lmaa.put(DeviceKey.Stress, getValue(value[5], 0) + "");
+        lmaa.put(DeviceKey.HighPressure, getValue(value[6], 0) + "");
+        lmaa.put(DeviceKey.LowPressure, getValue(value[7], 0) + "");
+        int temp = getValue(value[8], 0) + getValue(value[9], 1);
+        NumberFormat numberFormat = getNumberFormat(1);
+        lmaa.put(DeviceKey.KHrvTempValue, numberFormat.format(temp * 0.1f));
+        vv.put(DeviceKey.Data, lmaa);
+        return vv;
+    }
+}
@@ -0,0 +1,128 @@
+package com.jstyle.blesdk2208a.Util;
+
+/**
+ * 多通道IIR滤波器，每个数据流一个实例
+ * Direct form I filter with the same coefficients on every channel and separate
+ * state per channel. a[0] must be 1. The block methods filter a whole
+ * notification's samples in one loop; the arithmetic is the same as the old
+ * ResolveUtil filters, so the output is identical. Not thread safe and not
+ * synchronized, use one instance per stream.
+ */
+
+public class FilterBank {
+    /**
+     * PPG带通滤波，原ResolveUtil.getPPGData
+     */
+    private static final double[] PPG_B = {0.00328228225341328, 0.0, -0.00656456450682656, 0.0, 0.00328228225341328};
+    private static final double[] PPG_A = {1.0000, -3.830010133770384, 5.50479722355253, -3.51944010291030, 0.844653587365286};
+    /**
+     * ECG带通滤波，原ResolveUtil.filterEcgData，输入先换算为 data * 18.3 / 128 + 0.06
+     */
+    private static final double[] ECG_B = {0.012493658738073, 0, -0.024987317476146, 0, 0.012493658738073};
+    private static final double[] ECG_A = {1, -3.658469528008591, 5.026987876570873, -3.078346646055655, 0.709828779797188};
+
+    private final double[] b;
+    private final double[] a;
+    private final int order;
+    private final int channels;
+    /**
+     * 每个通道order个历史值，x[channel * order]为最近的一个
+     */
+    private final double[] x;
+    private final double[] y;
+    private double inputMultiplier = 1;
+    private double inputDivisor = 1;
+    private double inputOffset;
+    private boolean scaled;
+
+    public FilterBank(double[] b, double[] a, int channels) {
+        if (b.length != a.length) throw new IllegalArgumentException("b and a must have the same length");
+        this.b = b.clone();
+        this.a = a.clone();
+        this.order = b.length - 1;
+        this.channels = channels;
+        this.x = new double[channels * order];
+        this.y = new double[channels * order];
+    }
+
+    public static FilterBank newPpgFilter(int channels) {
+        return new FilterBank(PPG_B, PPG_A, channels);
+    }
+
+    public static FilterBank newEcgFilter(int channels) {
+        FilterBank filterBank = new FilterBank(ECG_B, ECG_A, channels);
+        filterBank.setInputScale(18.3, 128, 0.06);
+        return filterBank;
+    }
+
+    /**
+     * 输入先换算为 sample * multiplier / divisor + offset 再滤波
+     */
+    public void setInputScale(double multiplier, double divisor, double offset) {
+        this.inputMultiplier = multiplier;
+        this.inputDivisor = divisor;
+        this.inputOffset = offset;
+        this.scaled = multiplier != 1 || divisor != 1 || offset != 0;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    public void reset() {
+        for (int i = 0; i < x.length; i++) {
+            x[i] = 0;
+            y[i] = 0;
+        }
+    }
+
+    public float process(int channel, double sample) {
+        return (float) filter(channel, sample);
+    }
+
+    public void process(float[] in, float[] out, int n) {
+        process(0, in, 0, out, 0, n);
+    }
+
+    public void process(int channel, float[] in, int inOffset, float[] out, int outOffset, int n) {
+        for (int i = 0; i < n; i++) {
+            out[outOffset + i] = (float) filter(channel, in[inOffset + i]);
+        }
+    }
+
+    /**
+     * 原始整数采样 (如RawSensorBatch的PPG通道) 直接滤波
+     */
+    public void process(int channel, int[] in, int inOffset, float[] out, int outOffset, int n) {
+        for (int i = 0; i < n; i++) {
+            out[outOffset + i] = (float) filter(channel, in[inOffset + i]);
+        }
+    }
+
+    /**
+     * 单个采样，不转换为float
+     */
+    public double filter(int channel, double sample) {
+        double[] x = this.x;
+        double[] y = this.y;
+        double[] b = this.b;
+        double[] a = this.a;
+        int order = this.order;
+        int base = channel * order;
+        double input = scaled ? sample * inputMultiplier / inputDivisor + inputOffset : sample;
+        double output = b[0] * input;
+        for (int k = 1; k <= order; k++) {
+            output += b[k] * x[base + k - 1];
+        }
+        for (int k = 1; k <= order; k++) {
+            output -= a[k] * y[base + k - 1];
+        }
+        for (int k = order - 1; k > 0; k--) {
+            x[base + k] = x[base + k - 1];
+            y[base + k] = y[base + k - 1];
+        }
+        x[base] = input;
+        y[base] = output;
+        return output;
+    }
+}
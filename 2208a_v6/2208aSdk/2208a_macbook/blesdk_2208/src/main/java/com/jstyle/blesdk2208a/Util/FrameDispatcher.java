@@ -0,0 +1,115 @@
+package com.jstyle.blesdk2208a.Util;
+
+import com.jstyle.blesdk2208a.callback.DataListener2025;
+import com.jstyle.blesdk2208a.callback.FrameHandler;
+import com.jstyle.blesdk2208a.callback.GpsListener2025;
+import com.jstyle.blesdk2208a.callback.RawSensorListener2025;
+import com.jstyle.blesdk2208a.callback.RecordListener2025;
+import com.jstyle.blesdk2208a.callback.RequestBinder;
+import com.jstyle.blesdk2208a.callback.WaveformListener2025;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 按命令字分发设备数据，每个连接一个实例
+ * Frame dispatcher of one connection. Every frame goes to the handler of its
+ * command byte (value[0]); a handler registered for the outstanding request
+ * with {@link #expect(byte, FrameHandler)} takes precedence over the default one.
+ * Feed every command written to the device into {@link #onCommand(byte[])} so the
+ * request binders can register the expected response.
+ * Handlers and binders should be set up before the connection is used.
+ */
+
+public class FrameDispatcher {
+    private final FrameHandler[] handlers = new FrameHandler[256];
+    private final RequestBinder[] binders = new RequestBinder[256];
+    private final AtomicReferenceArray<FrameHandler> pending = new AtomicReferenceArray<>(256);
+    private final RecordDecoder recordDecoder = new RecordDecoder();
+    private final WaveformDecoder waveformDecoder = new WaveformDecoder(recordDecoder.getTimestampCodec());
+    private final RawSensorDecoder rawSensorDecoder = new RawSensorDecoder();
+    private final GpsDecoder gpsDecoder = new GpsDecoder(recordDecoder.getTimestampCodec());
+
+    public FrameDispatcher() {
+        DefaultFrameHandlers.install(this);
+    }
+
+    /**
+     * 设置命令字的默认解析，null为不处理
+     */
+    public void setHandler(byte cmd, FrameHandler handler) {
+        handlers[cmd & 0xff] = handler;
+    }
+
+    public FrameHandler getHandler(byte cmd) {
+        return handlers[cmd & 0xff];
+    }
+
+    public void setRequestBinder(byte cmd, RequestBinder binder) {
+        binders[cmd & 0xff] = binder;
+    }
+
+    /**
+     * 登记当前请求期望的应答解析，直到同一命令字的下一个请求为止；null恢复默认解析
+     */
+    public void expect(byte cmd, FrameHandler handler) {
+        pending.set(cmd & 0xff, handler);
+    }
+
+    public void onCommand(byte[] command) {
+        if (command == null || command.length == 0) return;
+        recordDecoder.getTimestampCodec().refreshTimeZone();
+        RequestBinder binder = binders[command[0] & 0xff];
+        if (binder != null) binder.bind(command, this);
+    }
+
+    /**
+     * @return false if no handler is registered for the command byte
+     */
+    public boolean dispatch(byte[] value, DataListener2025 dataListener) {
+        if (value == null || value.length == 0) return false;
+        int cmd = value[0] & 0xff;
+        FrameHandler handler = pending.get(cmd);
+        if (handler == null) handler = handlers[cmd];
+        if (handler == null) return false;
+        handler.handle(value, dataListener);
+        return true;
+    }
+
+    /**
+     * 历史数据解析为类型化记录，删除应答等其他数据返回false，仍需走dispatch
+     */
+    public boolean dispatchRecords(byte[] value, RecordListener2025 recordListener) {
+        if (value == null || value.length == 0) return false;
+        if (pending.get(value[0] & 0xff) != null) return false;
+        return recordDecoder.decode(value, recordListener);
+    }
+
+    /**
+     * ECG/PPG波形解析为采样点数组，删除应答等其他数据返回false，仍需走dispatch
+     */
+    public boolean dispatchWaveform(byte[] value, WaveformListener2025 waveformListener) {
+        if (value == null || value.length == 0) return false;
+        if (pending.get(value[0] & 0xff) != null) return false;
+        return waveformDecoder.decode(value, waveformListener);
+    }
+
+    /**
+     * 0x3B原始PPG/三轴数据按批回调，关闭应答等其他数据返回false，仍需走dispatch
+     */
+    public boolean dispatchRawSensor(byte[] value, RawSensorListener2025 rawSensorListener) {
+        return rawSensorDecoder.decode(value, rawSensorListener);
+    }
+
+    public RawSensorDecoder getRawSensorDecoder() {
+        return rawSensorDecoder;
+    }
+
+    /**
+     * GPS历史数据解析为经纬度数组，其他数据返回false，仍需走dispatch
+     */
+    public boolean dispatchGps(byte[] value, GpsListener2025 gpsListener) {
+        if (value == null || value.length == 0) return false;
+        if (pending.get(value[0] & 0xff) != null) return false;
+        return gpsDecoder.decode(value, gpsListener);
+    }
+}
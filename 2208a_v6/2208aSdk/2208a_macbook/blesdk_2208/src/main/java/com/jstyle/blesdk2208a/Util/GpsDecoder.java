@@ -0,0 +1,63 @@
+package com.jstyle.blesdk2208a.Util;
+
+import com.jstyle.blesdk2208a.callback.GpsListener2025;
+import com.jstyle.blesdk2208a.constant.DeviceConst;
+import com.jstyle.blesdk2208a.model.GpsTrack;
+
+/**
+ * GPS历史数据解析，经纬度直接写入基本类型数组
+ * Every 59 byte record holds the BCD record time at offset 3 and 6 float lat/lon
+ * pairs (little endian) from offset 9. The page is reused for every notification.
+ * Not thread safe, use one decoder per connection.
+ */
+
+public class GpsDecoder {
+    public static final int RECORD_LENGTH = 59;
+    private static final int TIME_OFFSET = 3;
+    private static final int POINT_OFFSET = 9;
+    private static final int POINT_LENGTH = 8;
+
+    private final TimestampCodec timestampCodec;
+    private final GpsTrack page = new GpsTrack(GpsTrack.POINTS_PER_RECORD * 4);
+
+    public GpsDecoder() {
+        this(new TimestampCodec());
+    }
+
+    public GpsDecoder(TimestampCodec timestampCodec) {
+        this.timestampCodec = timestampCodec;
+    }
+
+    /**
+     * @return false if the frame is not GPS history data
+     */
+    public boolean decode(byte[] value, GpsListener2025 listener) {
+        if (value[0] != DeviceConst.CMD_Get_GPSDATA) return false;
+        GpsTrack track = page;
+        track.clear();
+        boolean end = decode(value, track);
+        listener.onGpsTrack(track, end);
+        return true;
+    }
+
+    /**
+     * 一包数据的轨迹点追加到track
+     *
+     * @return true if the page ends with the end marker
+     */
+    public boolean decode(byte[] value, GpsTrack track) {
+        int length = value.length;
+        boolean end = length >= 2 && value[length - 1] == (byte) 0xff && value[length - 2] == DeviceConst.CMD_Get_GPSDATA;
+        int size = length / RECORD_LENGTH;
+        track.ensureCapacity(track.size() + size * GpsTrack.POINTS_PER_RECORD);
+        for (int i = 0; i < size; i++) {
+            int offset = i * RECORD_LENGTH;
+            long time = timestampCodec.decodeBcd(value, offset + TIME_OFFSET);
+            for (int k = 0; k < GpsTrack.POINTS_PER_RECORD; k++) {
+                int point = offset + POINT_OFFSET + k * POINT_LENGTH;
+                track.add(time, ByteCodec.readF32LE(value, point), ByteCodec.readF32LE(value, point + 4));
+            }
+        }
+        return end;
+    }
+}
@@ -0,0 +1,171 @@
+package com.jstyle.blesdk2208a.Util;
+
+import com.jstyle.blesdk2208a.model.GpsTrack;
+
+import java.util.Arrays;
+
+/**
+ * 轨迹压缩编码，用于存储和传给Flutter
+ * Two formats:
+ * <ul>
+ * <li>Google encoded polyline (coordinates only), readable by the map SDKs and the
+ * common Dart/JS polyline decoders. Precision 5 is about 1 m.</li>
+ * <li>Delta varint: the point count, then for every point the zigzag varint deltas
+ * of latitude and longitude in 1e-6 degrees and of the time in millis (the first
+ * point relative to 0). A GPS point usually takes 3 to 5 bytes instead of 16.</li>
+ * </ul>
+ */
+
+public class GpsTrackEncoder {
+    public static final int POLYLINE_PRECISION = 5;
+    private static final double VARINT_SCALE = 1e6;
+
+    public static String encodePolyline(GpsTrack track) {
+        return encodePolyline(track, 0, track.size(), POLYLINE_PRECISION);
+    }
+
+    public static String encodePolyline(GpsTrack track, int start, int count, int precision) {
+        double factor = Math.pow(10, precision);
+        float[] latitudes = track.getLatitudes();
+        float[] longitudes = track.getLongitudes();
+        StringBuilder builder = new StringBuilder(count * 8);
+        long lastLat = 0;
+        long lastLon = 0;
+        for (int i = start; i < start + count; i++) {
+            long lat = Math.round(latitudes[i] * factor);
+            long lon = Math.round(longitudes[i] * factor);
+            appendPolylineValue(builder, lat - lastLat);
+            appendPolylineValue(builder, lon - lastLon);
+            lastLat = lat;
+            lastLon = lon;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 解码后的点没有时间，时间为0
+     */
+    public static void decodePolyline(String polyline, int precision, GpsTrack out) {
+        double factor = Math.pow(10, precision);
+        int length = polyline.length();
+        int[] index = new int[1];
+        long lat = 0;
+        long lon = 0;
+        while (index[0] < length) {
+            lat += readPolylineValue(polyline, index);
+            lon += readPolylineValue(polyline, index);
+            out.add(0, (float) (lat / factor), (float) (lon / factor));
+        }
+    }
+
+    public static byte[] encodeDeltaVarint(GpsTrack track) {
+        int count = track.size();
+        float[] latitudes = track.getLatitudes();
+        float[] longitudes = track.getLongitudes();
+        long[] timestamps = track.getTimestamps();
+        //每个varint最多10字节
+        byte[] out = new byte[10 + count * 30];
+        int position = writeVarint(out, 0, count);
+        long lastLat = 0;
+        long lastLon = 0;
+        long lastTime = 0;
+        for (int i = 0; i < count; i++) {
+            long lat = Math.round(latitudes[i] * VARINT_SCALE);
+            long lon = Math.round(longitudes[i] * VARINT_SCALE);
+            long time = timestamps[i];
+            position = writeVarint(out, position, zigzag(lat - lastLat));
+            position = writeVarint(out, position, zigzag(lon - lastLon));
+            position = writeVarint(out, position, zigzag(time - lastTime));
+            lastLat = lat;
+            lastLon = lon;
+            lastTime = time;
+        }
+        return Arrays.copyOf(out, position);
+    }
+
+    /**
+     * 解码encodeDeltaVarint的数据，追加到out
+     *
+     * @throws IllegalArgumentException if the data is truncated
+     */
+    public static void decodeDeltaVarint(byte[] data, GpsTrack out) {
+        long[] result = new long[1];
+        int position = readVarint(data, 0, result);
+        if (result[0] < 0 || result[0] > data.length) throw new IllegalArgumentException("bad point count");
+        int count = (int) result[0];
+        out.ensureCapacity(out.size() + count);
+        long lat = 0;
+        long lon = 0;
+        long time = 0;
+        for (int i = 0; i < count; i++) {
+            position = readVarint(data, position, result);
+            lat += unzigzag(result[0]);
+            position = readVarint(data, position, result);
+            lon += unzigzag(result[0]);
+            position = readVarint(data, position, result);
+            time += unzigzag(result[0]);
+            out.add(time, (float) (lat / VARINT_SCALE), (float) (lon / VARINT_SCALE));
+        }
+    }
+
+    private static void appendPolylineValue(StringBuilder builder, long value) {
+        long bits = value < 0 ? ~(value << 1) : value << 1;
+        while (bits >= 0x20) {
+            builder.append((char) ((0x20 | (bits & 0x1f)) + 63));
+            bits >>= 5;
+        }
+        builder.append((char) (bits + 63));
+    }
+
+    /**
+     * index[0]为当前位置，读完后指向下一个值
+     */
+    private static long readPolylineValue(String polyline, int[] index) {
+        int position = index[0];
+        long bits = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (position >= polyline.length()) throw new IllegalArgumentException("truncated polyline");
+            b = polyline.charAt(position++) - 63;
+            bits |= (long) (b & 0x1f) << shift;
+            shift += 5;
+        } while (b >= 0x20);
+        index[0] = position;
+        return (bits & 1) != 0 ? ~(bits >> 1) : bits >> 1;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int writeVarint(byte[] out, int position, long value) {
+        while ((value & ~0x7fL) != 0) {
+            out[position++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out[position++] = (byte) value;
+        return position;
+    }
+
+    /**
+     * result[0]为数值，返回下一个位置
+     */
+    private static int readVarint(byte[] data, int position, long[] result) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            if (position >= data.length || shift > 63) throw new IllegalArgumentException("truncated varint");
+            byte b = data[position++];
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) break;
+            shift += 7;
+        }
+        result[0] = value;
+        return position;
+    }
+}
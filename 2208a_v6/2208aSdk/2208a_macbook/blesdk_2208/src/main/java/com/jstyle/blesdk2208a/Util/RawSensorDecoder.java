@@ -0,0 +1,74 @@
+package com.jstyle.blesdk2208a.Util;
+
+import com.jstyle.blesdk2208a.callback.RawSensorListener2025;
+import com.jstyle.blesdk2208a.constant.DeviceConst;
+import com.jstyle.blesdk2208a.model.RawSensorBatch;
+
+/**
+ * 0x3B原始PPG/三轴数据解析，按批回调
+ * Every frame is appended to a {@link RawSensorBatch}; the listener is called once
+ * the batch holds {@code batchFrames} frames or spans {@code batchMillis}. The time
+ * limit is checked when a frame arrives, call {@link #flush(RawSensorListener2025)}
+ * after closing the sensor to deliver the rest. Not thread safe, use one decoder
+ * per connection.
+ */
+
+public class RawSensorDecoder {
+    /**
+     * 原始数据包长度：命令字+2字节 后接P1 P2 P3 P4 P5 P6 (各3字节) X Y Z (各2字节)
+     */
+    public static final int FRAME_LENGTH = 27;
+    public static final int DEFAULT_BATCH_FRAMES = 25;
+    public static final long DEFAULT_BATCH_MILLIS = 250;
+
+    private RawSensorBatch batch = new RawSensorBatch(DEFAULT_BATCH_FRAMES);
+    private int batchFrames = DEFAULT_BATCH_FRAMES;
+    private long batchMillis = DEFAULT_BATCH_MILLIS;
+
+    /**
+     * 设置每批的最大包数和最长时间，未回调的数据会丢弃
+     */
+    public void setBatch(int batchFrames, long batchMillis) {
+        this.batchFrames = Math.max(1, batchFrames);
+        this.batchMillis = batchMillis;
+        batch = new RawSensorBatch(this.batchFrames);
+    }
+
+    public boolean decode(byte[] value, RawSensorListener2025 listener) {
+        return decode(value, System.currentTimeMillis(), listener);
+    }
+
+    /**
+     * @param timeMillis 收到这一包的时间
+     * @return false if the frame is not a raw sensor frame (e.g. the close acknowledgement)
+     */
+    public boolean decode(byte[] value, long timeMillis, RawSensorListener2025 listener) {
+        if (value == null || value.length < FRAME_LENGTH || value[0] != DeviceConst.PPGSensor) return false;
+        RawSensorBatch batch = this.batch;
+        batch.add(timeMillis,
+                ByteCodec.readU24BE(value, 3),
+                ByteCodec.readU24BE(value, 6),
+                ByteCodec.readU24BE(value, 12),
+                ByteCodec.readU24BE(value, 18),
+                ByteCodec.readU16BE(value, 21),
+                ByteCodec.readU16BE(value, 23),
+                ByteCodec.readU16BE(value, 25));
+        if (batch.size() >= batchFrames || timeMillis - batch.getTimestamp(0) >= batchMillis) {
+            flush(listener);
+        }
+        return true;
+    }
+
+    /**
+     * 回调未满一批的数据
+     */
+    public void flush(RawSensorListener2025 listener) {
+        if (batch.size() == 0) return;
+        if (listener != null) listener.onRawSensorBatch(batch);
+        batch.clear();
+    }
+
+    public void reset() {
+        batch.clear();
+    }
+}
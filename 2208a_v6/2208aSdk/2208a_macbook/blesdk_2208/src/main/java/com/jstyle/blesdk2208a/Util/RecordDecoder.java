@@ -0,0 +1,318 @@
+package com.jstyle.blesdk2208a.Util;
+
+import com.jstyle.blesdk2208a.callback.RecordListener2025;
+import com.jstyle.blesdk2208a.constant.BleConst;
+import com.jstyle.blesdk2208a.constant.DeviceConst;
+import com.jstyle.blesdk2208a.model.BloodOxygenRecord;
+import com.jstyle.blesdk2208a.model.DetailActivityRecord;
+import com.jstyle.blesdk2208a.model.DynamicHeartRateRecord;
+import com.jstyle.blesdk2208a.model.ExerciseRecord;
+import com.jstyle.blesdk2208a.model.HistoryRecord;
+import com.jstyle.blesdk2208a.model.HrvRecord;
+import com.jstyle.blesdk2208a.model.SleepRecord;
+import com.jstyle.blesdk2208a.model.StaticHeartRateRecord;
+import com.jstyle.blesdk2208a.model.TemperatureRecord;
+import com.jstyle.blesdk2208a.model.TotalActivityRecord;
+
+/**
+ * 历史数据解析，输出类型化记录
+ * Decodes history pages straight into reusable primitive records, one instance
+ * per record type. Not thread safe, use one decoder per connection.
+ * The frame must be a read response, delete acknowledgements share the opcodes.
+ */
+
+public class RecordDecoder {
+    static final int TOTAL_ACTIVITY_LENGTH = 26;
+    static final int SLEEP_HEADER = 10;
+    /**
+     * 5分钟睡眠记录固定34字节 (24个质量值)，一分钟睡眠记录为10+120字节
+     */
+    private static final int SLEEP_FIVE_MINUTE_COUNT = 24;
+    private final TimestampCodec timestampCodec;
+    private TotalActivityRecord totalActivityRecord;
+    private DetailActivityRecord detailActivityRecord;
+    private SleepRecord sleepRecord;
+    private DynamicHeartRateRecord dynamicHeartRateRecord;
+    private StaticHeartRateRecord staticHeartRateRecord;
+    private HrvRecord hrvRecord;
+    private BloodOxygenRecord bloodOxygenRecord;
+    private TemperatureRecord temperatureRecord;
+    private ExerciseRecord exerciseRecord;
+
+    public RecordDecoder() {
+        this(new TimestampCodec());
+    }
+
+    public RecordDecoder(TimestampCodec timestampCodec) {
+        this.timestampCodec = timestampCodec;
+    }
+
+    public TimestampCodec getTimestampCodec() {
+        return timestampCodec;
+    }
+
+    /**
+     * @return false if the opcode is not a history type handled here
+     */
+    public boolean decode(byte[] value, RecordListener2025 listener) {
+        switch (value[0]) {
+            case DeviceConst.CMD_Get_TotalData:
+                decodeTotalActivity(value, listener);
+                return true;
+            case DeviceConst.CMD_Get_DetailData:
+                decodeDetailActivity(value, listener);
+                return true;
+            case DeviceConst.CMD_Get_SleepData:
+                decodeSleep(value, listener);
+                return true;
+            case DeviceConst.CMD_Get_HeartData:
+                decodeDynamicHeartRate(value, listener);
+                return true;
+            case DeviceConst.CMD_Get_OnceHeartData:
+                decodeStaticHeartRate(value, listener);
+                return true;
+            case DeviceConst.CMD_Get_HrvTestData:
+                decodeHrv(value, listener);
+                return true;
+            case DeviceConst.CMD_Get_Blood_oxygen:
+                decodeBloodOxygen(value, BleConst.Blood_oxygen, listener);
+                return true;
+            case DeviceConst.GetAutomaticSpo2Monitoring:
+                decodeBloodOxygen(value, BleConst.GetAutomaticSpo2Monitoring, listener);
+                return true;
+            case DeviceConst.Temperature_history:
+                decodeTemperature(value, BleConst.Temperature_history, listener);
+                return true;
+            case DeviceConst.GetAxillaryTemperatureDataWithMode:
+                decodeTemperature(value, BleConst.GetAxillaryTemperatureDataWithMode, listener);
+                return true;
+            case DeviceConst.CMD_Get_SPORTData:
+                decodeExercise(value, listener);
+                return true;
+        }
+        return false;
+    }
+
+    public void decodeTotalActivity(byte[] value, RecordListener2025 listener) {
+        if (totalActivityRecord == null) totalActivityRecord = new TotalActivityRecord();
+        TotalActivityRecord record = totalActivityRecord;
+        record.setDataType(BleConst.GetTotalActivityData);
+        int length = value.length;
+        int count = getTotalActivityLength(value, 0, length);
+        int size = length / count;
+        boolean end = size == 0;
+        for (int i = 0; i < size; i++) {
+            int offset = i * count;
+            int flag = 1 + offset + count;
+            if (flag < length && value[flag] == (byte) 0xff) {
+                end = true;
+            }
+            int year = 2000 + ByteCodec.readBcd(value[2 + offset]);
+            int month = ByteCodec.readBcd(value[3 + offset]);
+            int day = ByteCodec.readBcd(value[4 + offset]);
+            record.setTime(year, month, day, 0, 0, 0);
+            record.setTimeMillis(timestampCodec.getMidnight(year, month, day));
+            record.setStep(ByteCodec.readI32LE(value, 5 + offset));
+            record.setExerciseMinutes(ByteCodec.readI32LE(value, 9 + offset));
+            record.setDistance(ByteCodec.readI32LE(value, 13 + offset));
+            record.setCalories(ByteCodec.readI32LE(value, 17 + offset));
+            record.setGoal(count == 26 ? value[21 + offset] & 0xff : ByteCodec.readU16LE(value, 21 + offset));
+            record.setActiveMinutes(ByteCodec.readI32LE(value, count - 4 + offset));
+            listener.onTotalActivity(record);
+        }
+        listener.onPageEnd(BleConst.GetTotalActivityData, size, end);
+    }
+
+    public void decodeDetailActivity(byte[] value, RecordListener2025 listener) {
+        if (detailActivityRecord == null) detailActivityRecord = new DetailActivityRecord();
+        DetailActivityRecord record = detailActivityRecord;
+        record.setDataType(BleConst.GetDetailActivityData);
+        int count = 25;
+        int size = value.length / count;
+        int[] minuteSteps = record.getMinuteSteps();
+        for (int i = 0; i < size; i++) {
+            int offset = i * count;
+            setTime(record, value, 3 + offset);
+            record.setStep(ByteCodec.readU16LE(value, 9 + offset));
+            record.setCalories(ByteCodec.readU16LE(value, 11 + offset));
+            record.setDistance(ByteCodec.readU16LE(value, 13 + offset));
+            for (int j = 0; j < DetailActivityRecord.MINUTES; j++) {
+                minuteSteps[j] = value[15 + j + offset] & 0xff;
+            }
+            listener.onDetailActivity(record);
+        }
+        listener.onPageEnd(BleConst.GetDetailActivityData, size, isEnd(value, size));
+    }
+
+    public void decodeSleep(byte[] value, RecordListener2025 listener) {
+        if (sleepRecord == null) sleepRecord = new SleepRecord();
+        SleepRecord record = sleepRecord;
+        record.setDataType(BleConst.GetDetailSleepData);
+        int length = value.length;
+        boolean end = value[length - 1] == (byte) 0xff;
+        int size = 0;
+        int offset = 0;
+        while (length - offset >= SLEEP_HEADER && value[offset] == value[0]) {
+            int sleepLength = value[9 + offset] & 0xff;
+            decodeSleepRecord(record, value, offset, sleepLength > SLEEP_FIVE_MINUTE_COUNT ? 1 : 5);
+            listener.onSleep(record);
+            size++;
+            offset += getSleepLength(value, offset);
+        }
+        if (size == 0) end = true;
+        listener.onPageEnd(BleConst.GetDetailSleepData, size, end);
+    }
+
+    private void decodeSleepRecord(SleepRecord record, byte[] value, int offset, int unitMinutes) {
+        setTime(record, value, 3 + offset);
+        int sleepLength = value[9 + offset] & 0xff;
+        int available = value.length - 10 - offset;
+        if (sleepLength > available) sleepLength = available;
+        int[] quality = record.getQuality();
+        for (int j = 0; j < sleepLength; j++) {
+            quality[j] = value[10 + j + offset] & 0xff;
+        }
+        record.setQualityCount(sleepLength);
+        record.setUnitMinutes(unitMinutes);
+    }
+
+    public void decodeDynamicHeartRate(byte[] value, RecordListener2025 listener) {
+        if (dynamicHeartRateRecord == null) dynamicHeartRateRecord = new DynamicHeartRateRecord();
+        DynamicHeartRateRecord record = dynamicHeartRateRecord;
+        record.setDataType(BleConst.GetDynamicHR);
+        int count = 24;
+        int size = value.length / count;
+        int[] heartRates = record.getHeartRates();
+        for (int i = 0; i < size; i++) {
+            int offset = i * count;
+            setTime(record, value, 3 + offset);
+            for (int j = 0; j < DynamicHeartRateRecord.COUNT; j++) {
+                heartRates[j] = value[9 + j + offset] & 0xff;
+            }
+            listener.onDynamicHeartRate(record);
+        }
+        listener.onPageEnd(BleConst.GetDynamicHR, size, isEnd(value, size));
+    }
+
+    public void decodeStaticHeartRate(byte[] value, RecordListener2025 listener) {
+        if (staticHeartRateRecord == null) staticHeartRateRecord = new StaticHeartRateRecord();
+        StaticHeartRateRecord record = staticHeartRateRecord;
+        record.setDataType(BleConst.GetStaticHR);
+        int count = 10;
+        int size = value.length / count;
+        for (int i = 0; i < size; i++) {
+            int offset = i * count;
+            setTime(record, value, 3 + offset);
+            record.setHeartRate(value[9 + offset] & 0xff);
+            listener.onStaticHeartRate(record);
+        }
+        listener.onPageEnd(BleConst.GetStaticHR, size, isEnd(value, size));
+    }
+
+    public void decodeHrv(byte[] value, RecordListener2025 listener) {
+        if (hrvRecord == null) hrvRecord = new HrvRecord();
+        HrvRecord record = hrvRecord;
+        record.setDataType(BleConst.GetHRVData);
+        int count = 15;
+        int size = value.length / count;
+        for (int i = 0; i < size; i++) {
+            int offset = i * count;
+            setTime(record, value, 3 + offset);
+            record.setHrv(value[9 + offset] & 0xff);
+            record.setVascularAging(value[10 + offset] & 0xff);
+            record.setHeartRate(value[11 + offset] & 0xff);
+            record.setStress(value[12 + offset] & 0xff);
+            record.setHighBP(value[13 + offset] & 0xff);
+            record.setLowBP(value[14 + offset] & 0xff);
+            listener.onHrv(record);
+        }
+        listener.onPageEnd(BleConst.GetHRVData, size, isEnd(value, size));
+    }
+
+    public void decodeBloodOxygen(byte[] value, String dataType, RecordListener2025 listener) {
+        if (bloodOxygenRecord == null) bloodOxygenRecord = new BloodOxygenRecord();
+        BloodOxygenRecord record = bloodOxygenRecord;
+        record.setDataType(dataType);
+        int count = 10;
+        int size = value.length / count;
+        for (int i = 0; i < size; i++) {
+            int offset = i * count;
+            setTime(record, value, 3 + offset);
+            record.setBloodOxygen(value[9 + offset] & 0xff);
+            listener.onBloodOxygen(record);
+        }
+        listener.onPageEnd(dataType, size, isEnd(value, size));
+    }
+
+    public void decodeTemperature(byte[] value, String dataType, RecordListener2025 listener) {
+        if (temperatureRecord == null) temperatureRecord = new TemperatureRecord();
+        TemperatureRecord record = temperatureRecord;
+        record.setDataType(dataType);
+        int count = 11;
+        int size = value.length / count;
+        for (int i = 0; i < size; i++) {
+            int offset = i * count;
+            setTime(record, value, 3 + offset);
+            record.setTemperature(ByteCodec.readU16LE(value, 9 + offset));
+            listener.onTemperature(record);
+        }
+        listener.onPageEnd(dataType, size, isEnd(value, size));
+    }
+
+    public void decodeExercise(byte[] value, RecordListener2025 listener) {
+        if (exerciseRecord == null) exerciseRecord = new ExerciseRecord();
+        ExerciseRecord record = exerciseRecord;
+        record.setDataType(BleConst.GetActivityModeData);
+        int count = 25;
+        int length = value.length;
+        int size = length / count;
+        for (int i = 0; i < size; i++) {
+            int offset = i * count;
+            setTime(record, value, 3 + offset);
+            record.setActivityMode(value[9 + offset] & 0xff);
+            record.setHeartRate(value[10 + offset] & 0xff);
+            record.setActiveMinutes(ByteCodec.readU16LE(value, 11 + offset));
+            record.setStep(ByteCodec.readU16LE(value, 13 + offset));
+            record.setPaceMinutes(value[15 + offset] & 0xff);
+            record.setPaceSeconds(value[16 + offset] & 0xff);
+            record.setCalories(Float.intBitsToFloat(ByteCodec.readI32LE(value, 17 + offset)));
+            record.setDistance(Float.intBitsToFloat(ByteCodec.readI32LE(value, 21 + offset)));
+            listener.onExercise(record);
+        }
+        int flag = 1 + size * count;
+        boolean end = size == 0 || (flag < length && value[flag] == (byte) 0xff);
+        listener.onPageEnd(BleConst.GetActivityModeData, size, end);
+    }
+
+    private static boolean isEnd(byte[] value, int size) {
+        return size == 0 || value[value.length - 1] == (byte) 0xff;
+    }
+
+    /**
+     * 总运动数据一条记录26字节 (目标1字节) 或27字节 (目标2字节)。27字节时第27个字节是
+     * 活动时间的最高字节，26字节时是下一条记录(或结束标志)的命令字
+     */
+    public static int getTotalActivityLength(byte[] value, int offset, int length) {
+        return length - offset > TOTAL_ACTIVITY_LENGTH && value[offset + TOTAL_ACTIVITY_LENGTH] != value[offset]
+                ? TOTAL_ACTIVITY_LENGTH + 1 : TOTAL_ACTIVITY_LENGTH;
+    }
+
+    /**
+     * 睡眠数据一条记录的长度，需要至少SLEEP_HEADER个字节
+     */
+    public static int getSleepLength(byte[] value, int offset) {
+        int sleepLength = value[9 + offset] & 0xff;
+        return SLEEP_HEADER + Math.max(sleepLength, SLEEP_FIVE_MINUTE_COUNT);
+    }
+
+    private void setTime(HistoryRecord record, byte[] value, int offset) {
+        int year = 2000 + ByteCodec.readBcd(value[offset]);
+        int month = ByteCodec.readBcd(value[offset + 1]);
+        int day = ByteCodec.readBcd(value[offset + 2]);
+        int hour = ByteCodec.readBcd(value[offset + 3]);
+        int minute = ByteCodec.readBcd(value[offset + 4]);
+        int second = ByteCodec.readBcd(value[offset + 5]);
+        record.setTime(year, month, day, hour, minute, second);
+        record.setTimeMillis(timestampCodec.toEpoch(year, month, day, hour, minute, second));
+    }
+}
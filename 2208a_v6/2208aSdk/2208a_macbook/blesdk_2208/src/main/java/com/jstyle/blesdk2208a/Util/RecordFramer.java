@@ -0,0 +1,251 @@
+package com.jstyle.blesdk2208a.Util;
+
+import com.jstyle.blesdk2208a.constant.DeviceConst;
+
+import java.util.Arrays;
+
+/**
+ * 历史数据重组，每个连接一个实例
+ * Sits between the notification callback and the parsers. While a history read
+ * is in progress, records split across notifications are buffered until they are
+ * complete, and every notification is turned into a page that holds only whole
+ * records, followed by the end marker (cmd, 0xff) once the device sends it.
+ * Pages have the same layout as a native notification, so the existing parsers
+ * work unchanged with any MTU.
+ * Feed every command written to the device into {@link #onCommand(byte[])}: only
+ * read requests start a stream, delete acknowledgements and all other frames are
+ * passed through untouched.
+ * Whether a notification continues a partial record is decided by the framing, not
+ * by its first byte, which is often a data byte: the byte after the missing bytes
+ * must start the next record or the end marker, and a notification that lies within
+ * the record continues it while the read is outstanding. Notifications that break
+ * the framing are passed through and the partial record keeps waiting. A new record
+ * or the end marker of the same command drops it, so does {@link #flush()} when the
+ * rest never arrives.
+ */
+
+public class RecordFramer {
+    /**
+     * 总运动数据的记录长度为26或27，由内容判断
+     */
+    private static final int TOTAL_ACTIVITY = -1;
+    /**
+     * 睡眠数据的记录长度由value[9]决定
+     */
+    private static final int SLEEP = -2;
+    /**
+     * 通知接着未完成的记录
+     */
+    private static final int CONTINUES = 0;
+    /**
+     * 其他命令的数据，原样传出，继续等待
+     */
+    private static final int OTHER = 1;
+    /**
+     * 同一命令重新开始，丢弃未完成的记录
+     */
+    private static final int RESTART = 2;
+
+    private static final int[] RECORD_LENGTHS = new int[256];
+
+    static {
+        RECORD_LENGTHS[DeviceConst.CMD_Get_TotalData & 0xff] = TOTAL_ACTIVITY;
+        RECORD_LENGTHS[DeviceConst.CMD_Get_DetailData & 0xff] = 25;
+        RECORD_LENGTHS[DeviceConst.CMD_Get_SleepData & 0xff] = SLEEP;
+        RECORD_LENGTHS[DeviceConst.CMD_Get_HeartData & 0xff] = 24;
+        RECORD_LENGTHS[DeviceConst.CMD_Get_OnceHeartData & 0xff] = 10;
+        RECORD_LENGTHS[DeviceConst.CMD_Get_HrvTestData & 0xff] = 15;
+        RECORD_LENGTHS[DeviceConst.CMD_Get_Blood_oxygen & 0xff] = 10;
+        RECORD_LENGTHS[DeviceConst.GetAutomaticSpo2Monitoring & 0xff] = 10;
+        RECORD_LENGTHS[DeviceConst.Temperature_history & 0xff] = 11;
+        RECORD_LENGTHS[DeviceConst.GetAxillaryTemperatureDataWithMode & 0xff] = 11;
+        RECORD_LENGTHS[DeviceConst.CMD_Get_SPORTData & 0xff] = 25;
+        RECORD_LENGTHS[DeviceConst.CMD_Get_GPSDATA & 0xff] = 59;
+    }
+
+    private final boolean[] reading = new boolean[256];
+    private byte[] pending = new byte[0];
+    private int pendingLength;
+    private int pendingCmd = -1;
+    private boolean end;
+    private boolean malformed;
+
+    /**
+     * @return true if the opcode is a history type with fixed or self-describing records
+     */
+    public static boolean isFramed(byte cmd) {
+        return RECORD_LENGTHS[cmd & 0xff] != 0;
+    }
+
+    /**
+     * 读取命令开始一次重组，mode为0x99的删除命令不重组
+     */
+    public synchronized void onCommand(byte[] command) {
+        if (command == null || command.length < 2) return;
+        if (CommandEncoder.isPacked(command)) {
+            for (int offset = 0; offset < command.length; offset += CommandEncoder.COMMAND_LENGTH) {
+                onCommand(command, offset);
+            }
+        } else {
+            onCommand(command, 0);
+        }
+    }
+
+    private void onCommand(byte[] command, int offset) {
+        int cmd = command[offset] & 0xff;
+        if (RECORD_LENGTHS[cmd] == 0) return;
+        reading[cmd] = command[offset + 1] != (byte) 0x99;
+        if (pendingCmd == cmd) clearPending();
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(reading, false);
+        clearPending();
+    }
+
+    /**
+     * @return true while a partial record waits for the rest of its bytes
+     */
+    public synchronized boolean hasPending() {
+        return pendingLength != 0;
+    }
+
+    /**
+     * 后续数据一直没有到达时调用，丢弃未完成的记录并结束这次重组
+     *
+     * @return true if a partial record was dropped
+     */
+    public synchronized boolean flush() {
+        if (pendingLength == 0) return false;
+        reading[pendingCmd] = false;
+        clearPending();
+        return true;
+    }
+
+    /**
+     * @return the page to parse, the notification itself when nothing needs to be
+     * reassembled, or null while the first record is still incomplete
+     */
+    public synchronized byte[] feed(byte[] value) {
+        if (value == null || value.length == 0) return value;
+        byte[] data;
+        int length;
+        int cmd;
+        if (pendingLength != 0) {
+            int follow = follow(value);
+            if (follow == OTHER) return value;
+            if (follow == RESTART) clearPending();
+        }
+        if (pendingLength == 0) {
+            cmd = value[0] & 0xff;
+            if (!reading[cmd]) return value;
+            data = value;
+            length = value.length;
+        } else {
+            cmd = pendingCmd;
+            length = pendingLength + value.length;
+            data = Arrays.copyOf(pending, length);
+            System.arraycopy(value, 0, data, pendingLength, value.length);
+            clearPending();
+        }
+        int aligned = scan(data, length, cmd);
+        if (end) reading[cmd] = false;
+        if (aligned < length && !malformed) keep(data, aligned, length - aligned, cmd);
+        if (aligned == 0) return null;
+        return aligned == length ? data : Arrays.copyOf(data, aligned);
+    }
+
+    /**
+     * 判断通知是否接着未完成的记录：记录还缺的字节之后必须是下一条记录或结束标志；
+     * 整包都在记录内时，还在读取就是后续数据。第一个字节可能是数据，不用来判断
+     */
+    private int follow(byte[] value) {
+        int first = value[0] & 0xff;
+        int missing = getMissing();
+        if (first == pendingCmd && value.length == 2 && value[1] == (byte) 0xff
+                && missing != 0 && missing != 2) {
+            return RESTART;
+        }
+        if (missing >= 0 && missing < value.length) {
+            if ((value[missing] & 0xff) == pendingCmd) return CONTINUES;
+            //总运动数据的记录可能多一个字节
+            if (RECORD_LENGTHS[pendingCmd] == TOTAL_ACTIVITY
+                    && (missing + 1 == value.length || (value[missing + 1] & 0xff) == pendingCmd)) {
+                return CONTINUES;
+            }
+            return first == pendingCmd ? RESTART : OTHER;
+        }
+        return reading[pendingCmd] ? CONTINUES : OTHER;
+    }
+
+    /**
+     * @return the bytes the partial record still needs, or -1 if its header is not
+     * complete yet
+     */
+    private int getMissing() {
+        int recordLength = RECORD_LENGTHS[pendingCmd];
+        if (recordLength == TOTAL_ACTIVITY) {
+            recordLength = RecordDecoder.TOTAL_ACTIVITY_LENGTH;
+        } else if (recordLength == SLEEP) {
+            if (pendingLength < RecordDecoder.SLEEP_HEADER) return -1;
+            recordLength = RecordDecoder.getSleepLength(pending, 0);
+        }
+        return recordLength - pendingLength;
+    }
+
+    /**
+     * 遍历完整的记录，遇到结束标志时把它保留在页尾
+     *
+     * @return the length of the whole records (and end marker). If a record does
+     * not start with cmd the rest of the data is dropped.
+     */
+    private int scan(byte[] data, int length, int cmd) {
+        end = false;
+        malformed = false;
+        int offset = 0;
+        while (offset < length) {
+            int remaining = length - offset;
+            if ((data[offset] & 0xff) != cmd) {
+                malformed = true;
+                return offset;
+            }
+            if (remaining == 2 && data[offset + 1] == (byte) 0xff) {
+                end = true;
+                return length;
+            }
+            int recordLength = getRecordLength(data, offset, length, cmd);
+            if (recordLength == 0 || recordLength > remaining) return offset;
+            offset += recordLength;
+        }
+        return offset;
+    }
+
+    /**
+     * @return the record length, or 0 if the header is not complete yet
+     */
+    private static int getRecordLength(byte[] data, int offset, int length, int cmd) {
+        int recordLength = RECORD_LENGTHS[cmd];
+        if (recordLength == TOTAL_ACTIVITY) {
+            //需要下一条记录的第一个字节才能确定长度
+            if (length - offset <= RecordDecoder.TOTAL_ACTIVITY_LENGTH) return 0;
+            return RecordDecoder.getTotalActivityLength(data, offset, length);
+        }
+        if (recordLength == SLEEP) {
+            if (length - offset < RecordDecoder.SLEEP_HEADER) return 0;
+            return RecordDecoder.getSleepLength(data, offset);
+        }
+        return recordLength;
+    }
+
+    private void keep(byte[] data, int offset, int count, int cmd) {
+        if (pending.length < count) pending = new byte[Math.max(count, 256)];
+        System.arraycopy(data, offset, pending, 0, count);
+        pendingLength = count;
+        pendingCmd = cmd;
+    }
+
+    private void clearPending() {
+        pendingLength = 0;
+        pendingCmd = -1;
+    }
+}
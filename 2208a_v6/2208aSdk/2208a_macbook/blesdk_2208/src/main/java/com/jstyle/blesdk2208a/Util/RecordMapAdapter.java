@@ -0,0 +1,158 @@
+package com.jstyle.blesdk2208a.Util;
+
+import com.jstyle.blesdk2208a.callback.RecordListener2025;
+import com.jstyle.blesdk2208a.constant.BleConst;
+import com.jstyle.blesdk2208a.constant.DeviceKey;
+import com.jstyle.blesdk2208a.model.BloodOxygenRecord;
+import com.jstyle.blesdk2208a.model.DetailActivityRecord;
+import com.jstyle.blesdk2208a.model.DynamicHeartRateRecord;
+import com.jstyle.blesdk2208a.model.ExerciseRecord;
+import com.jstyle.blesdk2208a.model.HrvRecord;
+import com.jstyle.blesdk2208a.model.SleepRecord;
+import com.jstyle.blesdk2208a.model.StaticHeartRateRecord;
+import com.jstyle.blesdk2208a.model.TemperatureRecord;
+import com.jstyle.blesdk2208a.model.TotalActivityRecord;
+
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 将类型化记录转换为原有的Map格式
+ * Builds the legacy {@link DeviceKey} maps from typed records, used by the
+ * ResolveUtil history parsers so the map output stays exactly as before.
+ */
+
+public class RecordMapAdapter implements RecordListener2025 {
+    private List<Map<String, String>> list = new ArrayList<>();
+    private Map<String, Object> maps;
+    private NumberFormat numberFormat;
+    private NumberFormat numberFormatCal;
+
+    public Map<String, Object> getMaps() {
+        return maps;
+    }
+
+    @Override
+    public void onTotalActivity(TotalActivityRecord record) {
+        if (numberFormat == null) {
+            numberFormat = NumberFormat.getNumberInstance();
+            numberFormat.setMinimumFractionDigits(2);
+            numberFormat.setGroupingUsed(false);
+        }
+        Map<String, String> hashMap = new HashMap<>();
+        hashMap.put(DeviceKey.Date, record.getDate());
+        hashMap.put(DeviceKey.Step, String.valueOf(record.getStep()));
+        hashMap.put(DeviceKey.ExerciseMinutes, String.valueOf(record.getExerciseMinutes()));
+        hashMap.put(DeviceKey.Calories, numberFormat.format((float) record.getCalories() / 100));
+        hashMap.put(DeviceKey.Distance, numberFormat.format((float) record.getDistance() / 100));
+        hashMap.put(DeviceKey.Goal, String.valueOf(record.getGoal()));
+        hashMap.put(DeviceKey.ActiveMinutes, String.valueOf(record.getActiveMinutes()));
+        list.add(hashMap);
+    }
+
+    @Override
+    public void onDetailActivity(DetailActivityRecord record) {
+        if (numberFormat == null) numberFormat = ResolveUtil.getNumberFormat(2);
+        Map<String, String> hashMap = new HashMap<>();
+        hashMap.put(DeviceKey.Date, record.getDate());
+        hashMap.put(DeviceKey.KDetailMinterStep, String.valueOf(record.getStep()));
+        hashMap.put(DeviceKey.Calories, numberFormat.format((float) record.getCalories() / 100));
+        hashMap.put(DeviceKey.Distance, numberFormat.format((float) record.getDistance() / 100));
+        hashMap.put(DeviceKey.ArraySteps, join(record.getMinuteSteps(), DetailActivityRecord.MINUTES, false));
+        list.add(hashMap);
+    }
+
+    @Override
+    public void onSleep(SleepRecord record) {
+        Map<String, String> hashMap = new HashMap<>();
+        hashMap.put(DeviceKey.Date, record.getDate());
+        hashMap.put(DeviceKey.ArraySleep, join(record.getQuality(), record.getQualityCount(), true));
+        hashMap.put(DeviceKey.sleepUnitLength, String.valueOf(record.getUnitMinutes()));
+        list.add(hashMap);
+    }
+
+    @Override
+    public void onDynamicHeartRate(DynamicHeartRateRecord record) {
+        Map<String, String> hashMap = new HashMap<>();
+        hashMap.put(DeviceKey.Date, record.getDate());
+        hashMap.put(DeviceKey.ArrayDynamicHR, join(record.getHeartRates(), DynamicHeartRateRecord.COUNT, false));
+        list.add(hashMap);
+    }
+
+    @Override
+    public void onStaticHeartRate(StaticHeartRateRecord record) {
+        Map<String, String> hashMap = new HashMap<>();
+        hashMap.put(DeviceKey.Date, record.getDate());
+        hashMap.put(DeviceKey.StaticHR, String.valueOf(record.getHeartRate()));
+        list.add(hashMap);
+    }
+
+    @Override
+    public void onHrv(HrvRecord record) {
+        Map<String, String> hashMap = new HashMap<>();
+        hashMap.put(DeviceKey.Date, record.getDate());
+        hashMap.put(DeviceKey.HRV, String.valueOf(record.getHrv()));
+        hashMap.put(DeviceKey.VascularAging, String.valueOf(record.getVascularAging()));
+        hashMap.put(DeviceKey.Stress, String.valueOf(record.getStress()));
+        hashMap.put(DeviceKey.highBP, String.valueOf(record.getHighBP()));
+        hashMap.put(DeviceKey.lowBP, String.valueOf(record.getLowBP()));
+        hashMap.put(DeviceKey.HeartRate, String.valueOf(record.getHeartRate()));
+        list.add(hashMap);
+    }
+
+    @Override
+    public void onBloodOxygen(BloodOxygenRecord record) {
+        Map<String, String> hashMap = new HashMap<>();
+        hashMap.put(DeviceKey.Date, record.getDate());
+        hashMap.put(DeviceKey.Blood_oxygen, String.valueOf(record.getBloodOxygen()));
+        list.add(hashMap);
+    }
+
+    @Override
+    public void onTemperature(TemperatureRecord record) {
+        if (numberFormat == null) numberFormat = ResolveUtil.getNumberFormat(1);
+        Map<String, String> hashMap = new HashMap<>();
+        hashMap.put(DeviceKey.Date, record.getDate());
+        String key = BleConst.Temperature_history.equals(record.getDataType())
+                ? DeviceKey.temperature : DeviceKey.axillaryTemperature;
+        hashMap.put(key, numberFormat.format(record.getTemperature() * 0.1f));
+        list.add(hashMap);
+    }
+
+    @Override
+    public void onExercise(ExerciseRecord record) {
+        if (numberFormat == null) numberFormat = ResolveUtil.getNumberFormat(2);
+        Map<String, String> hashMap = new HashMap<>();
+        hashMap.put(DeviceKey.Date, record.getDate());
+        hashMap.put(DeviceKey.ActivityMode, String.valueOf(record.getActivityMode()));
+        hashMap.put(DeviceKey.HeartRate, String.valueOf(record.getHeartRate()));
+        hashMap.put(DeviceKey.ActiveMinutes, String.valueOf(record.getActiveMinutes()));
+        hashMap.put(DeviceKey.Step, String.valueOf(record.getStep()));
+        hashMap.put(DeviceKey.Pace, String.format("%02d", record.getPaceMinutes()) + "'" + String.format("%02d", record.getPaceSeconds()) + "\"");
+        hashMap.put(DeviceKey.Distance, numberFormat.format(record.getDistance()));
+        if (numberFormatCal == null) numberFormatCal = ResolveUtil.getNumberFormat(1);
+        hashMap.put(DeviceKey.Calories, numberFormatCal.format(record.getCalories()));
+        list.add(hashMap);
+    }
+
+    @Override
+    public void onPageEnd(String dataType, int recordCount, boolean end) {
+        maps = new HashMap<>();
+        maps.put(DeviceKey.DataType, dataType);
+        maps.put(DeviceKey.End, end);
+        maps.put(DeviceKey.Data, list);
+        list = new ArrayList<>();
+    }
+
+    private static String join(int[] values, int count, boolean trailingSpace) {
+        StringBuilder stringBuffer = new StringBuilder();
+        for (int j = 0; j < count; j++) {
+            stringBuffer.append(values[j]);
+            if (trailingSpace || j != count - 1) stringBuffer.append(' ');
+        }
+        return stringBuffer.toString();
+    }
+}
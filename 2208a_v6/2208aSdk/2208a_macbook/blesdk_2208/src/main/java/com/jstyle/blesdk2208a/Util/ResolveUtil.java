@@ -1,8 +1,6 @@
 package com.jstyle.blesdk2208a.Util;
 
 
-import android.util.Log;
-
 import com.jstyle.blesdk2208a.constant.BleConst;
 import com.jstyle.blesdk2208a.constant.DeviceKey;
 import com.jstyle.blesdk2208a.model.DeviceBean;
@@ -21,6 +19,20 @@ import java.util.TimeZone;
  */
 
 public class ResolveUtil {
+    /**
+     * 预先生成的字符串，与原来的ByteToHexString/bcd2String输出一致
+     */
+    private static final String[] HEX_STRINGS = new String[256];
+    private static final String[] BCD_STRINGS = new String[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            String hex = Integer.toHexString((byte) i);
+            HEX_STRINGS[i] = hex.length() == 1 ? "0" + hex : hex;
+            BCD_STRINGS[i] = String.valueOf(i >>> 4) + (i & 0x0f);
+        }
+    }
+
     /**
      * crc校验
      *
@@ -35,6 +47,7 @@ public class ResolveUtil {
     }
 
     public static byte getTimeValue(int value) {
+        if (value >= 0) return ByteCodec.toBcd(value);
         String data = value + "";
         Integer m = Integer.parseInt(data, 16);
         return (byte) m.intValue();
@@ -42,10 +55,7 @@ public class ResolveUtil {
 
 
     public static String bcd2String(byte bytes) {
-        StringBuffer temp = new StringBuffer();
-        temp.append((byte) ((bytes & 0xf0) >>> 4));
-        temp.append((byte) (bytes & 0x0f));
-        return temp.toString();
+        return BCD_STRINGS[bytes & 0xff];
     }
 
     /**
@@ -111,33 +121,9 @@ public class ResolveUtil {
     }
 
     public static Map<String,Object> GetAutomaticSpo2Monitoring(byte[] value) {
-        Map<String,Object> maps=new HashMap<>();
-        maps.put(DeviceKey.DataType, BleConst.GetAutomaticSpo2Monitoring);
-        maps.put(DeviceKey.End,false);
-        List<Map<String, String>> list = new ArrayList<>();
-        maps.put(DeviceKey.Data, list);
-        int count = 10;
-        int length = value.length;
-        int size = length / count;
-        if (size == 0) {
-            maps.put(DeviceKey.End,true);
-            return maps;
-        }
-        for (int i = 0; i < size; i++) {
-            int flag = 1 + (i + 1) * count;
-            if (value[length-1] == (byte) 0xff) {
-                maps.put(DeviceKey.End,true);
-            }
-            Map<String, String> hashMap = new HashMap<>();
-            String date = "20"+ByteToHexString(value[3 + i * count]) + "."
-                    + ByteToHexString(value[4 + i * count]) + "." + ByteToHexString(value[5 + i * count]) + " "
-                    + ByteToHexString(value[6 + i * count]) + ":" + ByteToHexString(value[7 + i * count]) + ":" + ByteToHexString(value[8 + i * count]);
-            hashMap.put(DeviceKey.Date, date);
-            hashMap.put(DeviceKey.Blood_oxygen, String.valueOf(getValue(value[9 + i * count], 0)));
-            list.add(hashMap);
-        }
-
-        return maps;
+        RecordMapAdapter adapter = new RecordMapAdapter();
+        new RecordDecoder().decodeBloodOxygen(value, BleConst.GetAutomaticSpo2Monitoring, adapter);
+        return adapter.getMaps();
     }
     /**
      * 设备信息
@@ -183,23 +169,13 @@ public class ResolveUtil {
         int time = 0;
         int heart = 0;
         int exerciseTime = 0;
-        for (int i = 1; i < 5; i++) {
-            step += getValue(value[i], i - 1);
-        }
-        for (int i = 5; i < 9; i++) {
-            cal += getValue(value[i], i - 5);
-        }
-        for (int i = 9; i < 13; i++) {
-            distance += getValue(value[i], i - 9);
-        }
-        for (int i = 13; i < 17; i++) {
-            time += getValue(value[i], i - 13);
-        }
-        for (int i = 17; i < 21; i++) {
-            exerciseTime += getValue(value[i], i - 17);
-        }
-        heart = getValue(value[21], 0);
-       int temp = getValue(value[22], 0)+getValue(value[23],1);
+        step = ByteCodec.readI32LE(value, 1);
+        cal = ByteCodec.readU32LE(value, 5);
+        distance = ByteCodec.readU32LE(value, 9);
+        time = ByteCodec.readI32LE(value, 13);
+        exerciseTime = ByteCodec.readI32LE(value, 17);
+        heart = ByteCodec.readU8(value, 21);
+       int temp = ByteCodec.readU16LE(value, 22);
         if(value.length>=25){
             mapData.put(DeviceKey.Blood_oxygen, String.valueOf(getValue(value[24], 0)));
         }
@@ -233,9 +209,9 @@ public class ResolveUtil {
         for(int i=0;i<value.length/8;i++) {
             Map<String, Object> hashMap = new HashMap<>();
             int valueddd = i * 6;
-            int data = getValue(value[1 + valueddd], 0) + getValue(value[2 + valueddd], 1);
-            int data2 =  getValue(value[3 + valueddd], 0) + getValue(value[4 + valueddd], 1);
-            int data3 = getValue(value[5 + valueddd], 0) + getValue(value[6 + valueddd], 1);
+            int data = ByteCodec.readU16LE(value, 1 + valueddd);
+            int data2 = ByteCodec.readU16LE(value, 3 + valueddd);
+            int data3 = ByteCodec.readU16LE(value, 5 + valueddd);
             hashMap.put(DeviceKey.arrayX, data);
             hashMap.put(DeviceKey.arrayY, data2);
             hashMap.put(DeviceKey.arrayZ,  data3);
@@ -251,12 +227,11 @@ public class ResolveUtil {
         maps.put(DeviceKey.End,true);
         List<Map<String, Object>> list = new ArrayList<>();
         maps.put(DeviceKey.Data, list);
-        byte[] bs = new byte[value.length-3];
-        System.arraycopy(value, 3, bs, 0, bs.length);
-        for(int i=0;i<bs.length/2;i++) {
+        int count = (value.length - 3) / 2;
+        for(int i=0;i<count;i++) {
             Map<String, Object> hashMap = new HashMap<>();
             int valueddd = i * 2;
-            int data = getValue(value[valueddd], 0) + getValue(value[valueddd+1], 1);
+            int data = ByteCodec.readU16LE(value, valueddd);
             hashMap.put(DeviceKey.DataType, value[1]);
             hashMap.put(DeviceKey.arrayPpgRawData, data);
             list.add(hashMap);
@@ -432,7 +407,7 @@ public class ResolveUtil {
         String stopHour = ByteToHexString(value[4]);
         String stopMin = ByteToHexString(value[5]);
         String week = getByteString(value[6]);
-        int time = getValue(value[7], 0) + getValue(value[8], 1);
+        int time = ByteCodec.readU16LE(value, 7);
         autoHeart[0] = String.valueOf(enable);
         autoHeart[1] = startHour;
         autoHeart[2] = startMin;
@@ -519,83 +494,11 @@ public class ResolveUtil {
      * @return
      */
     public static Map<String,Object> getTotalStepData(byte[] value) {
-        Map<String,Object> maps=new HashMap<>();
-        maps.put(DeviceKey.DataType, BleConst.GetTotalActivityData);
-        maps.put(DeviceKey.End,false);
-        List<Map<String, String>> list = new ArrayList<>();
-        maps.put(DeviceKey.Data, list);
-        int count = getStepCount(value);
-        int length = value.length;
-        int size = length / count;
-        if (size == 0) {
-            maps.put(DeviceKey.End,true);
-            return maps;
-        }
-        NumberFormat numberFormat = NumberFormat.getNumberInstance();
-        numberFormat.setMinimumFractionDigits(2);
-        numberFormat.setGroupingUsed(false);
-        for (int i = 0; i < size; i++) {
-            int flag = 1 + (i + 1) * count;
-            if (flag < length && value[flag] == (byte) 0xff) {
-                maps.put(DeviceKey.End,true);
-            }
-            Map<String, String> hashMap = new HashMap<>();
-            String date ="20"+ByteToHexString(value[2 + i * count]) + "." +
-                    ByteToHexString(value[3 + i * count]) + "." + ByteToHexString(value[4 + i * count]);
-            int step = 0;
-            int time = 0;
-            float cal = 0;
-            float distance = 0;
-
-            for (int j = 0; j < 4; j++) {
-                step += getValue(value[5 + j + i * count], j);
-            }
-            for (int j = 0; j < 4; j++) {
-                time += getValue(value[9 + j + i * count], j);
-            }
-            for (int j = 0; j < 4; j++) {
-                distance += getValue(value[13 + j + i * count], j);
-            }
-            for (int j = 0; j < 4; j++) {
-                cal += getValue(value[17 + j + i * count], j);
-            }
-            int exerciseTime = 0;
-            int goal = count==26?getValue(value[21 + i * count], 0):(getValue(value[21 + i * count], 0)+getValue(value[22 + i * count], 1));
-
-            for (int j = 0; j < 4; j++) {
-                exerciseTime += getValue(value[count-4 + j + i * count], j);
-            }
-            hashMap.put(DeviceKey.Date, date);
-            hashMap.put(DeviceKey.Step, String.valueOf(step));
-            hashMap.put(DeviceKey.ExerciseMinutes, String.valueOf(time));
-            hashMap.put(DeviceKey.Calories, numberFormat.format(cal / 100));
-            hashMap.put(DeviceKey.Distance, numberFormat.format(distance / 100));
-            hashMap.put(DeviceKey.Goal, String.valueOf(goal));
-            hashMap.put(DeviceKey.ActiveMinutes, String.valueOf(exerciseTime));
-            list.add(hashMap);
-        }
-
-        return maps;
+        RecordMapAdapter adapter = new RecordMapAdapter();
+        new RecordDecoder().decodeTotalActivity(value, adapter);
+        return adapter.getMaps();
     }
 
-    private static int getStepCount(byte[]value){
-        int goal=27;
-        int length=value.length;
-        if(length!=2){
-            if(length%26==0){
-                goal=26;
-            }else if(length%27==0){
-                goal=27;
-            }else{
-                if((length-2)%26==0){
-                    goal=26;
-                }else if((length-2)%27==0){
-                    goal=27;
-                }
-            }
-        }
-        return goal;
-    }
     /**
      * 详细运动数据
      *
@@ -603,56 +506,9 @@ public class ResolveUtil {
      * @return
      */
     public static Map<String,Object> getDetailData(byte[] value) {
-        Map<String,Object> maps=new HashMap<>();
-        maps.put(DeviceKey.DataType, BleConst.GetDetailActivityData);
-        maps.put(DeviceKey.End,false);
-        List<Map<String, String>> list = new ArrayList<>();
-        maps.put(DeviceKey.Data, list);
-        int count = 25;
-        int length = value.length;
-        int size = length / count;
-        DeviceBean deviceBean = new DeviceBean();
-        if (size == 0) {
-            maps.put(DeviceKey.End,true);
-            return maps;
-        }
-        NumberFormat numberFormat = NumberFormat.getNumberInstance();
-        numberFormat.setMaximumFractionDigits(2);
-        numberFormat.setGroupingUsed(false);
-        for (int i = 0; i < size; i++) {
-            Map<String, String> hashMap = new HashMap<>();
-            int flag = 1 + (i + 1) * count;
-            if ( value[length-1] == (byte) 0xff) {
-                maps.put(DeviceKey.End,true);
-            }
-            String date ="20"+ByteToHexString(value[3 + i * 25]) + "."
-                    + ByteToHexString(value[4 + i * 25]) + "." + ByteToHexString(value[5 + i * 25]) + " "
-                    + ByteToHexString(value[6 + i * 25]) + ":" + ByteToHexString(value[7 + i * 25]) + ":" + ByteToHexString(value[8 + i * 25]);
-            int step = 0;
-            float cal = 0;
-            float distance = 0;
-            StringBuffer stringBuffer = new StringBuffer();
-            for (int j = 0; j < 2; j++) {
-                step += getValue(value[9 + j + i * 25], j);
-            }
-            for (int j = 0; j < 2; j++) {
-                cal += getValue(value[11 + j + i * 25], j);
-            }
-            for (int j = 0; j < 2; j++) {
-                distance += getValue(value[13 + j + i * 25], j);
-            }
-            for (int j = 0; j < 10; j++) {
-                stringBuffer.append(String.valueOf(getValue(value[15 + j + i * 25], 0))).append(j == 9 ? "" : " ");
-            }
-            hashMap.put(DeviceKey.Date, date);
-            hashMap.put(DeviceKey.KDetailMinterStep, String.valueOf(step));
-            hashMap.put(DeviceKey.Calories, numberFormat.format(cal / 100));
-            hashMap.put(DeviceKey.Distance, numberFormat.format(distance / 100));
-            hashMap.put(DeviceKey.ArraySteps, stringBuffer.toString());
-            list.add(hashMap);
-        }
-
-        return maps;
+        RecordMapAdapter adapter = new RecordMapAdapter();
+        new RecordDecoder().decodeDetailActivity(value, adapter);
+        return adapter.getMaps();
     }
 
     /**
@@ -662,54 +518,9 @@ public class ResolveUtil {
      * @return
      */
     public static Map<String,Object> getSleepData(byte[] value) {
-        int length = value.length;
-        Map<String,Object> maps=new HashMap<>();
-        maps.put(DeviceKey.DataType, BleConst.GetDetailSleepData);
-        maps.put(DeviceKey.End,false);
-        List<Map<String, String>> list = new ArrayList<>();
-        maps.put(DeviceKey.Data, list);
-        boolean end=value[value.length - 1] == (byte) 0xff;
-        if (end) { maps.put(DeviceKey.End,true);}
-        if(130==length||(end&&132 == length)){//一分钟睡眠数据
-            Map<String, String> hashMap = new HashMap<>();
-            String date = "20" + bcd2String(value[3]) + "-" + bcd2String(value[4]) + "-" + bcd2String(value[5]) + " "
-                    + bcd2String(value[6]) + ":" + bcd2String(value[7]) + ":" + bcd2String(value[8]);
-            hashMap.put(DeviceKey.Date, date);
-            int sleepLength = getValue(value[9], 0);
-            StringBuilder stringBuffer = new StringBuilder();
-            for (int j = 0; j < sleepLength; j++) {
-                stringBuffer.append(getValue(value[10 + j], 0)).append(j == sleepLength ? "" : " ");
-            }
-            hashMap.put(DeviceKey.ArraySleep, stringBuffer.toString());
-            hashMap.put(DeviceKey.sleepUnitLength,"1");
-            list.add(hashMap);
-        }else{
-            int count = 34;
-            int size = length / count;
-            if (size == 0) {
-                maps.put(DeviceKey.Data, list);
-                maps.put(DeviceKey.End,true);
-                return maps;
-            }
-            for (int i = 0; i < size; i++) {
-                Map<String, String> hashMap = new HashMap<>();
-                String date = "20" + bcd2String(value[3 + i * 34]) + "-"
-                        + bcd2String(value[4 + i * 34]) + "-" + bcd2String(value[5 + i * 34]) + " "
-                        + bcd2String(value[6 + i * 34]) + ":" + bcd2String(value[7 + i * 34]) + ":" + bcd2String(value[8 + i * 34]);
-                hashMap.put(DeviceKey.Date, date);
-                int sleepLength = getValue(value[9 + i * 34], 0);
-                StringBuilder stringBuffer = new StringBuilder();
-                try{
-                    for (int j = 0; j < sleepLength; j++) {
-                        stringBuffer.append(getValue(value[10 + j + i * 34], 0)).append(j == sleepLength ?"":" ");
-                    }
-                }catch (ArrayIndexOutOfBoundsException E){E.fillInStackTrace(); }
-                hashMap.put(DeviceKey.ArraySleep, stringBuffer.toString());
-                hashMap.put(DeviceKey.sleepUnitLength,"5");
-                list.add(hashMap);
-            }
-        }
-        return maps;
+        RecordMapAdapter adapter = new RecordMapAdapter();
+        new RecordDecoder().decodeSleep(value, adapter);
+        return adapter.getMaps();
     }
 
 
@@ -720,33 +531,9 @@ public class ResolveUtil {
      * @return
      */
     public static Map<String,Object> getBloodoxygen(byte[] value) {
-        Map<String,Object> maps=new HashMap<>();
-        maps.put(DeviceKey.DataType, BleConst.Blood_oxygen);
-        maps.put(DeviceKey.End,false);
-        List<Map<String, String>> list = new ArrayList<>();
-        maps.put(DeviceKey.Data, list);
-        int count = 10;
-        int length = value.length;
-        int size = length / count;
-        if (size == 0) {
-            maps.put(DeviceKey.End,true);
-            return maps;
-        }
-        for (int i = 0; i < size; i++) {
-            int flag = 1 + (i + 1) * count;
-            if (value[length-1] == (byte) 0xff) {
-                maps.put(DeviceKey.End,true);
-            }
-            Map<String, String> hashMap = new HashMap<>();
-            String date = "20"+ByteToHexString(value[3 + i * count]) + "."
-                    + ByteToHexString(value[4 + i * count]) + "." + ByteToHexString(value[5 + i * count]) + " "
-                    + ByteToHexString(value[6 + i * count]) + ":" + ByteToHexString(value[7 + i * count]) + ":" + ByteToHexString(value[8 + i * count]);
-            hashMap.put(DeviceKey.Date, date);
-            hashMap.put(DeviceKey.Blood_oxygen, String.valueOf(getValue(value[9 + i * 10], 0)));
-            list.add(hashMap);
-        }
-
-        return maps;
+        RecordMapAdapter adapter = new RecordMapAdapter();
+        new RecordDecoder().decodeBloodOxygen(value, BleConst.Blood_oxygen, adapter);
+        return adapter.getMaps();
     }
 
 
@@ -760,38 +547,9 @@ public class ResolveUtil {
      * @return
      */
     public static Map<String,Object> getHeartData(byte[] value) {
-        Map<String,Object> maps=new HashMap<>();
-        maps.put(DeviceKey.DataType, BleConst.GetDynamicHR);
-        maps.put(DeviceKey.End,false);
-        List<Map<String, String>> list = new ArrayList<>();
-        maps.put(DeviceKey.Data, list);
-        int count = 24;
-        int length = value.length;
-        int size = length / count;
-        if (size == 0) {
-            maps.put(DeviceKey.End,true);
-            return maps;
-        }
-        for (int i = 0; i < size; i++) {
-            if (value[length-1] == (byte) 0xff) {
-                maps.put(DeviceKey.End,true);
-            }
-            Map<String, String> hashMap = new HashMap<>();
-            String date = "20"+ByteToHexString(value[3 + i * count]) + "."
-                    + ByteToHexString(value[4 + i * count]) + "." + ByteToHexString(value[5 + i * count]) + " "
-                    + ByteToHexString(value[6 + i * count]) + ":" + ByteToHexString(value[7 + i * count]) + ":" + ByteToHexString(value[8 + i * count]);
-
-
-            StringBuffer stringBuffer = new StringBuffer();
-            for (int j = 0; j < 15; j++) {
-                stringBuffer.append(String.valueOf(getValue(value[9 + j + i * count], 0))).append(j == 14 ? "" : " ");
-            }
-            hashMap.put(DeviceKey.Date, date);
-            hashMap.put(DeviceKey.ArrayDynamicHR, stringBuffer.toString());
-            list.add(hashMap);
-        }
-
-        return maps;
+        RecordMapAdapter adapter = new RecordMapAdapter();
+        new RecordDecoder().decodeDynamicHeartRate(value, adapter);
+        return adapter.getMaps();
     }
 
 
@@ -802,33 +560,9 @@ public class ResolveUtil {
      * @return
      */
     public static Map<String,Object> getOnceHeartData(byte[] value) {
-        Map<String,Object> maps=new HashMap<>();
-        maps.put(DeviceKey.DataType, BleConst.GetStaticHR);
-        maps.put(DeviceKey.End,false);
-        List<Map<String, String>> list = new ArrayList<>();
-        maps.put(DeviceKey.Data, list);
-        int count = 10;
-        int length = value.length;
-        int size = length / count;
-        if (size == 0) {
-            maps.put(DeviceKey.End,true);
-            return maps;
-        }
-        for (int i = 0; i < size; i++) {
-            int flag = 1 + (i + 1) * count;
-            if ( value[length-1] == (byte) 0xff) {
-                maps.put(DeviceKey.End,true);
-            }
-            Map<String, String> hashMap = new HashMap<>();
-            String date ="20"+ByteToHexString(value[3 + i * 10]) + "."
-                    + ByteToHexString(value[4 + i * 10]) + "." + ByteToHexString(value[5 + i * 10]) + " "
-                    + ByteToHexString(value[6 + i * 10]) + ":" + ByteToHexString(value[7 + i * 10]) + ":" + ByteToHexString(value[8 + i * 10]);
-            String heart = String.valueOf(getValue(value[9 + i * 10], 0));
-            hashMap.put(DeviceKey.Date, date);
-            hashMap.put(DeviceKey.StaticHR, heart);
-            list.add(hashMap);
-        }
-        return maps;
+        RecordMapAdapter adapter = new RecordMapAdapter();
+        new RecordDecoder().decodeStaticHeartRate(value, adapter);
+        return adapter.getMaps();
     }
     /**
      * htv测试数据
@@ -851,44 +585,9 @@ public class ResolveUtil {
      * @return
      */
     public static Map<String,Object> getHrvTestData(byte[] value) {
-        Map<String,Object> maps=new HashMap<>();
-        maps.put(DeviceKey.DataType, BleConst.GetHRVData);
-        maps.put(DeviceKey.End,false);
-        List<Map<String, String>> list = new ArrayList<>();
-        maps.put(DeviceKey.Data, list);
-        int count = 15;
-        int length = value.length;
-        int size = length / count;
-
-        if (size == 0) {
-            maps.put(DeviceKey.End,true);
-            return maps;
-        }
-        if(value[value.length-1]==  (byte) 0xff)   maps.put(DeviceKey.End,true);;
-        for (int i = 0; i < size; i++) {
-
-            Map<String, String> hashMap = new HashMap<>();
-            String date ="20"+ByteToHexString(value[3 + i * count]) + "."
-                    + ByteToHexString(value[4 + i * count]) + "." + ByteToHexString(value[5 + i * count]) + " "
-                    + ByteToHexString(value[6 + i * count]) + ":" + ByteToHexString(value[7 + i * count]) + ":" + ByteToHexString(value[8 + i * count]);
-            String hrv = String.valueOf(getValue(value[9 + i * count], 0));
-            String blood = String.valueOf(getValue(value[10 + i * count], 0));
-            String heart = String.valueOf(getValue(value[11 + i * count], 0));
-            String Tired = String.valueOf(getValue(value[12 + i * count], 0));
-
-            String moodValue = String.valueOf(getValue(value[13 + i * count], 0));
-            String breathRate = String.valueOf(getValue(value[14 + i * count], 0));
-            hashMap.put(DeviceKey.Date, date);
-            hashMap.put(DeviceKey.HRV, hrv);
-            hashMap.put(DeviceKey.VascularAging, blood);
-            hashMap.put(DeviceKey.Stress, Tired);
-            hashMap.put(DeviceKey.highBP, moodValue);
-            hashMap.put(DeviceKey.lowBP, breathRate);
-            hashMap.put(DeviceKey.HeartRate, heart);
-            list.add(hashMap);
-        }
-
-        return maps;
+        RecordMapAdapter adapter = new RecordMapAdapter();
+        new RecordDecoder().decodeHrv(value, adapter);
+        return adapter.getMaps();
     }
 
     /**
@@ -1023,63 +722,15 @@ public class ResolveUtil {
         return maps;
     }*/
 public static Map<String,Object> getTempDataer(byte[] value) {
-    Map<String,Object> maps=new HashMap<>();
-    maps.put(DeviceKey.DataType, BleConst.GetAxillaryTemperatureDataWithMode);
-    maps.put(DeviceKey.End,false);
-    List<Map<String, String>> list = new ArrayList<>();
-    maps.put(DeviceKey.Data, list);
-
-    int count = 11;
-    int length = value.length;
-    int size = length / count;
-    if (size == 0||value[length - 1] == (byte) 0xff) {
-        maps.put(DeviceKey.End,true);
-    }
-    NumberFormat numberFormat=getNumberFormat(1);
-    for (int i = 0; i < size; i++) {
-        if (value[length-1] == (byte) 0xff) {
-            maps.put(DeviceKey.End,true);
-        }
-        Map<String, String> hashMap = new HashMap<>();
-        String date = "20"+bcd2String(value[3 + i * count]) + "."
-                + bcd2String(value[4 + i * count]) + "." + bcd2String(value[5 + i * count]) + " "
-                + bcd2String(value[6 + i * count]) + ":" + bcd2String(value[7 + i * count]) + ":" + bcd2String(value[8 + i * count]);
-        int  tempValue = getValue(value[9 + i * count], 0)+getValue(value[10 + i * count], 1);
-        hashMap.put(DeviceKey.Date, date);
-        hashMap.put(DeviceKey.axillaryTemperature, numberFormat.format(tempValue*0.1f));
-        list.add(hashMap);
-    }
-
-    return maps;
+    RecordMapAdapter adapter = new RecordMapAdapter();
+    new RecordDecoder().decodeTemperature(value, BleConst.GetAxillaryTemperatureDataWithMode, adapter);
+    return adapter.getMaps();
 }
 
     public static Map<String,Object> getTempData(byte[] value) {
-        Map<String,Object> maps=new HashMap<>();
-        List<Map<String, String>> list = new ArrayList<>();
-        maps.put(DeviceKey.DataType, BleConst.Temperature_history);
-        maps.put(DeviceKey.End,false);
-        maps.put(DeviceKey.Data, list);
-        int count = 11;
-        int length = value.length;
-        int size = length / count;
-        if (size == 0||value[length - 1] == (byte) 0xff) {
-            maps.put(DeviceKey.End,true);
-        }
-        NumberFormat numberFormat=getNumberFormat(1);
-        for (int i = 0; i < size; i++) {
-            if (value[length-1] == (byte) 0xff) {
-                maps.put(DeviceKey.End,true);
-            }
-            Map<String, String> hashMap = new HashMap<>();
-            String date = "20"+bcd2String(value[3 + i * count]) + "."
-                    + bcd2String(value[4 + i * count]) + "." + bcd2String(value[5 + i * count]) + " "
-                    + bcd2String(value[6 + i * count]) + ":" + bcd2String(value[7 + i * count]) + ":" + bcd2String(value[8 + i * count]);
-            int  tempValue = getValue(value[9 + i * count], 0)+getValue(value[10 + i * count], 1);
-            hashMap.put(DeviceKey.Date, date);
-            hashMap.put(DeviceKey.temperature, numberFormat.format(tempValue*0.1f));
-            list.add(hashMap);
-        }
-        return maps;
+        RecordMapAdapter adapter = new RecordMapAdapter();
+        new RecordDecoder().decodeTemperature(value, BleConst.Temperature_history, adapter);
+        return adapter.getMaps();
     }
 
     //私有属性
@@ -1188,7 +839,7 @@ public static Map<String,Object> getTempDataer(byte[] value) {
             maps.put(DeviceKey.End,true);
             return maps;
         }
-        int id = getValue(value[1], 0) + getValue(value[2], 1);
+        int id = ByteCodec.readU16LE(value, 1);
         int offset = 3;
         Map<String, String> hashMap = new HashMap<>();
         if (id == 0) {//第一条
@@ -1206,39 +857,36 @@ public static Map<String,Object> getTempDataer(byte[] value) {
             offset = 27;
 
         }
-        byte[] tempValue = new byte[length - offset];
-        System.arraycopy(value, offset, tempValue, 0, tempValue.length);
-        String ecgData = getEcgDataString(tempValue);
+        String ecgData = getEcgDataString(value, offset);
         list.put(DeviceKey.ECGValue, ecgData);
         /*list.add(hashMap);*/
         return maps;
     }
 
 
-    protected static String getEcgDataString(byte[] value) {
-        StringBuffer stringBuffer = new StringBuffer();
-        int length = value.length / 2 - 1;
+    protected static String getEcgDataString(byte[] value, int offset) {
+        int length = WaveformDecoder.getSigned16Count(value, offset);
+        StringBuilder stringBuffer = new StringBuilder(length * 6);
         for (int i = 0; i < length; i++) {
-            int ecgValue = getValue(value[i * 2 + 1], 1) + ResolveUtil.getValue(value[i * 2 + 2], 0);
-            if (ecgValue >= 32768) ecgValue = ecgValue - 65536;
-            stringBuffer.append(ecgValue).append(",");
+            int ecgValue = ByteCodec.readS16BE(value, offset + i * 2 + 1);
+            stringBuffer.append(ecgValue).append(',');
         }
         return stringBuffer.toString();
     }
     protected static String getPPGData(byte[] value) {
         StringBuffer stringBuffer = new StringBuffer();
         for (int i = 0; i < value.length; i++) {
-            int ecgValue = getValue(value[i], 0);
+            int ecgValue = value[i] & 0xff;
             stringBuffer.append(ecgValue).append(",");
         }
         return stringBuffer.toString();
     }
 
-    protected static String getDoublePPGData(byte[] value) {
-        StringBuffer stringBuffer = new StringBuffer();
-        int length = value.length / 2 ;
+    protected static String getDoublePPGData(byte[] value, int offset) {
+        int length = (value.length - offset) / 2;
+        StringBuilder stringBuffer = new StringBuilder(length * 6);
         for (int i = 0; i < length; i++) {
-            int ecgValue = getValue(value[i * 2 ], 0) + ResolveUtil.getValue(value[i * 2 + 1], 1);
+            int ecgValue = ByteCodec.readU16LE(value, offset + i * 2);
             /*    if (ecgValue >= 32768) ecgValue = ecgValue - 65536;*/
             stringBuffer.append(ecgValue).append(",");
         }
@@ -1246,58 +894,9 @@ public static Map<String,Object> getTempDataer(byte[] value) {
     }
 
     public static Map<String,Object> getExerciseData(byte[] value) {
-        Map<String,Object> maps=new HashMap<>();
-        maps.put(DeviceKey.DataType, BleConst.GetActivityModeData);
-        maps.put(DeviceKey.End,false);
-        List<Map<String, String>> list = new ArrayList<>();
-        maps.put(DeviceKey.Data, list);
-        int count = 25;
-        int length = value.length;
-        int size = length / count;
-        if (size == 0) {
-            maps.put(DeviceKey.End,true);
-            return maps;
-        }
-        NumberFormat numberFormatCal =getNumberFormat(1);
-        NumberFormat numberFormat =getNumberFormat(2);
-        for (int i = 0; i < size; i++) {
-            int flag = 1 + (i + 1) * count;
-            if (flag < length &&  i==size-1&&value[flag] == (byte) 0xff) {
-                maps.put(DeviceKey.End,true);
-            }
-            Map<String, String> hashMap = new HashMap<>();
-            String date ="20"+ByteToHexString(value[3 + i * count]) + "."
-                    + ByteToHexString(value[4 + i * count]) + "." + ByteToHexString(value[5 + i * count]) + " "
-                    + ByteToHexString(value[6 + i * count]) + ":" + ByteToHexString(value[7 + i * count]) + ":" + ByteToHexString(value[8 + i * count]);
-            String mode = String.valueOf(getValue(value[9 + i * count], 0));
-            String heartRate = String.valueOf(getValue(value[10 + i * count], 0));
-            int periodTime = getData(2, 11 + i * count, value);
-            int steps = getData(2, 13 + i * count, value);
-            int speedMin = getValue(value[15 + i * count],0);
-            int speedS = getValue(value[16 + i * count],0);
-            byte[] valueCal = new byte[4];
-            for (int j = 0; j < 4; j++) {
-                valueCal[3 - j] = value[17 +j+ i * count];
-            }
-            byte[] valueDistance = new byte[4];
-            for (int j = 0; j < 4; j++) {
-                valueDistance[3 - j] = value[21 +j+ i * count];
-            }
-            float cal = getFloat(valueCal,0);
-            float distance = getFloat(valueDistance,0);
-
-            hashMap.put(DeviceKey.Date, date);
-            hashMap.put(DeviceKey.ActivityMode, mode);
-            hashMap.put(DeviceKey.HeartRate, heartRate);
-            hashMap.put(DeviceKey.ActiveMinutes, String.valueOf(periodTime));
-            hashMap.put(DeviceKey.Step, String.valueOf(steps));
-            hashMap.put(DeviceKey.Pace, String.format("%02d",speedMin)+"'"+String.format("%02d",speedS)+"\"");
-            hashMap.put(DeviceKey.Distance, numberFormat.format(distance));
-            hashMap.put(DeviceKey.Calories, numberFormatCal.format(cal));
-            list.add(hashMap);
-        }
-
-        return maps;
+        RecordMapAdapter adapter = new RecordMapAdapter();
+        new RecordDecoder().decodeExercise(value, adapter);
+        return adapter.getMaps();
     }
 
     public static Map<String,Object> getActivityExerciseData(byte[] value) {
@@ -1308,17 +907,8 @@ public static Map<String,Object> getTempDataer(byte[] value) {
         Map<String, String> map = new HashMap<>();
         maps.put(DeviceKey.Data, map);
         int heartRate = getValue(value[1], 0);
-        int steps = 0;
-        float kcal = 0;
-        for (int i = 0; i < 4; i++) {
-            steps += getValue(value[i + 2], i);
-        }
-        byte[] valueCal = new byte[4];
-        for (int i = 0; i < 4; i++) {
-            valueCal[3 - i] = value[i + 6];
-            // kcal+=getFloat(value[i+6],i);
-        }
-        kcal = getFloat(valueCal, 0);
+        int steps = ByteCodec.readI32LE(value, 2);
+        float kcal = ByteCodec.readF32LE(value, 6);
         map.put(DeviceKey.HeartRate, String.valueOf(heartRate));
         map.put(DeviceKey.Step, String.valueOf(steps));
         map.put(DeviceKey.Calories, String.valueOf(kcal));
@@ -1452,26 +1042,21 @@ public static Map<String,Object> getTempDataer(byte[] value) {
     public static int getData(int length, int start, byte[] value) {
         int data = 0;
         for (int j = 0; j < length; j++) {
-            data += getValue(value[j + start], j);
+            data |= (value[j + start] & 0xff) << (j << 3);
         }
         return data;
     }
 
     public static int getValue(byte b, int count) {
-        return (int) ((b & 0xff) * Math.pow(256, count));
+        return (b & 0xff) << (count << 3);
     }
 
     public static String ByteToHexString(byte a) {
-        String s = "";
-        s = Integer.toHexString(new Byte(a).intValue());
-        if (s.length() == 1) {
-            s = "0" + s;
-        }
-        return s;
+        return HEX_STRINGS[a & 0xff];
     }
 
     public static float getFloat(byte[] arr, int index) {//字节转浮点
-        return Float.intBitsToFloat(getInt(arr, index));
+        return ByteCodec.readF32BE(arr, index);
     }
 
 
@@ -1479,10 +1064,7 @@ public static Map<String,Object> getTempDataer(byte[] value) {
         return Float.intBitsToFloat(index);
     }
     public static int getInt(byte[] arr, int index) {
-        return (0xff000000 & (arr[index + 0] << 24)) |
-                (0x00ff0000 & (arr[index + 1] << 16)) |
-                (0x0000ff00 & (arr[index + 2] << 8)) |
-                (0x000000ff & arr[index + 3]);
+        return ByteCodec.readI32BE(arr, index);
     }
     public static NumberFormat getNumberFormat(int max){
         NumberFormat numberFormat=NumberFormat.getNumberInstance();
@@ -1496,11 +1078,9 @@ public static Map<String,Object> getTempDataer(byte[] value) {
     public static String getCurrentTimeZone() {
         TimeZone tz = TimeZone.getDefault();
         String strTz = tz.getDisplayName(false, TimeZone.SHORT);
-        Log.i(TAG, "getCurrentTimeZone: "+strTz);
         int _t = TimeZone.getDefault().getOffset(System.currentTimeMillis()) / (3600 * 1000);
         strTz = String.valueOf(_t);
         strTz = "GMT" + strTz;
-        Log.i(TAG, "getCurrentTimeZone: "+strTz);
         return strTz;
 
     }
@@ -1518,10 +1098,7 @@ public static Map<String,Object> getTempDataer(byte[] value) {
         maps.put(DeviceKey.End,true);
         Map<String,String>mapData=new HashMap<>();
         maps.put(DeviceKey.Data, mapData);
-        byte[]tempValue=new byte[2];
-        tempValue[0]=value[3];
-        tempValue[1]=value[2];
-        int TemperatureCorrectionValue = BleSDK.byteArrayToInt(tempValue);
+        int TemperatureCorrectionValue = ByteCodec.readS16LE(value, 2);
 
         mapData.put(DeviceKey.TemperatureCorrectionValue, String.valueOf(TemperatureCorrectionValue));
         return maps;
@@ -1535,7 +1112,7 @@ public static Map<String,Object> getTempDataer(byte[] value) {
         String days= getValue(value[3], 0)+"";
         String week = getByteString(value[4]);
         int enable=getValue(value[5], 0);
-        int time = getValue(value[6], 0)+getValue(value[7],1);
+        int time = ByteCodec.readU16LE(value, 6);
 
         activityAlarm[0] = startHour;
         activityAlarm[1] = startMin;
@@ -1557,13 +1134,13 @@ public static Map<String,Object> getTempDataer(byte[] value) {
         int count = 59;
         int length = value.length;
         int size = length / count;
+        if (length >= 2 && value[length - 1] == (byte) 0xff && value[length - 2] == (byte) 0x5a) {//结束标志可能单独一包
+            mmp.put(DeviceKey.End, true);
+        }
         if (size == 0) {
             return mmp;
         }
         int index=size*50;
-        if ((value[value.length - 1] == (byte) 0xff && value[value.length - 2] == (byte) 0x5a)){
-            mmp.put(DeviceKey.End, true);
-        }
         for (int i = 0; i < size; i++) {
             int flag = 1 + (i + 1) * count;
             Map<String, String> hashMap = new HashMap<>();
@@ -1571,17 +1148,11 @@ public static Map<String,Object> getTempDataer(byte[] value) {
             String date ="20"+bcd2String(value[3 + i * count]) + "."
                     + bcd2String(value[4 + i * count]) + "." + bcd2String(value[5 + i * count]) + " "
                     + bcd2String(value[6 + i * count]) + ":" + bcd2String(value[7 + i * count]) + ":" + bcd2String(value[8 + i * count]);
-            byte[] valueLatitude = new byte[4];
-            byte[] valueLongitude = new byte[4];
             StringBuffer stringBufferLatitude = new StringBuffer();
             StringBuffer stringBufferLongitude = new StringBuffer();
             for (int k = 0; k < 6; k++) {
-                for (int j = 0; j < 4; j++) {
-                    valueLatitude[3 - j] = value[9 + j + i * count + k * 8];
-                    valueLongitude[3 - j] = value[13 + j + i * count + k * 8];
-                }
-                String Latitude = String.valueOf(getFloat(valueLatitude, 0));
-                String Longitude = String.valueOf(getFloat(valueLongitude, 0));
+                String Latitude = String.valueOf(ByteCodec.readF32LE(value, 9 + i * count + k * 8));
+                String Longitude = String.valueOf(ByteCodec.readF32LE(value, 13 + i * count + k * 8));
                 stringBufferLatitude.append(Latitude).append(k == 5 ? "" : ",");
                 stringBufferLongitude.append(Longitude).append(k == 5 ? "" : ",");
             }
@@ -1596,161 +1167,30 @@ public static Map<String,Object> getTempDataer(byte[] value) {
     }
 
 
-    static double[] B_HR = new double[]{
-            0.012493658738073,
-            0,
-            -0.024987317476146,
-            0,
-            0.012493658738073
-    };
-    static double[] A_HR = new double[]{
-            1,
-            -3.658469528008591,
-            5.026987876570873,
-            -3.078346646055655,
-            0.709828779797188
-    };
-    static double[] inPut = new double[]{0, 0, 0, 0, 0};
-    static double[] outPut = new double[]{0, 0, 0, 0, 0};
-
-    public static double filterEcgData(double data) {
-        inPut[4] = data * 18.3 / 128 + 0.06;
-        outPut[4] = B_HR[0] * inPut[4] +
-                B_HR[1] * inPut[3] +
-                B_HR[2] * inPut[2] +
-                B_HR[3] * inPut[1] +
-                B_HR[4] * inPut[0] -
-                A_HR[1] * outPut[3] -
-                A_HR[2] * outPut[2] -
-                A_HR[3] * outPut[1] -
-                A_HR[4] * outPut[0];
-        for (int i = 0; i < 4; i++) {
-            inPut[i] = inPut[i + 1];
-            outPut[i] = outPut[i + 1];
-        }
-        return outPut[4];
-    }
-
-
-
-
-
-
+    /**
+     * 以下滤波共用一组全局状态，只为兼容保留；新代码每个数据流用一个FilterBank
+     */
+    private static final FilterBank ECG_FILTER = FilterBank.newEcgFilter(1);
+    private static final FilterBank PPG_FILTER = FilterBank.newPpgFilter(4);
 
+    public static synchronized double filterEcgData(double data) {
+        return ECG_FILTER.filter(0, data);
+    }
 
-    static Double[] b = {0.00328228225341328,0.0,-0.00656456450682656,
-            0.0,0.00328228225341328 };
-    static Double[] a = {1.0000,-3.830010133770384,5.50479722355253,
-            -3.51944010291030,0.844653587365286};
-    static double[] tmp_x = new double[5];
-    static double[] tmp_y = new double[5];
-    final static int maxSize=5;
     public static synchronized float getPPGData(double dat) {
-        for (int i = maxSize-1; i > 0; i--) {
-            tmp_x[i] = tmp_x[i - 1];
-            tmp_y[i] = tmp_y[i - 1];
-        }
-        tmp_x[0]=dat;
-
-        tmp_y[0]  = b[0] * tmp_x[0] +
-                b[1]* tmp_x[1] +
-                b[2] * tmp_x[2] +
-                b[3]* tmp_x[3] +
-                b[4] * tmp_x[4] -
-                a[1] * tmp_y[1] -
-                a[2] * tmp_y[2] -
-                a[3] * tmp_y[3] -
-                a[4] * tmp_y[4] ;
-
-        return  (float)tmp_y[0];
+        return PPG_FILTER.process(0, dat);
     }
 
-
-    static Double[] b2 = {0.00328228225341328,0.0,-0.00656456450682656,
-            0.0,0.00328228225341328 };
-    static Double[] a2 = {1.0000,-3.830010133770384,5.50479722355253,
-            -3.51944010291030,0.844653587365286};
-    static double[] tmp_x2 = new double[5];
-    static double[] tmp_y2 = new double[5];
-    final static int maxSize2=5;
     public static synchronized float getPPGData2(double dat) {
-        for (int i = maxSize2-1; i > 0; i--) {
-            tmp_x2[i] = tmp_x2[i - 1];
-            tmp_y2[i] = tmp_y2[i - 1];
-        }
-        tmp_x2[0]=dat;
-
-        tmp_y2[0]  = b2[0] * tmp_x2[0] +
-                b2[1]* tmp_x2[1] +
-                b2[2] * tmp_x2[2] +
-                b2[3]* tmp_x2[3] +
-                b2[4] * tmp_x2[4] -
-                a2[1] * tmp_y2[1] -
-                a2[2] * tmp_y2[2] -
-                a2[3] * tmp_y2[3] -
-                a2[4] * tmp_y2[4] ;
-
-        return  (float)tmp_y2[0];
+        return PPG_FILTER.process(1, dat);
     }
 
-
-
-
-    static Double[] b3 = {0.00328228225341328,0.0,-0.00656456450682656,
-            0.0,0.00328228225341328 };
-    static Double[] a3 = {1.0000,-3.830010133770384,5.50479722355253,
-            -3.51944010291030,0.844653587365286};
-    static double[] tmp_x3 = new double[5];
-    static double[] tmp_y3 = new double[5];
-    final static int maxSize3=5;
     public static synchronized float getPPGData3(double dat) {
-        for (int i = maxSize3-1; i > 0; i--) {
-            tmp_x3[i] = tmp_x3[i - 1];
-            tmp_y3[i] = tmp_y3[i - 1];
-        }
-        tmp_x3[0]=dat;
-
-        tmp_y3[0]  = b3[0] * tmp_x3[0] +
-                b3[1]* tmp_x3[1] +
-                b3[2] * tmp_x3[2] +
-                b3[3]* tmp_x3[3] +
-                b3[4] * tmp_x3[4] -
-                a3[1] * tmp_y3[1] -
-                a3[2] * tmp_y3[2] -
-                a3[3] * tmp_y3[3] -
-                a3[4] * tmp_y3[4] ;
-
-        return  (float)tmp_y3[0];
+        return PPG_FILTER.process(2, dat);
     }
 
-
-
-
-    static Double[] b4 = {0.00328228225341328,0.0,-0.00656456450682656,
-            0.0,0.00328228225341328 };
-    static Double[] a4 = {1.0000,-3.830010133770384,5.50479722355253,
-            -3.51944010291030,0.844653587365286};
-    static double[] tmp_x4= new double[5];
-    static double[] tmp_y4 = new double[5];
-    final static int maxSize4=5;
     public static synchronized float getPPGData4(double dat) {
-        for (int i = maxSize4-1; i > 0; i--) {
-            tmp_x4[i] = tmp_x4[i - 1];
-            tmp_y4[i] = tmp_y4[i - 1];
-        }
-        tmp_x4[0]=dat;
-
-        tmp_y4[0]  = b4[0] * tmp_x4[0] +
-                b4[1]* tmp_x4[1] +
-                b4[2] * tmp_x4[2] +
-                b4[3]* tmp_x4[3] +
-                b4[4] * tmp_x4[4] -
-                a4[1] * tmp_y4[1] -
-                a4[2] * tmp_y4[2] -
-                a4[3] * tmp_y4[3] -
-                a4[4] * tmp_y4[4] ;
-
-        return  (float)tmp_y4[0];
+        return PPG_FILTER.process(3, dat);
     }
 
 
@@ -0,0 +1,110 @@
+package com.jstyle.blesdk2208a.Util;
+
+import java.util.TimeZone;
+
+/**
+ * 设备时间转毫秒时间戳
+ * Converts device wall-clock dates (the 6 BCD bytes yy MM dd HH mm ss of the
+ * history records) to epoch millis. The device clock is set from the phone, so
+ * the default constructor uses the phone time zone, the same one reported by
+ * {@link ResolveUtil#getCurrentTimeZone()}. The zone offset is looked up once per
+ * day and cached, records of a day already seen only cost integer arithmetic.
+ * Not thread safe, except {@link #refreshTimeZone()}.
+ */
+
+public class TimestampCodec {
+    private static final long MILLIS_PER_DAY = 24 * 3600 * 1000L;
+    private static final int CACHE_SIZE = 64;
+
+    private final boolean followDefault;
+    private TimeZone timeZone;
+    private volatile boolean refreshRequested;
+    private final int[] cacheKeys = new int[CACHE_SIZE];
+    private final long[] cacheMidnights = new long[CACHE_SIZE];
+    /**
+     * 当天有夏令时切换，不能直接用零点加偏移
+     */
+    private final boolean[] cacheShifted = new boolean[CACHE_SIZE];
+
+    /**
+     * 跟随手机默认时区
+     */
+    public TimestampCodec() {
+        this.followDefault = true;
+    }
+
+    public TimestampCodec(TimeZone timeZone) {
+        this.followDefault = false;
+        this.timeZone = timeZone;
+    }
+
+    public TimeZone getTimeZone() {
+        if (timeZone == null) timeZone = TimeZone.getDefault();
+        return timeZone;
+    }
+
+    /**
+     * 下次解析时重新读取手机时区，时区变化时清空缓存。可以在任意线程调用 (发送读取命令时)
+     */
+    public void refreshTimeZone() {
+        if (followDefault) refreshRequested = true;
+    }
+
+    public void clearCache() {
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            cacheKeys[i] = 0;
+        }
+    }
+
+    /**
+     * @param offset yy的位置，后面依次为MM dd HH mm ss
+     */
+    public long decodeBcd(byte[] value, int offset) {
+        return toEpoch(2000 + ByteCodec.readBcd(value[offset]), ByteCodec.readBcd(value[offset + 1]),
+                ByteCodec.readBcd(value[offset + 2]), ByteCodec.readBcd(value[offset + 3]),
+                ByteCodec.readBcd(value[offset + 4]), ByteCodec.readBcd(value[offset + 5]));
+    }
+
+    public long toEpoch(int year, int month, int day, int hour, int minute, int second) {
+        int slot = lookup(year, month, day);
+        long millisOfDay = (hour * 3600 + minute * 60 + second) * 1000L;
+        if (!cacheShifted[slot]) return cacheMidnights[slot] + millisOfDay;
+        return toUtc(ByteCodec.daysFromCivil(year, month, day) * MILLIS_PER_DAY + millisOfDay);
+    }
+
+    /**
+     * 当天零点的时间戳
+     */
+    public long getMidnight(int year, int month, int day) {
+        return cacheMidnights[lookup(year, month, day)];
+    }
+
+    private int lookup(int year, int month, int day) {
+        if (refreshRequested) {
+            refreshRequested = false;
+            TimeZone zone = TimeZone.getDefault();
+            if (timeZone == null || !timeZone.hasSameRules(zone)) {
+                timeZone = zone;
+                clearCache();
+            }
+        }
+        int key = (year * 100 + month) * 100 + day;
+        int slot = key & (CACHE_SIZE - 1);
+        if (cacheKeys[slot] != key) {
+            long localMidnight = ByteCodec.daysFromCivil(year, month, day) * MILLIS_PER_DAY;
+            long midnight = toUtc(localMidnight);
+            cacheMidnights[slot] = midnight;
+            cacheShifted[slot] = toUtc(localMidnight + MILLIS_PER_DAY) - midnight != MILLIS_PER_DAY;
+            cacheKeys[slot] = key;
+        }
+        return slot;
+    }
+
+    private long toUtc(long localMillis) {
+        TimeZone zone = getTimeZone();
+        int offset = zone.getOffset(localMillis - zone.getRawOffset());
+        int actual = zone.getOffset(localMillis - offset);
+        //夏令时跳过的时间按切换前的偏移计算，与Calendar一致
+        return localMillis - (actual == offset ? offset : actual);
+    }
+}
@@ -0,0 +1,193 @@
+package com.jstyle.blesdk2208a.Util;
+
+/**
+ * 波形采样点环形缓存
+ * Growable primitive ring buffer for waveform samples. It grows from the initial
+ * capacity up to maxCapacity, after that the oldest samples are overwritten.
+ * Index 0 is the oldest sample still held. Keeps the sample rate and the
+ * sequence ids of the appended frames, a jump in the sequence is counted in
+ * {@link #getMissingFrames()}. Not thread safe.
+ */
+
+public class WaveformBuffer {
+    private int[] samples;
+    private final int maxCapacity;
+    private final int sampleRate;
+    private int head;
+    private int size;
+    private long totalSamples;
+    private int firstSequenceId = -1;
+    private int lastSequenceId = -1;
+    private int missingFrames;
+
+    public WaveformBuffer(int sampleRate, int maxCapacity) {
+        this(sampleRate, Math.min(1024, maxCapacity), maxCapacity);
+    }
+
+    public WaveformBuffer(int sampleRate, int initialCapacity, int maxCapacity) {
+        if (initialCapacity <= 0 || maxCapacity < initialCapacity) {
+            throw new IllegalArgumentException("capacity " + initialCapacity + "/" + maxCapacity);
+        }
+        this.samples = new int[initialCapacity];
+        this.sampleRate = sampleRate;
+        this.maxCapacity = maxCapacity;
+    }
+
+    /**
+     * @param sequenceId 包序号，没有时传-1
+     */
+    public void append(short[] src, int offset, int count, int sequenceId) {
+        onFrame(sequenceId);
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            put(src[offset + i]);
+        }
+    }
+
+    public void append(int[] src, int offset, int count, int sequenceId) {
+        onFrame(sequenceId);
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            put(src[offset + i]);
+        }
+    }
+
+    /**
+     * 直接从通知数组写入有符号16位大端采样点
+     */
+    public void appendSigned16BE(byte[] value, int offset, int count, int sequenceId) {
+        onFrame(sequenceId);
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            put(ByteCodec.readS16BE(value, offset + i * 2));
+        }
+    }
+
+    public void appendUnsigned16LE(byte[] value, int offset, int count, int sequenceId) {
+        onFrame(sequenceId);
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            put(ByteCodec.readU16LE(value, offset + i * 2));
+        }
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("index " + index + " size " + size);
+        return samples[(head + index) % samples.length];
+    }
+
+    /**
+     * 从第from个采样点开始复制count个到dst
+     *
+     * @return 实际复制的个数
+     */
+    public int copyTo(int from, int[] dst, int dstOffset, int count) {
+        count = Math.max(0, Math.min(count, size - from));
+        int capacity = samples.length;
+        int start = (head + from) % capacity;
+        int first = Math.min(count, capacity - start);
+        System.arraycopy(samples, start, dst, dstOffset, first);
+        System.arraycopy(samples, 0, dst, dstOffset + first, count - first);
+        return count;
+    }
+
+    public int copyTo(int from, short[] dst, int dstOffset, int count) {
+        count = Math.max(0, Math.min(count, size - from));
+        for (int i = 0; i < count; i++) {
+            dst[dstOffset + i] = (short) samples[(head + from + i) % samples.length];
+        }
+        return count;
+    }
+
+    /**
+     * 按原来的字符串格式输出，每个采样点后跟separator
+     */
+    public StringBuilder appendTo(StringBuilder builder, char separator) {
+        for (int i = 0; i < size; i++) {
+            builder.append(samples[(head + i) % samples.length]).append(separator);
+        }
+        return builder;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * 缓存中数据的时长(毫秒)
+     */
+    public long getDurationMillis() {
+        return sampleRate <= 0 ? 0 : size * 1000L / sampleRate;
+    }
+
+    public long getTotalSamples() {
+        return totalSamples;
+    }
+
+    /**
+     * 因容量不足被覆盖的采样点
+     */
+    public long getOverwrittenSamples() {
+        return totalSamples - size;
+    }
+
+    public int getFirstSequenceId() {
+        return firstSequenceId;
+    }
+
+    public int getLastSequenceId() {
+        return lastSequenceId;
+    }
+
+    public int getMissingFrames() {
+        return missingFrames;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+        totalSamples = 0;
+        firstSequenceId = -1;
+        lastSequenceId = -1;
+        missingFrames = 0;
+    }
+
+    private void onFrame(int sequenceId) {
+        if (sequenceId < 0) return;
+        if (firstSequenceId < 0) {
+            firstSequenceId = sequenceId;
+        } else if (sequenceId > lastSequenceId + 1) {
+            missingFrames += sequenceId - lastSequenceId - 1;
+        }
+        lastSequenceId = sequenceId;
+    }
+
+    private void put(int sample) {
+        int capacity = samples.length;
+        if (size < capacity) {
+            samples[(head + size) % capacity] = sample;
+            size++;
+        } else {
+            samples[head] = sample;
+            head = (head + 1) % capacity;
+        }
+        totalSamples++;
+    }
+
+    private void ensureCapacity(int count) {
+        int capacity = samples.length;
+        if (size + count <= capacity || capacity == maxCapacity) return;
+        int newCapacity = capacity;
+        while (newCapacity < size + count && newCapacity < maxCapacity) {
+            newCapacity = (int) Math.min((long) newCapacity * 2, maxCapacity);
+        }
+        int[] grown = new int[newCapacity];
+        copyTo(0, grown, 0, size);
+        samples = grown;
+        head = 0;
+    }
+}
@@ -0,0 +1,150 @@
+package com.jstyle.blesdk2208a.Util;
+
+import com.jstyle.blesdk2208a.callback.WaveformListener2025;
+import com.jstyle.blesdk2208a.constant.BleConst;
+import com.jstyle.blesdk2208a.constant.DeviceConst;
+
+/**
+ * ECG/PPG波形解析，直接从通知数组按偏移写入基本类型数组
+ * The static methods decode samples in place from the notification array into a
+ * caller provided short[]/int[] and return the number of samples written. An
+ * instance decodes whole frames (ECG history 0x71, real-time ECG 0xAA and PPG 0xAB)
+ * into reused arrays for a {@link WaveformListener2025}. Not thread safe, use one
+ * decoder per connection.
+ */
+
+public class WaveformDecoder {
+    /**
+     * ECG采样率，与算法库NSK_ALGO_SAMPLE_RATE_512一致；PPG与ECG同步上传
+     */
+    public static final int ECG_SAMPLE_RATE = 512;
+    public static final int PPG_SAMPLE_RATE = 512;
+    /**
+     * ECG历史数据第一包的记录头长度，后面的包为3
+     */
+    public static final int ECG_HISTORY_HEADER = 27;
+    public static final int ECG_HISTORY_PAGE_HEADER = 3;
+
+    private final TimestampCodec timestampCodec;
+    private short[] ecgSamples = new short[128];
+    private int[] ppgSamples = new int[128];
+    private int ecgSampleRate = ECG_SAMPLE_RATE;
+    private int ppgSampleRate = PPG_SAMPLE_RATE;
+    private int ecgSequence;
+    private int ppgSequence;
+
+    public WaveformDecoder() {
+        this(new TimestampCodec());
+    }
+
+    public WaveformDecoder(TimestampCodec timestampCodec) {
+        this.timestampCodec = timestampCodec;
+    }
+
+    public void setSampleRate(int ecgSampleRate, int ppgSampleRate) {
+        this.ecgSampleRate = ecgSampleRate;
+        this.ppgSampleRate = ppgSampleRate;
+    }
+
+    /**
+     * 重新开始实时数据的包计数
+     */
+    public void resetSequence() {
+        ecgSequence = 0;
+        ppgSequence = 0;
+    }
+
+    /**
+     * @return false if the opcode is not a waveform frame handled here
+     */
+    public boolean decode(byte[] value, WaveformListener2025 listener) {
+        switch (value[0]) {
+            case DeviceConst.GetECGwaveform:
+                decodeEcgHistory(value, listener);
+                return true;
+            case DeviceConst.CMD_ECGDATA: {
+                int count = getSigned16Count(value, 0);
+                short[] samples = ensureEcgCapacity(count);
+                decodeSigned16BE(value, 1, count, samples, 0);
+                listener.onEcgSamples(BleConst.RealtimeEcgWaveform, ecgSequence++, ecgSampleRate, samples, count);
+                return true;
+            }
+            case DeviceConst.CMD_PPGGDATA: {
+                int count = getSigned16Count(value, 0);
+                int[] samples = ensurePpgCapacity(count);
+                decodeSigned16BE(value, 1, count, samples, 0);
+                listener.onPpgSamples(BleConst.RealtimePpgWaveform, ppgSequence++, ppgSampleRate, samples, count);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void decodeEcgHistory(byte[] value, WaveformListener2025 listener) {
+        int length = value.length;
+        if (length == 3 || (value[length - 3] == (byte) 0x71 && value[length - 2] == (byte) 0xff && value[length - 1] == (byte) 0xff)) {
+            listener.onEcgHistoryEnd();
+            return;
+        }
+        int id = ByteCodec.readU16LE(value, 1);
+        int offset = ECG_HISTORY_PAGE_HEADER;
+        if (id == 0) {//第一条
+            String date = "20" + ResolveUtil.bcd2String(value[3]) + "-"
+                    + ResolveUtil.bcd2String(value[4]) + "-" + ResolveUtil.bcd2String(value[5]) + " "
+                    + ResolveUtil.bcd2String(value[6]) + ":" + ResolveUtil.bcd2String(value[7]) + ":" + ResolveUtil.bcd2String(value[8]);
+            listener.onEcgHistoryStart(date, timestampCodec.decodeBcd(value, 3),
+                    value[11] & 0xff, value[12] & 0xff, value[13] & 0xff);
+            offset = ECG_HISTORY_HEADER;
+        }
+        int count = getSigned16Count(value, offset);
+        short[] samples = ensureEcgCapacity(count);
+        decodeSigned16BE(value, offset + 1, count, samples, 0);
+        listener.onEcgSamples(BleConst.ECGdata, id, ecgSampleRate, samples, count);
+    }
+
+    /**
+     * 记录头之后的有符号16位采样点个数，采样点从headerLength + 1开始 (与原字符串解析一致)
+     */
+    public static int getSigned16Count(byte[] value, int headerLength) {
+        int count = (value.length - headerLength) / 2 - 1;
+        return count < 0 ? 0 : count;
+    }
+
+    public static int decodeSigned16BE(byte[] value, int offset, int count, short[] out, int outOffset) {
+        for (int i = 0; i < count; i++) {
+            out[outOffset + i] = (short) ByteCodec.readU16BE(value, offset + i * 2);
+        }
+        return count;
+    }
+
+    public static int decodeSigned16BE(byte[] value, int offset, int count, int[] out, int outOffset) {
+        for (int i = 0; i < count; i++) {
+            out[outOffset + i] = ByteCodec.readS16BE(value, offset + i * 2);
+        }
+        return count;
+    }
+
+    public static int decodeUnsigned16LE(byte[] value, int offset, int count, int[] out, int outOffset) {
+        for (int i = 0; i < count; i++) {
+            out[outOffset + i] = ByteCodec.readU16LE(value, offset + i * 2);
+        }
+        return count;
+    }
+
+    public static int decodeUnsigned8(byte[] value, int offset, int count, int[] out, int outOffset) {
+        for (int i = 0; i < count; i++) {
+            out[outOffset + i] = value[offset + i] & 0xff;
+        }
+        return count;
+    }
+
+    private short[] ensureEcgCapacity(int count) {
+        if (ecgSamples.length < count) ecgSamples = new short[count];
+        return ecgSamples;
+    }
+
+    private int[] ensurePpgCapacity(int count) {
+        if (ppgSamples.length < count) ppgSamples = new int[count];
+        return ppgSamples;
+    }
+}
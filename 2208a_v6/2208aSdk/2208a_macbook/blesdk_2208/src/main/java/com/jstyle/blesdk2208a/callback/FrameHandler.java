@@ -0,0 +1,10 @@
+package com.jstyle.blesdk2208a.callback;
+
+/**
+ * 单个命令字的应答解析
+ * Handles the frames of one command byte, see FrameDispatcher.
+ */
+
+public interface FrameHandler {
+    void handle(byte[] value, DataListener2025 dataListener);
+}
@@ -0,0 +1,17 @@
+package com.jstyle.blesdk2208a.callback;
+
+import com.jstyle.blesdk2208a.model.GpsTrack;
+
+/**
+ * GPS历史数据的回调，每包一次
+ * The page is reused by the decoder and only valid during the callback, copy it
+ * with {@link GpsTrack#append(GpsTrack)} to keep the points.
+ */
+
+public interface GpsListener2025 {
+    /**
+     * @param page 本包的轨迹点，结束标志单独一包时为空
+     * @param end  是否为最后一包 (与Map回调中的DeviceKey.End一致)
+     */
+    void onGpsTrack(GpsTrack page, boolean end);
+}
@@ -0,0 +1,13 @@
+package com.jstyle.blesdk2208a.callback;
+
+import com.jstyle.blesdk2208a.model.RawSensorBatch;
+
+/**
+ * 0x3B原始PPG/三轴数据的批量回调
+ * The batch is reused by the decoder and only valid during the callback, copy it
+ * with {@link RawSensorBatch#append(RawSensorBatch)} to keep the samples.
+ */
+
+public interface RawSensorListener2025 {
+    void onRawSensorBatch(RawSensorBatch batch);
+}
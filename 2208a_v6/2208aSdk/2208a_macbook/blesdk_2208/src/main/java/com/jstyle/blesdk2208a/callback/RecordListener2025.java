@@ -0,0 +1,47 @@
+package com.jstyle.blesdk2208a.callback;
+
+import com.jstyle.blesdk2208a.model.BloodOxygenRecord;
+import com.jstyle.blesdk2208a.model.DetailActivityRecord;
+import com.jstyle.blesdk2208a.model.DynamicHeartRateRecord;
+import com.jstyle.blesdk2208a.model.ExerciseRecord;
+import com.jstyle.blesdk2208a.model.HrvRecord;
+import com.jstyle.blesdk2208a.model.SleepRecord;
+import com.jstyle.blesdk2208a.model.StaticHeartRateRecord;
+import com.jstyle.blesdk2208a.model.TemperatureRecord;
+import com.jstyle.blesdk2208a.model.TotalActivityRecord;
+
+/**
+ * 历史数据的类型化回调，与DataListener2025并列使用
+ * Typed counterpart of {@link DataListener2025} for history data. The record
+ * instances are reused by the decoder, they are only valid during the callback,
+ * copy the values out if they need to be kept.
+ */
+
+public interface RecordListener2025 {
+    void onTotalActivity(TotalActivityRecord record);
+
+    void onDetailActivity(DetailActivityRecord record);
+
+    void onSleep(SleepRecord record);
+
+    void onDynamicHeartRate(DynamicHeartRateRecord record);
+
+    void onStaticHeartRate(StaticHeartRateRecord record);
+
+    void onHrv(HrvRecord record);
+
+    void onBloodOxygen(BloodOxygenRecord record);
+
+    void onTemperature(TemperatureRecord record);
+
+    void onExercise(ExerciseRecord record);
+
+    /**
+     * 一包数据解析完成
+     *
+     * @param dataType    BleConst中的数据类型
+     * @param recordCount 本包记录条数
+     * @param end         是否为最后一包 (与Map回调中的DeviceKey.End一致)
+     */
+    void onPageEnd(String dataType, int recordCount, boolean end);
+}
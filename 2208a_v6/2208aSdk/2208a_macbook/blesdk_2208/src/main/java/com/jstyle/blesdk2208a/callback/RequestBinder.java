@@ -0,0 +1,13 @@
+package com.jstyle.blesdk2208a.callback;
+
+import com.jstyle.blesdk2208a.Util.FrameDispatcher;
+
+/**
+ * 发送命令时根据命令内容登记期望的应答解析
+ * Called for every outgoing command of its command byte, registers the handler
+ * the response is expected to go through (for example delete vs read).
+ */
+
+public interface RequestBinder {
+    void bind(byte[] command, FrameDispatcher dispatcher);
+}
@@ -0,0 +1,38 @@
+package com.jstyle.blesdk2208a.callback;
+
+/**
+ * ECG/PPG波形的原始采样点回调，不生成字符串
+ * Typed waveform counterpart of {@link DataListener2025}. The sample arrays are
+ * reused by the decoder and only valid during the callback, copy them (or append
+ * them to a {@link com.jstyle.blesdk2208a.Util.WaveformBuffer}) to keep them.
+ */
+
+public interface WaveformListener2025 {
+    /**
+     * ECG历史数据一条记录的第一包
+     *
+     * @param date       与Map回调中DeviceKey.Date格式一致
+     * @param timeMillis 同一时间的毫秒时间戳
+     */
+    void onEcgHistoryStart(String date, long timeMillis, int hrv, int heartRate, int moodValue);
+
+    /**
+     * ECG采样点，有符号16位
+     *
+     * @param dataType   BleConst.ECGdata (历史) 或 BleConst.RealtimeEcgWaveform (实时)
+     * @param sequenceId 历史数据为包序号，实时数据为收到的包计数
+     */
+    void onEcgSamples(String dataType, int sequenceId, int sampleRate, short[] samples, int count);
+
+    /**
+     * PPG采样点
+     *
+     * @param dataType BleConst.RealtimePpgWaveform
+     */
+    void onPpgSamples(String dataType, int sequenceId, int sampleRate, int[] samples, int count);
+
+    /**
+     * ECG历史数据读取结束 (与Map回调的DeviceKey.End一致)
+     */
+    void onEcgHistoryEnd();
+}
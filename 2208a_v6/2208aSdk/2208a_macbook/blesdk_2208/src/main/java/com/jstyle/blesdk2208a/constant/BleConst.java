@@ -106,6 +106,8 @@ public class BleConst {
 
    public static final String SetBloodpressure_calibration="103";
    public static final String GetBloodpressure_calibration="104";
+   public static final String RealtimeEcgWaveform="105";
+   public static final String RealtimePpgWaveform="106";
    public static final String FindMobilePhoneMode="FindMobilePhoneMode";
    public static final String RejectTelMode ="RejectTelMode";
    public static final String TelMode ="TelMode";
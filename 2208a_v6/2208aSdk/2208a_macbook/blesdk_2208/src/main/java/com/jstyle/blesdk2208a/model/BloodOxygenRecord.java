@@ -0,0 +1,17 @@
+package com.jstyle.blesdk2208a.model;
+
+/**
+ * 血氧数据，手动测试(0x60)和自动监测(0x66)共用，用dataType区分
+ */
+
+public class BloodOxygenRecord extends HistoryRecord {
+    int bloodOxygen;
+
+    public int getBloodOxygen() {
+        return bloodOxygen;
+    }
+
+    public void setBloodOxygen(int bloodOxygen) {
+        this.bloodOxygen = bloodOxygen;
+    }
+}
@@ -0,0 +1,42 @@
+package com.jstyle.blesdk2208a.model;
+
+/**
+ * 详细运动数据 (0x52)，10分钟一条，每分钟的步数在minuteSteps中
+ * Distance and calories are kept in the raw 0.01 units sent by the device.
+ */
+
+public class DetailActivityRecord extends HistoryRecord {
+    public static final int MINUTES = 10;
+    int step;
+    int calories;
+    int distance;
+    final int[] minuteSteps = new int[MINUTES];
+
+    public int getStep() {
+        return step;
+    }
+
+    public void setStep(int step) {
+        this.step = step;
+    }
+
+    public int getCalories() {
+        return calories;
+    }
+
+    public void setCalories(int calories) {
+        this.calories = calories;
+    }
+
+    public int getDistance() {
+        return distance;
+    }
+
+    public void setDistance(int distance) {
+        this.distance = distance;
+    }
+
+    public int[] getMinuteSteps() {
+        return minuteSteps;
+    }
+}
@@ -0,0 +1,14 @@
+package com.jstyle.blesdk2208a.model;
+
+/**
+ * 历史动态心率 (0x54)，每条15个心率值
+ */
+
+public class DynamicHeartRateRecord extends HistoryRecord {
+    public static final int COUNT = 15;
+    final int[] heartRates = new int[COUNT];
+
+    public int[] getHeartRates() {
+        return heartRates;
+    }
+}
@@ -0,0 +1,80 @@
+package com.jstyle.blesdk2208a.model;
+
+/**
+ * 多运动模式数据 (0x5C)
+ */
+
+public class ExerciseRecord extends HistoryRecord {
+    int activityMode;
+    int heartRate;
+    int activeMinutes;
+    int step;
+    int paceMinutes;
+    int paceSeconds;
+    float calories;
+    float distance;
+
+    public int getActivityMode() {
+        return activityMode;
+    }
+
+    public void setActivityMode(int activityMode) {
+        this.activityMode = activityMode;
+    }
+
+    public int getHeartRate() {
+        return heartRate;
+    }
+
+    public void setHeartRate(int heartRate) {
+        this.heartRate = heartRate;
+    }
+
+    public int getActiveMinutes() {
+        return activeMinutes;
+    }
+
+    public void setActiveMinutes(int activeMinutes) {
+        this.activeMinutes = activeMinutes;
+    }
+
+    public int getStep() {
+        return step;
+    }
+
+    public void setStep(int step) {
+        this.step = step;
+    }
+
+    public int getPaceMinutes() {
+        return paceMinutes;
+    }
+
+    public void setPaceMinutes(int paceMinutes) {
+        this.paceMinutes = paceMinutes;
+    }
+
+    public int getPaceSeconds() {
+        return paceSeconds;
+    }
+
+    public void setPaceSeconds(int paceSeconds) {
+        this.paceSeconds = paceSeconds;
+    }
+
+    public float getCalories() {
+        return calories;
+    }
+
+    public void setCalories(float calories) {
+        this.calories = calories;
+    }
+
+    public float getDistance() {
+        return distance;
+    }
+
+    public void setDistance(float distance) {
+        this.distance = distance;
+    }
+}
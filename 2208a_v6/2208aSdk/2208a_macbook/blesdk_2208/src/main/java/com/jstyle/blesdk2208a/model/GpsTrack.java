@@ -0,0 +1,99 @@
+package com.jstyle.blesdk2208a.model;
+
+/**
+ * GPS轨迹，经纬度和时间分别存放在基本类型数组中
+ * Index i of every array belongs to the same point. Latitude and longitude are the
+ * float values sent by the device (degrees), each history record holds
+ * {@link #POINTS_PER_RECORD} points that share the record time.
+ */
+
+public class GpsTrack {
+    public static final int POINTS_PER_RECORD = 6;
+
+    private float[] latitudes;
+    private float[] longitudes;
+    private long[] timestamps;
+    private int size;
+
+    public GpsTrack() {
+        this(POINTS_PER_RECORD * 16);
+    }
+
+    public GpsTrack(int capacity) {
+        capacity = Math.max(1, capacity);
+        latitudes = new float[capacity];
+        longitudes = new float[capacity];
+        timestamps = new long[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 数组长度可能大于size，只读前size个
+     */
+    public float[] getLatitudes() {
+        return latitudes;
+    }
+
+    public float[] getLongitudes() {
+        return longitudes;
+    }
+
+    public long[] getTimestamps() {
+        return timestamps;
+    }
+
+    public float getLatitude(int index) {
+        return latitudes[index];
+    }
+
+    public float getLongitude(int index) {
+        return longitudes[index];
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    public void add(long timeMillis, float latitude, float longitude) {
+        ensureCapacity(size + 1);
+        latitudes[size] = latitude;
+        longitudes[size] = longitude;
+        timestamps[size] = timeMillis;
+        size++;
+    }
+
+    /**
+     * 追加另一段轨迹，容量不够时扩容
+     */
+    public void append(GpsTrack track) {
+        int count = track.size;
+        if (count == 0) return;
+        ensureCapacity(size + count);
+        System.arraycopy(track.latitudes, 0, latitudes, size, count);
+        System.arraycopy(track.longitudes, 0, longitudes, size, count);
+        System.arraycopy(track.timestamps, 0, timestamps, size, count);
+        size += count;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void ensureCapacity(int capacity) {
+        int length = timestamps.length;
+        if (capacity <= length) return;
+        int newLength = Math.max(capacity, length + (length >> 1));
+        float[] lat = new float[newLength];
+        float[] lon = new float[newLength];
+        long[] times = new long[newLength];
+        System.arraycopy(latitudes, 0, lat, 0, size);
+        System.arraycopy(longitudes, 0, lon, 0, size);
+        System.arraycopy(timestamps, 0, times, 0, size);
+        latitudes = lat;
+        longitudes = lon;
+        timestamps = times;
+    }
+}
@@ -0,0 +1,95 @@
+package com.jstyle.blesdk2208a.model;
+
+/**
+ * 历史数据记录基类
+ * Base class of the typed history records. All fields are primitives and the
+ * date string is only built when {@link #getDate()} is called, so a decoder can
+ * reuse one instance per record type for a whole page. {@link #getTimeMillis()}
+ * is the same date as epoch millis in the phone time zone.
+ */
+
+public abstract class HistoryRecord {
+    String dataType;
+    int year;
+    int month;
+    int day;
+    int hour;
+    int minute;
+    int second;
+    long timeMillis;
+
+    public String getDataType() {
+        return dataType;
+    }
+
+    public void setDataType(String dataType) {
+        this.dataType = dataType;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    public int getDay() {
+        return day;
+    }
+
+    public int getHour() {
+        return hour;
+    }
+
+    public int getMinute() {
+        return minute;
+    }
+
+    public int getSecond() {
+        return second;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public void setTimeMillis(long timeMillis) {
+        this.timeMillis = timeMillis;
+    }
+
+    public void setTime(int year, int month, int day, int hour, int minute, int second) {
+        this.year = year;
+        this.month = month;
+        this.day = day;
+        this.hour = hour;
+        this.minute = minute;
+        this.second = second;
+    }
+
+    /**
+     * 日期字符串，格式与Map回调中的DeviceKey.Date一致
+     * Same format as DeviceKey.Date of the map callback.
+     */
+    public String getDate() {
+        return formatDate('.', true);
+    }
+
+    protected String formatDate(char separator, boolean withTime) {
+        StringBuilder builder = new StringBuilder(19);
+        builder.append(year);
+        appendTwoDigits(builder.append(separator), month);
+        appendTwoDigits(builder.append(separator), day);
+        if (withTime) {
+            appendTwoDigits(builder.append(' '), hour);
+            appendTwoDigits(builder.append(':'), minute);
+            appendTwoDigits(builder.append(':'), second);
+        }
+        return builder.toString();
+    }
+
+    private static void appendTwoDigits(StringBuilder builder, int value) {
+        if (value < 10) builder.append('0');
+        builder.append(value);
+    }
+}
@@ -0,0 +1,62 @@
+package com.jstyle.blesdk2208a.model;
+
+/**
+ * HRV测试数据 (0x56)
+ */
+
+public class HrvRecord extends HistoryRecord {
+    int hrv;
+    int vascularAging;
+    int heartRate;
+    int stress;
+    int highBP;
+    int lowBP;
+
+    public int getHrv() {
+        return hrv;
+    }
+
+    public void setHrv(int hrv) {
+        this.hrv = hrv;
+    }
+
+    public int getVascularAging() {
+        return vascularAging;
+    }
+
+    public void setVascularAging(int vascularAging) {
+        this.vascularAging = vascularAging;
+    }
+
+    public int getHeartRate() {
+        return heartRate;
+    }
+
+    public void setHeartRate(int heartRate) {
+        this.heartRate = heartRate;
+    }
+
+    public int getStress() {
+        return stress;
+    }
+
+    public void setStress(int stress) {
+        this.stress = stress;
+    }
+
+    public int getHighBP() {
+        return highBP;
+    }
+
+    public void setHighBP(int highBP) {
+        this.highBP = highBP;
+    }
+
+    public int getLowBP() {
+        return lowBP;
+    }
+
+    public void setLowBP(int lowBP) {
+        this.lowBP = lowBP;
+    }
+}
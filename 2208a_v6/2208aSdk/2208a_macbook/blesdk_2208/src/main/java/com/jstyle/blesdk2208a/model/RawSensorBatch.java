@@ -0,0 +1,100 @@
+package com.jstyle.blesdk2208a.model;
+
+/**
+ * 0x3B原始PPG/三轴数据，按通道存放的基本类型数组
+ * One int[] per channel plus the receive time of every frame, index i of every
+ * array belongs to the same frame. PPG channels are unsigned 24 bit, X/Y/Z are
+ * unsigned 16 bit as sent by the device.
+ */
+
+public class RawSensorBatch {
+    public static final int P1 = 0;
+    public static final int P2 = 1;
+    public static final int P4 = 2;
+    public static final int P6 = 3;
+    public static final int X = 4;
+    public static final int Y = 5;
+    public static final int Z = 6;
+    public static final int CHANNEL_COUNT = 7;
+
+    private final int[][] channels = new int[CHANNEL_COUNT][];
+    private long[] timestamps;
+    private int size;
+
+    public RawSensorBatch(int capacity) {
+        capacity = Math.max(1, capacity);
+        for (int i = 0; i < CHANNEL_COUNT; i++) {
+            channels[i] = new int[capacity];
+        }
+        timestamps = new long[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 数组长度可能大于size，只读前size个
+     */
+    public int[] getChannel(int channel) {
+        return channels[channel];
+    }
+
+    public long[] getTimestamps() {
+        return timestamps;
+    }
+
+    public int get(int channel, int index) {
+        return channels[channel][index];
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    public void add(long timeMillis, int p1, int p2, int p4, int p6, int x, int y, int z) {
+        ensureCapacity(size + 1);
+        int[][] c = channels;
+        c[P1][size] = p1;
+        c[P2][size] = p2;
+        c[P4][size] = p4;
+        c[P6][size] = p6;
+        c[X][size] = x;
+        c[Y][size] = y;
+        c[Z][size] = z;
+        timestamps[size] = timeMillis;
+        size++;
+    }
+
+    /**
+     * 追加另一批数据，容量不够时扩容
+     */
+    public void append(RawSensorBatch batch) {
+        int count = batch.size;
+        if (count == 0) return;
+        ensureCapacity(size + count);
+        for (int i = 0; i < CHANNEL_COUNT; i++) {
+            System.arraycopy(batch.channels[i], 0, channels[i], size, count);
+        }
+        System.arraycopy(batch.timestamps, 0, timestamps, size, count);
+        size += count;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        int length = timestamps.length;
+        if (capacity <= length) return;
+        int newLength = Math.max(capacity, length + (length >> 1));
+        for (int i = 0; i < CHANNEL_COUNT; i++) {
+            int[] channel = new int[newLength];
+            System.arraycopy(channels[i], 0, channel, 0, size);
+            channels[i] = channel;
+        }
+        long[] times = new long[newLength];
+        System.arraycopy(timestamps, 0, times, 0, size);
+        timestamps = times;
+    }
+}
@@ -0,0 +1,37 @@
+package com.jstyle.blesdk2208a.model;
+
+/**
+ * 睡眠数据 (0x53)，unitMinutes为1表示一分钟睡眠数据，5表示五分钟睡眠数据
+ * Only the first {@link #getQualityCount()} entries of the quality array are valid.
+ */
+
+public class SleepRecord extends HistoryRecord {
+    int unitMinutes;
+    int qualityCount;
+    final int[] quality = new int[255];
+
+    public int getUnitMinutes() {
+        return unitMinutes;
+    }
+
+    public void setUnitMinutes(int unitMinutes) {
+        this.unitMinutes = unitMinutes;
+    }
+
+    public int getQualityCount() {
+        return qualityCount;
+    }
+
+    public void setQualityCount(int qualityCount) {
+        this.qualityCount = qualityCount;
+    }
+
+    public int[] getQuality() {
+        return quality;
+    }
+
+    @Override
+    public String getDate() {
+        return formatDate('-', true);
+    }
+}
@@ -0,0 +1,17 @@
+package com.jstyle.blesdk2208a.model;
+
+/**
+ * 单次历史心率 (0x55)
+ */
+
+public class StaticHeartRateRecord extends HistoryRecord {
+    int heartRate;
+
+    public int getHeartRate() {
+        return heartRate;
+    }
+
+    public void setHeartRate(int heartRate) {
+        this.heartRate = heartRate;
+    }
+}
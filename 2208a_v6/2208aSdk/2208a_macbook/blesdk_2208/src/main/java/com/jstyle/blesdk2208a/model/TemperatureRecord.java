@@ -0,0 +1,18 @@
+package com.jstyle.blesdk2208a.model;
+
+/**
+ * 温度数据，体温(0x62)和腋下温度(0x65)共用，用dataType区分
+ * The temperature is kept in the raw 0.1 degree units sent by the device.
+ */
+
+public class TemperatureRecord extends HistoryRecord {
+    int temperature;
+
+    public int getTemperature() {
+        return temperature;
+    }
+
+    public void setTemperature(int temperature) {
+        this.temperature = temperature;
+    }
+}
@@ -0,0 +1,68 @@
+package com.jstyle.blesdk2208a.model;
+
+/**
+ * 总运动数据 (0x51)
+ * Distance and calories are kept in the raw 0.01 units sent by the device.
+ */
+
+public class TotalActivityRecord extends HistoryRecord {
+    int step;
+    int exerciseMinutes;
+    int distance;
+    int calories;
+    int goal;
+    int activeMinutes;
+
+    public int getStep() {
+        return step;
+    }
+
+    public void setStep(int step) {
+        this.step = step;
+    }
+
+    public int getExerciseMinutes() {
+        return exerciseMinutes;
+    }
+
+    public void setExerciseMinutes(int exerciseMinutes) {
+        this.exerciseMinutes = exerciseMinutes;
+    }
+
+    public int getDistance() {
+        return distance;
+    }
+
+    public void setDistance(int distance) {
+        this.distance = distance;
+    }
+
+    public int getCalories() {
+        return calories;
+    }
+
+    public void setCalories(int calories) {
+        this.calories = calories;
+    }
+
+    public int getGoal() {
+        return goal;
+    }
+
+    public void setGoal(int goal) {
+        this.goal = goal;
+    }
+
+    public int getActiveMinutes() {
+        return activeMinutes;
+    }
+
+    public void setActiveMinutes(int activeMinutes) {
+        this.activeMinutes = activeMinutes;
+    }
+
+    @Override
+    public String getDate() {
+        return formatDate('.', false);
+    }
+}
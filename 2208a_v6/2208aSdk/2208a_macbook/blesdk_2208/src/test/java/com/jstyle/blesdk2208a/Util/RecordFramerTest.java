@@ -0,0 +1,82 @@
+package com.jstyle.blesdk2208a.Util;
+
+import com.jstyle.blesdk2208a.constant.DeviceConst;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * 历史数据跨包重组
+ */
+public class RecordFramerTest {
+    private static final byte DETAIL = DeviceConst.CMD_Get_DetailData;
+    private static final int DETAIL_LENGTH = 25;
+
+    /**
+     * 20字节MTU拆分0x52记录，第二包的第一个字节是0x54 (动态心率的命令字)
+     */
+    @Test
+    public void continuationStartingWithHistoryOpcode() throws Exception {
+        RecordFramer framer = startRead(DETAIL);
+        byte[] stream = detailStream(3);
+        assertEquals(DeviceConst.CMD_Get_HeartData, stream[20]);
+        ByteArrayOutputStream pages = new ByteArrayOutputStream();
+        for (int offset = 0; offset < stream.length; offset += 20) {
+            byte[] page = framer.feed(Arrays.copyOfRange(stream, offset, Math.min(offset + 20, stream.length)));
+            if (page == null) continue;
+            assertEquals(DETAIL, page[0]);
+            pages.write(page);
+        }
+        assertArrayEquals(stream, pages.toByteArray());
+        assertFalse(framer.hasPending());
+    }
+
+    @Test
+    public void frameBreakingTheFramingIsPassedThrough() throws Exception {
+        RecordFramer framer = startRead(DETAIL);
+        byte[] stream = detailStream(2);
+        assertNull(framer.feed(Arrays.copyOfRange(stream, 0, 20)));
+        byte[] other = {0x09, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+        assertSame(other, framer.feed(other));
+        assertTrue(framer.hasPending());
+        ByteArrayOutputStream pages = new ByteArrayOutputStream();
+        pages.write(framer.feed(Arrays.copyOfRange(stream, 20, stream.length)));
+        assertArrayEquals(stream, pages.toByteArray());
+    }
+
+    @Test
+    public void endMarkerDropsPartialRecord() throws Exception {
+        RecordFramer framer = startRead(DETAIL);
+        byte[] stream = detailStream(2);
+        assertEquals(DETAIL_LENGTH, framer.feed(Arrays.copyOfRange(stream, 0, 30)).length);
+        byte[] end = {DETAIL, (byte) 0xff};
+        assertArrayEquals(end, framer.feed(end));
+        assertFalse(framer.hasPending());
+    }
+
+    private static RecordFramer startRead(byte cmd) {
+        RecordFramer framer = new RecordFramer();
+        byte[] command = new byte[16];
+        command[0] = cmd;
+        framer.onCommand(command);
+        return framer;
+    }
+
+    /**
+     * count条记录加结束标志，数据字节都是0x54
+     */
+    private static byte[] detailStream(int count) {
+        byte[] stream = new byte[count * DETAIL_LENGTH + 2];
+        Arrays.fill(stream, DeviceConst.CMD_Get_HeartData);
+        for (int i = 0; i < count; i++) {
+            stream[i * DETAIL_LENGTH] = DETAIL;
+        }
+        stream[stream.length - 2] = DETAIL;
+        stream[stream.length - 1] = (byte) 0xff;
+        return stream;
+    }
+}
@@ -0,0 +1,108 @@
+package com.jstyle.blesdk2208a.benchmark;
+
+import com.jstyle.blesdk2208a.Util.ByteCodec;
+import com.jstyle.blesdk2208a.Util.TimestampCodec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基本类型读取：Math.pow累加 / 移位 (byte[]和ByteBuffer)，BCD日期字符串 / 时间戳 / 带时区缓存的时间戳
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CodecBenchmark {
+    private byte[] value;
+    private ByteBuffer buffer;
+    private TimestampCodec timestampCodec;
+
+    @Setup
+    public void setup() {
+        value = SyncPayloads.detail(1);
+        buffer = ByteBuffer.wrap(value);
+        timestampCodec = new TimestampCodec(TimeZone.getTimeZone("Europe/Berlin"));
+    }
+
+    @Benchmark
+    public int u16Legacy() {
+        int sum = 0;
+        for (int i = 0; i + 2 <= value.length; i += 2) {
+            sum += LegacyResolveUtil.getData(2, i, value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int u16Codec() {
+        int sum = 0;
+        for (int i = 0; i + 2 <= value.length; i += 2) {
+            sum += ByteCodec.readU16LE(value, i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int u16Buffer() {
+        int sum = 0;
+        for (int i = 0; i + 2 <= value.length; i += 2) {
+            sum += ByteCodec.readU16LE(buffer, i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int u32Legacy() {
+        int sum = 0;
+        for (int i = 0; i + 4 <= value.length; i += 4) {
+            sum += LegacyResolveUtil.getData(4, i, value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int u32Codec() {
+        int sum = 0;
+        for (int i = 0; i + 4 <= value.length; i += 4) {
+            sum += ByteCodec.readI32LE(value, i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public void dateLegacy(Blackhole blackhole) {
+        for (int i = 0; i + 25 <= value.length; i += 25) {
+            blackhole.consume("20" + LegacyResolveUtil.ByteToHexString(value[3 + i]) + "."
+                    + LegacyResolveUtil.ByteToHexString(value[4 + i]) + "." + LegacyResolveUtil.ByteToHexString(value[5 + i]) + " "
+                    + LegacyResolveUtil.ByteToHexString(value[6 + i]) + ":" + LegacyResolveUtil.ByteToHexString(value[7 + i]) + ":" + LegacyResolveUtil.ByteToHexString(value[8 + i]));
+        }
+    }
+
+    @Benchmark
+    public long dateEpoch() {
+        long sum = 0;
+        for (int i = 0; i + 25 <= value.length; i += 25) {
+            sum += ByteCodec.readBcdDateTimeToEpoch(value, 3 + i, 0);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long dateZoned() {
+        long sum = 0;
+        for (int i = 0; i + 25 <= value.length; i += 25) {
+            sum += timestampCodec.decodeBcd(value, 3 + i);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,187 @@
+package com.jstyle.blesdk2208a.benchmark;
+
+import com.jstyle.blesdk2208a.constant.BleConst;
+import com.jstyle.blesdk2208a.constant.DeviceKey;
+import com.jstyle.blesdk2208a.model.DeviceBean;
+
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 改用ByteCodec之前的解析代码 (Math.pow / new Byte)，作为基准测试的对照组
+ */
+
+final class LegacyResolveUtil {
+    private LegacyResolveUtil() {
+    }
+
+    public static Map<String,Object> getDetailData(byte[] value) {
+        Map<String,Object> maps=new HashMap<>();
+        maps.put(DeviceKey.DataType, BleConst.GetDetailActivityData);
+        maps.put(DeviceKey.End,false);
+        List<Map<String, String>> list = new ArrayList<>();
+        maps.put(DeviceKey.Data, list);
+        int count = 25;
+        int length = value.length;
+        int size = length / count;
+        DeviceBean deviceBean = new DeviceBean();
+        if (size == 0) {
+            maps.put(DeviceKey.End,true);
+            return maps;
+        }
+        NumberFormat numberFormat = NumberFormat.getNumberInstance();
+        numberFormat.setMaximumFractionDigits(2);
+        numberFormat.setGroupingUsed(false);
+        for (int i = 0; i < size; i++) {
+            Map<String, String> hashMap = new HashMap<>();
+            int flag = 1 + (i + 1) * count;
+            if ( value[length-1] == (byte) 0xff) {
+                maps.put(DeviceKey.End,true);
+            }
+            String date ="20"+ByteToHexString(value[3 + i * 25]) + "."
+                    + ByteToHexString(value[4 + i * 25]) + "." + ByteToHexString(value[5 + i * 25]) + " "
+                    + ByteToHexString(value[6 + i * 25]) + ":" + ByteToHexString(value[7 + i * 25]) + ":" + ByteToHexString(value[8 + i * 25]);
+            int step = 0;
+            float cal = 0;
+            float distance = 0;
+            StringBuffer stringBuffer = new StringBuffer();
+            for (int j = 0; j < 2; j++) {
+                step += getValue(value[9 + j + i * 25], j);
+            }
+            for (int j = 0; j < 2; j++) {
+                cal += getValue(value[11 + j + i * 25], j);
+            }
+            for (int j = 0; j < 2; j++) {
+                distance += getValue(value[13 + j + i * 25], j);
+            }
+            for (int j = 0; j < 10; j++) {
+                stringBuffer.append(String.valueOf(getValue(value[15 + j + i * 25], 0))).append(j == 9 ? "" : " ");
+            }
+            hashMap.put(DeviceKey.Date, date);
+            hashMap.put(DeviceKey.KDetailMinterStep, String.valueOf(step));
+            hashMap.put(DeviceKey.Calories, numberFormat.format(cal / 100));
+            hashMap.put(DeviceKey.Distance, numberFormat.format(distance / 100));
+            hashMap.put(DeviceKey.ArraySteps, stringBuffer.toString());
+            list.add(hashMap);
+        }
+
+        return maps;
+    }
+
+    public static Map<String,Object> getSleepData(byte[] value) {
+        int length = value.length;
+        Map<String,Object> maps=new HashMap<>();
+        maps.put(DeviceKey.DataType, BleConst.GetDetailSleepData);
+        maps.put(DeviceKey.End,false);
+        List<Map<String, String>> list = new ArrayList<>();
+        maps.put(DeviceKey.Data, list);
+        boolean end=value[value.length - 1] == (byte) 0xff;
+        if (end) { maps.put(DeviceKey.End,true);}
+        if(130==length||(end&&132 == length)){//一分钟睡眠数据
+            Map<String, String> hashMap = new HashMap<>();
+            String date = "20" + bcd2String(value[3]) + "-" + bcd2String(value[4]) + "-" + bcd2String(value[5]) + " "
+                    + bcd2String(value[6]) + ":" + bcd2String(value[7]) + ":" + bcd2String(value[8]);
+            hashMap.put(DeviceKey.Date, date);
+            int sleepLength = getValue(value[9], 0);
+            StringBuilder stringBuffer = new StringBuilder();
+            for (int j = 0; j < sleepLength; j++) {
+                stringBuffer.append(getValue(value[10 + j], 0)).append(j == sleepLength ? "" : " ");
+            }
+            hashMap.put(DeviceKey.ArraySleep, stringBuffer.toString());
+            hashMap.put(DeviceKey.sleepUnitLength,"1");
+            list.add(hashMap);
+        }else{
+            int count = 34;
+            int size = length / count;
+            if (size == 0) {
+                maps.put(DeviceKey.Data, list);
+                maps.put(DeviceKey.End,true);
+                return maps;
+            }
+            for (int i = 0; i < size; i++) {
+                Map<String, String> hashMap = new HashMap<>();
+                String date = "20" + bcd2String(value[3 + i * 34]) + "-"
+                        + bcd2String(value[4 + i * 34]) + "-" + bcd2String(value[5 + i * 34]) + " "
+                        + bcd2String(value[6 + i * 34]) + ":" + bcd2String(value[7 + i * 34]) + ":" + bcd2String(value[8 + i * 34]);
+                hashMap.put(DeviceKey.Date, date);
+                int sleepLength = getValue(value[9 + i * 34], 0);
+                StringBuilder stringBuffer = new StringBuilder();
+                try{
+                    for (int j = 0; j < sleepLength; j++) {
+                        stringBuffer.append(getValue(value[10 + j + i * 34], 0)).append(j == sleepLength ?"":" ");
+                    }
+                }catch (ArrayIndexOutOfBoundsException E){E.fillInStackTrace(); }
+                hashMap.put(DeviceKey.ArraySleep, stringBuffer.toString());
+                hashMap.put(DeviceKey.sleepUnitLength,"5");
+                list.add(hashMap);
+            }
+        }
+        return maps;
+    }
+
+    public static Map<String,Object> getHeartData(byte[] value) {
+        Map<String,Object> maps=new HashMap<>();
+        maps.put(DeviceKey.DataType, BleConst.GetDynamicHR);
+        maps.put(DeviceKey.End,false);
+        List<Map<String, String>> list = new ArrayList<>();
+        maps.put(DeviceKey.Data, list);
+        int count = 24;
+        int length = value.length;
+        int size = length / count;
+        if (size == 0) {
+            maps.put(DeviceKey.End,true);
+            return maps;
+        }
+        for (int i = 0; i < size; i++) {
+            if (value[length-1] == (byte) 0xff) {
+                maps.put(DeviceKey.End,true);
+            }
+            Map<String, String> hashMap = new HashMap<>();
+            String date = "20"+ByteToHexString(value[3 + i * count]) + "."
+                    + ByteToHexString(value[4 + i * count]) + "." + ByteToHexString(value[5 + i * count]) + " "
+                    + ByteToHexString(value[6 + i * count]) + ":" + ByteToHexString(value[7 + i * count]) + ":" + ByteToHexString(value[8 + i * count]);
+
+
+            StringBuffer stringBuffer = new StringBuffer();
+            for (int j = 0; j < 15; j++) {
+                stringBuffer.append(String.valueOf(getValue(value[9 + j + i * count], 0))).append(j == 14 ? "" : " ");
+            }
+            hashMap.put(DeviceKey.Date, date);
+            hashMap.put(DeviceKey.ArrayDynamicHR, stringBuffer.toString());
+            list.add(hashMap);
+        }
+
+        return maps;
+    }
+
+    public static int getData(int length, int start, byte[] value) {
+        int data = 0;
+        for (int j = 0; j < length; j++) {
+            data += getValue(value[j + start], j);
+        }
+        return data;
+    }
+
+    public static int getValue(byte b, int count) {
+        return (int) ((b & 0xff) * Math.pow(256, count));
+    }
+
+    public static String ByteToHexString(byte a) {
+        String s = "";
+        s = Integer.toHexString(new Byte(a).intValue());
+        if (s.length() == 1) {
+            s = "0" + s;
+        }
+        return s;
+    }
+
+    public static String bcd2String(byte bytes) {
+        StringBuffer temp = new StringBuffer();
+        temp.append((byte) ((bytes & 0xf0) >>> 4));
+        temp.append((byte) (bytes & 0x0f));
+        return temp.toString();
+    }
+}
@@ -0,0 +1,155 @@
+package com.jstyle.blesdk2208a.benchmark;
+
+import com.jstyle.blesdk2208a.Util.RecordDecoder;
+import com.jstyle.blesdk2208a.Util.ResolveUtil;
+import com.jstyle.blesdk2208a.callback.RecordListener2025;
+import com.jstyle.blesdk2208a.model.BloodOxygenRecord;
+import com.jstyle.blesdk2208a.model.DetailActivityRecord;
+import com.jstyle.blesdk2208a.model.DynamicHeartRateRecord;
+import com.jstyle.blesdk2208a.model.ExerciseRecord;
+import com.jstyle.blesdk2208a.model.HrvRecord;
+import com.jstyle.blesdk2208a.model.SleepRecord;
+import com.jstyle.blesdk2208a.model.StaticHeartRateRecord;
+import com.jstyle.blesdk2208a.model.TemperatureRecord;
+import com.jstyle.blesdk2208a.model.TotalActivityRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一包历史数据的解析耗时：
+ * legacy = 原来的Map解析，map = ResolveUtil现在的Map解析，record = RecordDecoder类型化回调
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParserBenchmark {
+    private byte[] detail;
+    private byte[] heart;
+    private byte[] sleep;
+    private RecordDecoder decoder;
+    private BlackholeListener listener;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        detail = SyncPayloads.detail(1);
+        heart = SyncPayloads.heart(2);
+        sleep = SyncPayloads.sleep(3);
+        decoder = new RecordDecoder();
+        listener = new BlackholeListener(blackhole);
+    }
+
+    @Benchmark
+    public Map<String, Object> detailLegacy() {
+        return LegacyResolveUtil.getDetailData(detail);
+    }
+
+    @Benchmark
+    public Map<String, Object> detailMap() {
+        return ResolveUtil.getDetailData(detail);
+    }
+
+    @Benchmark
+    public void detailRecord() {
+        decoder.decodeDetailActivity(detail, listener);
+    }
+
+    @Benchmark
+    public Map<String, Object> heartLegacy() {
+        return LegacyResolveUtil.getHeartData(heart);
+    }
+
+    @Benchmark
+    public Map<String, Object> heartMap() {
+        return ResolveUtil.getHeartData(heart);
+    }
+
+    @Benchmark
+    public void heartRecord() {
+        decoder.decodeDynamicHeartRate(heart, listener);
+    }
+
+    @Benchmark
+    public Map<String, Object> sleepLegacy() {
+        return LegacyResolveUtil.getSleepData(sleep);
+    }
+
+    @Benchmark
+    public Map<String, Object> sleepMap() {
+        return ResolveUtil.getSleepData(sleep);
+    }
+
+    @Benchmark
+    public void sleepRecord() {
+        decoder.decodeSleep(sleep, listener);
+    }
+
+    static final class BlackholeListener implements RecordListener2025 {
+        private final Blackhole blackhole;
+
+        BlackholeListener(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void onTotalActivity(TotalActivityRecord record) {
+            blackhole.consume(record.getStep());
+        }
+
+        @Override
+        public void onDetailActivity(DetailActivityRecord record) {
+            blackhole.consume(record.getStep());
+            blackhole.consume(record.getMinuteSteps());
+        }
+
+        @Override
+        public void onSleep(SleepRecord record) {
+            blackhole.consume(record.getQualityCount());
+            blackhole.consume(record.getQuality());
+        }
+
+        @Override
+        public void onDynamicHeartRate(DynamicHeartRateRecord record) {
+            blackhole.consume(record.getHeartRates());
+        }
+
+        @Override
+        public void onStaticHeartRate(StaticHeartRateRecord record) {
+            blackhole.consume(record.getHeartRate());
+        }
+
+        @Override
+        public void onHrv(HrvRecord record) {
+            blackhole.consume(record.getHrv());
+        }
+
+        @Override
+        public void onBloodOxygen(BloodOxygenRecord record) {
+            blackhole.consume(record.getBloodOxygen());
+        }
+
+        @Override
+        public void onTemperature(TemperatureRecord record) {
+            blackhole.consume(record.getTemperature());
+        }
+
+        @Override
+        public void onExercise(ExerciseRecord record) {
+            blackhole.consume(record.getStep());
+        }
+
+        @Override
+        public void onPageEnd(String dataType, int recordCount, boolean end) {
+            blackhole.consume(recordCount);
+        }
+    }
+}
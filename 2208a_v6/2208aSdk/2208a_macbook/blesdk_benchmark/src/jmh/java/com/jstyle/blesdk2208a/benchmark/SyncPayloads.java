@@ -0,0 +1,94 @@
+package com.jstyle.blesdk2208a.benchmark;
+
+import com.jstyle.blesdk2208a.Util.ResolveUtil;
+import com.jstyle.blesdk2208a.constant.DeviceConst;
+
+import java.util.Random;
+
+/**
+ * 按协议格式生成一包历史数据 (和手环同步时每次通知的长度一致)
+ */
+
+final class SyncPayloads {
+    /**
+     * 244字节MTU下每包的记录条数
+     */
+    static final int DETAIL_RECORDS = 9;
+    static final int HEART_RECORDS = 10;
+    static final int SLEEP_RECORDS = 7;
+
+    private SyncPayloads() {
+    }
+
+    static byte[] detail(long seed) {
+        Random random = new Random(seed);
+        byte[] value = page(DeviceConst.CMD_Get_DetailData, 25, DETAIL_RECORDS);
+        for (int i = 0; i < DETAIL_RECORDS; i++) {
+            int offset = i * 25;
+            header(value, offset, DeviceConst.CMD_Get_DetailData, i, i * 10);
+            int total = 0;
+            for (int j = 0; j < 10; j++) {
+                int step = random.nextInt(180);
+                value[15 + j + offset] = (byte) step;
+                total += step;
+            }
+            putU16(value, 9 + offset, total);
+            putU16(value, 11 + offset, total * 4);
+            putU16(value, 13 + offset, total * 70);
+        }
+        return value;
+    }
+
+    static byte[] heart(long seed) {
+        Random random = new Random(seed);
+        byte[] value = page(DeviceConst.CMD_Get_HeartData, 24, HEART_RECORDS);
+        for (int i = 0; i < HEART_RECORDS; i++) {
+            int offset = i * 24;
+            header(value, offset, DeviceConst.CMD_Get_HeartData, i, i);
+            for (int j = 0; j < 15; j++) {
+                value[9 + j + offset] = (byte) (55 + random.nextInt(90));
+            }
+        }
+        return value;
+    }
+
+    static byte[] sleep(long seed) {
+        Random random = new Random(seed);
+        byte[] value = page(DeviceConst.CMD_Get_SleepData, 34, SLEEP_RECORDS);
+        for (int i = 0; i < SLEEP_RECORDS; i++) {
+            int offset = i * 34;
+            header(value, offset, DeviceConst.CMD_Get_SleepData, i, i * 120);
+            value[9 + offset] = 24;
+            for (int j = 0; j < 24; j++) {
+                value[10 + j + offset] = (byte) random.nextInt(4);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 记录后面加上结束标志 (opcode, 0xff)
+     */
+    private static byte[] page(byte cmd, int recordLength, int records) {
+        byte[] value = new byte[recordLength * records + 2];
+        value[value.length - 2] = cmd;
+        value[value.length - 1] = (byte) 0xff;
+        return value;
+    }
+
+    private static void header(byte[] value, int offset, byte cmd, int id, int minutes) {
+        value[offset] = cmd;
+        putU16(value, 1 + offset, id);
+        value[3 + offset] = ResolveUtil.getTimeValue(24);
+        value[4 + offset] = ResolveUtil.getTimeValue(5);
+        value[5 + offset] = ResolveUtil.getTimeValue(17 + minutes / 1440);
+        value[6 + offset] = ResolveUtil.getTimeValue(minutes / 60 % 24);
+        value[7 + offset] = ResolveUtil.getTimeValue(minutes % 60);
+        value[8 + offset] = ResolveUtil.getTimeValue(0);
+    }
+
+    private static void putU16(byte[] value, int offset, int data) {
+        value[offset] = (byte) data;
+        value[offset + 1] = (byte) (data >> 8);
+    }
+}
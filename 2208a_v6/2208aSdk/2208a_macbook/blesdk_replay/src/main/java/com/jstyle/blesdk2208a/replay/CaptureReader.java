@@ -0,0 +1,160 @@
+package com.jstyle.blesdk2208a.replay;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 读取抓包文件，全部读入内存后再回放，文件IO不计入解析耗时
+ * Two formats are recognised by their first bytes:
+ * the binary capture of BleCapture (magic "BTC1", then time | direction | MAC |
+ * length | bytes per packet, big endian) and the text log, either the old
+ * SDUtil.saveBTLog lines ("Receiving: AA BB ..", "writeValue: AA BB ..") or the
+ * text export of a capture that has a time and MAC in front of them.
+ */
+
+public class CaptureReader {
+    private static final byte[] MAGIC = {'B', 'T', 'C', '1'};
+    private static final String RECEIVING = "Receiving:";
+    private static final String WRITE_VALUE = "writeValue:";
+    private static final String TIME_PATTERN = "yyyy-MM-dd HH:mm:ss.SSS";
+
+    private int skippedLines;
+
+    /**
+     * 无法解析的文本行数，如其他日志或截断的行
+     */
+    public int getSkippedLines() {
+        return skippedLines;
+    }
+
+    public List<CapturedFrame> read(File file) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            in.mark(MAGIC.length);
+            byte[] head = new byte[MAGIC.length];
+            int count = in.read(head);
+            in.reset();
+            if (count == MAGIC.length && Arrays.equals(head, MAGIC)) {
+                return readBinary(in);
+            }
+        } finally {
+            in.close();
+        }
+        return readText(file);
+    }
+
+    private List<CapturedFrame> readBinary(InputStream stream) throws IOException {
+        List<CapturedFrame> frames = new ArrayList<>();
+        DataInputStream in = new DataInputStream(stream);
+        in.skipBytes(MAGIC.length);
+        byte[] mac = new byte[6];
+        try {
+            for (; ; ) {
+                long time = in.readLong();
+                int direction = in.readUnsignedByte();
+                in.readFully(mac);
+                byte[] value = new byte[in.readUnsignedShort()];
+                in.readFully(value);
+                frames.add(new CapturedFrame(time, direction, formatAddress(mac), value));
+            }
+        } catch (EOFException ignored) {
+            //最后一条可能没有写完整
+        }
+        return frames;
+    }
+
+    private List<CapturedFrame> readText(File file) throws IOException {
+        List<CapturedFrame> frames = new ArrayList<>();
+        SimpleDateFormat format = new SimpleDateFormat(TIME_PATTERN, Locale.ENGLISH);
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) continue;
+                CapturedFrame frame = parseLine(line, format);
+                if (frame == null) {
+                    skippedLines++;
+                } else {
+                    frames.add(frame);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return frames;
+    }
+
+    private static CapturedFrame parseLine(String line, SimpleDateFormat format) {
+        int direction = CapturedFrame.RX;
+        int index = line.indexOf(RECEIVING);
+        int start = index + RECEIVING.length();
+        if (index < 0) {
+            direction = CapturedFrame.TX;
+            index = line.indexOf(WRITE_VALUE);
+            start = index + WRITE_VALUE.length();
+        }
+        if (index < 0) return null;
+        byte[] value = parseHex(line, start);
+        if (value == null) return null;
+        long time = CapturedFrame.UNKNOWN_TIME;
+        String address = null;
+        String prefix = line.substring(0, index).trim();
+        if (prefix.length() >= TIME_PATTERN.length()) {
+            try {
+                time = format.parse(prefix.substring(0, TIME_PATTERN.length())).getTime();
+            } catch (ParseException ignored) {
+            }
+            String rest = prefix.substring(TIME_PATTERN.length()).trim();
+            if (!rest.isEmpty()) address = rest.toUpperCase(Locale.ENGLISH);
+        }
+        return new CapturedFrame(time, direction, address, value);
+    }
+
+    /**
+     * "AA BB CC " 转为字节，不是十六进制时返回null
+     */
+    static byte[] parseHex(String line, int start) {
+        byte[] value = new byte[(line.length() - start) / 2];
+        int length = 0;
+        int high = -1;
+        for (int i = start; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == ' ') {
+                if (high >= 0) return null;
+                continue;
+            }
+            int digit = Character.digit(c, 16);
+            if (digit < 0) return null;
+            if (high < 0) {
+                high = digit;
+            } else {
+                value[length++] = (byte) ((high << 4) | digit);
+                high = -1;
+            }
+        }
+        if (high >= 0 || length == 0) return null;
+        return Arrays.copyOf(value, length);
+    }
+
+    private static String formatAddress(byte[] mac) {
+        StringBuilder builder = new StringBuilder(17);
+        for (int i = 0; i < mac.length; i++) {
+            if (i > 0) builder.append(':');
+            builder.append(String.format("%02X", mac[i]));
+        }
+        return builder.toString();
+    }
+}
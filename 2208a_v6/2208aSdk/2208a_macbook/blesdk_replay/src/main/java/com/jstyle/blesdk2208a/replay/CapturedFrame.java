@@ -0,0 +1,26 @@
+package com.jstyle.blesdk2208a.replay;
+
+/**
+ * 抓包中的一包数据
+ */
+
+public class CapturedFrame {
+    public static final int RX = 0;
+    public static final int TX = 1;
+    /**
+     * 旧的文本log没有时间和地址
+     */
+    public static final long UNKNOWN_TIME = -1;
+
+    public final long timeMillis;
+    public final int direction;
+    public final String address;
+    public final byte[] value;
+
+    public CapturedFrame(long timeMillis, int direction, String address, byte[] value) {
+        this.timeMillis = timeMillis;
+        this.direction = direction;
+        this.address = address;
+        this.value = value;
+    }
+}
@@ -0,0 +1,53 @@
+package com.jstyle.blesdk2208a.replay;
+
+/**
+ * 耗时直方图，按2的幂分桶
+ * Bucket i counts the values in [2^(i-1), 2^i) nanoseconds, bucket 0 the zeros.
+ * Percentiles are the upper bound of their bucket, so they are accurate to a
+ * factor of two; count, mean and max are exact.
+ */
+
+public class LatencyHistogram {
+    private final long[] buckets = new long[64];
+    private long count;
+    private long total;
+    private long max;
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        buckets[64 - Long.numberOfLeadingZeros(nanos)]++;
+        count++;
+        total += nanos;
+        if (nanos > max) max = nanos;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return total;
+    }
+
+    public long getMaxNanos() {
+        return max;
+    }
+
+    public double getMeanNanos() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * @param percentile 0-100
+     */
+    public long getPercentileNanos(double percentile) {
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) return i == 0 ? 0 : Math.min(max, (1L << i) - 1);
+        }
+        return max;
+    }
+}
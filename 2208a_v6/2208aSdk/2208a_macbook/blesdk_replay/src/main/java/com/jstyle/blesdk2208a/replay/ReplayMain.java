@@ -0,0 +1,55 @@
+package com.jstyle.blesdk2208a.replay;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 回放命令行入口
+ * ./gradlew :blesdk_replay:run --args="[--speed 1] [--warmup 3] [--repeat 10] capture.bin log.txt"
+ * Files are replayed in the given order. --speed 0 (default) runs at max speed,
+ * --speed 1 keeps the original timing of binary captures.
+ */
+
+public class ReplayMain {
+
+    public static void main(String[] args) throws Exception {
+        double speed = 0;
+        int warmup = 0;
+        int repeat = 1;
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("--speed".equals(arg) && i + 1 < args.length) {
+                speed = Double.parseDouble(args[++i]);
+            } else if ("--warmup".equals(arg) && i + 1 < args.length) {
+                warmup = Integer.parseInt(args[++i]);
+            } else if ("--repeat".equals(arg) && i + 1 < args.length) {
+                repeat = Math.max(1, Integer.parseInt(args[++i]));
+            } else {
+                files.add(new File(arg));
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("usage: ReplayMain [--speed x] [--warmup n] [--repeat n] file...");
+            System.exit(2);
+        }
+        CaptureReader reader = new CaptureReader();
+        List<CapturedFrame> capture = new ArrayList<>();
+        for (File file : files) {
+            capture.addAll(reader.read(file));
+        }
+        System.out.println("loaded " + capture.size() + " frames from " + files.size() + " files, skipped lines " + reader.getSkippedLines());
+        Replayer replayer = new Replayer();
+        replayer.setRecording(false);
+        for (int i = 0; i < warmup; i++) {
+            replayer.replay(capture, 0);
+        }
+        replayer.setRecording(true);
+        for (int i = 0; i < repeat; i++) {
+            replayer.replay(capture, speed);
+        }
+        System.out.print(replayer.report());
+        if (replayer.getErrors() > 0) System.exit(1);
+    }
+}
@@ -0,0 +1,214 @@
+package com.jstyle.blesdk2208a.replay;
+
+import com.jstyle.blesdk2208a.Util.FrameDispatcher;
+import com.jstyle.blesdk2208a.Util.RecordFramer;
+import com.jstyle.blesdk2208a.callback.DataListener2025;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把抓包数据按手机上的顺序送入解析器
+ * Every address gets its own RecordFramer and FrameDispatcher, like one
+ * BleConnection: written commands go to onCommand of both, notifications are
+ * reassembled by the framer and the pages dispatched. Only this part is timed,
+ * per opcode of the dispatched page. Exceptions thrown by a decoder are counted
+ * and the replay goes on with the next frame. Empty records have no opcode, they
+ * are counted as skipped and not fed.
+ */
+
+public class Replayer {
+    public static final int MAX_ERROR_SAMPLES = 20;
+
+    private final Map<String, Session> sessions = new HashMap<>();
+    private final LatencyHistogram[] histograms = new LatencyHistogram[256];
+    private final long[] errorCounts = new long[256];
+    private final List<String> errorSamples = new ArrayList<>();
+    private final Sink sink = new Sink();
+    private long frames;
+    private long commands;
+    private long emptyFrames;
+    private long pages;
+    private long bytes;
+    private long decodeNanos;
+    private boolean recording = true;
+
+    /**
+     * 预热时不计入统计
+     */
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * @param speed 0为最快速度，1为原始时间间隔，2为两倍速；没有时间的旧log总是最快速度
+     */
+    public void replay(List<CapturedFrame> capture, double speed) throws InterruptedException {
+        long firstTime = CapturedFrame.UNKNOWN_TIME;
+        long start = System.nanoTime();
+        for (int i = 0; i < capture.size(); i++) {
+            CapturedFrame frame = capture.get(i);
+            if (speed > 0 && frame.timeMillis != CapturedFrame.UNKNOWN_TIME) {
+                if (firstTime == CapturedFrame.UNKNOWN_TIME) firstTime = frame.timeMillis;
+                long due = start + (long) ((frame.timeMillis - firstTime) * 1000000L / speed);
+                long wait = due - System.nanoTime();
+                if (wait > 0) Thread.sleep(wait / 1000000L, (int) (wait % 1000000L));
+            }
+            feed(frame, i);
+        }
+    }
+
+    private void feed(CapturedFrame frame, int index) {
+        Session session = session(frame.address);
+        byte[] value = frame.value;
+        if (value == null || value.length == 0) {
+            if (recording) emptyFrames++;
+            return;
+        }
+        if (frame.direction == CapturedFrame.TX) {
+            session.framer.onCommand(value);
+            session.dispatcher.onCommand(value);
+            if (recording) commands++;
+            return;
+        }
+        int cmd = value[0] & 0xff;
+        boolean dispatched = false;
+        long begin = System.nanoTime();
+        try {
+            byte[] page = session.framer.feed(value);
+            if (page != null) {
+                cmd = page[0] & 0xff;
+                session.dispatcher.dispatch(page, sink);
+                dispatched = true;
+            }
+        } catch (RuntimeException e) {
+            if (recording) onError(cmd, index, value, e);
+        }
+        long nanos = System.nanoTime() - begin;
+        if (!recording) return;
+        frames++;
+        bytes += value.length;
+        decodeNanos += nanos;
+        if (dispatched) pages++;
+        LatencyHistogram histogram = histograms[cmd];
+        if (histogram == null) histogram = histograms[cmd] = new LatencyHistogram();
+        histogram.record(nanos);
+    }
+
+    private void onError(int cmd, int index, byte[] value, RuntimeException e) {
+        errorCounts[cmd]++;
+        if (errorSamples.size() >= MAX_ERROR_SAMPLES) return;
+        StackTraceElement[] trace = e.getStackTrace();
+        StringBuilder builder = new StringBuilder();
+        builder.append("#").append(index).append(" 0x").append(String.format("%02X", cmd)).append(' ').append(e);
+        if (trace.length > 0) builder.append(" at ").append(trace[0]);
+        builder.append("\n    ").append(toHex(value));
+        //重复回放时同一包只记一次
+        String sample = builder.toString();
+        if (!errorSamples.contains(sample)) errorSamples.add(sample);
+    }
+
+    private Session session(String address) {
+        Session session = sessions.get(address);
+        if (session == null) {
+            session = new Session();
+            sessions.put(address, session);
+        }
+        return session;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * 没有数据的记录，没有送入解析器
+     */
+    public long getEmptyFrames() {
+        return emptyFrames;
+    }
+
+    public long getPages() {
+        return pages;
+    }
+
+    public long getMaps() {
+        return sink.maps;
+    }
+
+    public long getErrors() {
+        long errors = 0;
+        for (long count : errorCounts) errors += count;
+        return errors;
+    }
+
+    /**
+     * @return null if no notification had this opcode
+     */
+    public LatencyHistogram getHistogram(int cmd) {
+        return histograms[cmd & 0xff];
+    }
+
+    public List<String> getErrorSamples() {
+        return errorSamples;
+    }
+
+    /**
+     * 吞吐量和每个命令字的耗时分布
+     */
+    public String report() {
+        StringBuilder builder = new StringBuilder();
+        double seconds = decodeNanos / 1e9;
+        builder.append(String.format("frames %d (commands %d, empty %d), pages %d, maps %d, bytes %d, errors %d%n",
+                frames, commands, emptyFrames, pages, sink.maps, bytes, getErrors()));
+        if (seconds > 0) {
+            builder.append(String.format("decode time %.3f ms, %.0f frames/s, %.2f MB/s%n",
+                    decodeNanos / 1e6, frames / seconds, bytes / seconds / 1e6));
+        }
+        builder.append(String.format("%-6s %10s %10s %10s %10s %10s %10s %8s%n",
+                "cmd", "frames", "mean(ns)", "p50(ns)", "p99(ns)", "p99.9(ns)", "max(ns)", "errors"));
+        for (int cmd = 0; cmd < histograms.length; cmd++) {
+            LatencyHistogram histogram = histograms[cmd];
+            if (histogram == null) continue;
+            builder.append(String.format("0x%02X   %10d %10.0f %10d %10d %10d %10d %8d%n", cmd,
+                    histogram.getCount(), histogram.getMeanNanos(), histogram.getPercentileNanos(50),
+                    histogram.getPercentileNanos(99), histogram.getPercentileNanos(99.9),
+                    histogram.getMaxNanos(), errorCounts[cmd]));
+        }
+        for (String sample : errorSamples) {
+            builder.append(sample).append(String.format("%n"));
+        }
+        return builder.toString();
+    }
+
+    static String toHex(byte[] value) {
+        StringBuilder builder = new StringBuilder(value.length * 3);
+        for (byte b : value) {
+            builder.append(String.format("%02X ", b));
+        }
+        return builder.toString();
+    }
+
+    private static class Session {
+        final RecordFramer framer = new RecordFramer();
+        final FrameDispatcher dispatcher = new FrameDispatcher();
+    }
+
+    /**
+     * 只计数，保证解析结果被使用
+     */
+    private static class Sink implements DataListener2025 {
+        long maps;
+
+        @Override
+        public void dataCallback(Map<String, Object> maps) {
+            if (maps != null) this.maps++;
+        }
+
+        @Override
+        public void dataCallback(byte[] value) {
+        }
+    }
+}